@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DefaultOrganisationConverter;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationConverter;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationParentConverter;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationPredecessorConverter;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.sqldatabase.Row;
+
+/**
+ * DbToCoraConverterBenchmark measures the throughput of the converters used for every organisation
+ * and user row read from the classic database, using synthetic rows with the columns read from the
+ * organisation, parent, predecessor and user views. Run with -prof gc to also get the number of
+ * bytes allocated per operation (gc.alloc.rate.norm). The rows are {@link RowSpy}s from the tests.
+ * <p>
+ * The data classes used by the converters are the implementations from basicdata found by the
+ * data providers on the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DbToCoraConverterBenchmark {
+
+	@Param({ "root", "top", "sub" })
+	public String organisationLevel;
+
+	private Row organisationRow;
+	private Row parentRow;
+	private Row predecessorRow;
+	private Row userRow;
+	private DivaDbToCoraOrganisationConverter organisationConverter;
+	private DefaultOrganisationConverter defaultOrganisationConverter;
+	private DivaDbToCoraOrganisationParentConverter parentConverter;
+	private DivaDbToCoraOrganisationPredecessorConverter predecessorConverter;
+	private DivaDbToCoraUserConverter userConverter;
+
+	@Setup
+	public void setUp() {
+		organisationRow = createOrganisationRow();
+		parentRow = createParentRow();
+		predecessorRow = createPredecessorRow();
+		userRow = createUserRow();
+		organisationConverter = new DivaDbToCoraOrganisationConverter(
+				new DefaultConverterFactoryImp());
+		defaultOrganisationConverter = new DefaultOrganisationConverter();
+		parentConverter = new DivaDbToCoraOrganisationParentConverter();
+		predecessorConverter = new DivaDbToCoraOrganisationPredecessorConverter();
+		userConverter = new DivaDbToCoraUserConverter();
+	}
+
+	private Row createOrganisationRow() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("id", 57);
+		row.addColumnWithValue("type_code", "root".equals(organisationLevel) ? "root" : "unit");
+		row.addColumnWithValue("top_level", "top".equals(organisationLevel));
+		row.addColumnWithValue("not_eligible", false);
+		row.addColumnWithValue("domain", "uu");
+		row.addColumnWithValue("defaultname", "Institutionen f\u00f6r informationsteknologi");
+		row.addColumnWithValue("organisation_name_locale", "sv");
+		row.addColumnWithValue("alternative_name", "Department of Information Technology");
+		row.addColumnWithValue("closed_date", Date.valueOf("2020-12-31"));
+		row.addColumnWithValue("city", "Uppsala");
+		row.addColumnWithValue("street", "L\u00e4gerhyddsv\u00e4gen 2");
+		row.addColumnWithValue("postbox", "Box 337");
+		row.addColumnWithValue("postnumber", "75105");
+		row.addColumnWithValue("country_code", "se");
+		row.addColumnWithValue("orgnumber", "202100-2932");
+		row.addColumnWithValue("organisation_code", "IT");
+		row.addColumnWithValue("organisation_homepage", "https://www.it.uu.se");
+		row.addColumnWithValue("show_in_defence", true);
+		return row;
+	}
+
+	private Row createParentRow() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_id", 57);
+		row.addColumnWithValue("organisation_parent_id", 52);
+		row.addColumnWithValue("coraorganisationtype", "topOrganisation");
+		return row;
+	}
+
+	private Row createPredecessorRow() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_id", 57);
+		row.addColumnWithValue("organisation_predecessor_id", 12);
+		row.addColumnWithValue("coraorganisationtype", "subOrganisation");
+		row.addColumnWithValue("description", "Sammanslagen med institutionen f\u00f6r data");
+		return row;
+	}
+
+	private Row createUserRow() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("db_id", 1234);
+		row.addColumnWithValue("first_name", "Kalle");
+		row.addColumnWithValue("last_name", "Kula");
+		return row;
+	}
+
+	@Benchmark
+	public DataGroup organisationConverter() {
+		return organisationConverter.fromRow(organisationRow);
+	}
+
+	@Benchmark
+	public DataGroup defaultOrganisationConverter() {
+		return defaultOrganisationConverter.fromMap(organisationRow);
+	}
+
+	@Benchmark
+	public DataGroup parentConverter() {
+		return parentConverter.fromRow(parentRow);
+	}
+
+	@Benchmark
+	public DataGroup predecessorConverter() {
+		return predecessorConverter.fromRow(predecessorRow);
+	}
+
+	@Benchmark
+	public DataGroup userConverter() {
+		return userConverter.fromRow(userRow);
+	}
+}
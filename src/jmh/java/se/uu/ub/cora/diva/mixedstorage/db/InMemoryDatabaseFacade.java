@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
+
+/**
+ * InMemoryDatabaseFacade is a DatabaseFacade that answers reads and counts from rows kept in
+ * memory per table, and values read from sequences from a shared counter. Executed sqls do not
+ * change the rows, they are only counted, so that the same update can be run over and over again.
+ */
+public final class InMemoryDatabaseFacade implements DatabaseFacade {
+	private static final String SEQUENCE_SQL_START = "select nextval(";
+	static final String COUNT_COLUMN = "count";
+
+	private final Map<String, List<Row>> rowsForTable;
+	private final AtomicLong sequence;
+	private long executedSqlCount = 0;
+	private long executedValueCount = 0;
+
+	InMemoryDatabaseFacade(Map<String, List<Row>> rowsForTable, AtomicLong sequence) {
+		this.rowsForTable = rowsForTable;
+		this.sequence = sequence;
+	}
+
+	@Override
+	public List<Row> readUsingSqlAndValues(String sql, List<Object> values) {
+		if (sql.startsWith(SEQUENCE_SQL_START)) {
+			return readBlockFromSequence((int) values.get(1));
+		}
+		if (sql.startsWith(InMemoryTableQuery.COUNT_SQL_START)) {
+			return countRowsForTable(sql);
+		}
+		return readRowsForTable(sql);
+	}
+
+	private List<Row> readBlockFromSequence(int blockSize) {
+		List<Row> rows = new ArrayList<>(blockSize);
+		for (int i = 0; i < blockSize; i++) {
+			RowSpy row = new RowSpy();
+			row.addColumnWithValue("nextval", sequence.incrementAndGet());
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private List<Row> countRowsForTable(String sql) {
+		String tableName = sql.substring(InMemoryTableQuery.COUNT_SQL_START.length());
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue(COUNT_COLUMN, (long) getRowsForTable(tableName).size());
+		return List.of(row);
+	}
+
+	private List<Row> readRowsForTable(String sql) {
+		String tableName = sql.substring(InMemoryTableQuery.READ_SQL_START.length());
+		return getRowsForTable(tableName);
+	}
+
+	private List<Row> getRowsForTable(String tableName) {
+		return rowsForTable.getOrDefault(tableName, Collections.emptyList());
+	}
+
+	@Override
+	public Row readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values) {
+		List<Row> rows = readUsingSqlAndValues(sql, values);
+		if (rows.size() != 1) {
+			throw SqlDatabaseException.withMessage("Expected one row, found: " + rows.size());
+		}
+		return rows.get(0);
+	}
+
+	@Override
+	public int executeSqlWithValues(String sql, List<Object> values) {
+		executedSqlCount++;
+		executedValueCount += values.size();
+		return 1;
+	}
+
+	@Override
+	public void startTransaction() {
+		// writes are not kept, so there is nothing to commit or roll back
+	}
+
+	@Override
+	public void endTransaction() {
+		// writes are not kept, so there is nothing to commit or roll back
+	}
+
+	@Override
+	public void rollback() {
+		// writes are not kept, so there is nothing to commit or roll back
+	}
+
+	@Override
+	public void close() {
+		// nothing to close
+	}
+
+	public long getExecutedSqlCount() {
+		return executedSqlCount;
+	}
+
+	public long getExecutedValueCount() {
+		return executedValueCount;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * InMemorySqlDatabaseFactory factors {@link InMemoryDatabaseFacade}s, {@link InMemoryTableFacade}s
+ * and {@link InMemoryTableQuery}s that share the rows set using
+ * {@link #setRowsForTable(String, List)} and one sequence counter.
+ */
+public final class InMemorySqlDatabaseFactory implements SqlDatabaseFactory {
+	private final Map<String, List<Row>> rowsForTable = new ConcurrentHashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	public void setRowsForTable(String tableName, List<Row> rows) {
+		rowsForTable.put(tableName, rows);
+	}
+
+	@Override
+	public InMemoryDatabaseFacade factorDatabaseFacade() {
+		return new InMemoryDatabaseFacade(rowsForTable, sequence);
+	}
+
+	@Override
+	public TableFacade factorTableFacade() {
+		return new InMemoryTableFacade(factorDatabaseFacade());
+	}
+
+	@Override
+	public TableQuery factorTableQuery(String tableName) {
+		return new InMemoryTableQuery(tableName);
+	}
+}
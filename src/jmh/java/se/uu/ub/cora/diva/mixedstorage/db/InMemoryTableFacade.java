@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.List;
+
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * InMemoryTableFacade is a TableFacade that runs the sqls assembled by {@link InMemoryTableQuery}
+ * using an {@link InMemoryDatabaseFacade}, so that reads, counts and sequences answer from the
+ * same rows and sequence counter as the database facade, and writes are counted by it.
+ */
+public final class InMemoryTableFacade implements TableFacade {
+	private static final String SEQUENCE_SQL = "select nextval(cast(? as regclass)) as "
+			+ "nextval from generate_series(1, ?)";
+
+	private final InMemoryDatabaseFacade databaseFacade;
+
+	InMemoryTableFacade(InMemoryDatabaseFacade databaseFacade) {
+		this.databaseFacade = databaseFacade;
+	}
+
+	@Override
+	public void insertRowUsingQuery(TableQuery tableQuery) {
+		databaseFacade.executeSqlWithValues(tableQuery.assembleCreateSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public List<Row> readRowsForQuery(TableQuery tableQuery) {
+		return databaseFacade.readUsingSqlAndValues(tableQuery.assembleReadSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public Row readOneRowForQuery(TableQuery tableQuery) {
+		return databaseFacade.readOneRowOrFailUsingSqlAndValues(tableQuery.assembleReadSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public long readNumberOfRows(TableQuery tableQuery) {
+		Row row = databaseFacade.readOneRowOrFailUsingSqlAndValues(tableQuery.assembleCountSql(),
+				tableQuery.getQueryValues());
+		return (long) row.getValueByColumn(InMemoryDatabaseFacade.COUNT_COLUMN);
+	}
+
+	@Override
+	public int updateRowsUsingQuery(TableQuery tableQuery) {
+		return databaseFacade.executeSqlWithValues(tableQuery.assembleUpdateSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public int deleteRowsForQuery(TableQuery tableQuery) {
+		return databaseFacade.executeSqlWithValues(tableQuery.assembleDeleteSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public long nextValueFromSequence(String sequenceName) {
+		Row row = databaseFacade.readOneRowOrFailUsingSqlAndValues(SEQUENCE_SQL,
+				List.of(sequenceName, 1));
+		return (long) row.getValueByColumn("nextval");
+	}
+
+	@Override
+	public void startTransaction() {
+		databaseFacade.startTransaction();
+	}
+
+	@Override
+	public void endTransaction() {
+		databaseFacade.endTransaction();
+	}
+
+	@Override
+	public void rollback() {
+		databaseFacade.rollback();
+	}
+
+	@Override
+	public void close() {
+		databaseFacade.close();
+	}
+}
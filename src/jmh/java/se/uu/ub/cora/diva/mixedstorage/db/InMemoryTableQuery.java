@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * InMemoryTableQuery is a TableQuery used by {@link InMemoryDatabaseFacade}. The read and count
+ * sqls only name the table, as the in memory database returns the same rows for a table whatever
+ * the conditions are. Create, update and delete sqls name the table, parameters and conditions,
+ * they are only counted by the in memory database.
+ */
+public final class InMemoryTableQuery implements TableQuery {
+	static final String READ_SQL_START = "select * from ";
+	static final String COUNT_SQL_START = "select count(*) from ";
+
+	private final String tableName;
+	private final List<String> parameterNames = new ArrayList<>();
+	private final List<Object> parameterValues = new ArrayList<>();
+	private final List<String> conditionNames = new ArrayList<>();
+	private final List<Object> conditionValues = new ArrayList<>();
+
+	public InMemoryTableQuery(String tableName) {
+		this.tableName = tableName;
+	}
+
+	@Override
+	public void addParameter(String name, Object value) {
+		parameterNames.add(name);
+		parameterValues.add(value);
+	}
+
+	@Override
+	public void addCondition(String name, Object value) {
+		conditionNames.add(name);
+		conditionValues.add(value);
+	}
+
+	@Override
+	public void setFromNo(Long fromNo) {
+		// not used in in memory reads
+	}
+
+	@Override
+	public void setToNo(Long toNo) {
+		// not used in in memory reads
+	}
+
+	@Override
+	public void addOrderByAsc(String column) {
+		// not used in in memory reads
+	}
+
+	@Override
+	public void addOrderByDesc(String column) {
+		// not used in in memory reads
+	}
+
+	@Override
+	public String assembleCreateSql() {
+		String placeholders = parameterNames.stream().map(name -> "?")
+				.collect(Collectors.joining(", "));
+		return "insert into " + tableName + "(" + String.join(", ", parameterNames) + ") values("
+				+ placeholders + ")";
+	}
+
+	@Override
+	public String assembleReadSql() {
+		return READ_SQL_START + tableName;
+	}
+
+	@Override
+	public String assembleUpdateSql() {
+		return "update " + tableName + " set " + joinAsPlaceholders(parameterNames, ", ")
+				+ assembleWhere();
+	}
+
+	@Override
+	public String assembleDeleteSql() {
+		return "delete from " + tableName + assembleWhere();
+	}
+
+	private String assembleWhere() {
+		if (conditionNames.isEmpty()) {
+			return "";
+		}
+		return " where " + joinAsPlaceholders(conditionNames, " and ");
+	}
+
+	private String joinAsPlaceholders(List<String> names, String delimiter) {
+		return names.stream().map(name -> name + " = ?").collect(Collectors.joining(delimiter));
+	}
+
+	@Override
+	public List<Object> getQueryValues() {
+		List<Object> queryValues = new ArrayList<>(parameterValues);
+		queryValues.addAll(conditionValues);
+		return queryValues;
+	}
+
+	@Override
+	public String assembleCountSql() {
+		return COUNT_SQL_START + tableName;
+	}
+}
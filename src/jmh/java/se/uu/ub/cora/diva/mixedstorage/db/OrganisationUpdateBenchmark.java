@@ -0,0 +1,302 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbOrganisationUpdater;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.diva.mixedstorage.internal.RelatedTableFactoryImp;
+import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+
+/**
+ * OrganisationUpdateBenchmark measures the latency of updating an organisation using
+ * {@link DivaDbOrganisationUpdater}, wired as in {@link DivaDbUpdaterFactoryImp}, from translating
+ * the dataGroup to executing the batched statements. The database is replaced by
+ * {@link InMemorySqlDatabaseFactory}, so the result shows the cost of the updater itself.
+ * <p>
+ * The organisation has parentCount parents and predecessorCount predecessors in the database, and
+ * the dataGroup keeps half of them and adds as many new ones, so that every update both inserts
+ * and deletes parents, predecessors and predecessor descriptions. As writes are not kept by the
+ * in memory database, every update is the same. The number of updates, dbStatements, executed
+ * sqls and values in each iteration are reported as the secondary results updates, dbStatements,
+ * executedSqls and values, dividing them by updates gives the numbers per update. Run with -prof
+ * gc to also get the number of bytes allocated per update (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrganisationUpdateBenchmark {
+	private static final int ORGANISATION_ID = 57;
+	private static final int FIRST_PARENT_ID = 1000;
+	private static final int FIRST_PREDECESSOR_ID = 5000;
+
+	@Param({ "0", "10", "50", "200" })
+	public int parentCount;
+
+	@Param({ "0", "10", "50", "200" })
+	public int predecessorCount;
+
+	private DivaDbOrganisationUpdater updater;
+	private CountingStatementExecutor statementExecutor;
+	private InMemoryDatabaseFacade databaseFacade;
+	private DataGroup organisation;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		InMemorySqlDatabaseFactory sqlDatabaseFactory = createSqlDatabaseFactoryWithRows();
+		DataToDbTranslater translater = new DivaDataToDbTranslaterFactoryImp(sqlDatabaseFactory)
+				.factorForTableName("organisation");
+		RelatedTableFactory relatedTableFactory = RelatedTableFactoryImp
+				.usingReaderDeleterAndCreator(sqlDatabaseFactory);
+		statementExecutor = new CountingStatementExecutor(
+				new BatchingStatementExecutorImp(new SqlTemplateCache()));
+		updater = new DivaDbOrganisationUpdater(translater, sqlDatabaseFactory,
+				relatedTableFactory, statementExecutor);
+		databaseFacade = sqlDatabaseFactory.factorDatabaseFacade();
+		organisation = createOrganisation();
+		update();
+	}
+
+	private InMemorySqlDatabaseFactory createSqlDatabaseFactoryWithRows() {
+		InMemorySqlDatabaseFactory sqlDatabaseFactory = new InMemorySqlDatabaseFactory();
+		sqlDatabaseFactory.setRowsForTable("organisation_type", createOrganisationTypeRows());
+		sqlDatabaseFactory.setRowsForTable("organisationview", List.of(createOrganisationRow()));
+		sqlDatabaseFactory.setRowsForTable("organisation_parent", createParentRows());
+		sqlDatabaseFactory.setRowsForTable("divaorganisationpredecessor",
+				createPredecessorRows());
+		return sqlDatabaseFactory;
+	}
+
+	private List<Row> createOrganisationTypeRows() {
+		return List.of(createOrganisationTypeRow("root", 49),
+				createOrganisationTypeRow("university", 50),
+				createOrganisationTypeRow("unit", 52));
+	}
+
+	private Row createOrganisationTypeRow(String code, int id) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_type_code", code);
+		row.addColumnWithValue("organisation_type_id", id);
+		return row;
+	}
+
+	private Row createOrganisationRow() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("id", ORGANISATION_ID);
+		row.addColumnWithValue("type_code", "unit");
+		row.addColumnWithValue("top_level", false);
+		row.addColumnWithValue("show_in_portal", false);
+		row.addColumnWithValue("not_eligible", false);
+		row.addColumnWithValue("defaultname", "Institutionen f\u00f6r informationsteknik");
+		row.addColumnWithValue("organisation_name_locale", "sv");
+		row.addColumnWithValue("organisation_name_id", 234);
+		row.addColumnWithValue("closed_date", null);
+		row.addColumnWithValue("organisation_code", "IT");
+		row.addColumnWithValue("orgnumber", "202100-2932");
+		row.addColumnWithValue("organisation_homepage", "https://www.it.uu.se");
+		row.addColumnWithValue("show_in_defence", true);
+		row.addColumnWithValue("address_id", 88);
+		row.addColumnWithValue("city", "Uppsala");
+		row.addColumnWithValue("street", "Polacksbacken");
+		row.addColumnWithValue("postbox", "Box 337");
+		row.addColumnWithValue("postnumber", "75105");
+		row.addColumnWithValue("country_code", "se");
+		return row;
+	}
+
+	private List<Row> createParentRows() {
+		List<Row> rows = new ArrayList<>(parentCount);
+		for (int i = 0; i < parentCount; i++) {
+			RowSpy row = new RowSpy();
+			row.addColumnWithValue("organisation_id", ORGANISATION_ID);
+			row.addColumnWithValue("organisation_parent_id", FIRST_PARENT_ID + i);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private List<Row> createPredecessorRows() {
+		List<Row> rows = new ArrayList<>(predecessorCount);
+		for (int i = 0; i < predecessorCount; i++) {
+			RowSpy row = new RowSpy();
+			row.addColumnWithValue("organisation_id", ORGANISATION_ID);
+			row.addColumnWithValue("organisation_predecessor_id", FIRST_PREDECESSOR_ID + i);
+			row.addColumnWithValue("description", "Beskrivning " + i);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private DataGroup createOrganisation() {
+		DataGroup dataGroup = DataGroupProvider.getDataGroupUsingNameInData("organisation");
+		dataGroup.addChild(createRecordInfo());
+		dataGroup.addChild(createNameGroup("organisationName",
+				"Institutionen f\u00f6r informationsteknologi", "sv"));
+		dataGroup.addChild(createNameGroup("organisationAlternativeName",
+				"Department of Information Technology", "en"));
+		dataGroup.addChild(createAtomic("organisationType", "unit"));
+		dataGroup.addChild(createAddress());
+		dataGroup.addChild(createAtomic("organisationCode", "IT"));
+		dataGroup.addChild(createAtomic("organisationNumber", "202100-2932"));
+		dataGroup.addChild(createAtomic("URL", "https://www.it.uu.se"));
+		dataGroup.addChild(createAtomic("doctoralDegreeGrantor", "yes"));
+		addParents(dataGroup);
+		addPredecessors(dataGroup);
+		return dataGroup;
+	}
+
+	private DataGroup createRecordInfo() {
+		DataGroup recordInfo = DataGroupProvider.getDataGroupUsingNameInData("recordInfo");
+		recordInfo.addChild(createAtomic("id", String.valueOf(ORGANISATION_ID)));
+		recordInfo.addChild(DataGroupProvider.getDataGroupAsLinkUsingNameInDataTypeAndId("type",
+				"recordType", "subOrganisation"));
+		recordInfo.addChild(createAtomic("selectable", "yes"));
+		return recordInfo;
+	}
+
+	private DataGroup createNameGroup(String nameInData, String name, String language) {
+		DataGroup nameGroup = DataGroupProvider.getDataGroupUsingNameInData(nameInData);
+		nameGroup.addChild(createAtomic("name", name));
+		nameGroup.addChild(createAtomic("language", language));
+		return nameGroup;
+	}
+
+	private DataGroup createAddress() {
+		DataGroup address = DataGroupProvider.getDataGroupUsingNameInData("address");
+		address.addChild(createAtomic("city", "Uppsala"));
+		address.addChild(createAtomic("street", "L\u00e4gerhyddsv\u00e4gen 2"));
+		address.addChild(createAtomic("box", "Box 337"));
+		address.addChild(createAtomic("postcode", "75105"));
+		address.addChild(createAtomic("country", "SE"));
+		return address;
+	}
+
+	private void addParents(DataGroup dataGroup) {
+		int firstId = FIRST_PARENT_ID + parentCount / 2;
+		for (int i = 0; i < parentCount; i++) {
+			DataGroup parent = createGroupWithOrganisationLink("parentOrganisation", i,
+					firstId + i);
+			dataGroup.addChild(parent);
+		}
+	}
+
+	private void addPredecessors(DataGroup dataGroup) {
+		int firstId = FIRST_PREDECESSOR_ID + predecessorCount / 2;
+		for (int i = 0; i < predecessorCount; i++) {
+			DataGroup predecessor = createGroupWithOrganisationLink("earlierOrganisation", i,
+					firstId + i);
+			predecessor.addChild(createAtomic("internalNote", "Ny beskrivning " + i));
+			dataGroup.addChild(predecessor);
+		}
+	}
+
+	private DataGroup createGroupWithOrganisationLink(String nameInData, int repeatId,
+			int linkedId) {
+		DataGroup group = DataGroupProvider.getDataGroupUsingNameInData(nameInData);
+		group.setRepeatId(String.valueOf(repeatId));
+		group.addChild(DataGroupProvider.getDataGroupAsLinkUsingNameInDataTypeAndId(
+				"organisationLink", "organisation", String.valueOf(linkedId)));
+		return group;
+	}
+
+	private DataAtomic createAtomic(String nameInData, String value) {
+		return DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData, value);
+	}
+
+	private void update() {
+		updater.update(UnitOfWorkImp.usingDatabaseFacade(databaseFacade), organisation);
+	}
+
+	@Benchmark
+	public void updateOrganisation(StatementCounts counts) {
+		long dbStatementsBefore = statementExecutor.dbStatementCount;
+		long executedSqlsBefore = databaseFacade.getExecutedSqlCount();
+		long valuesBefore = databaseFacade.getExecutedValueCount();
+		update();
+		counts.updates++;
+		counts.dbStatements += statementExecutor.dbStatementCount - dbStatementsBefore;
+		counts.executedSqls += databaseFacade.getExecutedSqlCount() - executedSqlsBefore;
+		counts.values += databaseFacade.getExecutedValueCount() - valuesBefore;
+	}
+
+	/**
+	 * StatementCounts holds the counts reported as secondary results for each iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class StatementCounts {
+		public long updates;
+		public long dbStatements;
+		public long executedSqls;
+		public long values;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			updates = 0;
+			dbStatements = 0;
+			executedSqls = 0;
+			values = 0;
+		}
+	}
+
+	private static final class CountingStatementExecutor implements StatementExecutor {
+		private final StatementExecutor statementExecutor;
+		private long dbStatementCount = 0;
+
+		private CountingStatementExecutor(StatementExecutor statementExecutor) {
+			this.statementExecutor = statementExecutor;
+		}
+
+		@Override
+		public List<Integer> executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
+				DatabaseFacade databaseFacade) {
+			dbStatementCount += dbStatements.size();
+			return statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements,
+					databaseFacade);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.user;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * IdFromLoginBenchmark compares {@link IdFromLogin} with the regular expression match and splits
+ * previously used by {@link DivaMixedUserStorage} to validate an idFromLogin and extract userId and
+ * domain. Run with -prof gc to also compare allocated bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdFromLoginBenchmark {
+
+	@Param({ "someUserId@user.uu.se", "someUserId@one.two.three.four.five.six.seven.eight.nine",
+			"someUserId@uu_se" })
+	public String idFromLogin;
+
+	@Benchmark
+	public void regularExpressionAndSplit(Blackhole blackhole) {
+		if (idFromLogin.matches("^\\w+@(\\w+\\.){1,9}\\w+$")) {
+			blackhole.consume(idFromLogin.substring(0, idFromLogin.indexOf('@')));
+			String[] splitAtAt = idFromLogin.split("@");
+			String[] domainParts = splitAtAt[1].split("\\.");
+			blackhole.consume(domainParts[domainParts.length - 2]);
+		}
+	}
+
+	@Benchmark
+	public void singlePassParser(Blackhole blackhole) {
+		IdFromLogin parsedIdFromLogin = IdFromLogin.parse(idFromLogin);
+		if (parsedIdFromLogin.isValid()) {
+			blackhole.consume(parsedIdFromLogin.getUserId());
+			blackhole.consume(parsedIdFromLogin.getDomain());
+		}
+	}
+}
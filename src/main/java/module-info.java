@@ -8,6 +8,7 @@ module se.uu.ub.cora.diva.mixedstorage {
 	requires se.uu.ub.cora.searchstorage;
 	requires se.uu.ub.cora.gatekeeper;
 	requires java.sql;
+	requires java.management;
 	requires transitive se.uu.ub.cora.xmlutils;
 	requires se.uu.ub.cora.converter;
 	requires se.uu.ub.cora.sqlstorage;
@@ -22,5 +23,7 @@ module se.uu.ub.cora.diva.mixedstorage {
 
 	uses se.uu.ub.cora.gatekeeper.user.GuestUserStorageProvider;
 
+	exports se.uu.ub.cora.diva.mixedstorage.metrics;
+
 	opens person;
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+import se.uu.ub.cora.logger.Logger;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+/**
+ * BackendStarter starts the backends used by DivaMixedRecordStorage at the same time, so that
+ * startup takes as long as the slowest backend instead of the sum of all backends.
+ * <p>
+ * Each backend is started by its own daemon thread. {@link #waitForAllToStart()} waits until every
+ * backend has either started or failed, and logs how long each backend took to start. If one or
+ * more backends failed, the error from the first failed backend, in the order they were started,
+ * is thrown once all backends are done, so that no backend is still starting when the error
+ * reaches the caller.
+ */
+public final class BackendStarter {
+	private Logger log = LoggerProvider.getLoggerForClass(BackendStarter.class);
+	private final ExecutorService executor;
+	private final List<StartingBackend<?>> backends = new ArrayList<>();
+	private final long startTime;
+
+	public static BackendStarter usingNumberOfBackends(int numberOfBackends) {
+		return new BackendStarter(numberOfBackends);
+	}
+
+	private BackendStarter(int numberOfBackends) {
+		executor = Executors.newFixedThreadPool(numberOfBackends, new DaemonThreadFactory());
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * start starts a backend in the background and returns a future for the started backend. The
+	 * future should only be read after {@link #waitForAllToStart()} has returned.
+	 */
+	public <T> CompletableFuture<T> start(String name, Supplier<T> startBackend) {
+		StartingBackend<T> backend = new StartingBackend<>(name);
+		backend.future = CompletableFuture.supplyAsync(() -> backend.startAndMeasure(startBackend),
+				executor);
+		backends.add(backend);
+		return backend.future;
+	}
+
+	/**
+	 * waitForAllToStart waits until all started backends are done, logs the time each backend
+	 * took to start and throws the error from the first failed backend, if any.
+	 */
+	public void waitForAllToStart() {
+		try {
+			RuntimeException firstError = waitForAllAndGetFirstError();
+			if (firstError != null) {
+				throw firstError;
+			}
+			log.logInfoUsingMessage(
+					"Started all backends in " + toMillis(System.nanoTime() - startTime) + " ms");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private RuntimeException waitForAllAndGetFirstError() {
+		RuntimeException firstError = null;
+		for (StartingBackend<?> backend : backends) {
+			RuntimeException error = waitForBackend(backend);
+			if (firstError == null) {
+				firstError = error;
+			}
+		}
+		return firstError;
+	}
+
+	private RuntimeException waitForBackend(StartingBackend<?> backend) {
+		try {
+			backend.future.get();
+			log.logInfoUsingMessage("Started " + backend.name + " in "
+					+ toMillis(backend.durationInNanos) + " ms");
+			return null;
+		} catch (ExecutionException e) {
+			return logAndGetCause(backend, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return DataStorageException.withMessageAndException(
+					"Interrupted while waiting for " + backend.name + " to start", e);
+		}
+	}
+
+	private RuntimeException logAndGetCause(StartingBackend<?> backend, ExecutionException e) {
+		Throwable cause = e.getCause();
+		String message = "Starting " + backend.name + " failed after "
+				+ toMillis(backend.durationInNanos) + " ms";
+		if (cause instanceof RuntimeException) {
+			log.logErrorUsingMessageAndException(message, (RuntimeException) cause);
+			return (RuntimeException) cause;
+		}
+		log.logErrorUsingMessageAndException(message, e);
+		return DataStorageException.withMessageAndException(message + ": " + cause.getMessage(),
+				cause);
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	boolean isShutdown() {
+		// needed for test
+		return executor.isShutdown();
+	}
+
+	private static final class StartingBackend<T> {
+		private final String name;
+		private CompletableFuture<T> future;
+		private volatile long durationInNanos;
+
+		private StartingBackend(String name) {
+			this.name = name;
+		}
+
+		private T startAndMeasure(Supplier<T> startBackend) {
+			long start = System.nanoTime();
+			try {
+				return startBackend.get();
+			} finally {
+				durationInNanos = System.nanoTime() - start;
+			}
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable,
+					"divaMixedBackendStarter-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package se.uu.ub.cora.diva.mixedstorage;
 
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
 import se.uu.ub.cora.storage.RecordStorage;
 
 /**
@@ -30,6 +31,9 @@ public class DivaMixedDependencies {
 	private RecordStorage classicDbStorage;
 	private RecordStorage userStorage;
 	private RecordStorage databaseStorage;
+	private ParallelListReader parallelListReader;
+	private StorageRoutes storageRoutes;
+	private StorageMetrics storageMetrics;
 
 	public void setBasicStorage(RecordStorage basicStorage) {
 		this.basicStorage = basicStorage;
@@ -66,4 +70,28 @@ public class DivaMixedDependencies {
 		return databaseStorage;
 	}
 
+	public void setParallelListReader(ParallelListReader parallelListReader) {
+		this.parallelListReader = parallelListReader;
+	}
+
+	public ParallelListReader getParallelListReader() {
+		return parallelListReader;
+	}
+
+	public void setStorageRoutes(StorageRoutes storageRoutes) {
+		this.storageRoutes = storageRoutes;
+	}
+
+	public StorageRoutes getStorageRoutes() {
+		return storageRoutes;
+	}
+
+	public void setStorageMetrics(StorageMetrics storageMetrics) {
+		this.storageMetrics = storageMetrics;
+	}
+
+	public StorageMetrics getStorageMetrics() {
+		return storageMetrics;
+	}
+
 }
@@ -18,10 +18,23 @@
  */
 package se.uu.ub.cora.diva.mixedstorage;
 
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT_ABSTRACT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.CREATE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.DELETE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_ABSTRACT_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.UPDATE;
+
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.metrics.InstrumentedRecordStorage;
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
 import se.uu.ub.cora.searchstorage.SearchStorage;
 import se.uu.ub.cora.storage.RecordNotFoundException;
 import se.uu.ub.cora.storage.RecordStorage;
@@ -32,13 +45,16 @@ public final class DivaMixedRecordStorage implements RecordStorage, SearchStorag
 	private static final String PERSON_DOMAIN_PART = "personDomainPart";
 	private static final String USER = "user";
 	private static final String CORA_USER = "coraUser";
-	private static final String PERSON = "person";
 	private static final String ORGANISATION = "organisation";
 
 	private RecordStorage basicStorage;
 	private RecordStorage divaClassicDbStorage;
 	private RecordStorage userStorage;
 	private RecordStorage databaseStorage;
+	private ParallelListReader parallelListReader;
+	private StorageRoutes storageRoutes;
+	private StorageMetrics storageMetrics;
+	private Map<StorageBackend, RecordStorage> storages = new EnumMap<>(StorageBackend.class);
 
 	public static DivaMixedRecordStorage usingDivaMixedDependencies(
 			DivaMixedDependencies mixedDependencies) {
@@ -50,23 +66,31 @@ public final class DivaMixedRecordStorage implements RecordStorage, SearchStorag
 		this.divaClassicDbStorage = mixedDependencies.getClassicDbStorage();
 		this.userStorage = mixedDependencies.getUserStorage();
 		this.databaseStorage = mixedDependencies.getDatabaseStorage();
+		this.parallelListReader = mixedDependencies.getParallelListReader();
+		this.storageRoutes = mixedDependencies.getStorageRoutes();
+		this.storageMetrics = mixedDependencies.getStorageMetrics();
+		addInstrumentedStorage(StorageBackend.BASIC, basicStorage);
+		addInstrumentedStorage(StorageBackend.CLASSIC_DB, divaClassicDbStorage);
+		addInstrumentedStorage(StorageBackend.USER, userStorage);
+		addInstrumentedStorage(StorageBackend.DATABASE, databaseStorage);
+	}
+
+	private void addInstrumentedStorage(StorageBackend backend, RecordStorage recordStorage) {
+		storages.put(backend, InstrumentedRecordStorage.usingBackendRecordStorageAndStorageMetrics(
+				backend.configName, recordStorage, storageMetrics));
 	}
 
 	@Override
 	public DataGroup read(String type, String id) {
-		if (PERSON.equals(type)) {
-			return databaseStorage.read(type, id);
-		}
-		if (PERSON_DOMAIN_PART.equals(type)) {
-			return databaseStorage.read(type, id);
-		}
-		if (isOrganisation(type)) {
-			return divaClassicDbStorage.read(type, id);
-		}
-		if (USER.equals(type) || CORA_USER.equals(type)) {
+		StorageBackend backend = storageRoutes.getBackendForTypeAndOperation(type, READ);
+		if (backend == StorageBackend.USER_WITH_BASIC_FALLBACK) {
 			return handleUserStorage(type, id);
 		}
-		return basicStorage.read(type, id);
+		return storages.get(backend).read(type, id);
+	}
+
+	private RecordStorage getStorageForTypeAndOperation(String type, StorageOperation operation) {
+		return storages.get(storageRoutes.getBackendForTypeAndOperation(type, operation));
 	}
 
 	private boolean isOrganisation(String type) {
@@ -76,113 +100,68 @@ public final class DivaMixedRecordStorage implements RecordStorage, SearchStorag
 
 	private DataGroup handleUserStorage(String type, String id) {
 		try {
-			return userStorage.read(type, id);
+			return storages.get(StorageBackend.USER).read(type, id);
 		} catch (RecordNotFoundException e) {
 			// do nothing, we keep looking in basicstorage
 		}
-		return basicStorage.read(type, id);
+		return storages.get(StorageBackend.BASIC).read(type, id);
 	}
 
 	@Override
 	public void create(String type, String id, DataGroup dataRecord, DataGroup collectedTerms,
 			DataGroup linkList, String dataDivider) {
-		if (PERSON_DOMAIN_PART.equals(type)) {
-			databaseStorage.create(type, id, dataRecord, collectedTerms, linkList, dataDivider);
-		} else {
-			basicStorage.create(type, id, dataRecord, collectedTerms, linkList, dataDivider);
-		}
+		getStorageForTypeAndOperation(type, CREATE).create(type, id, dataRecord, collectedTerms,
+				linkList, dataDivider);
 	}
 
 	@Override
 	public void deleteByTypeAndId(String type, String id) {
-		if (PERSON_DOMAIN_PART.equals(type)) {
-			databaseStorage.deleteByTypeAndId(type, id);
-		} else {
-			basicStorage.deleteByTypeAndId(type, id);
-		}
+		getStorageForTypeAndOperation(type, DELETE).deleteByTypeAndId(type, id);
 	}
 
 	@Override
 	public boolean linksExistForRecord(String type, String id) {
-		return basicStorage.linksExistForRecord(type, id);
+		return storages.get(StorageBackend.BASIC).linksExistForRecord(type, id);
 	}
 
 	@Override
 	public void update(String type, String id, DataGroup dataRecord, DataGroup collectedTerms,
 			DataGroup linkList, String dataDivider) {
-		if (PERSON.equals(type)) {
-			databaseStorage.update(type, id, dataRecord, collectedTerms, linkList, dataDivider);
-
-		} else if (PERSON_DOMAIN_PART.equals(type)) {
-			databaseStorage.update(type, id, dataRecord, collectedTerms, linkList, dataDivider);
-
-		} else if (isOrganisation(type)) {
-			divaClassicDbStorage.update(type, id, dataRecord, collectedTerms, linkList,
-					dataDivider);
-		} else {
-			basicStorage.update(type, id, dataRecord, collectedTerms, linkList, dataDivider);
-		}
+		getStorageForTypeAndOperation(type, UPDATE).update(type, id, dataRecord, collectedTerms,
+				linkList, dataDivider);
 	}
 
 	@Override
 	public StorageReadResult readList(String type, DataGroup filter) {
-		if (PERSON.equals(type)) {
-			return databaseStorage.readList(type, filter);
+		StorageBackend backend = storageRoutes.getBackendForTypeAndOperation(type, READ_LIST);
+		if (backend.isMerged()) {
+			return parallelListReader.readBothAndMerge(
+					() -> storages.get(backend.firstBackend).readList(type, filter),
+					() -> storages.get(backend.secondBackend).readList(type, filter));
 		}
-		if (PERSON_DOMAIN_PART.equals(type)) {
-			return databaseStorage.readList(type, filter);
-		}
-		if (isOrganisation(type)) {
-			return divaClassicDbStorage.readList(type, filter);
-		}
-		if (CORA_USER.equals(type)) {
-			return readListOfUsersFromUserStorageAndBasicStorage(type, filter);
-		}
-		return basicStorage.readList(type, filter);
-	}
-
-	private StorageReadResult readListOfUsersFromUserStorageAndBasicStorage(String type,
-			DataGroup filter) {
-		StorageReadResult resultFromUserStorage = userStorage.readList(type, filter);
-		StorageReadResult resultFromBasicStorage = basicStorage.readList(type, filter);
-
-		addResultFromSecondResultToFirst(resultFromUserStorage, resultFromBasicStorage);
-		return resultFromBasicStorage;
-	}
-
-	private void addResultFromSecondResultToFirst(StorageReadResult firstResult,
-			StorageReadResult secondResult) {
-		secondResult.listOfDataGroups.addAll(firstResult.listOfDataGroups);
-		secondResult.totalNumberOfMatches += firstResult.totalNumberOfMatches;
+		return storages.get(backend).readList(type, filter);
 	}
 
 	@Override
 	public StorageReadResult readAbstractList(String type, DataGroup filter) {
-		if (USER.equals(type)) {
-			return readAbstractListOfUsersFromUserStorageAndBasicStorage(type, filter);
-		}
-		if (ORGANISATION.equals(type)) {
-			return divaClassicDbStorage.readAbstractList(type, filter);
+		StorageBackend backend = storageRoutes.getBackendForTypeAndOperation(type,
+				READ_ABSTRACT_LIST);
+		if (backend.isMerged()) {
+			return parallelListReader.readBothAndMerge(
+					() -> storages.get(backend.firstBackend).readAbstractList(type, filter),
+					() -> storages.get(backend.secondBackend).readAbstractList(type, filter));
 		}
-		return basicStorage.readAbstractList(type, filter);
-	}
-
-	private StorageReadResult readAbstractListOfUsersFromUserStorageAndBasicStorage(String type,
-			DataGroup filter) {
-		StorageReadResult dbUsers = divaClassicDbStorage.readAbstractList(type, filter);
-		StorageReadResult basicStorageUsers = basicStorage.readAbstractList(type, filter);
-		addResultFromSecondResultToFirst(basicStorageUsers, dbUsers);
-		return dbUsers;
+		return storages.get(backend).readAbstractList(type, filter);
 	}
 
 	@Override
 	public DataGroup readLinkList(String type, String id) {
-		return basicStorage.readLinkList(type, id);
+		return storages.get(StorageBackend.BASIC).readLinkList(type, id);
 	}
 
 	@Override
 	public Collection<DataGroup> generateLinkCollectionPointingToRecord(String type, String id) {
-		return basicStorage.generateLinkCollectionPointingToRecord(type, id);
+		return storages.get(StorageBackend.BASIC).generateLinkCollectionPointingToRecord(type, id);
 	}
 
 	@Override
@@ -195,19 +174,20 @@ public final class DivaMixedRecordStorage implements RecordStorage, SearchStorag
 			return true;
 		}
 		if (PERSON_DOMAIN_PART.equals(type)) {
-			return databaseStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type,
-					id);
+			return storages.get(StorageBackend.DATABASE)
+					.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, id);
 		}
 		return linkExistInBasicStorage(type, id);
 	}
 
 	private boolean linkExistInDbStorage(String type, String id) {
-		return divaClassicDbStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type,
-				id);
+		return storages.get(StorageBackend.CLASSIC_DB)
+				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, id);
 	}
 
 	private boolean linkExistInBasicStorage(String type, String id) {
-		return basicStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, id);
+		return storages.get(StorageBackend.BASIC)
+				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, id);
 	}
 
 	RecordStorage getBasicStorage() {
@@ -238,30 +218,32 @@ public final class DivaMixedRecordStorage implements RecordStorage, SearchStorag
 
 	@Override
 	public long getTotalNumberOfRecordsForType(String type, DataGroup filter) {
-		if (PERSON.equals(type)) {
-			return databaseStorage.getTotalNumberOfRecordsForType(type, filter);
-		}
-		if (PERSON_DOMAIN_PART.equals(type)) {
-			return databaseStorage.getTotalNumberOfRecordsForType(type, filter);
-		}
-		if (isOrganisation(type)) {
-			return divaClassicDbStorage.getTotalNumberOfRecordsForType(type, filter);
-		}
-		return basicStorage.getTotalNumberOfRecordsForType(type, filter);
+		return getStorageForTypeAndOperation(type, COUNT).getTotalNumberOfRecordsForType(type,
+				filter);
 	}
 
 	@Override
 	public long getTotalNumberOfRecordsForAbstractType(String abstractType,
 			List<String> implementingTypes, DataGroup filter) {
-		if (isOrganisation(abstractType)) {
-			return divaClassicDbStorage.getTotalNumberOfRecordsForAbstractType(abstractType,
-					implementingTypes, filter);
-		}
-		return basicStorage.getTotalNumberOfRecordsForAbstractType(abstractType, implementingTypes,
-				filter);
+		return getStorageForTypeAndOperation(abstractType, COUNT_ABSTRACT)
+				.getTotalNumberOfRecordsForAbstractType(abstractType, implementingTypes, filter);
 	}
 
 	public RecordStorage getDatabaseStorage() {
 		return databaseStorage;
 	}
+
+	ParallelListReader getParallelListReader() {
+		// needed for test
+		return parallelListReader;
+	}
+
+	StorageRoutes getStorageRoutes() {
+		// needed for test
+		return storageRoutes;
+	}
+
+	public StorageMetrics getStorageMetrics() {
+		return storageMetrics;
+	}
 }
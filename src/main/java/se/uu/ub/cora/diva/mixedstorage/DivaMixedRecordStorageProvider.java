@@ -18,12 +18,19 @@
  */
 package se.uu.ub.cora.diva.mixedstorage;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import se.uu.ub.cora.basicstorage.DataStorageException;
 import se.uu.ub.cora.basicstorage.RecordStorageInMemoryReadFromDisk;
 import se.uu.ub.cora.basicstorage.RecordStorageInstance;
 import se.uu.ub.cora.basicstorage.RecordStorageOnDisk;
+import se.uu.ub.cora.diva.mixedstorage.db.ConnectionCountingSqlDatabaseFactory;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDataToDbTranslaterFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbRecordStorage;
@@ -31,6 +38,7 @@ import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbUpdaterFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.user.DivaMixedUserStorageProvider;
 import se.uu.ub.cora.diva.mixedstorage.internal.RelatedTableFactoryImp;
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
 import se.uu.ub.cora.gatekeeper.user.UserStorage;
 import se.uu.ub.cora.gatekeeper.user.UserStorageProvider;
 import se.uu.ub.cora.logger.Logger;
@@ -46,6 +54,9 @@ import se.uu.ub.cora.storage.RecordStorageProvider;
 
 public class DivaMixedRecordStorageProvider
 		implements RecordStorageProvider, MetadataStorageProvider {
+	private static final int MAX_NUMBER_OF_PARALLEL_LIST_READS = 16;
+	private static final Duration PARALLEL_LIST_READ_TIMEOUT = Duration.ofSeconds(60);
+	private static final int NUMBER_OF_BACKENDS = 4;
 
 	private Logger log = LoggerProvider.getLoggerForClass(DivaMixedRecordStorageProvider.class);
 	private Map<String, String> initInfo;
@@ -86,11 +97,13 @@ public class DivaMixedRecordStorageProvider
 
 	private void initializeAndStartMixedRecordStorage() {
 		DivaMixedDependencies divaMixedDependencies = new DivaMixedDependencies();
-		createAndSetBasicStorage(divaMixedDependencies);
-		createAndSetClassicDbStorage(divaMixedDependencies);
-		createAndSetUserStorage(divaMixedDependencies);
-
-		createAndSetDatabaseStorage(divaMixedDependencies);
+		startAndSetBackends(divaMixedDependencies);
+		divaMixedDependencies.setParallelListReader(
+				ParallelListReader.usingMaxNumberOfThreadsAndTimeout(
+						MAX_NUMBER_OF_PARALLEL_LIST_READS, PARALLEL_LIST_READ_TIMEOUT));
+		divaMixedDependencies
+				.setStorageRoutes(StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo));
+		divaMixedDependencies.setStorageMetrics(createAndRegisterStorageMetrics());
 
 		RecordStorage mixedRecordStorage = DivaMixedRecordStorage
 				.usingDivaMixedDependencies(divaMixedDependencies);
@@ -98,17 +111,50 @@ public class DivaMixedRecordStorageProvider
 		setStaticInstance(mixedRecordStorage);
 	}
 
-	private void createAndSetBasicStorage(DivaMixedDependencies divaMixedDependencies) {
+	private void startAndSetBackends(DivaMixedDependencies divaMixedDependencies) {
 		String basePath = tryToGetInitParameterLogIfFound("storageOnDiskBasePath");
 		String type = tryToGetInitParameterLogIfFound("storageType");
-		RecordStorage basicStorage;
+		createSqlDatabaseFactory();
+
+		BackendStarter backendStarter = BackendStarter.usingNumberOfBackends(NUMBER_OF_BACKENDS);
+		CompletableFuture<RecordStorage> basicStorage = backendStarter.start("basic storage",
+				() -> createBasicStorage(basePath, type));
+		CompletableFuture<DivaDbRecordStorage> classicDbStorage = backendStarter
+				.start("classic db storage", this::createClassicDbStorage);
+		CompletableFuture<RecordStorage> userStorage = backendStarter.start("user storage",
+				this::createUserStorage);
+		CompletableFuture<DatabaseRecordStorage> databaseStorage = backendStarter
+				.start("database storage", this::createDatabaseStorage);
+		backendStarter.waitForAllToStart();
+
+		divaMixedDependencies.setBasicStorage(basicStorage.join());
+		divaMixedDependencies.setClassicDbStorage(classicDbStorage.join());
+		divaMixedDependencies.setUserStorage(userStorage.join());
+		divaMixedDependencies.setDatabaseStorage(databaseStorage.join());
+	}
+
+	private StorageMetrics createAndRegisterStorageMetrics() {
+		StorageMetrics storageMetrics = new StorageMetrics();
+		try {
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(StorageMetrics.OBJECT_NAME);
+			if (mBeanServer.isRegistered(objectName)) {
+				mBeanServer.unregisterMBean(objectName);
+			}
+			mBeanServer.registerMBean(storageMetrics, objectName);
+		} catch (Exception e) {
+			log.logWarnUsingMessageAndException("Storage metrics could not be registered in JMX",
+					e);
+		}
+		return storageMetrics;
+	}
+
+	private RecordStorage createBasicStorage(String basePath, String type) {
 		if ("memory".equals(type)) {
-			basicStorage = RecordStorageInMemoryReadFromDisk
+			return RecordStorageInMemoryReadFromDisk
 					.createRecordStorageOnDiskWithBasePath(basePath);
-		} else {
-			basicStorage = RecordStorageOnDisk.createRecordStorageOnDiskWithBasePath(basePath);
 		}
-		divaMixedDependencies.setBasicStorage(basicStorage);
+		return RecordStorageOnDisk.createRecordStorageOnDiskWithBasePath(basePath);
 	}
 
 	private String tryToGetInitParameterLogIfFound(String parameterName) {
@@ -122,8 +168,7 @@ public class DivaMixedRecordStorageProvider
 		return initInfo.get(parameterName);
 	}
 
-	private DivaDbRecordStorage createAndSetClassicDbStorage(
-			DivaMixedDependencies divaMixedDependencies) {
+	private void createSqlDatabaseFactory() {
 		try {
 			String databaseLookupName = tryToGetInitParameterLogIfFound("databaseLookupName");
 			sqlDatabaseFactory = SqlDatabaseFactoryImp
@@ -132,25 +177,35 @@ public class DivaMixedRecordStorageProvider
 		} catch (Exception e) {
 			throw DataStorageException.withMessageAndException(e.getMessage(), e);
 		}
+	}
+
+	private DivaDbRecordStorage createClassicDbStorage() {
 		DivaDbRecordStorage classicDbStorage = createDbStorage(sqlDatabaseFactory);
-		divaMixedDependencies.setClassicDbStorage(classicDbStorage);
+		tryToLoadOrganisationHierarchy(classicDbStorage);
 		return classicDbStorage;
 	}
 
-	private DatabaseRecordStorage createAndSetDatabaseStorage(
-			DivaMixedDependencies divaMixedDependencies) {
+	private void tryToLoadOrganisationHierarchy(DivaDbRecordStorage classicDbStorage) {
+		try {
+			classicDbStorage.getOrganisationHierarchyIndex().refresh();
+		} catch (RuntimeException e) {
+			log.logWarnUsingMessageAndException(
+					"Organisation hierarchy could not be loaded at startup, "
+							+ "it will be loaded on first use",
+					e);
+		}
+	}
+
+	private DatabaseRecordStorage createDatabaseStorage() {
 		DatabaseStorageProvider databaseStorageProvider = new DatabaseStorageProvider();
 		databaseStorageProvider.startUsingInitInfo(initInfo);
-		DatabaseRecordStorage databaseRecordStorage = databaseStorageProvider.getRecordStorage();
-		divaMixedDependencies.setDatabaseStorage(databaseRecordStorage);
-		return databaseRecordStorage;
+		return databaseStorageProvider.getRecordStorage();
 	}
 
-	private void createAndSetUserStorage(DivaMixedDependencies divaMixedDependencies) {
+	private RecordStorage createUserStorage() {
 		guestUserStorage = getUserStorage();
 		startDivaStorageFactory();
-		RecordStorage userStorage = divaStorageFactory.factorForRecordType("user");
-		divaMixedDependencies.setUserStorage(userStorage);
+		return divaStorageFactory.factorForRecordType("user");
 	}
 
 	private void startDivaStorageFactory() {
@@ -168,11 +223,13 @@ public class DivaMixedRecordStorageProvider
 		DivaDbToCoraConverterFactoryImp divaDbToCoraConverterFactory = new DivaDbToCoraConverterFactoryImp();
 		DivaDbFactoryImp divaDbToCoraFactory = new DivaDbFactoryImp(recordReaderFactory,
 				divaDbToCoraConverterFactory);
+		ConnectionCountingSqlDatabaseFactory updateFactory = ConnectionCountingSqlDatabaseFactory
+				.usingSqlDatabaseFactory(recordReaderFactory);
 		DivaDbUpdaterFactoryImp recordStorageForOneTypeFactory = createRecordStorageForOneTypeFactory(
-				recordReaderFactory);
+				updateFactory);
 		return DivaDbRecordStorage.usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory(
-				recordReaderFactory, divaDbToCoraFactory, recordStorageForOneTypeFactory,
-				divaDbToCoraConverterFactory);
+				recordReaderFactory, updateFactory, divaDbToCoraFactory,
+				recordStorageForOneTypeFactory, divaDbToCoraConverterFactory);
 	}
 
 	private DivaDbUpdaterFactoryImp createRecordStorageForOneTypeFactory(
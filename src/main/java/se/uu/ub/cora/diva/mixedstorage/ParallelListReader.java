@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+import se.uu.ub.cora.storage.StorageReadResult;
+
+/**
+ * ParallelListReader reads lists from two storages at the same time and merges the results, so
+ * that the time to read a merged list is the time of the slowest storage instead of the sum of
+ * both.
+ * <p>
+ * Reads are run by a bounded pool of daemon threads. When all threads are busy and the queue is
+ * full, the read is run by the calling thread instead. An error from either read is thrown to the
+ * caller, and a read that has not finished within the timeout is reported as a
+ * {@link DataStorageException}. In both cases the result of the other read is discarded, a read
+ * still waiting in the queue is never started and a running read is interrupted. A read that does
+ * not respond to interrupts, such as one waiting for a database query, keeps its thread and
+ * connection until it finishes.
+ * <p>
+ * A read run by the calling thread, because the pool is full, is run to the end before the
+ * timeout is checked, so the timeout does not limit such reads.
+ */
+public final class ParallelListReader {
+	private static final int QUEUED_READS_PER_THREAD = 10;
+	private final ThreadPoolExecutor executor;
+	private final Duration timeout;
+
+	public static ParallelListReader usingMaxNumberOfThreadsAndTimeout(int maxNumberOfThreads,
+			Duration timeout) {
+		return new ParallelListReader(maxNumberOfThreads, timeout);
+	}
+
+	private ParallelListReader(int maxNumberOfThreads, Duration timeout) {
+		this.timeout = timeout;
+		executor = new ThreadPoolExecutor(maxNumberOfThreads, maxNumberOfThreads, 0,
+				TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxNumberOfThreads * QUEUED_READS_PER_THREAD),
+				new DaemonThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * readBothAndMerge runs both reads at the same time and returns the result of the first read,
+	 * with the list and total number of matches from the second read added to it.
+	 */
+	public StorageReadResult readBothAndMerge(Supplier<StorageReadResult> firstRead,
+			Supplier<StorageReadResult> secondRead) {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		Future<StorageReadResult> firstFuture = executor.submit(firstRead::get);
+		Future<StorageReadResult> secondFuture = executor.submit(secondRead::get);
+		try {
+			StorageReadResult firstResult = waitForResultUntil(firstFuture, deadline);
+			StorageReadResult secondResult = waitForResultUntil(secondFuture, deadline);
+			return addSecondResultToFirst(firstResult, secondResult);
+		} finally {
+			firstFuture.cancel(true);
+			secondFuture.cancel(true);
+		}
+	}
+
+	private StorageReadResult waitForResultUntil(Future<StorageReadResult> future,
+			long deadline) {
+		try {
+			return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			throw rethrowCause(e);
+		} catch (TimeoutException e) {
+			throw DataStorageException.withMessageAndException(
+					"Reading list did not finish within " + timeout.toMillis() + " ms", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw DataStorageException.withMessageAndException("Reading list was interrupted",
+					e);
+		}
+	}
+
+	private RuntimeException rethrowCause(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return DataStorageException.withMessageAndException(cause.getMessage(), cause);
+	}
+
+	private StorageReadResult addSecondResultToFirst(StorageReadResult firstResult,
+			StorageReadResult secondResult) {
+		firstResult.listOfDataGroups.addAll(secondResult.listOfDataGroups);
+		firstResult.totalNumberOfMatches += secondResult.totalNumberOfMatches;
+		return firstResult;
+	}
+
+	public int getMaxNumberOfThreads() {
+		// needed for test
+		return executor.getMaximumPoolSize();
+	}
+
+	public Duration getTimeout() {
+		// needed for test
+		return timeout;
+	}
+
+	int getNumberOfQueuedReads() {
+		// needed for test
+		return executor.getQueue().size();
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable,
+					"divaMixedListReader-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
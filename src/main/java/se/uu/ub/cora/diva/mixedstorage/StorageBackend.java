@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+/**
+ * StorageBackend lists the storages {@link DivaMixedRecordStorage} can route an operation to.
+ * <p>
+ * USER_WITH_BASIC_FALLBACK reads from the user storage and falls back to the basic storage if the
+ * record is not found, it can only be used for reads. The merged backends read lists from both
+ * firstBackend and secondBackend and return the merged result, they can only be used for list
+ * reads.
+ */
+public enum StorageBackend {
+	BASIC("basic", null, null), CLASSIC_DB("classicDb", null, null), DATABASE("database", null,
+			null), USER("user", null, null), USER_WITH_BASIC_FALLBACK("userWithBasicFallback",
+					null, null), BASIC_AND_USER("basicAndUser", BASIC,
+							USER), CLASSIC_DB_AND_BASIC("classicDbAndBasic", CLASSIC_DB, BASIC);
+
+	public final String configName;
+	public final StorageBackend firstBackend;
+	public final StorageBackend secondBackend;
+
+	StorageBackend(String configName, StorageBackend firstBackend,
+			StorageBackend secondBackend) {
+		this.configName = configName;
+		this.firstBackend = firstBackend;
+		this.secondBackend = secondBackend;
+	}
+
+	public boolean isMerged() {
+		return firstBackend != null;
+	}
+
+	public boolean canBeUsedFor(StorageOperation operation) {
+		if (this == USER_WITH_BASIC_FALLBACK) {
+			return operation == StorageOperation.READ;
+		}
+		if (isMerged()) {
+			return operation == StorageOperation.READ_LIST
+					|| operation == StorageOperation.READ_ABSTRACT_LIST;
+		}
+		return true;
+	}
+}
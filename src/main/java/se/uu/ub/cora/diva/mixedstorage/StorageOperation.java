@@ -0,0 +1,37 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+/**
+ * StorageOperation lists the operations in {@link DivaMixedRecordStorage} that are routed to a
+ * {@link StorageBackend} using {@link StorageRoutes}. The configName is the name used for the
+ * operation when routes are configured in initInfo.
+ */
+public enum StorageOperation {
+	READ("read"), CREATE("create"), DELETE("delete"), UPDATE("update"), READ_LIST(
+			"readList"), READ_ABSTRACT_LIST("readAbstractList"), COUNT(
+					"count"), COUNT_ABSTRACT("countAbstract");
+
+	public final String configName;
+
+	StorageOperation(String configName) {
+		this.configName = configName;
+	}
+
+}
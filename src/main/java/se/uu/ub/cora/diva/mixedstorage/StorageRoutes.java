@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.BASIC;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.BASIC_AND_USER;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.CLASSIC_DB;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.CLASSIC_DB_AND_BASIC;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.DATABASE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.USER_WITH_BASIC_FALLBACK;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT_ABSTRACT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.CREATE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.DELETE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_ABSTRACT_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.UPDATE;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+
+/**
+ * StorageRoutes is the routing table used by {@link DivaMixedRecordStorage} to decide which
+ * {@link StorageBackend} handles an operation for a record type. The table is built once when
+ * created, operations not routed for a type are handled by the basic storage.
+ * <p>
+ * Routes can be added or changed from initInfo using keys on the form
+ * storageRoute.recordType.operation with the configName of a backend as value, for example
+ * storageRoute.person.read=database.
+ */
+public final class StorageRoutes {
+	static final String ROUTE_KEY_PREFIX = "storageRoute.";
+	private static final String[] ORGANISATION_TYPES = { "organisation", "rootOrganisation",
+			"topOrganisation", "subOrganisation" };
+
+	private final Map<String, Map<StorageOperation, StorageBackend>> routes = new HashMap<>();
+
+	public static StorageRoutes usingDefaultRoutes() {
+		return new StorageRoutes();
+	}
+
+	public static StorageRoutes usingDefaultRoutesAndInitInfo(Map<String, String> initInfo) {
+		StorageRoutes storageRoutes = new StorageRoutes();
+		storageRoutes.addRoutesFromInitInfo(initInfo);
+		return storageRoutes;
+	}
+
+	private StorageRoutes() {
+		addDefaultRoutes();
+	}
+
+	private void addDefaultRoutes() {
+		addRoutesForTypeToBackend("person", DATABASE, READ, UPDATE, READ_LIST, COUNT);
+		addRoutesForTypeToBackend("personDomainPart", DATABASE, READ, CREATE, DELETE, UPDATE,
+				READ_LIST, COUNT);
+		for (String organisationType : ORGANISATION_TYPES) {
+			addRoutesForTypeToBackend(organisationType, CLASSIC_DB, READ, UPDATE, READ_LIST, COUNT,
+					COUNT_ABSTRACT);
+		}
+		addRoutesForTypeToBackend("organisation", CLASSIC_DB, READ_ABSTRACT_LIST);
+		addRoutesForTypeToBackend("user", USER_WITH_BASIC_FALLBACK, READ);
+		addRoutesForTypeToBackend("user", CLASSIC_DB_AND_BASIC, READ_ABSTRACT_LIST);
+		addRoutesForTypeToBackend("coraUser", USER_WITH_BASIC_FALLBACK, READ);
+		addRoutesForTypeToBackend("coraUser", BASIC_AND_USER, READ_LIST);
+	}
+
+	private void addRoutesForTypeToBackend(String type, StorageBackend backend,
+			StorageOperation... operations) {
+		Map<StorageOperation, StorageBackend> routesForType = routes.computeIfAbsent(type,
+				key -> new EnumMap<>(StorageOperation.class));
+		for (StorageOperation operation : operations) {
+			routesForType.put(operation, backend);
+		}
+	}
+
+	private void addRoutesFromInitInfo(Map<String, String> initInfo) {
+		for (Entry<String, String> entry : initInfo.entrySet()) {
+			if (entry.getKey().startsWith(ROUTE_KEY_PREFIX)) {
+				addRouteFromInitInfoKeyAndValue(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private void addRouteFromInitInfoKeyAndValue(String key, String value) {
+		String typeAndOperation = key.substring(ROUTE_KEY_PREFIX.length());
+		int separator = typeAndOperation.lastIndexOf('.');
+		if (separator < 1) {
+			throw DataStorageException
+					.withMessage("Storage route key must contain type and operation: " + key);
+		}
+		String type = typeAndOperation.substring(0, separator);
+		StorageOperation operation = getOperationUsingConfigName(
+				typeAndOperation.substring(separator + 1));
+		StorageBackend backend = getBackendUsingConfigName(value);
+		throwErrorIfBackendCanNotBeUsedForOperation(backend, operation);
+		addRoutesForTypeToBackend(type, backend, operation);
+	}
+
+	private StorageOperation getOperationUsingConfigName(String configName) {
+		for (StorageOperation operation : StorageOperation.values()) {
+			if (operation.configName.equals(configName)) {
+				return operation;
+			}
+		}
+		throw DataStorageException.withMessage("Unknown storage operation: " + configName);
+	}
+
+	private StorageBackend getBackendUsingConfigName(String configName) {
+		for (StorageBackend backend : StorageBackend.values()) {
+			if (backend.configName.equals(configName)) {
+				return backend;
+			}
+		}
+		throw DataStorageException.withMessage("Unknown storage backend: " + configName);
+	}
+
+	private void throwErrorIfBackendCanNotBeUsedForOperation(StorageBackend backend,
+			StorageOperation operation) {
+		if (!backend.canBeUsedFor(operation)) {
+			throw DataStorageException.withMessage("Storage backend " + backend.configName
+					+ " can not be used for operation: " + operation.configName);
+		}
+	}
+
+	public StorageBackend getBackendForTypeAndOperation(String type,
+			StorageOperation operation) {
+		Map<StorageOperation, StorageBackend> routesForType = routes.get(type);
+		if (routesForType == null) {
+			return BASIC;
+		}
+		return routesForType.getOrDefault(operation, BASIC);
+	}
+}
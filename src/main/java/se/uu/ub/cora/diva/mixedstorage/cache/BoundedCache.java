@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BoundedCache is a thread safe cache that holds at most maxSize entries. When a new entry is
+ * added to a full cache, the least recently used entry is evicted.
+ * <p>
+ * The number of hits, misses and evictions are counted and can be read to monitor how well the
+ * cache works.
+ * <p>
+ * Every invalidation increases the generation of the cache. A value read from the underlying
+ * storage can be added using {@link #putIfGenerationIs(Object, Object, long)} with the generation
+ * read before the value was read from the storage, so that a value read before an invalidation
+ * is never added to the cache after the invalidation.
+ * <p>
+ * A cache created with a maxAge treats entries older than maxAge as missing, they are removed
+ * when read and counted as expired.
+ */
+public final class BoundedCache<K, V> {
+
+	private final int maxSize;
+	private final Duration maxAge;
+	private final Clock clock;
+	private final Map<K, CacheEntry<V>> entries;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	private long expirationCount = 0;
+	private long generation = 0;
+
+	public static <K, V> BoundedCache<K, V> usingMaxSize(int maxSize) {
+		return new BoundedCache<>(maxSize, null, Clock.systemUTC());
+	}
+
+	public static <K, V> BoundedCache<K, V> usingMaxSizeAndMaxAge(int maxSize, Duration maxAge) {
+		return new BoundedCache<>(maxSize, maxAge, Clock.systemUTC());
+	}
+
+	public static <K, V> BoundedCache<K, V> usingMaxSizeMaxAgeAndClock(int maxSize,
+			Duration maxAge, Clock clock) {
+		return new BoundedCache<>(maxSize, maxAge, clock);
+	}
+
+	private BoundedCache(int maxSize, Duration maxAge, Clock clock) {
+		throwErrorIfMaxSizeIsNotPositive(maxSize);
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+		this.clock = clock;
+		entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	private void throwErrorIfMaxSizeIsNotPositive(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("MaxSize must be larger than 0, was: " + maxSize);
+		}
+	}
+
+	/**
+	 * get returns the value cached for the key, or null if the key is not in the cache or the
+	 * cached value is older than maxAge.
+	 */
+	public synchronized V get(K key) {
+		CacheEntry<V> entry = entries.get(key);
+		if (entry != null && isExpired(entry)) {
+			entries.remove(key);
+			expirationCount++;
+			entry = null;
+		}
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.value;
+	}
+
+	private boolean isExpired(CacheEntry<V> entry) {
+		return maxAge != null && entry.addedAt.plus(maxAge).isBefore(clock.instant());
+	}
+
+	public synchronized void put(K key, V value) {
+		entries.put(key, new CacheEntry<>(value, clock.instant()));
+		evictLeastRecentlyUsedIfOverMaxSize();
+	}
+
+	/**
+	 * putIfGenerationIs adds the value to the cache only if the cache has not been invalidated
+	 * since the generation was read using {@link #getGeneration()}.
+	 */
+	public synchronized void putIfGenerationIs(K key, V value, long expectedGeneration) {
+		if (generation == expectedGeneration) {
+			put(key, value);
+		}
+	}
+
+	private void evictLeastRecentlyUsedIfOverMaxSize() {
+		if (entries.size() > maxSize) {
+			K leastRecentlyUsedKey = entries.keySet().iterator().next();
+			entries.remove(leastRecentlyUsedKey);
+			evictionCount++;
+		}
+	}
+
+	public synchronized void invalidate(K key) {
+		generation++;
+		entries.remove(key);
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public synchronized long getExpirationCount() {
+		return expirationCount;
+	}
+
+	/**
+	 * getHitRate returns the share of reads answered by the cache, as a value between 0 and 1, or
+	 * 0 if nothing has been read.
+	 */
+	public synchronized double getHitRate() {
+		long numberOfReads = hitCount + missCount;
+		if (numberOfReads == 0) {
+			return 0;
+		}
+		return (double) hitCount / numberOfReads;
+	}
+
+	public Duration getMaxAge() {
+		// needed for test
+		return maxAge;
+	}
+
+	private static final class CacheEntry<V> {
+		private final V value;
+		private final Instant addedAt;
+
+		private CacheEntry(V value, Instant addedAt) {
+			this.value = value;
+			this.addedAt = addedAt;
+		}
+	}
+}
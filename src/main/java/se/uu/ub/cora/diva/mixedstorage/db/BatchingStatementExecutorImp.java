@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+
+/**
+ * BatchingStatementExecutorImp executes dbStatements with fewer round trips to the database than
+ * {@link PreparedStatementExecutorImp}.
+ * <p>
+ * Consecutive dbStatements that result in identical sql are grouped and sent as one statement.
+ * Grouped inserts are sent as one multi row insert and grouped deletes as one delete with the
+ * conditions for each dbStatement joined with OR. Updates are always executed one by one. The
+ * order of the dbStatements is kept, so that dependencies between deletes and inserts still
+ * hold.
+ * <p>
+ * The update count of a multi row insert is checked against the number of grouped inserts, and a
+ * {@link DbException} is thrown if they differ, so the update count for each grouped insert is 1.
+ * The update count for a single grouped delete can not be known, and
+ * {@link Statement#SUCCESS_NO_INFO} is returned for those, in the same way as for a JDBC batch.
+ * Callers that need the update count of each delete can create the executor with
+ * perStatementCounts set to true, deletes are then executed one by one.
+ */
+public class BatchingStatementExecutorImp extends PreparedStatementExecutorImp {
+
+	private static final int MAX_NUMBER_OF_PARAMETERS_PER_STATEMENT = 32767;
+	private static final String INSERT = "insert";
+	private static final String DELETE = "delete";
+	private static final String WHERE = " WHERE ";
+	private final boolean perStatementCounts;
+
+	public BatchingStatementExecutorImp() {
+		super();
+		perStatementCounts = false;
+	}
+
+	public BatchingStatementExecutorImp(SqlTemplateCache sqlTemplateCache) {
+		this(sqlTemplateCache, false);
+	}
+
+	public BatchingStatementExecutorImp(SqlTemplateCache sqlTemplateCache,
+			boolean perStatementCounts) {
+		super(sqlTemplateCache);
+		this.perStatementCounts = perStatementCounts;
+	}
+
+	@Override
+	public List<Integer> executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
+			DatabaseFacade databaseFacade) {
+		List<Integer> updateCounts = new ArrayList<>(dbStatements.size());
+		for (List<PreparedDbStatement> group : groupStatementsWithSameSql(dbStatements)) {
+			updateCounts.addAll(executeGroup(databaseFacade, group));
+		}
+		return updateCounts;
+	}
+
+	private List<List<PreparedDbStatement>> groupStatementsWithSameSql(
+			List<DbStatement> dbStatements) {
+		List<List<PreparedDbStatement>> groups = new ArrayList<>();
+		List<PreparedDbStatement> currentGroup = new ArrayList<>();
+		for (DbStatement dbStatement : dbStatements) {
+			PreparedDbStatement prepared = prepare(dbStatement);
+			if (!currentGroup.isEmpty() && !canBeAddedToGroup(currentGroup, prepared)) {
+				groups.add(currentGroup);
+				currentGroup = new ArrayList<>();
+			}
+			currentGroup.add(prepared);
+		}
+		if (!currentGroup.isEmpty()) {
+			groups.add(currentGroup);
+		}
+		return groups;
+	}
+
+	private PreparedDbStatement prepare(DbStatement dbStatement) {
+		SqlTemplate sqlTemplate = getSqlTemplate(dbStatement);
+		List<Object> values = sqlTemplate.getParameterValues(dbStatement);
+		return new PreparedDbStatement(dbStatement.getOperation(), sqlTemplate.getSql(), values);
+	}
+
+	private boolean canBeAddedToGroup(List<PreparedDbStatement> group,
+			PreparedDbStatement prepared) {
+		PreparedDbStatement first = group.get(0);
+		return operationCanBeGrouped(first.operation) && first.sql.equals(prepared.sql)
+				&& groupHasRoomForMoreParameters(group, prepared);
+	}
+
+	private boolean operationCanBeGrouped(String operation) {
+		return INSERT.equals(operation) || (DELETE.equals(operation) && !perStatementCounts);
+	}
+
+	private boolean groupHasRoomForMoreParameters(List<PreparedDbStatement> group,
+			PreparedDbStatement prepared) {
+		int numberOfParameters = (group.size() + 1) * prepared.values.size();
+		return numberOfParameters <= MAX_NUMBER_OF_PARAMETERS_PER_STATEMENT;
+	}
+
+	private List<Integer> executeGroup(DatabaseFacade databaseFacade,
+			List<PreparedDbStatement> group) {
+		PreparedDbStatement first = group.get(0);
+		if (group.size() == 1) {
+			return List.of(databaseFacade.executeSqlWithValues(first.sql, first.values));
+		}
+		List<Object> values = collectValues(group);
+		if (INSERT.equals(first.operation)) {
+			int insertedRows = databaseFacade.executeSqlWithValues(createMultiRowInsertSql(group),
+					values);
+			throwErrorIfNotAllRowsWereInserted(group.size(), insertedRows);
+			return createUpdateCounts(group.size(), 1);
+		}
+		databaseFacade.executeSqlWithValues(createMultiConditionDeleteSql(group), values);
+		return createUpdateCounts(group.size(), Statement.SUCCESS_NO_INFO);
+	}
+
+	private void throwErrorIfNotAllRowsWereInserted(int numberOfInserts, int insertedRows) {
+		if (insertedRows != numberOfInserts) {
+			throw DbException.withMessage("Multi row insert inserted " + insertedRows
+					+ " rows, expected " + numberOfInserts + " rows");
+		}
+	}
+
+	private List<Object> collectValues(List<PreparedDbStatement> group) {
+		List<Object> values = new ArrayList<>(group.size() * group.get(0).values.size());
+		for (PreparedDbStatement prepared : group) {
+			values.addAll(prepared.values);
+		}
+		return values;
+	}
+
+	private String createMultiRowInsertSql(List<PreparedDbStatement> group) {
+		PreparedDbStatement first = group.get(0);
+		StringBuilder sql = new StringBuilder(first.sql);
+		String valuesPart = createValuesPart(first.values.size());
+		for (int i = 1; i < group.size(); i++) {
+			sql.append(", ").append(valuesPart);
+		}
+		return sql.toString();
+	}
+
+	private String createValuesPart(int numberOfValues) {
+		StringJoiner placeHolders = new StringJoiner(", ", "(", ")");
+		for (int i = 0; i < numberOfValues; i++) {
+			placeHolders.add("?");
+		}
+		return placeHolders.toString();
+	}
+
+	private String createMultiConditionDeleteSql(List<PreparedDbStatement> group) {
+		String sql = group.get(0).sql;
+		int endOfWhere = sql.indexOf(WHERE) + WHERE.length();
+		String conditionPart = "(" + sql.substring(endOfWhere) + ")";
+		StringJoiner conditions = new StringJoiner(" OR ");
+		for (int i = 0; i < group.size(); i++) {
+			conditions.add(conditionPart);
+		}
+		return sql.substring(0, endOfWhere) + conditions;
+	}
+
+	private List<Integer> createUpdateCounts(int numberOfStatements, int updateCount) {
+		List<Integer> updateCounts = new ArrayList<>(numberOfStatements);
+		for (int i = 0; i < numberOfStatements; i++) {
+			updateCounts.add(updateCount);
+		}
+		return updateCounts;
+	}
+
+	private static final class PreparedDbStatement {
+		private final String operation;
+		private final String sql;
+		private final List<Object> values;
+
+		private PreparedDbStatement(String operation, String sql, List<Object> values) {
+			this.operation = operation;
+			this.sql = sql;
+			this.values = values;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import se.uu.ub.cora.logger.Logger;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+
+/**
+ * BlockSequenceAllocator reserves blocks of values from each sequence with one query and hands
+ * them out from memory, so that most calls to {@link #nextValueFromSequence(UnitOfWork, String)}
+ * do not use the database at all.
+ * <p>
+ * Values are handed out from a lock free queue per sequence. When half a block or less is left in
+ * a queue, a new block is read using the refill executor and a connection of its own, as the
+ * refill is not part of any update. Only if a queue is empty is a block read by the calling
+ * thread, using the connection of the calling unit of work.
+ * <p>
+ * Values reserved but not handed out before the application stops are never used, which leaves
+ * gaps in the ids. Sequences already give gaps on rollback, so ids must not be expected to be
+ * consecutive.
+ */
+public final class BlockSequenceAllocator implements SequenceAllocator {
+
+	private static final String SELECT_BLOCK_SQL = "select nextval(cast(? as regclass)) as "
+			+ "nextval from generate_series(1, ?)";
+	private Logger log = LoggerProvider.getLoggerForClass(BlockSequenceAllocator.class);
+	private final SqlDatabaseFactory sqlDatabaseFactory;
+	private final int blockSize;
+	private final Executor refillExecutor;
+	private final Map<String, SequenceBlock> sequenceBlocks = new ConcurrentHashMap<>();
+
+	/**
+	 * usingSqlDatabaseFactoryAndBlockSize creates a BlockSequenceAllocator that refills blocks
+	 * using a single daemon thread.
+	 */
+	public static BlockSequenceAllocator usingSqlDatabaseFactoryAndBlockSize(
+			SqlDatabaseFactory sqlDatabaseFactory, int blockSize) {
+		return new BlockSequenceAllocator(sqlDatabaseFactory, blockSize,
+				createDaemonRefillExecutor());
+	}
+
+	private static ExecutorService createDaemonRefillExecutor() {
+		return Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "sequence-block-refill");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public static BlockSequenceAllocator usingSqlDatabaseFactoryBlockSizeAndExecutor(
+			SqlDatabaseFactory sqlDatabaseFactory, int blockSize, Executor refillExecutor) {
+		return new BlockSequenceAllocator(sqlDatabaseFactory, blockSize, refillExecutor);
+	}
+
+	private BlockSequenceAllocator(SqlDatabaseFactory sqlDatabaseFactory, int blockSize,
+			Executor refillExecutor) {
+		throwErrorIfBlockSizeIsNotPositive(blockSize);
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.blockSize = blockSize;
+		this.refillExecutor = refillExecutor;
+	}
+
+	private void throwErrorIfBlockSizeIsNotPositive(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException(
+					"BlockSize must be larger than 0, was: " + blockSize);
+		}
+	}
+
+	@Override
+	public long nextValueFromSequence(UnitOfWork unitOfWork, String sequenceName) {
+		SequenceBlock sequenceBlock = sequenceBlocks.computeIfAbsent(sequenceName,
+				name -> new SequenceBlock());
+		Long value = sequenceBlock.values.poll();
+		if (value == null) {
+			value = readBlockAndKeepAllButFirstValue(unitOfWork.getDatabaseFacade(), sequenceName,
+					sequenceBlock);
+		}
+		possiblyRefillInBackground(sequenceName, sequenceBlock);
+		return value;
+	}
+
+	private long readBlockAndKeepAllButFirstValue(DatabaseFacade databaseFacade,
+			String sequenceName, SequenceBlock sequenceBlock) {
+		List<Long> block = readBlockFromSequence(databaseFacade, sequenceName);
+		sequenceBlock.values.addAll(block.subList(1, block.size()));
+		return block.get(0);
+	}
+
+	private List<Long> readBlockFromSequence(DatabaseFacade databaseFacade, String sequenceName) {
+		List<Row> rows = databaseFacade.readUsingSqlAndValues(SELECT_BLOCK_SQL,
+				List.of(sequenceName, blockSize));
+		throwErrorIfNoValuesRead(sequenceName, rows);
+		return getValuesFromRows(rows);
+	}
+
+	private void throwErrorIfNoValuesRead(String sequenceName, List<Row> rows) {
+		if (rows.isEmpty()) {
+			throw DbException.withMessage("No values read from sequence: " + sequenceName);
+		}
+	}
+
+	private List<Long> getValuesFromRows(List<Row> rows) {
+		List<Long> values = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			Number value = (Number) row.getValueByColumn("nextval");
+			values.add(value.longValue());
+		}
+		return values;
+	}
+
+	private void possiblyRefillInBackground(String sequenceName, SequenceBlock sequenceBlock) {
+		if (sequenceBlock.needsRefill() && sequenceBlock.tryToMarkRefillInProgress()) {
+			startRefill(sequenceName, sequenceBlock);
+		}
+	}
+
+	private void startRefill(String sequenceName, SequenceBlock sequenceBlock) {
+		try {
+			refillExecutor.execute(() -> refill(sequenceName, sequenceBlock));
+		} catch (RejectedExecutionException e) {
+			sequenceBlock.refillInProgress.set(false);
+		}
+	}
+
+	private void refill(String sequenceName, SequenceBlock sequenceBlock) {
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			sequenceBlock.values.addAll(readBlockFromSequence(databaseFacade, sequenceName));
+		} catch (RuntimeException e) {
+			log.logWarnUsingMessageAndException(
+					"Could not refill values from sequence: " + sequenceName, e);
+		} finally {
+			sequenceBlock.refillInProgress.set(false);
+		}
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public SqlDatabaseFactory getSqlDatabaseFactory() {
+		// needed for test
+		return sqlDatabaseFactory;
+	}
+
+	public Executor getRefillExecutor() {
+		// needed for test
+		return refillExecutor;
+	}
+
+	private final class SequenceBlock {
+		private final Queue<Long> values = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean refillInProgress = new AtomicBoolean(false);
+
+		private boolean needsRefill() {
+			return values.size() <= blockSize / 2;
+		}
+
+		private boolean tryToMarkRefillInProgress() {
+			return refillInProgress.compareAndSet(false, true);
+		}
+	}
+}
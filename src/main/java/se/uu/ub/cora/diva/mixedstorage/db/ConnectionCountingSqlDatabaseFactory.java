@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * ConnectionCountingSqlDatabaseFactory is a {@link SqlDatabaseFactory} that counts the number of
+ * connections checked out through it, that is the number of {@link DatabaseFacade}s and
+ * {@link TableFacade}s factored. All calls are passed on to the wrapped factory.
+ */
+public class ConnectionCountingSqlDatabaseFactory implements SqlDatabaseFactory {
+
+	private SqlDatabaseFactory sqlDatabaseFactory;
+	private LongAdder numberOfConnections = new LongAdder();
+
+	public static ConnectionCountingSqlDatabaseFactory usingSqlDatabaseFactory(
+			SqlDatabaseFactory sqlDatabaseFactory) {
+		return new ConnectionCountingSqlDatabaseFactory(sqlDatabaseFactory);
+	}
+
+	private ConnectionCountingSqlDatabaseFactory(SqlDatabaseFactory sqlDatabaseFactory) {
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+	}
+
+	@Override
+	public DatabaseFacade factorDatabaseFacade() {
+		numberOfConnections.increment();
+		return sqlDatabaseFactory.factorDatabaseFacade();
+	}
+
+	@Override
+	public TableFacade factorTableFacade() {
+		numberOfConnections.increment();
+		return sqlDatabaseFactory.factorTableFacade();
+	}
+
+	@Override
+	public TableQuery factorTableQuery(String tableName) {
+		return sqlDatabaseFactory.factorTableQuery(tableName);
+	}
+
+	public long getNumberOfConnections() {
+		return numberOfConnections.sum();
+	}
+
+	public SqlDatabaseFactory getSqlDatabaseFactory() {
+		// needed for test
+		return sqlDatabaseFactory;
+	}
+}
@@ -28,7 +28,11 @@ import se.uu.ub.cora.data.DataGroup;
  */
 public interface DataToDbTranslater {
 
-	void translate(DataGroup dataGroup);
+	/**
+	 * translate translates the dataGroup, any values needed from the database are read using the
+	 * provided unitOfWork
+	 */
+	void translate(UnitOfWork unitOfWork, DataGroup dataGroup);
 
 	Map<String, Object> getConditions();
 
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.math.BigDecimal;
+
+import se.uu.ub.cora.sqldatabase.DatabaseValues;
+
+/**
+ * DbValueComparer compares a value about to be written to the database with the value read from
+ * the database, to decide if the value needs to be written at all.
+ * <p>
+ * Values read from the database do not always have the same java type as the values created when
+ * translating from data, so values are normalised before they are compared. Null,
+ * {@link DatabaseValues#NULL} and blank strings are all treated as no value, numbers are compared
+ * by numeric value and other values, such as dates, are compared using their string form.
+ */
+public final class DbValueComparer {
+
+	private DbValueComparer() {
+		// not called
+		throw new UnsupportedOperationException();
+	}
+
+	public static boolean valuesAreEqual(Object value, Object valueFromDb) {
+		if (isEmpty(value) || isEmpty(valueFromDb)) {
+			return isEmpty(value) && isEmpty(valueFromDb);
+		}
+		if (value instanceof Number && valueFromDb instanceof Number) {
+			return numbersAreEqual((Number) value, (Number) valueFromDb);
+		}
+		return value.equals(valueFromDb) || value.toString().equals(valueFromDb.toString());
+	}
+
+	private static boolean isEmpty(Object value) {
+		return value == null || DatabaseValues.NULL.equals(value) || isBlankString(value);
+	}
+
+	private static boolean isBlankString(Object value) {
+		return value instanceof String && ((String) value).isBlank();
+	}
+
+	private static boolean numbersAreEqual(Number number, Number numberFromDb) {
+		BigDecimal decimal = new BigDecimal(number.toString());
+		BigDecimal decimalFromDb = new BigDecimal(numberFromDb.toString());
+		return decimal.compareTo(decimalFromDb) == 0;
+	}
+}
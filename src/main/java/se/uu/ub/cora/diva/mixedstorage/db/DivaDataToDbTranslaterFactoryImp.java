@@ -18,23 +18,30 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db;
 
+import java.time.Duration;
+
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAlternativeNameDataToDbTranslater;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationDataToDbTranslater;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationTypeIndex;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 
 public class DivaDataToDbTranslaterFactoryImp implements DataToDbTranslaterFactory {
 
+	private static final Duration ORGANISATION_TYPES_MAX_AGE = Duration.ofHours(1);
 	private SqlDatabaseFactory sqlDatabaseFactory;
+	private OrganisationTypeIndex organisationTypeIndex;
 
 	public DivaDataToDbTranslaterFactoryImp(SqlDatabaseFactory sqlDatabaseFactory) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		organisationTypeIndex = OrganisationTypeIndex
+				.usingSqlDatabaseFactoryAndMaxAge(sqlDatabaseFactory, ORGANISATION_TYPES_MAX_AGE);
 	}
 
 	@Override
 	public DataToDbTranslater factorForTableName(String tableName) {
 		if ("organisation".contentEquals(tableName)) {
-			return new OrganisationDataToDbTranslater(sqlDatabaseFactory);
+			return new OrganisationDataToDbTranslater(organisationTypeIndex);
 		}
 		if ("organisation_name".equals(tableName)) {
 			return new OrganisationAlternativeNameDataToDbTranslater();
@@ -47,4 +54,12 @@ public class DivaDataToDbTranslaterFactoryImp implements DataToDbTranslaterFacto
 		return sqlDatabaseFactory;
 	}
 
+	/**
+	 * getOrganisationTypeIndex returns the index used by all factored organisation translaters,
+	 * call {@link OrganisationTypeIndex#refresh()} on it after organisation types are changed.
+	 */
+	public OrganisationTypeIndex getOrganisationTypeIndex() {
+		return organisationTypeIndex;
+	}
+
 }
@@ -18,50 +18,127 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.cache.BoundedCache;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.MultipleRowDbToDataReader;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationExistenceChecker;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationHierarchyIndex;
+import se.uu.ub.cora.diva.mixedstorage.util.DataGroupCopier;
 import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.Row;
-import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 import se.uu.ub.cora.sqldatabase.table.TableFacade;
 import se.uu.ub.cora.sqldatabase.table.TableQuery;
-import se.uu.ub.cora.storage.RecordNotFoundException;
 import se.uu.ub.cora.storage.RecordStorage;
 import se.uu.ub.cora.storage.StorageReadResult;
 
 public class DivaDbRecordStorage implements RecordStorage {
 
 	private static final String ORGANISATION = "organisation";
+	private static final String DIVA_ORGANISATION_PARENT = "divaOrganisationParent";
+	private static final String DIVA_ORGANISATION_PREDECESSOR = "divaOrganisationPredecessor";
+	private static final int MAX_NUMBER_OF_CACHED_ORGANISATIONS = 10000;
+	private static final Duration CACHED_ORGANISATION_MAX_AGE = Duration.ofMinutes(5);
+	private static final Duration EXISTING_ORGANISATION_MAX_AGE = Duration.ofMinutes(10);
+	private static final Duration NON_EXISTING_ORGANISATION_MAX_AGE = Duration.ofSeconds(30);
+	private static final int ORGANISATION_LIST_CHUNK_SIZE = 500;
+	private static final String AFTER_ID = "afterId";
+	private static final String TOTAL_NUMBER_OF_MATCHES = "total_number_of_matches";
+	private static final int MAX_NUMBER_OF_CACHED_COUNTS = 16;
+	private static final Duration CACHED_COUNT_MAX_AGE = Duration.ofMinutes(1);
 	private DivaDbFactory divaDbFactory;
 	private DivaDbUpdaterFactory divaDbUpdaterFactory;
 	private DivaDbToCoraConverterFactory converterFactory;
 	private SqlDatabaseFactory sqlDatabaseFactory;
+	private ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory;
+	private BoundedCache<String, DataGroup> organisationCache;
+	private BoundedCache<String, Long> countCache;
+	private OrganisationHierarchyIndex organisationHierarchyIndex;
+	private OrganisationExistenceChecker organisationExistenceChecker;
+	private LongAdder numberOfUpdates = new LongAdder();
 
 	private DivaDbRecordStorage(SqlDatabaseFactory sqlDatabaseFactory,
+			ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory,
 			DivaDbFactory divaDbReaderFactory, DivaDbUpdaterFactory divaDbUpdaterFactory,
-			DivaDbToCoraConverterFactory converterFactory) {
+			DivaDbToCoraConverterFactory converterFactory, Clock clock) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.updateSqlDatabaseFactory = updateSqlDatabaseFactory;
 		this.divaDbFactory = divaDbReaderFactory;
 		this.divaDbUpdaterFactory = divaDbUpdaterFactory;
 		this.converterFactory = converterFactory;
-	}
-
+		organisationHierarchyIndex = OrganisationHierarchyIndex
+				.usingSqlDatabaseFactory(sqlDatabaseFactory);
+		organisationExistenceChecker = OrganisationExistenceChecker
+				.usingSqlDatabaseFactoryMaxSizeMaxAgesAndClock(sqlDatabaseFactory,
+						MAX_NUMBER_OF_CACHED_ORGANISATIONS, EXISTING_ORGANISATION_MAX_AGE,
+						NON_EXISTING_ORGANISATION_MAX_AGE, clock);
+		organisationCache = BoundedCache.usingMaxSizeMaxAgeAndClock(
+				MAX_NUMBER_OF_CACHED_ORGANISATIONS, CACHED_ORGANISATION_MAX_AGE, clock);
+		countCache = BoundedCache.usingMaxSizeMaxAgeAndClock(MAX_NUMBER_OF_CACHED_COUNTS,
+				CACHED_COUNT_MAX_AGE, clock);
+	}
+
+	/**
+	 * usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory creates a storage that reads using
+	 * sqlDatabaseFactory and updates using updateSqlDatabaseFactory. The divaDbUpdaterFactory
+	 * should factor its updaters using the same updateSqlDatabaseFactory, so that all connections
+	 * checked out by updates are counted, see {@link #getNumberOfConnectionsUsedByUpdates()}.
+	 */
 	public static DivaDbRecordStorage usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory(
-			SqlDatabaseFactory sqlDatabaseFactory, DivaDbFactory divaDbFactory,
-			DivaDbUpdaterFactory divaDbUpdaterFactory,
+			SqlDatabaseFactory sqlDatabaseFactory,
+			ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory,
+			DivaDbFactory divaDbFactory, DivaDbUpdaterFactory divaDbUpdaterFactory,
 			DivaDbToCoraConverterFactory converterFactory) {
-		return new DivaDbRecordStorage(sqlDatabaseFactory, divaDbFactory, divaDbUpdaterFactory,
-				converterFactory);
+		return new DivaDbRecordStorage(sqlDatabaseFactory, updateSqlDatabaseFactory,
+				divaDbFactory, divaDbUpdaterFactory, converterFactory, Clock.systemUTC());
+	}
+
+	/**
+	 * usingRecordReaderFactoryDivaFactoryUpdaterFactoryAndClock creates a storage as
+	 * {@link #usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory}, with the max age of its
+	 * caches measured using the provided clock.
+	 */
+	public static DivaDbRecordStorage usingRecordReaderFactoryDivaFactoryUpdaterFactoryAndClock(
+			SqlDatabaseFactory sqlDatabaseFactory,
+			ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory,
+			DivaDbFactory divaDbFactory, DivaDbUpdaterFactory divaDbUpdaterFactory,
+			DivaDbToCoraConverterFactory converterFactory, Clock clock) {
+		return new DivaDbRecordStorage(sqlDatabaseFactory, updateSqlDatabaseFactory,
+				divaDbFactory, divaDbUpdaterFactory, converterFactory, clock);
 	}
 
 	@Override
 	public DataGroup read(String type, String id) {
+		if (isOrganisation(type)) {
+			return readOrganisationUsingCache(type, id);
+		}
+		return readFromDb(type, id);
+	}
+
+	private DataGroup readOrganisationUsingCache(String type, String id) {
+		String cacheKey = type + ":" + id;
+		DataGroup cachedOrganisation = organisationCache.get(cacheKey);
+		if (cachedOrganisation != null) {
+			return DataGroupCopier.copy(cachedOrganisation);
+		}
+		long cacheGeneration = organisationCache.getGeneration();
+		DataGroup organisation = readFromDb(type, id);
+		organisationCache.putIfGenerationIs(cacheKey, DataGroupCopier.copy(organisation),
+				cacheGeneration);
+		return organisation;
+	}
+
+	private DataGroup readFromDb(String type, String id) {
 		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
 			DivaDbReader divaDbReader = divaDbFactory.factor(type);
 			return divaDbReader.read(tableFacade, type, id);
@@ -87,17 +164,17 @@ public class DivaDbRecordStorage implements RecordStorage {
 	@Override
 	public void update(String type, String id, DataGroup dataRecord, DataGroup collectedTerms,
 			DataGroup linkList, String dataDivider) {
-
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade();
-				DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+		numberOfUpdates.increment();
+		try (DatabaseFacade databaseFacade = updateSqlDatabaseFactory.factorDatabaseFacade()) {
 			DivaDbUpdater divaDbUpdater = divaDbUpdaterFactory.factor(type);
-			divaDbUpdater.update(tableFacade, databaseFacade, dataRecord);
+			divaDbUpdater.update(UnitOfWorkImp.usingDatabaseFacade(databaseFacade), dataRecord);
+		}
+		organisationCache.invalidateAll();
+		if (isOrganisation(type)) {
+			organisationHierarchyIndex.updateOrganisation(dataRecord);
+			organisationExistenceChecker.invalidateAll();
+			countCache.invalidateAll();
 		}
-	}
-
-	private DataGroup convertOneMapFromDbToDataGroup(String type, Row readRow) {
-		DivaDbToCoraConverter dbToCoraConverter = converterFactory.factor(type);
-		return dbToCoraConverter.fromRow(readRow);
 	}
 
 	@Override
@@ -128,55 +205,202 @@ public class DivaDbRecordStorage implements RecordStorage {
 
 	private StorageReadResult readOrganisationList(String type, String tableName,
 			DataGroup filter) {
-		TableQuery tableQuery = createTableQueryForReadList(filter, tableName);
+		if (filter.containsChildWithNameInData(AFTER_ID)) {
+			return readOrganisationPageAfterId(type, tableName, filter);
+		}
+		return readOrganisationPageWithTotalNumberOfMatches(type, tableName, filter);
+	}
+
+	/**
+	 * readOrganisationPageWithTotalNumberOfMatches reads the organisations between fromNo and toNo
+	 * together with the total number of organisations in the view, using a window count, so that
+	 * the page and the total number of matches are read in one query. The total number of matches
+	 * is returned as totalNumberOfMatches in the read result, and put in the count cache, so that a
+	 * following call to {@link #getTotalNumberOfRecordsForType(String, DataGroup)} is answered
+	 * without a count query. A page after the last organisation has no rows to read the total
+	 * from, so it is then read using the count cache.
+	 */
+	private StorageReadResult readOrganisationPageWithTotalNumberOfMatches(String type,
+			String tableName, DataGroup filter) {
+		long offset = calculateOffset(filter);
+		Long pageSize = calculatePageSize(filter);
+		long countCacheGeneration = countCache.getGeneration();
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			List<Row> rows = readRowsWithTotalNumberOfMatches(databaseFacade, tableName, offset,
+					pageSize);
+			StorageReadResult readResult = createStorageReadResult(
+					convertRowsUsingDatabaseFacade(databaseFacade, type, rows));
+			readResult.totalNumberOfMatches = getTotalNumberOfMatches(tableName, rows, offset,
+					countCacheGeneration);
+			return readResult;
+		}
+	}
 
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			List<Row> rowsFromDb = tableFacade.readRowsForQuery(tableQuery);
+	private long calculateOffset(DataGroup filter) {
+		if (filter.containsChildWithNameInData("fromNo")) {
+			return extractAtomicValueAsInteger(filter, "fromNo") - 1;
+		}
+		return 0;
+	}
 
-			List<DataGroup> convertedGroups = new ArrayList<>();
-			for (Row map : rowsFromDb) {
-				convertOrganisation(tableFacade, type, convertedGroups, map);
-			}
-			return createStorageReadResult(convertedGroups);
+	private List<Row> readRowsWithTotalNumberOfMatches(DatabaseFacade databaseFacade,
+			String tableName, long offset, Long pageSize) {
+		StringBuilder sql = new StringBuilder("select *, count(*) over() as "
+				+ TOTAL_NUMBER_OF_MATCHES + " from " + tableName + " order by id");
+		List<Object> values = new ArrayList<>();
+		if (offset > 0) {
+			sql.append(" offset ?");
+			values.add(offset);
+		}
+		if (pageSize != null) {
+			sql.append(" limit ?");
+			values.add(pageSize);
 		}
+		return databaseFacade.readUsingSqlAndValues(sql.toString(), values);
 	}
 
-	private TableQuery createTableQueryForReadList(DataGroup filter, String tableName) {
-		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(tableName);
-		addToAndFromToTableQuery(filter, tableQuery);
-		tableQuery.addOrderByAsc("id");
-		return tableQuery;
+	private long getTotalNumberOfMatches(String tableName, List<Row> rows, long offset,
+			long countCacheGeneration) {
+		if (rows.isEmpty() && offset > 0) {
+			return readTotalNumberOfRecordsUsingCache(tableName);
+		}
+		long totalNumberOfMatches = rows.isEmpty() ? 0 : readTotalNumberOfMatches(rows.get(0));
+		countCache.putIfGenerationIs(tableName, totalNumberOfMatches, countCacheGeneration);
+		return totalNumberOfMatches;
 	}
 
-	private void convertOrganisation(TableFacade tableFacade, String type,
-			List<DataGroup> convertedGroups, Row map) {
-		DataGroup convertedOrganisation = convertOneMapFromDbToDataGroup(type, map);
-		String id = String.valueOf(map.getValueByColumn("id"));
-		addParentsToOrganisation(tableFacade, convertedOrganisation, id);
-		addPredecessorsToOrganisation(tableFacade, convertedOrganisation, id);
-		convertedGroups.add(convertedOrganisation);
+	private long readTotalNumberOfMatches(Row row) {
+		return ((Number) row.getValueByColumn(TOTAL_NUMBER_OF_MATCHES)).longValue();
 	}
 
-	private void addParentsToOrganisation(TableFacade tableFacade, DataGroup convertedOrganisation,
-			String id) {
-		MultipleRowDbToDataReader parentMultipleReader = divaDbFactory
-				.factorMultipleReader("divaOrganisationParent");
-		List<DataGroup> readParents = parentMultipleReader.read(tableFacade,
-				"divaOrganisationParent", id);
-		for (DataGroup parent : readParents) {
-			convertedOrganisation.addChild(parent);
+	/**
+	 * readOrganisationPageAfterId reads the organisations with an id larger than afterId in the
+	 * filter, ordered by id. The page holds toNo - fromNo + 1 organisations, or all remaining
+	 * organisations if the filter has no toNo. As the database can go directly to afterId using
+	 * the index on id, reading a page costs the same regardless of how deep into the list it is,
+	 * unlike fromNo and toNo where all preceding rows must be skipped.
+	 */
+	private StorageReadResult readOrganisationPageAfterId(String type, String tableName,
+			DataGroup filter) {
+		Long afterId = extractAtomicValueAsInteger(filter, AFTER_ID);
+		Long pageSize = calculatePageSize(filter);
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			List<Row> rows = readRowsAfterId(databaseFacade, tableName, afterId, pageSize);
+			KeysetStorageReadResult readResult = new KeysetStorageReadResult();
+			readResult.listOfDataGroups = convertRowsUsingDatabaseFacade(databaseFacade, type,
+					rows);
+			readResult.continuationToken = createContinuationToken(rows, pageSize);
+			return readResult;
+		}
+	}
+
+	private Long calculatePageSize(DataGroup filter) {
+		if (!filter.containsChildWithNameInData("toNo")) {
+			return null;
+		}
+		long fromNo = 1;
+		if (filter.containsChildWithNameInData("fromNo")) {
+			fromNo = extractAtomicValueAsInteger(filter, "fromNo");
+		}
+		long toNo = extractAtomicValueAsInteger(filter, "toNo");
+		throwErrorIfToNoIsSmallerThanFromNo(fromNo, toNo);
+		return toNo - fromNo + 1;
+	}
+
+	private void throwErrorIfToNoIsSmallerThanFromNo(long fromNo, long toNo) {
+		if (toNo < fromNo) {
+			throw DbException.withMessage(
+					"toNo can not be smaller than fromNo, fromNo: " + fromNo + " toNo: " + toNo);
+		}
+	}
+
+	private List<Row> readRowsAfterId(DatabaseFacade databaseFacade, String tableName,
+			Long afterId, Long pageSize) {
+		String sql = "select * from " + tableName + " where id > ? order by id";
+		if (pageSize == null) {
+			return databaseFacade.readUsingSqlAndValues(sql, List.of(afterId));
+		}
+		return databaseFacade.readUsingSqlAndValues(sql + " limit ?", List.of(afterId, pageSize));
+	}
+
+	private List<DataGroup> convertRowsUsingDatabaseFacade(DatabaseFacade databaseFacade,
+			String type, List<Row> rows) {
+		if (rows.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return convertOrganisationsUsingDatabaseFacade(databaseFacade, type, rows);
+	}
+
+	private String createContinuationToken(List<Row> rows, Long pageSize) {
+		if (pageSize == null || rows.size() < pageSize) {
+			return null;
+		}
+		return String.valueOf(rows.get(rows.size() - 1).getValueByColumn("id"));
+	}
+
+	private List<DataGroup> convertOrganisationsUsingDatabaseFacade(DatabaseFacade databaseFacade,
+			String type, List<Row> rowsFromDb) {
+		List<String> ids = collectOrganisationIds(rowsFromDb);
+		Map<String, List<DataGroup>> parents = readForIds(databaseFacade, DIVA_ORGANISATION_PARENT,
+				ids);
+		Map<String, List<DataGroup>> predecessors = readForIds(databaseFacade,
+				DIVA_ORGANISATION_PREDECESSOR, ids);
+		return convertOrganisationsAddingParentsAndPredecessors(type, rowsFromDb, parents,
+				predecessors);
+	}
+
+	private List<String> collectOrganisationIds(List<Row> rowsFromDb) {
+		List<String> ids = new ArrayList<>(rowsFromDb.size());
+		for (Row row : rowsFromDb) {
+			ids.add(String.valueOf(row.getValueByColumn("id")));
+		}
+		return ids;
+	}
+
+	private Map<String, List<DataGroup>> readForIds(DatabaseFacade databaseFacade, String type,
+			List<String> ids) {
+		MultipleRowDbToDataReader multipleReader = divaDbFactory.factorMultipleReader(type);
+		return multipleReader.readForIds(databaseFacade, ids);
+	}
+
+	private List<DataGroup> convertOrganisationsAddingParentsAndPredecessors(String type,
+			List<Row> rowsFromDb, Map<String, List<DataGroup>> parents,
+			Map<String, List<DataGroup>> predecessors) {
+		DivaDbToCoraConverter converter = converterFactory.factor(type);
+		List<DataGroup> convertedGroups = new ArrayList<>(rowsFromDb.size());
+		for (Row row : rowsFromDb) {
+			DataGroup convertedOrganisation = converter.fromRow(row);
+			String id = String.valueOf(row.getValueByColumn("id"));
+			addChildren(convertedOrganisation, parents.get(id));
+			addChildren(convertedOrganisation, predecessors.get(id));
+			convertedGroups.add(convertedOrganisation);
+		}
+		return convertedGroups;
+	}
+
+	private void addChildren(DataGroup convertedOrganisation, List<DataGroup> children) {
+		if (children != null) {
+			for (DataGroup child : children) {
+				convertedOrganisation.addChild(child);
+			}
 		}
 	}
 
-	private void addPredecessorsToOrganisation(TableFacade tableFacade,
-			DataGroup convertedOrganisation, String id) {
-		MultipleRowDbToDataReader predecessorReader = divaDbFactory
-				.factorMultipleReader("divaOrganisationPredecessor");
-		List<DataGroup> readPredecessors = predecessorReader.read(tableFacade,
-				"divaOrganisationPredecessor", id);
-		for (DataGroup predecessor : readPredecessors) {
-			convertedOrganisation.addChild(predecessor);
+	/**
+	 * readOrganisationListAsIterator returns an iterator over all organisations of the entered
+	 * type, ordered by id. Organisations are read and converted in chunks when the iterator is
+	 * read, so that all organisations can be exported or indexed without holding all of them in
+	 * memory at the same time.
+	 */
+	public Iterator<DataGroup> readOrganisationListAsIterator(String type) {
+		if (!isOrganisation(type)) {
+			throw NotImplementedException.withMessage(
+					"readOrganisationListAsIterator is not implemented for type: " + type);
 		}
+		return OrganisationListIterator.usingSqlDatabaseFactoryViewNameChunkSizeAndConverter(
+				sqlDatabaseFactory, getTableName(type), ORGANISATION_LIST_CHUNK_SIZE,
+				(databaseFacade, rows) -> convertOrganisationsUsingDatabaseFacade(databaseFacade,
+						type, rows));
 	}
 
 	private List<Row> readAllFromDb(String type) {
@@ -212,19 +436,14 @@ public class DivaDbRecordStorage implements RecordStorage {
 	}
 
 	private List<DataGroup> convertDbResultToDataGroups(String type, List<Row> readAllFromDb) {
+		DivaDbToCoraConverter converter = converterFactory.factor(type);
 		List<DataGroup> userDataGroups = new ArrayList<>(readAllFromDb.size());
 		for (Row rowFromDb : readAllFromDb) {
-			DataGroup userDataGroup = convertRowToDataGroup(type, rowFromDb);
-			userDataGroups.add(userDataGroup);
+			userDataGroups.add(converter.fromRow(rowFromDb));
 		}
 		return userDataGroups;
 	}
 
-	private DataGroup convertRowToDataGroup(String type, Row rowFromDb) {
-		DivaDbToCoraConverter converter = converterFactory.factor(type);
-		return converter.fromRow(rowFromDb);
-	}
-
 	@Override
 	public DataGroup readLinkList(String type, String id) {
 		throw NotImplementedException.withMessage("readLinkList is not implemented");
@@ -240,36 +459,13 @@ public class DivaDbRecordStorage implements RecordStorage {
 	public boolean recordExistsForAbstractOrImplementingRecordTypeAndRecordId(String type,
 			String id) {
 		if (isOrganisation(type)) {
-			return organisationExistsInDb(id, type);
+			String viewName = getTableName(type);
+			return organisationExistenceChecker.organisationExistsInView(viewName, id);
 		}
 		throw NotImplementedException.withMessage(
 				"recordExistsForAbstractOrImplementingRecordTypeAndRecordId is not implemented");
 	}
 
-	private boolean organisationExistsInDb(String id, String type) {
-		try {
-			String tableName = getTableName(type);
-			tryToReadOrganisationFromDb(id, tableName);
-			return true;
-		} catch (RecordNotFoundException e) {
-			return false;
-		}
-	}
-
-	private void tryToReadOrganisationFromDb(String id, String tableName) {
-		try {
-			TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(tableName);
-			tableQuery.addCondition("id", Integer.valueOf(id));
-
-			try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-				tableFacade.readOneRowForQuery(tableQuery);
-			}
-
-		} catch (SqlDatabaseException | NumberFormatException e) {
-			throw new RecordNotFoundException("Organisation not found: " + id);
-		}
-	}
-
 	public DivaDbFactory getDivaDbToCoraFactory() {
 		// needed for test
 		return divaDbFactory;
@@ -289,26 +485,43 @@ public class DivaDbRecordStorage implements RecordStorage {
 	public long getTotalNumberOfRecordsForType(String type, DataGroup filter) {
 		throwNotImplementedErrorIfNotOrganisation(type);
 		String tableName = getTableName(type);
-		TableQuery tableQuery = createTableQueryForReadList(filter, tableName);
-
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			return tableFacade.readNumberOfRows(tableQuery);
+		return readTotalNumberOfRecordsUsingCache(tableName);
+	}
+
+	/**
+	 * readTotalNumberOfRecordsUsingCache returns the number of organisations in the view from the
+	 * count cache, or reads and caches it if it is not cached. The cache key is only the view, and
+	 * the count is read for the whole view, as the filter can only hold fromNo and toNo, which
+	 * select a page but do not change the total number of records. The cache is invalidated when
+	 * an organisation is updated through this storage, and cached counts are used for at most one
+	 * minute, as organisations can also be created in DiVA classic.
+	 */
+	private long readTotalNumberOfRecordsUsingCache(String tableName) {
+		Long cachedCount = countCache.get(tableName);
+		if (cachedCount != null) {
+			return cachedCount;
 		}
+		long cacheGeneration = countCache.getGeneration();
+		long count = readTotalNumberOfRecordsFromDb(tableName);
+		countCache.putIfGenerationIs(tableName, count, cacheGeneration);
+		return count;
 	}
 
-	private void addToAndFromToTableQuery(DataGroup filter, TableQuery tableQuery) {
-		if (filter.containsChildWithNameInData("fromNo")) {
-			tableQuery.setFromNo(extractAtomicValueAsInteger(filter, "fromNo"));
-		}
-		if (filter.containsChildWithNameInData("toNo")) {
-			tableQuery.setToNo(extractAtomicValueAsInteger(filter, "toNo"));
-
+	private long readTotalNumberOfRecordsFromDb(String tableName) {
+		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(tableName);
+		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
+			return tableFacade.readNumberOfRows(tableQuery);
 		}
 	}
 
 	private Long extractAtomicValueAsInteger(DataGroup filter, String nameInData) {
 		String atomicValue = filter.getFirstAtomicValueWithNameInData(nameInData);
-		return Long.valueOf(atomicValue);
+		try {
+			return Long.valueOf(atomicValue);
+		} catch (NumberFormatException e) {
+			throw DbException.withMessageAndException(
+					"Can not convert " + nameInData + " to integer, value: " + atomicValue, e);
+		}
 	}
 
 	private void throwNotImplementedErrorIfNotOrganisation(String type) {
@@ -329,4 +542,53 @@ public class DivaDbRecordStorage implements RecordStorage {
 		return sqlDatabaseFactory;
 	}
 
+	/**
+	 * getOrganisationCache returns the cache used for read organisations, the cache can be used to
+	 * read the number of hits, misses, evictions and expirations. Organisations expire from the
+	 * cache after a few minutes, as they can also be changed by DiVA classic.
+	 */
+	public BoundedCache<String, DataGroup> getOrganisationCache() {
+		return organisationCache;
+	}
+
+	/**
+	 * getOrganisationHierarchyIndex returns the index of how organisations are related through
+	 * parents and predecessors. The index is kept up to date with updates made through this
+	 * storage.
+	 */
+	public OrganisationHierarchyIndex getOrganisationHierarchyIndex() {
+		return organisationHierarchyIndex;
+	}
+
+	/**
+	 * getCountCache returns the cache used for the total number of organisations in each view, the
+	 * cache can be used to read the number of hits, misses and expirations.
+	 */
+	public BoundedCache<String, Long> getCountCache() {
+		return countCache;
+	}
+
+	public OrganisationExistenceChecker getOrganisationExistenceChecker() {
+		// needed for test
+		return organisationExistenceChecker;
+	}
+
+	public long getNumberOfUpdates() {
+		return numberOfUpdates.sum();
+	}
+
+	/**
+	 * getNumberOfConnectionsUsedByUpdates returns the number of connections checked out from the
+	 * update sqlDatabaseFactory, this includes connections opened by updaters, translaters and
+	 * sequence allocators factored using it, also when they are opened on other threads. Divided
+	 * by {@link #getNumberOfUpdates()} it gives the number of connections used per update.
+	 */
+	public long getNumberOfConnectionsUsedByUpdates() {
+		return updateSqlDatabaseFactory.getNumberOfConnections();
+	}
+
+	public ConnectionCountingSqlDatabaseFactory getUpdateSqlDatabaseFactory() {
+		// needed for test
+		return updateSqlDatabaseFactory;
+	}
 }
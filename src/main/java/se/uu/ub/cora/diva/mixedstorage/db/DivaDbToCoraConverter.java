@@ -21,6 +21,12 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.sqldatabase.Row;
 
+/**
+ * DivaDbToCoraConverter converts a row read from the classic database to a dataGroup.
+ * <p>
+ * Implementations must keep no state between calls to fromRow, as one instance is shared by all
+ * rows and threads.
+ */
 public interface DivaDbToCoraConverter {
 	DataGroup fromRow(Row readRow);
 
@@ -23,22 +23,38 @@ import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationC
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationParentConverter;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaDbToCoraOrganisationPredecessorConverter;
 
+/**
+ * DivaDbToCoraConverterFactoryImp returns one shared converter per type. The converters keep no
+ * state between calls, so the same instance can be used for every row and by all threads.
+ */
 public class DivaDbToCoraConverterFactoryImp implements DivaDbToCoraConverterFactory {
 
+	private final DivaDbToCoraConverter organisationConverter;
+	private final DivaDbToCoraConverter parentConverter;
+	private final DivaDbToCoraConverter predecessorConverter;
+	private final DivaDbToCoraConverter userConverter;
+
+	public DivaDbToCoraConverterFactoryImp() {
+		organisationConverter = new DivaDbToCoraOrganisationConverter(
+				new DefaultConverterFactoryImp());
+		parentConverter = new DivaDbToCoraOrganisationParentConverter();
+		predecessorConverter = new DivaDbToCoraOrganisationPredecessorConverter();
+		userConverter = new DivaDbToCoraUserConverter();
+	}
+
 	@Override
 	public DivaDbToCoraConverter factor(String type) {
 		if (isOrganisation(type)) {
-			DefaultConverterFactoryImp defaultConverterFactory = new DefaultConverterFactoryImp();
-			return new DivaDbToCoraOrganisationConverter(defaultConverterFactory);
+			return organisationConverter;
 		}
 		if ("divaOrganisationParent".equals(type)) {
-			return new DivaDbToCoraOrganisationParentConverter();
+			return parentConverter;
 		}
 		if ("divaOrganisationPredecessor".equals(type)) {
-			return new DivaDbToCoraOrganisationPredecessorConverter();
+			return predecessorConverter;
 		}
 		if ("user".equals(type)) {
-			return new DivaDbToCoraUserConverter();
+			return userConverter;
 		}
 		throw NotImplementedException.withMessage("No converter implemented for: " + type);
 	}
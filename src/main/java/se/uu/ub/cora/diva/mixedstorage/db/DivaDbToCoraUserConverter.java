@@ -24,23 +24,29 @@ import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.data.DataGroupProvider;
 import se.uu.ub.cora.sqldatabase.Row;
 
+/**
+ * DivaDbToCoraUserConverter converts a user row from the classic database to a Cora user.
+ * <p>
+ * The recordInfo parts that are equal for all users are added using {@link RecordInfoFragments},
+ * which creates new atomics for each converted user.
+ */
 public class DivaDbToCoraUserConverter implements DivaDbToCoraConverter {
 
 	private static final String CORA_USER = "coraUser";
-	private Row dbRow;
+	private final RecordInfoFragments recordInfoFragments = RecordInfoFragments
+			.usingRecordTypes(CORA_USER);
 
 	@Override
 	public DataGroup fromRow(Row dbRow) {
-		this.dbRow = dbRow;
-		throwErrorIfNoId();
+		throwErrorIfNoId(dbRow);
 		DataGroup user = createBasicActiveUserWithRecordInfo(dbRow);
 		possiblyAddFirstName(dbRow, user);
 		possiblyAddLastname(dbRow, user);
 		return user;
 	}
 
-	private void throwErrorIfNoId() {
-		if (valueIsEmpty("db_id")) {
+	private void throwErrorIfNoId(Row dbRow) {
+		if (valueIsEmpty(dbRow, "db_id")) {
 			throw ConversionException.withMessageAndException(
 					"Error converting user to Cora user: Map does not contain value for id", null);
 		}
@@ -58,9 +64,7 @@ public class DivaDbToCoraUserConverter implements DivaDbToCoraConverter {
 
 	private DataGroup createRecordInfo(Row map) {
 		DataGroup recordInfo = createRecordInfoGroupWithId(map);
-		createAndAddType(recordInfo);
-		createAndAddDataDivider(recordInfo);
-		createAndAddCreatedAndUpdatedInfo(recordInfo);
+		recordInfoFragments.addFragmentsUsingGroupLinks(recordInfo, CORA_USER);
 		return recordInfo;
 	}
 
@@ -72,71 +76,24 @@ public class DivaDbToCoraUserConverter implements DivaDbToCoraConverter {
 		return recordInfo;
 	}
 
-	private void createAndAddDataDivider(DataGroup recordInfo) {
-		DataGroup dataDivider = DataGroupProvider
-				.getDataGroupAsLinkUsingNameInDataTypeAndId("dataDivider", "system", "diva");
-		recordInfo.addChild(dataDivider);
-	}
-
-	private void createAndAddType(DataGroup recordInfo) {
-		DataGroup type = DataGroupProvider.getDataGroupAsLinkUsingNameInDataTypeAndId("type",
-				"recordType", CORA_USER);
-		recordInfo.addChild(type);
-	}
-
-	private void createAndAddCreatedAndUpdatedInfo(DataGroup recordInfo) {
-		createAndAddCreatedInfo(recordInfo);
-		createAndAddUpdatedInfo(recordInfo);
-	}
-
-	private void createAndAddCreatedInfo(DataGroup recordInfo) {
-		DataGroup createdBy = createLinkUsingNameInDataRecordTypeAndRecordId("createdBy", CORA_USER,
-				"coraUser:4412982402853626");
-		recordInfo.addChild(createdBy);
-		addPredefinedTimestampToDataGroupUsingNameInData(recordInfo, "tsCreated");
-	}
-
-	private void addPredefinedTimestampToDataGroupUsingNameInData(DataGroup recordInfo,
-			String nameInData) {
-		recordInfo.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData,
-				"2017-01-01T00:00:00.000000Z"));
-	}
-
-	private void createAndAddUpdatedInfo(DataGroup recordInfo) {
-		DataGroup updated = DataGroupProvider.getDataGroupUsingNameInData("updated");
-		DataGroup updatedBy = createLinkUsingNameInDataRecordTypeAndRecordId("updatedBy", CORA_USER,
-				"coraUser:4412982402853626");
-		updated.addChild(updatedBy);
-		addPredefinedTimestampToDataGroupUsingNameInData(updated, "tsUpdated");
-		updated.setRepeatId("0");
-		recordInfo.addChild(updated);
-	}
-
-	private DataGroup createLinkUsingNameInDataRecordTypeAndRecordId(String nameInData,
-			String linkedRecordType, String linkedRecordId) {
-		return DataGroupProvider.getDataGroupAsLinkUsingNameInDataTypeAndId(nameInData,
-				linkedRecordType, linkedRecordId);
-	}
-
 	private void possiblyAddFirstName(Row dbRow, DataGroup user) {
-		if (!valueIsEmpty("first_name")) {
+		if (!valueIsEmpty(dbRow, "first_name")) {
 			DataAtomic firstName = DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(
 					"userFirstname", (String) dbRow.getValueByColumn("first_name"));
 			user.addChild(firstName);
 		}
 	}
 
-	private boolean valueIsEmpty(String key) {
+	private boolean valueIsEmpty(Row dbRow, String key) {
 		Object valueForKey = dbRow.getValueByColumn(key);
 		return valueForKey == null || "".equals(valueForKey);
 	}
 
 	private void possiblyAddLastname(Row dbRow, DataGroup user) {
-		if (!valueIsEmpty("last_name")) {
+		if (!valueIsEmpty(dbRow, "last_name")) {
 			DataAtomic lastName = DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(
 					"userLastname", (String) dbRow.getValueByColumn("last_name"));
 			user.addChild(lastName);
 		}
 	}
-
 }
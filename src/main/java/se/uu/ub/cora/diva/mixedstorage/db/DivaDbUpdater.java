@@ -20,8 +20,6 @@
 package se.uu.ub.cora.diva.mixedstorage.db;
 
 import se.uu.ub.cora.data.DataGroup;
-import se.uu.ub.cora.sqldatabase.DatabaseFacade;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 /**
  * DivaDbUpdater interface is intended to handle database operations for a Datagroup.
@@ -34,8 +32,12 @@ public interface DivaDbUpdater {
 	/**
 	 * update methods can be used in order to implement the update operation in the database.
 	 * 
+	 * Implementations are required to make all reads, sequence fetches and writes for the update
+	 * using the provided unitOfWork.
+	 * 
+	 * @param unitOfWork
 	 * @param dataGroup
 	 */
-	void update(TableFacade tableFacade, DatabaseFacade databaseFacade, DataGroup dataGroup);
+	void update(UnitOfWork unitOfWork, DataGroup dataGroup);
 
 }
@@ -27,6 +27,7 @@ public class DivaDbUpdaterFactoryImp implements DivaDbUpdaterFactory {
 	private DataToDbTranslaterFactory translaterFactory;
 	private RelatedTableFactory relatedTableFactory;
 	private SqlDatabaseFactory sqlDatabaseFactory;
+	private SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
 
 	public DivaDbUpdaterFactoryImp(DataToDbTranslaterFactory translaterFactory,
 			SqlDatabaseFactory sqlDatabaseFactory, RelatedTableFactory relatedTableFactory) {
@@ -49,7 +50,8 @@ public class DivaDbUpdaterFactoryImp implements DivaDbUpdaterFactory {
 	}
 
 	private DivaDbUpdater factorForOrganisation() {
-		StatementExecutor preparedStatementCreator = new PreparedStatementExecutorImp();
+		StatementExecutor preparedStatementCreator = new BatchingStatementExecutorImp(
+				sqlTemplateCache);
 		DataToDbTranslater translater = translaterFactory.factorForTableName("organisation");
 
 		return new DivaDbOrganisationUpdater(translater, sqlDatabaseFactory, relatedTableFactory,
@@ -65,4 +67,9 @@ public class DivaDbUpdaterFactoryImp implements DivaDbUpdaterFactory {
 		// needed for test
 		return relatedTableFactory;
 	}
+
+	public SqlTemplateCache getSqlTemplateCache() {
+		// needed for test
+		return sqlTemplateCache;
+	}
 }
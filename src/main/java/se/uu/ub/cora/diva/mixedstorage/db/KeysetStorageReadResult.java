@@ -0,0 +1,30 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import se.uu.ub.cora.storage.StorageReadResult;
+
+/**
+ * KeysetStorageReadResult is the result of a list read using keyset paging. The
+ * continuationToken is the value to send as afterId in the filter to read the next page, it is
+ * null when there are no more records to read.
+ */
+public class KeysetStorageReadResult extends StorageReadResult {
+	public String continuationToken;
+}
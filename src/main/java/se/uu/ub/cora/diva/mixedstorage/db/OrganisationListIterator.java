@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+
+/**
+ * OrganisationListIterator iterates over all organisations in a view, ordered by id, without
+ * reading all of them into memory.
+ * <p>
+ * Organisations are read in chunks of chunkSize rows, the next chunk is read using the last id in
+ * the previous chunk when the organisations in the previous chunk have been iterated over. Each
+ * chunk is read and converted using its own databaseFacade that is closed before the chunk is
+ * returned, so no connection is held between chunks and an iterator that is not read to the end
+ * does not need to be closed.
+ */
+public final class OrganisationListIterator implements Iterator<DataGroup> {
+	private final SqlDatabaseFactory sqlDatabaseFactory;
+	private final String viewName;
+	private final int chunkSize;
+	private final BiFunction<DatabaseFacade, List<Row>, List<DataGroup>> rowsConverter;
+	private Iterator<DataGroup> currentChunk = Collections.emptyIterator();
+	private Object lastReadId;
+	private boolean lastChunkRead = false;
+
+	public static OrganisationListIterator usingSqlDatabaseFactoryViewNameChunkSizeAndConverter(
+			SqlDatabaseFactory sqlDatabaseFactory, String viewName, int chunkSize,
+			BiFunction<DatabaseFacade, List<Row>, List<DataGroup>> rowsConverter) {
+		return new OrganisationListIterator(sqlDatabaseFactory, viewName, chunkSize,
+				rowsConverter);
+	}
+
+	private OrganisationListIterator(SqlDatabaseFactory sqlDatabaseFactory, String viewName,
+			int chunkSize, BiFunction<DatabaseFacade, List<Row>, List<DataGroup>> rowsConverter) {
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.viewName = viewName;
+		this.chunkSize = chunkSize;
+		this.rowsConverter = rowsConverter;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentChunk.hasNext() && !lastChunkRead) {
+			readNextChunk();
+		}
+		return currentChunk.hasNext();
+	}
+
+	private void readNextChunk() {
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			List<Row> rows = readRowsForNextChunk(databaseFacade);
+			lastChunkRead = rows.size() < chunkSize;
+			if (!rows.isEmpty()) {
+				lastReadId = rows.get(rows.size() - 1).getValueByColumn("id");
+				currentChunk = rowsConverter.apply(databaseFacade, rows).iterator();
+			}
+		}
+	}
+
+	private List<Row> readRowsForNextChunk(DatabaseFacade databaseFacade) {
+		if (lastReadId == null) {
+			String sql = "select * from " + viewName + " order by id limit ?";
+			return databaseFacade.readUsingSqlAndValues(sql, List.of(chunkSize));
+		}
+		String sql = "select * from " + viewName + " where id > ? order by id limit ?";
+		return databaseFacade.readUsingSqlAndValues(sql, List.of(lastReadId, chunkSize));
+	}
+
+	@Override
+	public DataGroup next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more organisations in " + viewName);
+		}
+		return currentChunk.next();
+	}
+
+	public String getViewName() {
+		// needed for test
+		return viewName;
+	}
+
+	public int getChunkSize() {
+		// needed for test
+		return chunkSize;
+	}
+}
@@ -20,158 +20,44 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.StringJoiner;
 
 import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 
 public class PreparedStatementExecutorImp implements StatementExecutor {
 
-	@Override
-	public void executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
-			DatabaseFacade databaseFacade) {
-		for (DbStatement dbStatement : dbStatements) {
-			StringBuilder sql = createSql(dbStatement);
-			tryToExecuteUsingPreparedStatement(dbStatement, sql, databaseFacade);
-		}
-
-	}
-
-	private void tryToExecuteUsingPreparedStatement(DbStatement dbStatement, StringBuilder sql,
-			DatabaseFacade databaseFacade) {
-		List<Object> parameterValues = getAllValuesAndConditions(dbStatement);
-		databaseFacade.executeSqlWithValues(sql.toString(), parameterValues);
-
-	}
-
-	private List<Object> getAllValuesAndConditions(DbStatement dbStatement) {
-		return addColumnsAndConditionsToValuesForUpdate(dbStatement.getValues(),
-				dbStatement.getConditions());
-	}
-
-	private StringBuilder createSql(DbStatement dbStatement) {
-		StringBuilder sql = new StringBuilder();
-		if ("delete".equals(dbStatement.getOperation())) {
-			sql.append(createSqlForDelete(dbStatement.getTableName(), dbStatement.getConditions()));
-		} else if ("update".equals(dbStatement.getOperation())) {
-			sql.append(createSqlForUpdate(dbStatement.getTableName(), dbStatement.getValues(),
-					dbStatement.getConditions()));
-		} else {
-			sql.append(createSqlForInsert(dbStatement.getTableName(), dbStatement.getValues()));
-
-		}
-		return sql;
-	}
-
-	private StringBuilder createSqlForUpdate(String tableName,
-			Map<String, Object> columnsWithValues, Map<String, Object> conditions) {
-		StringBuilder sql = new StringBuilder(
-				createSettingPartOfSqlStatement(tableName, columnsWithValues));
-		if (!conditions.isEmpty()) {
-			sql.append(createWherePartOfSqlStatement(conditions));
-		}
-		return sql;
-	}
-
-	private String createSettingPartOfSqlStatement(String tableName,
-			Map<String, Object> columnsWithValues) {
-		StringBuilder sql = new StringBuilder("UPDATE " + tableName + " SET ");
-		List<String> columnNames = getAllColumnNames(columnsWithValues);
-		return appendColumnsToSelectPart(sql, columnNames);
-	}
-
-	private String appendColumnsToSelectPart(StringBuilder sql, List<String> columnNames) {
-		StringJoiner joiner = new StringJoiner(", ");
-		addAllToJoiner(columnNames, joiner);
-		sql.append(joiner);
-		return sql.toString();
-	}
-
-	private void addAllToJoiner(List<String> columnNames, StringJoiner joiner) {
-		for (String columnName : columnNames) {
-			joiner.add(columnName + " = ?");
-		}
-	}
+	private final SqlTemplateCache sqlTemplateCache;
 
-	private List<String> getAllColumnNames(Map<String, Object> columnsWithValues) {
-		List<String> columnNames = new ArrayList<>(columnsWithValues.size());
-		for (Entry<String, Object> column : columnsWithValues.entrySet()) {
-			columnNames.add(column.getKey());
-		}
-		return columnNames;
+	public PreparedStatementExecutorImp() {
+		this(new SqlTemplateCache());
 	}
 
-	private String createWherePartOfSqlStatement(Map<String, Object> conditions) {
-		StringBuilder sql = new StringBuilder(" WHERE ");
-		List<String> conditionNames = getAllConditionNames(conditions);
-		return appendConditionsToWherePart(sql, conditionNames);
+	public PreparedStatementExecutorImp(SqlTemplateCache sqlTemplateCache) {
+		this.sqlTemplateCache = sqlTemplateCache;
 	}
 
-	private List<String> getAllConditionNames(Map<String, Object> conditions) {
-		List<String> conditionNames = new ArrayList<>(conditions.size());
-		for (Entry<String, Object> condition : conditions.entrySet()) {
-			conditionNames.add(condition.getKey());
+	@Override
+	public List<Integer> executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
+			DatabaseFacade databaseFacade) {
+		List<Integer> updateCounts = new ArrayList<>(dbStatements.size());
+		for (DbStatement dbStatement : dbStatements) {
+			updateCounts.add(executeUsingPreparedStatement(dbStatement, databaseFacade));
 		}
-		return conditionNames;
-	}
-
-	private String appendConditionsToWherePart(StringBuilder sql, List<String> conditions) {
-		StringJoiner joiner = new StringJoiner(" AND ");
-		addAllToJoiner(conditions, joiner);
-		sql.append(joiner);
-		return sql.toString();
-	}
-
-	private List<Object> addColumnsAndConditionsToValuesForUpdate(Map<String, Object> columns,
-			Map<String, Object> conditions) {
-		List<Object> valuesForUpdate = new ArrayList<>();
-		valuesForUpdate.addAll(columns.values());
-		valuesForUpdate.addAll(conditions.values());
-		return valuesForUpdate;
-	}
-
-	private StringBuilder createSqlForDelete(String tableName, Map<String, Object> conditions) {
-		StringBuilder sql = new StringBuilder("DELETE FROM " + tableName + " WHERE ");
-		List<String> allConditionNames = getAllConditionNames(conditions);
-		appendConditionsToWherePart(sql, allConditionNames);
-		return sql;
+		return updateCounts;
 	}
 
-	private StringBuilder createSqlForInsert(String tableName,
-			Map<String, Object> columnsWithValues) {
-		StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + "(");
-		List<String> columnNames = getAllColumnNames(columnsWithValues);
-		appendColumnNamesToInsertPart(sql, columnNames);
-		appendValuesPart(sql, columnNames);
-		return sql;
-	}
-
-	private String appendColumnNamesToInsertPart(StringBuilder sql, List<String> columnNames) {
-		StringJoiner joiner = new StringJoiner(", ");
-		addAllToInsertJoiner(columnNames, joiner);
-		sql.append(joiner);
-		return sql.toString();
-	}
-
-	private void addAllToInsertJoiner(List<String> columnNames, StringJoiner joiner) {
-		for (String columnName : columnNames) {
-			joiner.add(columnName);
-		}
+	private int executeUsingPreparedStatement(DbStatement dbStatement,
+			DatabaseFacade databaseFacade) {
+		SqlTemplate sqlTemplate = getSqlTemplate(dbStatement);
+		List<Object> parameterValues = sqlTemplate.getParameterValues(dbStatement);
+		return databaseFacade.executeSqlWithValues(sqlTemplate.getSql(), parameterValues);
 	}
 
-	private void appendValuesPart(StringBuilder sql, List<String> columnNames) {
-		sql.append(") VALUES(");
-		sql.append(addCorrectNumberOfPlaceHoldersForValues(columnNames));
-		sql.append(')');
+	protected SqlTemplate getSqlTemplate(DbStatement dbStatement) {
+		return sqlTemplateCache.getSqlTemplateForDbStatement(dbStatement);
 	}
 
-	private String addCorrectNumberOfPlaceHoldersForValues(List<String> columnNames) {
-		StringJoiner joiner = new StringJoiner(", ");
-		for (int i = 0; i < columnNames.size(); i++) {
-			joiner.add("?");
-		}
-		return joiner.toString();
+	public SqlTemplateCache getSqlTemplateCache() {
+		// needed for test
+		return sqlTemplateCache;
 	}
-
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+
+/**
+ * RecordInfoFragments adds the parts of recordInfo that are the same for every record read from
+ * the classic database, that is type, dataDivider, createdBy, tsCreated and updated.
+ * <p>
+ * The names and values of these parts are set up once, when RecordInfoFragments is created. The
+ * atomics, links and the updated group are created for each recordInfo, so no data instance is
+ * shared between records.
+ */
+public final class RecordInfoFragments {
+	private static final String CORA_USER = "coraUser";
+	private static final String CORA_USER_ID = "coraUser:4412982402853626";
+	private static final String PREDEFINED_TIMESTAMP = "2017-01-01T00:00:00.000000Z";
+	private static final LinkedRecord DATA_DIVIDER = new LinkedRecord("system", "diva");
+	private static final LinkedRecord USER = new LinkedRecord(CORA_USER, CORA_USER_ID);
+
+	private final Map<String, LinkedRecord> types;
+
+	public static RecordInfoFragments usingRecordTypes(String... recordTypes) {
+		return new RecordInfoFragments(recordTypes);
+	}
+
+	private RecordInfoFragments(String... recordTypes) {
+		types = new HashMap<>(recordTypes.length);
+		for (String recordType : recordTypes) {
+			types.put(recordType, new LinkedRecord("recordType", recordType));
+		}
+	}
+
+	private static DataAtomic createAtomic(String nameInData, String value) {
+		return DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData, value);
+	}
+
+	/**
+	 * addFragmentsUsingRecordLinks adds type, dataDivider, createdBy, tsCreated and updated to the
+	 * recordInfo, with the links created as DataRecordLinks.
+	 */
+	public void addFragmentsUsingRecordLinks(DataGroup recordInfo, String recordType) {
+		addFragments(recordInfo, recordType,
+				DataRecordLinkProvider::getDataRecordLinkUsingNameInData);
+	}
+
+	/**
+	 * addFragmentsUsingGroupLinks adds type, dataDivider, createdBy, tsCreated and updated to the
+	 * recordInfo, with the links created as DataGroups.
+	 */
+	public void addFragmentsUsingGroupLinks(DataGroup recordInfo, String recordType) {
+		addFragments(recordInfo, recordType, DataGroupProvider::getDataGroupUsingNameInData);
+	}
+
+	private void addFragments(DataGroup recordInfo, String recordType,
+			Function<String, DataGroup> linkFactory) {
+		recordInfo.addChild(getType(recordType).createLink("type", linkFactory));
+		recordInfo.addChild(DATA_DIVIDER.createLink("dataDivider", linkFactory));
+		recordInfo.addChild(USER.createLink("createdBy", linkFactory));
+		recordInfo.addChild(createAtomic("tsCreated", PREDEFINED_TIMESTAMP));
+		recordInfo.addChild(createUpdated(linkFactory));
+	}
+
+	private LinkedRecord getType(String recordType) {
+		LinkedRecord type = types.get(recordType);
+		if (type == null) {
+			return new LinkedRecord("recordType", recordType);
+		}
+		return type;
+	}
+
+	private DataGroup createUpdated(Function<String, DataGroup> linkFactory) {
+		DataGroup updated = DataGroupProvider.getDataGroupUsingNameInData("updated");
+		updated.addChild(USER.createLink("updatedBy", linkFactory));
+		updated.addChild(createAtomic("tsUpdated", PREDEFINED_TIMESTAMP));
+		updated.setRepeatId("0");
+		return updated;
+	}
+
+	private static final class LinkedRecord {
+		private final String linkedRecordType;
+		private final String linkedRecordId;
+
+		private LinkedRecord(String linkedRecordType, String linkedRecordId) {
+			this.linkedRecordType = linkedRecordType;
+			this.linkedRecordId = linkedRecordId;
+		}
+
+		private DataGroup createLink(String nameInData,
+				Function<String, DataGroup> linkFactory) {
+			DataGroup link = linkFactory.apply(nameInData);
+			link.addChild(createAtomic("linkedRecordType", linkedRecordType));
+			link.addChild(createAtomic("linkedRecordId", linkedRecordId));
+			return link;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import se.uu.ub.cora.sqldatabase.Row;
 
 public interface RelatedTable {
 
-	List<DbStatement> handleDbForDataGroup(DataGroup organisation, List<Row> dbRows);
+	List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup organisation,
+			List<Row> dbRows);
 
 }
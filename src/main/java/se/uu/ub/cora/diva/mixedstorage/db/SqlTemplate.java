@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * SqlTemplate holds the sql for one statement shape, that is one combination of operation, table,
+ * column names and condition names, together with the order in which the values for the
+ * parameters must be given.
+ * <p>
+ * Column names and condition names are sorted, so that all dbStatements with the same shape get
+ * identical sql, no matter in which order their maps return the names.
+ */
+public final class SqlTemplate {
+
+	private static final String DELETE = "delete";
+	private static final String UPDATE = "update";
+	private final String sql;
+	private final List<String> columnNames;
+	private final List<String> conditionNames;
+
+	public static SqlTemplate createForDbStatement(DbStatement dbStatement) {
+		return new SqlTemplate(dbStatement);
+	}
+
+	private SqlTemplate(DbStatement dbStatement) {
+		columnNames = getSortedNames(dbStatement.getValues());
+		conditionNames = getSortedNames(dbStatement.getConditions());
+		sql = createSql(dbStatement.getOperation(), dbStatement.getTableName());
+	}
+
+	private List<String> getSortedNames(Map<String, Object> namesWithValues) {
+		List<String> names = new ArrayList<>(namesWithValues.keySet());
+		names.sort(null);
+		return List.copyOf(names);
+	}
+
+	private String createSql(String operation, String tableName) {
+		if (DELETE.equals(operation)) {
+			return "DELETE FROM " + tableName + createWherePart();
+		}
+		if (UPDATE.equals(operation)) {
+			return createSqlForUpdate(tableName);
+		}
+		return createSqlForInsert(tableName);
+	}
+
+	private String createWherePart() {
+		return " WHERE " + joinNamesWithPlaceHolders(conditionNames, " AND ");
+	}
+
+	private String joinNamesWithPlaceHolders(List<String> names, String delimiter) {
+		StringJoiner joiner = new StringJoiner(delimiter);
+		for (String name : names) {
+			joiner.add(name + " = ?");
+		}
+		return joiner.toString();
+	}
+
+	private String createSqlForUpdate(String tableName) {
+		String sqlForUpdate = "UPDATE " + tableName + " SET "
+				+ joinNamesWithPlaceHolders(columnNames, ", ");
+		if (conditionNames.isEmpty()) {
+			return sqlForUpdate;
+		}
+		return sqlForUpdate + createWherePart();
+	}
+
+	private String createSqlForInsert(String tableName) {
+		StringJoiner placeHolders = new StringJoiner(", ");
+		for (int i = 0; i < columnNames.size(); i++) {
+			placeHolders.add("?");
+		}
+		return "INSERT INTO " + tableName + "(" + String.join(", ", columnNames) + ") VALUES("
+				+ placeHolders + ")";
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * getParameterValues returns the values and conditions from the dbStatement in the order the
+	 * parameters appear in the sql. The dbStatement must have the same shape as the dbStatement
+	 * this template was created from.
+	 */
+	public List<Object> getParameterValues(DbStatement dbStatement) {
+		List<Object> parameterValues = new ArrayList<>(
+				columnNames.size() + conditionNames.size());
+		addValuesInOrder(parameterValues, columnNames, dbStatement.getValues());
+		addValuesInOrder(parameterValues, conditionNames, dbStatement.getConditions());
+		return parameterValues;
+	}
+
+	private void addValuesInOrder(List<Object> parameterValues, List<String> names,
+			Map<String, Object> namesWithValues) {
+		for (String name : names) {
+			parameterValues.add(namesWithValues.get(name));
+		}
+	}
+
+	public List<String> getColumnNames() {
+		// needed for test
+		return columnNames;
+	}
+
+	public List<String> getConditionNames() {
+		// needed for test
+		return conditionNames;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SqlTemplateCache keeps one {@link SqlTemplate} for each statement shape that has been
+ * executed, so that the sql for a shape is only built once. The statement shapes are decided by
+ * the translaters and related tables in this module and are few, so the cache is not bounded.
+ * <p>
+ * SqlTemplateCache is thread safe and is intended to be shared between statement executors.
+ */
+public class SqlTemplateCache {
+
+	private final Map<StatementShape, SqlTemplate> templates = new ConcurrentHashMap<>();
+
+	public SqlTemplate getSqlTemplateForDbStatement(DbStatement dbStatement) {
+		StatementShape shape = StatementShape.viewOfDbStatement(dbStatement);
+		SqlTemplate template = templates.get(shape);
+		if (template == null) {
+			return createAndCacheTemplate(dbStatement, shape);
+		}
+		return template;
+	}
+
+	private SqlTemplate createAndCacheTemplate(DbStatement dbStatement, StatementShape shape) {
+		SqlTemplate template = SqlTemplate.createForDbStatement(dbStatement);
+		SqlTemplate existingTemplate = templates.putIfAbsent(shape.copy(), template);
+		return existingTemplate != null ? existingTemplate : template;
+	}
+
+	public int size() {
+		return templates.size();
+	}
+
+	/**
+	 * StatementShape uses sets of names, as equality and hash code for sets do not depend on the
+	 * order of the names. Lookups use views of the names in the dbStatement, and only shapes
+	 * stored in the cache are copied.
+	 */
+	private static final class StatementShape {
+		private final String operation;
+		private final String tableName;
+		private final Set<String> columnNames;
+		private final Set<String> conditionNames;
+
+		static StatementShape viewOfDbStatement(DbStatement dbStatement) {
+			return new StatementShape(dbStatement.getOperation(), dbStatement.getTableName(),
+					dbStatement.getValues().keySet(), dbStatement.getConditions().keySet());
+		}
+
+		private StatementShape(String operation, String tableName, Set<String> columnNames,
+				Set<String> conditionNames) {
+			this.operation = operation;
+			this.tableName = tableName;
+			this.columnNames = columnNames;
+			this.conditionNames = conditionNames;
+		}
+
+		StatementShape copy() {
+			return new StatementShape(operation, tableName, Set.copyOf(columnNames),
+					Set.copyOf(conditionNames));
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(operation, tableName, columnNames, conditionNames);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StatementShape)) {
+				return false;
+			}
+			StatementShape other = (StatementShape) obj;
+			return Objects.equals(operation, other.operation)
+					&& Objects.equals(tableName, other.tableName)
+					&& columnNames.equals(other.columnNames)
+					&& conditionNames.equals(other.conditionNames);
+		}
+	}
+}
@@ -38,8 +38,11 @@ public interface StatementExecutor {
 	 *            statements to execute
 	 * @param databaseFacade
 	 *            to use to execute statements
+	 * @return A List with the update count for each of the dbStatements, in the same order as the
+	 *         dbStatements. Implementations that can not tell the update count for a single
+	 *         statement return {@link java.sql.Statement#SUCCESS_NO_INFO} for that statement.
 	 */
-	void executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
+	List<Integer> executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
 			DatabaseFacade databaseFacade);
 
 }
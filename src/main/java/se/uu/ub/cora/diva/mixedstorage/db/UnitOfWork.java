@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.List;
+
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * UnitOfWork holds the one database connection used for everything done while handling one
+ * update. All reads, sequence fetches and writes for the update are made through the same
+ * {@link DatabaseFacade}, so that an update never checks out more than one connection from the
+ * pool and all its changes are made in one transaction.
+ */
+public interface UnitOfWork {
+
+	/**
+	 * readRowsForQuery reads the rows matching the tableQuery using the connection of this unit of
+	 * work.
+	 */
+	List<Row> readRowsForQuery(TableQuery tableQuery);
+
+	/**
+	 * nextValueFromSequence reads the next value from the named sequence using the connection of
+	 * this unit of work.
+	 */
+	long nextValueFromSequence(String sequenceName);
+
+	/**
+	 * getDatabaseFacade returns the databaseFacade used by this unit of work, it is used to handle
+	 * the transaction and to execute statements.
+	 */
+	DatabaseFacade getDatabaseFacade();
+
+}
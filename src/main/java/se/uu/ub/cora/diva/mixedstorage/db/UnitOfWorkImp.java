@@ -0,0 +1,58 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.List;
+
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+public final class UnitOfWorkImp implements UnitOfWork {
+
+	private static final String NEXT_VALUE_SQL = "select nextval(cast(? as regclass)) as nextval";
+	private final DatabaseFacade databaseFacade;
+
+	public static UnitOfWorkImp usingDatabaseFacade(DatabaseFacade databaseFacade) {
+		return new UnitOfWorkImp(databaseFacade);
+	}
+
+	private UnitOfWorkImp(DatabaseFacade databaseFacade) {
+		this.databaseFacade = databaseFacade;
+	}
+
+	@Override
+	public List<Row> readRowsForQuery(TableQuery tableQuery) {
+		return databaseFacade.readUsingSqlAndValues(tableQuery.assembleReadSql(),
+				tableQuery.getQueryValues());
+	}
+
+	@Override
+	public long nextValueFromSequence(String sequenceName) {
+		Row row = databaseFacade.readOneRowOrFailUsingSqlAndValues(NEXT_VALUE_SQL,
+				List.of(sequenceName));
+		Number nextValue = (Number) row.getValueByColumn("nextval");
+		return nextValue.longValue();
+	}
+
+	@Override
+	public DatabaseFacade getDatabaseFacade() {
+		return databaseFacade;
+	}
+}
@@ -19,163 +19,108 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import java.sql.Date;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 
 import se.uu.ub.cora.data.DataAtomic;
 import se.uu.ub.cora.data.DataAtomicProvider;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.data.DataGroupProvider;
-import se.uu.ub.cora.data.DataRecordLink;
-import se.uu.ub.cora.data.DataRecordLinkProvider;
 import se.uu.ub.cora.diva.mixedstorage.db.ConversionException;
+import se.uu.ub.cora.diva.mixedstorage.db.RecordInfoFragments;
 import se.uu.ub.cora.sqldatabase.DatabaseValues;
 import se.uu.ub.cora.sqldatabase.Row;
 
+/**
+ * DefaultOrganisationConverter converts the parts of an organisation row that are common to all
+ * organisations. The row and the dataGroup being built are passed between the methods instead of
+ * being kept in fields.
+ * <p>
+ * The parts of recordInfo that are the same for every organisation are added using
+ * {@link RecordInfoFragments}, which creates new atomics for each converted organisation.
+ */
 public class DefaultOrganisationConverter implements DefaultConverter {
 
 	private static final String ORGANISATION_ID = "id";
 	private static final String ALTERNATIVE_NAME = "alternative_name";
-	protected Row dbRow;
-	protected DataGroup organisation;
-	private String recordType;
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	private final RecordInfoFragments recordInfoFragments = RecordInfoFragments
+			.usingRecordTypes("rootOrganisation", "topOrganisation", "subOrganisation");
 
 	@Override
 	public DataGroup fromMap(Row dbRow) {
-		this.dbRow = dbRow;
-		if (organisationIsEmpty()) {
+		if (organisationIsEmpty(dbRow)) {
 			throw ConversionException.withMessageAndException(
 					"Error converting organisation to Cora organisation: Map does not contain value for "
 							+ ORGANISATION_ID,
 					null);
 		}
-		setRecordType();
-		return createDataGroup();
-	}
-
-	private void setRecordType() {
-		recordType = "subOrganisation";
-		possiblyChangeRecordType();
+		String recordType = getRecordType(dbRow);
+		return createDataGroup(dbRow, recordType);
 	}
 
-	private void possiblyChangeRecordType() {
+	private String getRecordType(Row dbRow) {
 		String typeCode = (String) dbRow.getValueByColumn("type_code");
 		if ("root".equals(typeCode)) {
-			recordType = "rootOrganisation";
-		} else {
-			possiblySetRecordTypeToTopLevel();
+			return "rootOrganisation";
 		}
+		return isTopLevel(dbRow) ? "topOrganisation" : "subOrganisation";
 	}
 
-	private void possiblySetRecordTypeToTopLevel() {
-		boolean topLevel = (boolean) dbRow.getValueByColumn("top_level");
-		if (topLevel) {
-			recordType = "topOrganisation";
-		}
+	private boolean isTopLevel(Row dbRow) {
+		return (boolean) dbRow.getValueByColumn("top_level");
 	}
 
-	private boolean organisationIsEmpty() {
+	private boolean organisationIsEmpty(Row dbRow) {
 		Object organisationId = dbRow.getValueByColumn(ORGANISATION_ID);
 		return organisationId == null || "".equals(organisationId);
 	}
 
-	private DataGroup createDataGroup() {
-		createAndAddOrganisationWithRecordInfo();
-		createAndAddName();
-		createAndAddAlternativeName();
-		possiblyCreateAndAddClosedDate();
+	private DataGroup createDataGroup(Row dbRow, String recordType) {
+		DataGroup organisation = createOrganisationWithRecordInfo(dbRow, recordType);
+		createAndAddName(dbRow, organisation);
+		createAndAddAlternativeName(dbRow, organisation);
+		possiblyCreateAndAddClosedDate(dbRow, organisation);
 		return organisation;
 	}
 
-	private void createAndAddOrganisationWithRecordInfo() {
-		organisation = DataGroupProvider.getDataGroupUsingNameInData("organisation");
+	private DataGroup createOrganisationWithRecordInfo(Row dbRow, String recordType) {
+		DataGroup organisation = DataGroupProvider.getDataGroupUsingNameInData("organisation");
 		String id = String.valueOf(dbRow.getValueByColumn(ORGANISATION_ID));
-		DataGroup recordInfo = createRecordInfo(recordType, id);
+		DataGroup recordInfo = createRecordInfo(dbRow, recordType, id);
 		organisation.addChild(recordInfo);
+		return organisation;
 	}
 
-	private DataGroup createRecordInfo(String recordType, String id) {
+	private DataGroup createRecordInfo(Row dbRow, String recordType, String id) {
 		DataGroup recordInfo = DataGroupProvider.getDataGroupUsingNameInData("recordInfo");
 		recordInfo.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("id", id));
-		createAndAddType(recordInfo, recordType);
-		createAndAddDataDivider(recordInfo);
-		createAndAddCreatedAndUpdatedInfo(recordInfo);
-		createAndAddDomain(recordInfo);
-		createAndAddSelectable(recordInfo);
+		recordInfoFragments.addFragmentsUsingRecordLinks(recordInfo, recordType);
+		createAndAddDomain(dbRow, recordInfo);
+		addSelectable(dbRow, recordInfo);
 		return recordInfo;
 	}
 
-	private void createAndAddType(DataGroup recordInfo, String recordType) {
-		DataRecordLink type = createLinkUsingNameInDataRecordTypeAndRecordId("type", "recordType",
-				recordType);
-		recordInfo.addChild(type);
-	}
-
-	private DataRecordLink createLinkUsingNameInDataRecordTypeAndRecordId(String nameInData,
-			String linkedRecordType, String linkedRecordId) {
-		return DataRecordLinkProvider.getDataRecordLinkAsLinkUsingNameInDataTypeAndId(nameInData,
-				linkedRecordType, linkedRecordId);
-	}
-
-	private void createAndAddDataDivider(DataGroup recordInfo) {
-		DataRecordLink dataDivider = createLinkUsingNameInDataRecordTypeAndRecordId("dataDivider",
-				"system", "diva");
-		recordInfo.addChild(dataDivider);
-	}
-
-	private void createAndAddCreatedAndUpdatedInfo(DataGroup recordInfo) {
-		createAndAddCreatedInfo(recordInfo);
-		createAndAddUpdatedInfo(recordInfo);
-	}
-
-	private void createAndAddCreatedInfo(DataGroup recordInfo) {
-		DataRecordLink createdBy = createLinkUsingNameInDataRecordTypeAndRecordId("createdBy",
-				"coraUser", "coraUser:4412982402853626");
-		recordInfo.addChild(createdBy);
-		addPredefinedTimestampToDataGroupUsingNameInData(recordInfo, "tsCreated");
-	}
-
-	private void createAndAddUpdatedInfo(DataGroup recordInfo) {
-		DataGroup updated = DataGroupProvider.getDataGroupUsingNameInData("updated");
-		DataRecordLink updatedBy = createLinkUsingNameInDataRecordTypeAndRecordId("updatedBy",
-				"coraUser", "coraUser:4412982402853626");
-		updated.addChild(updatedBy);
-		addPredefinedTimestampToDataGroupUsingNameInData(updated, "tsUpdated");
-		updated.setRepeatId("0");
-		recordInfo.addChild(updated);
-	}
-
-	private void addPredefinedTimestampToDataGroupUsingNameInData(DataGroup recordInfo,
-			String nameInData) {
-		recordInfo.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData,
-				"2017-01-01T00:00:00.000000Z"));
-	}
-
-	private void createAndAddSelectable(DataGroup recordInfo) {
-		String selectableValue = getSelectableValue();
-		DataAtomic selectable = DataAtomicProvider
-				.getDataAtomicUsingNameInDataAndValue("selectable", selectableValue);
-		recordInfo.addChild(selectable);
-	}
-
-	private String getSelectableValue() {
+	private void addSelectable(Row dbRow, DataGroup recordInfo) {
 		Object notEligable = dbRow.getValueByColumn("not_eligible");
-		return isSelectable(notEligable) ? "yes" : "no";
+		String selectable = isSelectable(notEligable) ? "yes" : "no";
+		recordInfo.addChild(
+				DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("selectable", selectable));
 	}
 
 	private boolean isSelectable(Object notEligable) {
 		return !(boolean) notEligable;
 	}
 
-	private void createAndAddDomain(DataGroup recordInfo) {
+	private void createAndAddDomain(Row dbRow, DataGroup recordInfo) {
 		String domain = (String) dbRow.getValueByColumn("domain");
 		recordInfo.addChild(
 				DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("domain", domain));
 	}
 
-	private void createAndAddName() {
+	private void createAndAddName(Row dbRow, DataGroup organisation) {
 		DataGroup nameGroup = DataGroupProvider.getDataGroupUsingNameInData("organisationName");
-		DataAtomic name = createAtomicDataUsingColumnNameAndNameInData("defaultname", "name");
+		DataAtomic name = createAtomicDataUsingColumnNameAndNameInData(dbRow, "defaultname",
+				"name");
 		nameGroup.addChild(name);
 		String nameLanguage = (String) dbRow.getValueByColumn("organisation_name_locale");
 		nameGroup.addChild(
@@ -183,14 +128,14 @@ public class DefaultOrganisationConverter implements DefaultConverter {
 		organisation.addChild(nameGroup);
 	}
 
-	private DataAtomic createAtomicDataUsingColumnNameAndNameInData(String columnName,
+	private DataAtomic createAtomicDataUsingColumnNameAndNameInData(Row dbRow, String columnName,
 			String nameInData) {
 		String divaOrganisationName = (String) dbRow.getValueByColumn(columnName);
 		return DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData,
 				divaOrganisationName);
 	}
 
-	private void createAndAddAlternativeName() {
+	private void createAndAddAlternativeName(Row dbRow, DataGroup organisation) {
 		DataGroup alternativeNameDataGroup = DataGroupProvider
 				.getDataGroupUsingNameInData("organisationAlternativeName");
 		alternativeNameDataGroup.addChild(
@@ -201,27 +146,25 @@ public class DefaultOrganisationConverter implements DefaultConverter {
 		organisation.addChild(alternativeNameDataGroup);
 	}
 
-	private void possiblyCreateAndAddClosedDate() {
-		if (valueExistsForKey("closed_date")) {
-			createAndAddClosedDate();
+	private void possiblyCreateAndAddClosedDate(Row dbRow, DataGroup organisation) {
+		if (valueExistsForKey(dbRow, "closed_date")) {
+			createAndAddClosedDate(dbRow, organisation);
 		}
 	}
 
-	private void createAndAddClosedDate() {
-		String closedDate = getDateAsString();
+	private void createAndAddClosedDate(Row dbRow, DataGroup organisation) {
+		String closedDate = getDateAsString(dbRow);
 		organisation.addChild(
 				DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("closedDate", closedDate));
 	}
 
-	private String getDateAsString() {
+	private String getDateAsString(Row dbRow) {
 		Date dbClosedDate = (Date) dbRow.getValueByColumn("closed_date");
-		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-		return dateFormat.format(dbClosedDate);
+		return dbClosedDate.toLocalDate().format(DATE_FORMAT);
 	}
 
-	protected boolean valueExistsForKey(String key) {
+	private boolean valueExistsForKey(Row dbRow, String key) {
 		Object value = dbRow.getValueByColumn(key);
 		return value != null && !(value.equals(DatabaseValues.NULL)) && !"".equals(value);
 	}
-
 }
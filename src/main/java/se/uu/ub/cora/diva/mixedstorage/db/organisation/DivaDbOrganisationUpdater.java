@@ -19,26 +19,34 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslater;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.DbValueComparer;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbUpdater;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTableFactory;
 import se.uu.ub.cora.diva.mixedstorage.db.StatementExecutor;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
 import se.uu.ub.cora.sqldatabase.table.TableQuery;
 
 public class DivaDbOrganisationUpdater implements DivaDbUpdater {
 
 	private static final String ORGANISATION_ID = "organisation_id";
+	private static final String LAST_UPDATED = "last_updated";
+	private static final String ORGANISATION_TYPE_ID = "organisation_type_id";
+	private static final String TYPE_CODE = "type_code";
+	private static final Map<String, String> VIEW_COLUMN_FOR_COLUMN = Map.of("organisation_name",
+			"defaultname", "show_in_portal", "top_level");
 	private DataToDbTranslater organisationToDbTranslater;
 	private RelatedTableFactory relatedTableFactory;
 	private StatementExecutor statementExecutor;
@@ -56,26 +64,38 @@ public class DivaDbOrganisationUpdater implements DivaDbUpdater {
 	}
 
 	@Override
-	public void update(TableFacade tableFacade, DatabaseFacade databaseFacade,
-			DataGroup dataGroup) {
-		organisationToDbTranslater.translate(dataGroup);
+	public void update(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		DatabaseFacade databaseFacade = unitOfWork.getDatabaseFacade();
+		databaseFacade.startTransaction();
+		try {
+			translateAndUpdateOrganisation(unitOfWork, dataGroup);
+		} catch (RuntimeException e) {
+			databaseFacade.rollback();
+			throw e;
+		} finally {
+			databaseFacade.endTransaction();
+		}
+	}
+
+	private void translateAndUpdateOrganisation(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		organisationToDbTranslater.translate(unitOfWork, dataGroup);
 		organisationConditions = organisationToDbTranslater.getConditions();
 		organisationValues = organisationToDbTranslater.getValues();
-		updateOrganisation(tableFacade, databaseFacade, dataGroup);
-
+		updateOrganisation(unitOfWork, dataGroup);
 	}
 
-	private void updateOrganisation(TableFacade tableFacade, DatabaseFacade databaseFacade,
-			DataGroup dataGroup) {
-		List<Row> existingDbOrganisation = readExistingOrganisationRow(tableFacade);
-		List<DbStatement> dbStatements = generateDbStatements(tableFacade, dataGroup,
+	private void updateOrganisation(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		List<Row> existingDbOrganisation = readExistingOrganisationRow(unitOfWork);
+		List<DbStatement> dbStatements = generateDbStatements(unitOfWork, dataGroup,
 				existingDbOrganisation);
-		tryUpdateDatabaseWithGivenDbStatements(databaseFacade, dbStatements);
+		if (!dbStatements.isEmpty()) {
+			tryUpdateDatabaseWithGivenDbStatements(unitOfWork.getDatabaseFacade(), dbStatements);
+		}
 	}
 
-	private List<Row> readExistingOrganisationRow(TableFacade tableFacade) {
+	private List<Row> readExistingOrganisationRow(UnitOfWork unitOfWork) {
 		TableQuery tableQuery = createTableQueryForReadOrganisation();
-		return tableFacade.readRowsForQuery(tableQuery);
+		return unitOfWork.readRowsForQuery(tableQuery);
 	}
 
 	private TableQuery createTableQueryForReadOrganisation() {
@@ -94,82 +114,134 @@ public class DivaDbOrganisationUpdater implements DivaDbUpdater {
 		tableQuery.addCondition(ORGANISATION_ID, organisationsId);
 	}
 
-	private List<DbStatement> generateDbStatements(TableFacade tableFacade, DataGroup dataGroup,
+	private List<DbStatement> generateDbStatements(UnitOfWork unitOfWork, DataGroup dataGroup,
 			List<Row> organisationRowsFromDb) {
 		List<DbStatement> dbStatements = new ArrayList<>();
-		dbStatements.add(createDbStatementForOrganisationUpdate());
-		dbStatements
-				.addAll(generateDbStatementsForAlternativeName(dataGroup, organisationRowsFromDb));
-		dbStatements.addAll(generateDbStatementsForAddress(dataGroup, organisationRowsFromDb));
-		dbStatements.addAll(generateDbStatementsForParents(tableFacade, dataGroup));
-		dbStatements.addAll(generateDbStatementsForPredecessors(tableFacade, dataGroup));
+		possiblyAddDbStatementForOrganisationUpdate(dbStatements, dataGroup,
+				organisationRowsFromDb);
+		dbStatements.addAll(generateDbStatementsForAlternativeName(unitOfWork, dataGroup,
+				organisationRowsFromDb));
+		dbStatements.addAll(
+				generateDbStatementsForAddress(unitOfWork, dataGroup, organisationRowsFromDb));
+		dbStatements.addAll(generateDbStatementsForParents(unitOfWork, dataGroup));
+		dbStatements.addAll(generateDbStatementsForPredecessors(unitOfWork, dataGroup));
 		return dbStatements;
 	}
 
-	private DbStatement createDbStatementForOrganisationUpdate() {
-		return new DbStatement("update", "organisation", organisationValues,
-				organisationConditions);
+	private void possiblyAddDbStatementForOrganisationUpdate(List<DbStatement> dbStatements,
+			DataGroup dataGroup, List<Row> organisationRowsFromDb) {
+		Map<String, Object> changedValues = getChangedValues(dataGroup, organisationRowsFromDb);
+		if (!changedValues.isEmpty()) {
+			possiblyAddLastUpdated(changedValues);
+			dbStatements.add(new DbStatement("update", "organisation", changedValues,
+					organisationConditions));
+		}
 	}
 
-	private List<DbStatement> generateDbStatementsForAlternativeName(DataGroup dataGroup,
+	private Map<String, Object> getChangedValues(DataGroup dataGroup,
 			List<Row> organisationRowsFromDb) {
+		if (organisationRowsFromDb.isEmpty()) {
+			return new HashMap<>(organisationValues);
+		}
+		Row existingOrganisation = organisationRowsFromDb.get(0);
+		Map<String, Object> changedValues = new HashMap<>();
+		for (Entry<String, Object> column : organisationValues.entrySet()) {
+			if (columnIsChanged(dataGroup, existingOrganisation, column)) {
+				changedValues.put(column.getKey(), column.getValue());
+			}
+		}
+		return changedValues;
+	}
+
+	private boolean columnIsChanged(DataGroup dataGroup, Row existingOrganisation,
+			Entry<String, Object> column) {
+		String columnName = column.getKey();
+		if (LAST_UPDATED.equals(columnName)) {
+			return false;
+		}
+		if (ORGANISATION_TYPE_ID.equals(columnName)) {
+			return organisationTypeIsChanged(dataGroup, existingOrganisation);
+		}
+		String viewColumnName = VIEW_COLUMN_FOR_COLUMN.getOrDefault(columnName, columnName);
+		return valueIsChanged(existingOrganisation, viewColumnName, column.getValue());
+	}
+
+	private boolean organisationTypeIsChanged(DataGroup dataGroup, Row existingOrganisation) {
+		String typeCode = getOrganisationTypeCode(dataGroup);
+		return valueIsChanged(existingOrganisation, TYPE_CODE, typeCode);
+	}
+
+	private String getOrganisationTypeCode(DataGroup dataGroup) {
+		if (isRootOrganisation(dataGroup)) {
+			return "root";
+		}
+		return dataGroup.containsChildWithNameInData("organisationType")
+				? dataGroup.getFirstAtomicValueWithNameInData("organisationType")
+				: null;
+	}
+
+	private boolean isRootOrganisation(DataGroup dataGroup) {
+		DataGroup recordInfo = dataGroup.getFirstGroupWithNameInData("recordInfo");
+		if (!recordInfo.containsChildWithNameInData("type")) {
+			return false;
+		}
+		DataGroup type = recordInfo.getFirstGroupWithNameInData("type");
+		return "rootOrganisation".equals(type.getFirstAtomicValueWithNameInData("linkedRecordId"));
+	}
+
+	private boolean valueIsChanged(Row existingOrganisation, String viewColumnName,
+			Object value) {
+		return !existingOrganisation.hasColumn(viewColumnName) || !DbValueComparer
+				.valuesAreEqual(value, existingOrganisation.getValueByColumn(viewColumnName));
+	}
+
+	private void possiblyAddLastUpdated(Map<String, Object> changedValues) {
+		if (organisationValues.containsKey(LAST_UPDATED)) {
+			changedValues.put(LAST_UPDATED, organisationValues.get(LAST_UPDATED));
+		}
+	}
+
+	private List<DbStatement> generateDbStatementsForAlternativeName(UnitOfWork unitOfWork,
+			DataGroup dataGroup, List<Row> organisationRowsFromDb) {
 		RelatedTable alternativeName = relatedTableFactory.factor("organisationAlternativeName");
-		return alternativeName.handleDbForDataGroup(dataGroup, organisationRowsFromDb);
+		return alternativeName.handleDbForDataGroup(unitOfWork, dataGroup,
+				organisationRowsFromDb);
 	}
 
-	private List<DbStatement> generateDbStatementsForAddress(DataGroup dataGroup,
-			List<Row> organisationRowsFromDb) {
+	private List<DbStatement> generateDbStatementsForAddress(UnitOfWork unitOfWork,
+			DataGroup dataGroup, List<Row> organisationRowsFromDb) {
 		RelatedTable addressTable = relatedTableFactory.factor("organisationAddress");
-		return addressTable.handleDbForDataGroup(dataGroup, organisationRowsFromDb);
+		return addressTable.handleDbForDataGroup(unitOfWork, dataGroup, organisationRowsFromDb);
 	}
 
-	private List<DbStatement> generateDbStatementsForParents(TableFacade tableFacade,
+	private List<DbStatement> generateDbStatementsForParents(UnitOfWork unitOfWork,
 			DataGroup dataGroup) {
 		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery("organisation_parent");
 		addConditionForRead(tableQuery);
-		List<Row> dbParents = tableFacade.readRowsForQuery(tableQuery);
+		List<Row> dbParents = unitOfWork.readRowsForQuery(tableQuery);
 		RelatedTable parent = relatedTableFactory.factor("organisationParent");
-		return parent.handleDbForDataGroup(dataGroup, dbParents);
+		return parent.handleDbForDataGroup(unitOfWork, dataGroup, dbParents);
 	}
 
-	private List<DbStatement> generateDbStatementsForPredecessors(TableFacade tableFacade,
+	private List<DbStatement> generateDbStatementsForPredecessors(UnitOfWork unitOfWork,
 			DataGroup dataGroup) {
 		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery("divaorganisationpredecessor");
 		addConditionForRead(tableQuery);
-		List<Row> dbPredecessors = tableFacade.readRowsForQuery(tableQuery);
+		List<Row> dbPredecessors = unitOfWork.readRowsForQuery(tableQuery);
 		RelatedTable predecessor = relatedTableFactory.factor("organisationPredecessor");
-		return predecessor.handleDbForDataGroup(dataGroup, dbPredecessors);
+		return predecessor.handleDbForDataGroup(unitOfWork, dataGroup, dbPredecessors);
 	}
 
 	private void tryUpdateDatabaseWithGivenDbStatements(DatabaseFacade databaseFacade,
 			List<DbStatement> dbStatements) {
 		try {
-			tryUpdateDatabaseWithGivenDbStatementsUsingConnection(databaseFacade, dbStatements);
+			statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
 		} catch (Exception e) {
 			throw SqlDatabaseException.withMessageAndException(
 					"Error executing prepared statement: " + e.getMessage(), e);
 		}
 	}
 
-	private void tryUpdateDatabaseWithGivenDbStatementsUsingConnection(
-			DatabaseFacade databaseFacade, List<DbStatement> dbStatements) {
-		try {
-			updateDatabaseWithGivenDbStatementsUsingConnection(databaseFacade, dbStatements);
-		} catch (Exception innerException) {
-			databaseFacade.rollback();
-			throw innerException;
-		} finally {
-			databaseFacade.endTransaction();
-		}
-	}
-
-	private void updateDatabaseWithGivenDbStatementsUsingConnection(DatabaseFacade databaseFacade,
-			List<DbStatement> dbStatements) {
-		databaseFacade.startTransaction();
-		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
-		databaseFacade.endTransaction();
-	}
-
 	public DataToDbTranslater getDataToDbTranslater() {
 		// needed for test
 		return organisationToDbTranslater;
@@ -23,26 +23,29 @@ import se.uu.ub.cora.data.DataRecordLinkProvider;
 import se.uu.ub.cora.sqldatabase.DatabaseValues;
 import se.uu.ub.cora.sqldatabase.Row;
 
+/**
+ * DivaDbToCoraOrganisationAncestryConverter holds the checks and links shared by the parent and
+ * predecessor converters.
+ */
 public class DivaDbToCoraOrganisationAncestryConverter {
 	protected static final String PREDECESSOR_ID = "organisation_predecessor_id";
 	protected static final String ORGANISATION_ID = "organisation_id";
-	protected Row dbRow;
 
-	protected boolean mandatoryValuesAreMissing() {
-		return organisationIdIsMissing() || predecessorIdIsMissing();
+	protected boolean mandatoryValuesAreMissing(Row dbRow) {
+		return organisationIdIsMissing(dbRow) || predecessorIdIsMissing(dbRow);
 	}
 
-	protected boolean organisationIdIsMissing() {
-		return !dbRowHasValueForKey(ORGANISATION_ID);
+	protected boolean organisationIdIsMissing(Row dbRow) {
+		return !dbRowHasValueForKey(dbRow, ORGANISATION_ID);
 	}
 
-	protected boolean dbRowHasValueForKey(String key) {
+	protected boolean dbRowHasValueForKey(Row dbRow, String key) {
 		Object value = dbRow.getValueByColumn(key);
 		return value != null && !(value.equals(DatabaseValues.NULL)) && !"".equals(value);
 	}
 
-	private boolean predecessorIdIsMissing() {
-		return !dbRowHasValueForKey(PREDECESSOR_ID);
+	private boolean predecessorIdIsMissing(Row dbRow) {
+		return !dbRowHasValueForKey(dbRow, PREDECESSOR_ID);
 	}
 
 	protected DataRecordLink createOrganisationLinkUsingLinkedRecordIdAndRecordType(
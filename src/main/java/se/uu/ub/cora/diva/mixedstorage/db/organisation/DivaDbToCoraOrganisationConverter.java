@@ -25,46 +25,47 @@ import se.uu.ub.cora.diva.mixedstorage.db.ConversionException;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverter;
 import se.uu.ub.cora.sqldatabase.Row;
 
+/**
+ * DivaDbToCoraOrganisationConverter converts an organisation row to an organisation dataGroup. The
+ * DefaultConverter is factored once, when the converter is created, and is used for all rows.
+ */
 public class DivaDbToCoraOrganisationConverter implements DivaDbToCoraConverter {
 
 	private static final String ORGANISATION_ID = "id";
-	private Row dbRow;
-	private DataGroup organisation;
 	private DefaultConverterFactory defaultConverterFactory;
+	private DefaultConverter defaultConverter;
 
 	public DivaDbToCoraOrganisationConverter(DefaultConverterFactory converterFactory) {
 		this.defaultConverterFactory = converterFactory;
+		defaultConverter = converterFactory.factor();
 	}
 
 	@Override
 	public DataGroup fromRow(Row dbRow) {
-		this.dbRow = dbRow;
-		if (organisationIsEmpty()) {
+		if (organisationIsEmpty(dbRow)) {
 			throw ConversionException.withMessageAndException(
 					"Error converting organisation to Cora organisation: Map does not contain value for "
 							+ ORGANISATION_ID,
 					null);
 		}
-		return createDataGroup();
+		return createDataGroup(dbRow);
 	}
 
-	private boolean organisationIsEmpty() {
+	private boolean organisationIsEmpty(Row dbRow) {
 		return !dbRow.hasColumnWithNonEmptyValue(ORGANISATION_ID);
 	}
 
-	private DataGroup createDataGroup() {
-		DefaultConverter defaultConverter = defaultConverterFactory.factor();
-		organisation = defaultConverter.fromMap(dbRow);
-
-		possiblyAddMoreData();
+	private DataGroup createDataGroup(Row dbRow) {
+		DataGroup organisation = defaultConverter.fromMap(dbRow);
+		possiblyAddMoreData(dbRow, organisation);
 		return organisation;
 	}
 
-	private void possiblyAddMoreData() {
+	private void possiblyAddMoreData(Row dbRow, DataGroup organisation) {
 		String typeCode = (String) dbRow.getValueByColumn("type_code");
 		if (notRootOrganisation(typeCode)) {
-			addCommonDataForSubAndTopOrganisation();
-			possiblyAddDataForTopOrganisation();
+			addCommonDataForSubAndTopOrganisation(dbRow, organisation);
+			possiblyAddDataForTopOrganisation(dbRow, organisation);
 		}
 	}
 
@@ -72,32 +73,32 @@ public class DivaDbToCoraOrganisationConverter implements DivaDbToCoraConverter
 		return !"root".equals(typeCode);
 	}
 
-	private void possiblyAddDataForTopOrganisation() {
-		if (isTopLevel()) {
-			possiblyCreateAndAddDoctoralDegreeGrantor();
-			possiblyCreateAndAddOrganisationNumber();
+	private void possiblyAddDataForTopOrganisation(Row dbRow, DataGroup organisation) {
+		if (isTopLevel(dbRow)) {
+			possiblyCreateAndAddDoctoralDegreeGrantor(dbRow, organisation);
+			possiblyCreateAndAddOrganisationNumber(dbRow, organisation);
 		}
 	}
 
-	private void addCommonDataForSubAndTopOrganisation() {
-		createAndAddOrganisationType();
-		possiblyCreateAndAddAddress();
-		possiblyCreateAndAddOrganisationCode();
-		possiblyCreateAndAddURL();
+	private void addCommonDataForSubAndTopOrganisation(Row dbRow, DataGroup organisation) {
+		createAndAddOrganisationType(dbRow, organisation);
+		possiblyCreateAndAddAddress(dbRow, organisation);
+		possiblyCreateAndAddOrganisationCode(dbRow, organisation);
+		possiblyCreateAndAddURL(dbRow, organisation);
 	}
 
-	private boolean isTopLevel() {
+	private boolean isTopLevel(Row dbRow) {
 		return (boolean) dbRow.getValueByColumn("top_level");
 	}
 
-	private void createAndAddOrganisationType() {
+	private void createAndAddOrganisationType(Row dbRow, DataGroup organisation) {
 		String typeCode = (String) dbRow.getValueByColumn("type_code");
 		organisation.addChild(DataAtomicProvider
 				.getDataAtomicUsingNameInDataAndValue("organisationType", typeCode));
 	}
 
-	private void possiblyCreateAndAddAddress() {
-		DataGroup address = createAddressGroup();
+	private void possiblyCreateAndAddAddress(Row dbRow, DataGroup organisation) {
+		DataGroup address = createAddressGroup(dbRow);
 		if (atLeastOnePartOfAddressExist(address)) {
 			organisation.addChild(address);
 		}
@@ -107,71 +108,66 @@ public class DivaDbToCoraOrganisationConverter implements DivaDbToCoraConverter
 		return address.hasChildren();
 	}
 
-	private DataGroup createAddressGroup() {
+	private DataGroup createAddressGroup(Row dbRow) {
 		DataGroup address = DataGroupProvider.getDataGroupUsingNameInData("address");
-		possiblyCreateAtomicValueUsingKeyAndNameInData(address, "city", "city");
-		possiblyCreateAtomicValueUsingKeyAndNameInData(address, "street", "street");
-		possiblyCreateAtomicValueUsingKeyAndNameInData(address, "postbox", "box");
-		possiblyCreateAtomicValueUsingKeyAndNameInData(address, "postnumber", "postcode");
-		addCountryConvertedToUpperCaseOrSetDefault(address);
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, address, "city", "city");
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, address, "street", "street");
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, address, "postbox", "box");
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, address, "postnumber", "postcode");
+		addCountryConvertedToUpperCaseOrSetDefault(dbRow, address);
 		return address;
 	}
 
-	private void possiblyCreateAtomicValueUsingKeyAndNameInData(DataGroup dataGroup, String key,
-			String nameInData) {
-		if (valueExistsForKey(key)) {
+	private void possiblyAddAtomicValueUsingKeyAndNameInData(Row dbRow, DataGroup dataGroup,
+			String key, String nameInData) {
+		if (valueExistsForKey(dbRow, key)) {
 			String value = (String) dbRow.getValueByColumn(key);
 			dataGroup.addChild(
 					DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData, value));
 		}
 	}
 
-	private void possiblyAddAtomicValueUsingKeyAndNameInDataToDefault(String key,
-			String nameInData) {
-		if (valueExistsForKey(key)) {
-			String value = (String) dbRow.getValueByColumn(key);
-			organisation.addChild(
-					DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData, value));
-		}
-	}
-
-	private boolean valueExistsForKey(String key) {
+	private boolean valueExistsForKey(Row dbRow, String key) {
 		return dbRow.hasColumnWithNonEmptyValue(key);
 	}
 
-	private void addCountryConvertedToUpperCaseOrSetDefault(DataGroup dataGroup) {
-		if (valueExistsForKey("country_code")) {
-			addCountryConvertedToUpperCase(dataGroup);
+	private void addCountryConvertedToUpperCaseOrSetDefault(Row dbRow, DataGroup dataGroup) {
+		if (valueExistsForKey(dbRow, "country_code")) {
+			addCountryConvertedToUpperCase(dbRow, dataGroup);
 		}
 	}
 
-	private void addCountryConvertedToUpperCase(DataGroup dataGroup) {
+	private void addCountryConvertedToUpperCase(Row dbRow, DataGroup dataGroup) {
 		String uppercaseValue = ((String) dbRow.getValueByColumn("country_code")).toUpperCase();
 		dataGroup.addChild(
 				DataAtomicProvider.getDataAtomicUsingNameInDataAndValue("country", uppercaseValue));
 	}
 
-	private void possiblyCreateAndAddOrganisationNumber() {
-		possiblyAddAtomicValueUsingKeyAndNameInDataToDefault("orgnumber", "organisationNumber");
+	private void possiblyCreateAndAddOrganisationNumber(Row dbRow, DataGroup organisation) {
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, organisation, "orgnumber",
+				"organisationNumber");
 	}
 
-	private void possiblyCreateAndAddOrganisationCode() {
-		possiblyAddAtomicValueUsingKeyAndNameInDataToDefault("organisation_code",
+	private void possiblyCreateAndAddOrganisationCode(Row dbRow, DataGroup organisation) {
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, organisation, "organisation_code",
 				"organisationCode");
 	}
 
-	private void possiblyCreateAndAddURL() {
-		possiblyAddAtomicValueUsingKeyAndNameInDataToDefault("organisation_homepage", "URL");
+	private void possiblyCreateAndAddURL(Row dbRow, DataGroup organisation) {
+		possiblyAddAtomicValueUsingKeyAndNameInData(dbRow, organisation, "organisation_homepage",
+				"URL");
 	}
 
-	private void possiblyCreateAndAddDoctoralDegreeGrantor() {
+	private void possiblyCreateAndAddDoctoralDegreeGrantor(Row dbRow, DataGroup organisation) {
 		Object booleanValue = dbRow.getValueByColumn("show_in_defence");
 		if (booleanValue != null) {
-			createAndAddBooleanValue((boolean) booleanValue, "doctoralDegreeGrantor");
+			createAndAddBooleanValue(organisation, (boolean) booleanValue,
+					"doctoralDegreeGrantor");
 		}
 	}
 
-	private void createAndAddBooleanValue(boolean showInDefence, String nameInData) {
+	private void createAndAddBooleanValue(DataGroup organisation, boolean showInDefence,
+			String nameInData) {
 		String stringBooleanValue = showInDefence ? "yes" : "no";
 		organisation.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(nameInData,
 				stringBooleanValue));
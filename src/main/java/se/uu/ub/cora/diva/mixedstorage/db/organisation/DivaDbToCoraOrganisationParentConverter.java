@@ -30,32 +30,31 @@ public class DivaDbToCoraOrganisationParentConverter
 
 	@Override
 	public DataGroup fromRow(Row dbRow) {
-		this.dbRow = dbRow;
-		if (mandatoryValuesAreMissing()) {
+		if (mandatoryValuesAreMissing(dbRow)) {
 			throw ConversionException.withMessageAndException(
 					"Error converting organisation parent to Cora organisation parent: Map does not "
 							+ "contain mandatory values for organisation id and parent id",
 					null);
 		}
-		return createDataGroup();
+		return createDataGroup(dbRow);
 	}
 
 	@Override
-	protected boolean mandatoryValuesAreMissing() {
-		return organisationIdIsMissing() || parentIdIsMissing();
+	protected boolean mandatoryValuesAreMissing(Row dbRow) {
+		return organisationIdIsMissing(dbRow) || parentIdIsMissing(dbRow);
 	}
 
-	protected boolean parentIdIsMissing() {
-		return !dbRowHasValueForKey("organisation_parent_id");
+	protected boolean parentIdIsMissing(Row dbRow) {
+		return !dbRowHasValueForKey(dbRow, "organisation_parent_id");
 	}
 
-	private DataGroup createDataGroup() {
+	private DataGroup createDataGroup(Row dbRow) {
 		DataGroup parent = DataGroupProvider.getDataGroupUsingNameInData("parentOrganisation");
-		addParentLink(parent);
+		addParentLink(dbRow, parent);
 		return parent;
 	}
 
-	private void addParentLink(DataGroup parentGroup) {
+	private void addParentLink(Row dbRow, DataGroup parentGroup) {
 		String parentId = String.valueOf(dbRow.getValueByColumn("organisation_parent_id"));
 		String coraOrganisationType = (String) dbRow.getValueByColumn("coraorganisationtype");
 		DataRecordLink organisationLink = createOrganisationLinkUsingLinkedRecordIdAndRecordType(
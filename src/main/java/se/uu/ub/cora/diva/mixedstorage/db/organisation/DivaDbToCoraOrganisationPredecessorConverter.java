@@ -33,39 +33,38 @@ public class DivaDbToCoraOrganisationPredecessorConverter
 
 	@Override
 	public DataGroup fromRow(Row dbRow) {
-		this.dbRow = dbRow;
-		if (mandatoryValuesAreMissing()) {
+		if (mandatoryValuesAreMissing(dbRow)) {
 			throw ConversionException.withMessageAndException(
 					"Error converting organisation predecessor to Cora organisation predecessor: Map does not "
 							+ "contain mandatory values for organisation id and predecessor id",
 					null);
 		}
-		return createDataGroup();
+		return createDataGroup(dbRow);
 	}
 
-	private DataGroup createDataGroup() {
+	private DataGroup createDataGroup(Row dbRow) {
 		DataGroup earlierOrganisation = DataGroupProvider
 				.getDataGroupUsingNameInData("earlierOrganisation");
-		addPredecessorLink(earlierOrganisation);
-		possiblyAddDescription(earlierOrganisation);
+		addPredecessorLink(dbRow, earlierOrganisation);
+		possiblyAddDescription(dbRow, earlierOrganisation);
 		return earlierOrganisation;
 	}
 
-	private void addPredecessorLink(DataGroup predecessorGroup) {
+	private void addPredecessorLink(Row dbRow, DataGroup predecessorGroup) {
 		String coraOrganisationType = (String) dbRow.getValueByColumn("coraorganisationtype");
 		DataRecordLink predecessorLink = createOrganisationLinkUsingLinkedRecordIdAndRecordType(
 				String.valueOf(dbRow.getValueByColumn(PREDECESSOR_ID)), coraOrganisationType);
 		predecessorGroup.addChild(predecessorLink);
 	}
 
-	private void possiblyAddDescription(DataGroup earlierOrganisation) {
-		if (predecessorHasDescription()) {
+	private void possiblyAddDescription(Row dbRow, DataGroup earlierOrganisation) {
+		if (predecessorHasDescription(dbRow)) {
 			earlierOrganisation.addChild(DataAtomicProvider.getDataAtomicUsingNameInDataAndValue(
 					"internalNote", (String) dbRow.getValueByColumn(DESCRIPTION)));
 		}
 	}
 
-	private boolean predecessorHasDescription() {
-		return dbRowHasValueForKey(DESCRIPTION);
+	private boolean predecessorHasDescription(Row dbRow) {
+		return dbRowHasValueForKey(dbRow, DESCRIPTION);
 	}
 }
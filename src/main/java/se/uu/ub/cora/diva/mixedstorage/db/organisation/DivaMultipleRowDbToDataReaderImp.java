@@ -19,13 +19,16 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.StringJoiner;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverter;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterFactory;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 import se.uu.ub.cora.sqldatabase.table.TableFacade;
@@ -33,22 +36,29 @@ import se.uu.ub.cora.sqldatabase.table.TableQuery;
 
 public abstract class DivaMultipleRowDbToDataReaderImp implements MultipleRowDbToDataReader {
 
+	private static final int MAX_NUMBER_OF_IDS_PER_QUERY = 1000;
 	protected DivaDbToCoraConverterFactory converterFactory;
 	protected SqlDatabaseFactory sqlDatabaseFactory;
 
 	protected List<DataGroup> convertToDataGroups(List<Row> readRows) {
+		DivaDbToCoraConverter converter = converterFactory.factor(getTableName());
+		return convertToDataGroupsUsingConverter(converter, readRows);
+	}
+
+	private List<DataGroup> convertToDataGroupsUsingConverter(DivaDbToCoraConverter converter,
+			List<Row> readRows) {
 		int repeatId = 0;
 		List<DataGroup> convertedDataGroups = new ArrayList<>(readRows.size());
 		for (Row readRow : readRows) {
-			DataGroup convertedParent = convertToDataGroup(repeatId, readRow);
+			DataGroup convertedParent = convertToDataGroup(converter, repeatId, readRow);
 			convertedDataGroups.add(convertedParent);
 			repeatId++;
 		}
 		return convertedDataGroups;
 	}
 
-	private DataGroup convertToDataGroup(int repeatId, Row readRow) {
-		DivaDbToCoraConverter converter = converterFactory.factor(getTableName());
+	private DataGroup convertToDataGroup(DivaDbToCoraConverter converter, int repeatId,
+			Row readRow) {
 		DataGroup parent = converter.fromRow(readRow);
 		parent.setRepeatId(String.valueOf(repeatId));
 		return parent;
@@ -68,6 +78,8 @@ public abstract class DivaMultipleRowDbToDataReaderImp implements MultipleRowDbT
 
 	protected abstract Map<String, Object> getConditions(String id);
 
+	protected abstract String getIdColumnName();
+
 	@Override
 	public List<DataGroup> read(TableFacade tableFacade, String tableName,
 			Map<String, Object> conditions) {
@@ -84,4 +96,58 @@ public abstract class DivaMultipleRowDbToDataReaderImp implements MultipleRowDbT
 		return read(tableFacade, getTableName(), getConditions(id));
 	}
 
+	@Override
+	public Map<String, List<DataGroup>> readForIds(DatabaseFacade databaseFacade,
+			List<String> ids) {
+		Map<String, List<Row>> rowsGroupedById = new HashMap<>(ids.size());
+		int fromIndex = 0;
+		while (fromIndex < ids.size()) {
+			int toIndex = Math.min(fromIndex + MAX_NUMBER_OF_IDS_PER_QUERY, ids.size());
+			readAndGroupRowsForIds(databaseFacade, ids.subList(fromIndex, toIndex),
+					rowsGroupedById);
+			fromIndex = toIndex;
+		}
+		return convertGroupedRows(rowsGroupedById);
+	}
+
+	private void readAndGroupRowsForIds(DatabaseFacade databaseFacade, List<String> ids,
+			Map<String, List<Row>> rowsGroupedById) {
+		String sql = createSqlForReadForIds(ids.size());
+		List<Row> readRows = databaseFacade.readUsingSqlAndValues(sql, createValuesForIds(ids));
+		for (Row readRow : readRows) {
+			String id = String.valueOf(readRow.getValueByColumn(getIdColumnName()));
+			rowsGroupedById.computeIfAbsent(id, key -> new ArrayList<>()).add(readRow);
+		}
+	}
+
+	private String createSqlForReadForIds(int numberOfIds) {
+		StringJoiner placeHolders = new StringJoiner(", ", "(", ")");
+		for (int i = 0; i < numberOfIds; i++) {
+			placeHolders.add("?");
+		}
+		return "select * from " + getTableName() + " where " + getIdColumnName() + " in "
+				+ placeHolders;
+	}
+
+	private List<Object> createValuesForIds(List<String> ids) {
+		List<Object> values = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			values.add(Integer.valueOf(id));
+		}
+		return values;
+	}
+
+	private Map<String, List<DataGroup>> convertGroupedRows(
+			Map<String, List<Row>> rowsGroupedById) {
+		DivaDbToCoraConverter converter = converterFactory.factor(getTableName());
+		Map<String, List<DataGroup>> dataGroupsGroupedById = new HashMap<>(
+				rowsGroupedById.size());
+		for (Entry<String, List<Row>> rowsForId : rowsGroupedById.entrySet()) {
+			List<DataGroup> dataGroups = convertToDataGroupsUsingConverter(converter,
+					rowsForId.getValue());
+			dataGroupsGroupedById.put(rowsForId.getKey(), dataGroups);
+		}
+		return dataGroupsGroupedById;
+	}
+
 }
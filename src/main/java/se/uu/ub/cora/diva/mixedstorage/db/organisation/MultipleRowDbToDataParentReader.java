@@ -45,4 +45,9 @@ public class MultipleRowDbToDataParentReader extends DivaMultipleRowDbToDataRead
 		return "divaOrganisationParent";
 	}
 
+	@Override
+	protected String getIdColumnName() {
+		return "organisation_id";
+	}
+
 }
@@ -45,4 +45,9 @@ public class MultipleRowDbToDataPredecessorReader extends DivaMultipleRowDbToDat
 		return conditions;
 	}
 
+	@Override
+	protected String getIdColumnName() {
+		return "organisation_id";
+	}
+
 }
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 
 import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 public interface MultipleRowDbToDataReader {
@@ -30,4 +31,18 @@ public interface MultipleRowDbToDataReader {
 
 	List<DataGroup> read(TableFacade tableFacade, String tableName, Map<String, Object> conditions);
 
+	/**
+	 * readForIds reads and converts the rows for all the given ids using one query per (large)
+	 * chunk of ids, instead of one query per id. The converted DataGroups are returned grouped by
+	 * the id they belong to, ids without any rows in the database are not present in the returned
+	 * map.
+	 * 
+	 * @param databaseFacade
+	 *            to use to read the rows
+	 * @param ids
+	 *            the ids to read rows for
+	 * @return A Map with id as key and the converted DataGroups for that id as value
+	 */
+	Map<String, List<DataGroup>> readForIds(DatabaseFacade databaseFacade, List<String> ids);
+
 }
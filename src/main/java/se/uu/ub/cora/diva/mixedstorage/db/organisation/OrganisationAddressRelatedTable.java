@@ -25,15 +25,19 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbHelper;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.DbValueComparer;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.SingleValueSequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 import se.uu.ub.cora.sqldatabase.DatabaseValues;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 public class OrganisationAddressRelatedTable implements RelatedTable {
 
@@ -42,21 +46,33 @@ public class OrganisationAddressRelatedTable implements RelatedTable {
 	private static final String STREET = "street";
 	private static final String ORGANISATION_ADDRESS = "organisation_address";
 	private static final String ADDRESS_ID = "address_id";
+	private static final String LAST_UPDATED = "last_updated";
 	private SqlDatabaseFactory sqlDatabaseFactory;
 	private int organisationId;
+	private Row organisationFromDb;
+	private SequenceAllocator sequenceAllocator;
+	private UnitOfWork unitOfWork;
 
 	public OrganisationAddressRelatedTable(SqlDatabaseFactory sqlDatabaseFactory) {
+		this(sqlDatabaseFactory, new SingleValueSequenceAllocator());
+	}
+
+	public OrganisationAddressRelatedTable(SqlDatabaseFactory sqlDatabaseFactory,
+			SequenceAllocator sequenceAllocator) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.sequenceAllocator = sequenceAllocator;
 	}
 
 	@Override
-	public List<DbStatement> handleDbForDataGroup(DataGroup organisation,
+	public List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup organisation,
 			List<Row> organisationsFromDb) {
+		this.unitOfWork = unitOfWork;
 		setIdAsInt(organisation);
 
 		List<DbStatement> dbStatements = new ArrayList<>();
 
-		Object addressIdInOrganisation = organisationsFromDb.get(0).getValueByColumn(ADDRESS_ID);
+		organisationFromDb = organisationsFromDb.get(0);
+		Object addressIdInOrganisation = organisationFromDb.getValueByColumn(ADDRESS_ID);
 		if (addressExistsInDatabase(addressIdInOrganisation)) {
 			deleteOrUpdateAddress(dbStatements, organisation, addressIdInOrganisation);
 		} else {
@@ -79,8 +95,28 @@ public class OrganisationAddressRelatedTable implements RelatedTable {
 	private void updateAddress(List<DbStatement> dbStatements, DataGroup organisation,
 			int addressId) {
 		Map<String, Object> values = createValuesForAddressInsertOrUpdate(organisation);
-		Map<String, Object> conditions = createConditionWithAddressId(addressId);
-		dbStatements.add(new DbStatement("update", ORGANISATION_ADDRESS, values, conditions));
+		if (addressIsChanged(values)) {
+			Map<String, Object> conditions = createConditionWithAddressId(addressId);
+			dbStatements.add(new DbStatement("update", ORGANISATION_ADDRESS, values, conditions));
+		}
+	}
+
+	private boolean addressIsChanged(Map<String, Object> values) {
+		for (Entry<String, Object> column : values.entrySet()) {
+			if (columnIsChanged(column)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean columnIsChanged(Entry<String, Object> column) {
+		String columnName = column.getKey();
+		if (LAST_UPDATED.equals(columnName)) {
+			return false;
+		}
+		return !organisationFromDb.hasColumn(columnName) || !DbValueComparer
+				.valuesAreEqual(column.getValue(), organisationFromDb.getValueByColumn(columnName));
 	}
 
 	private void setIdAsInt(DataGroup organisation) {
@@ -151,7 +187,7 @@ public class OrganisationAddressRelatedTable implements RelatedTable {
 	private Map<String, Object> createValuesForAddressInsertOrUpdate(DataGroup organisation) {
 		Map<String, Object> values = new HashMap<>();
 		DataGroup addressGroup = organisation.getFirstGroupWithNameInData(ADDRESS);
-		values.put("last_updated", getCurrentTimestamp());
+		values.put(LAST_UPDATED, getCurrentTimestamp());
 		values.put(CITY, getAtomicValueOrNull(addressGroup, CITY));
 		values.put(STREET, getAtomicValueOrNull(addressGroup, STREET));
 		values.put("postbox", getAtomicValueOrNull(addressGroup, "box"));
@@ -183,14 +219,13 @@ public class OrganisationAddressRelatedTable implements RelatedTable {
 
 	private void possiblyInsertAddress(List<DbStatement> dbStatements, DataGroup organisation) {
 		if (organisationDataGroupContainsAddress(organisation)) {
-			try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-				long nextValueFromSequence = tableFacade.nextValueFromSequence("address_sequence");
-				createInsertForAddress(dbStatements, organisation, nextValueFromSequence);
-				Map<String, Object> values = new HashMap<>();
-				values.put(ADDRESS_ID, nextValueFromSequence);
-				updateAddressColumnInOrganisation(dbStatements, values,
-						createConditionsWithOrganisationId());
-			}
+			long nextValueFromSequence = sequenceAllocator.nextValueFromSequence(unitOfWork,
+					"address_sequence");
+			createInsertForAddress(dbStatements, organisation, nextValueFromSequence);
+			Map<String, Object> values = new HashMap<>();
+			values.put(ADDRESS_ID, nextValueFromSequence);
+			updateAddressColumnInOrganisation(dbStatements, values,
+					createConditionsWithOrganisationId());
 		}
 	}
 
@@ -211,4 +246,9 @@ public class OrganisationAddressRelatedTable implements RelatedTable {
 		return sqlDatabaseFactory;
 	}
 
+	public SequenceAllocator getSequenceAllocator() {
+		// needed for test
+		return sequenceAllocator;
+	}
+
 }
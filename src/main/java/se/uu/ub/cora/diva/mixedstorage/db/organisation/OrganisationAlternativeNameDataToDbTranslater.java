@@ -25,13 +25,14 @@ import java.util.Map;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbHelper;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslater;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 
 public class OrganisationAlternativeNameDataToDbTranslater implements DataToDbTranslater {
 	private Map<String, Object> values = new HashMap<>();
 	private DataGroup dataGroup;
 
 	@Override
-	public void translate(DataGroup dataGroup) {
+	public void translate(UnitOfWork unitOfWork, DataGroup dataGroup) {
 		this.dataGroup = dataGroup;
 		values = new HashMap<>();
 		addValues();
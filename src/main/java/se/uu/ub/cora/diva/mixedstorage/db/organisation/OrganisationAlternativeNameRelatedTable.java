@@ -31,9 +31,11 @@ import se.uu.ub.cora.diva.mixedstorage.db.DataToDbHelper;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.SingleValueSequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 public class OrganisationAlternativeNameRelatedTable implements RelatedTable {
 
@@ -42,14 +44,23 @@ public class OrganisationAlternativeNameRelatedTable implements RelatedTable {
 	private static final String ALTERNATIVE_NAME = "organisationAlternativeName";
 	private SqlDatabaseFactory sqlDatabaseFactory;
 	private Row alternativeNameRow;
+	private SequenceAllocator sequenceAllocator;
+	private UnitOfWork unitOfWork;
 
 	public OrganisationAlternativeNameRelatedTable(SqlDatabaseFactory sqlDatabaseFactory) {
+		this(sqlDatabaseFactory, new SingleValueSequenceAllocator());
+	}
+
+	public OrganisationAlternativeNameRelatedTable(SqlDatabaseFactory sqlDatabaseFactory,
+			SequenceAllocator sequenceAllocator) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.sequenceAllocator = sequenceAllocator;
 	}
 
 	@Override
-	public List<DbStatement> handleDbForDataGroup(DataGroup organisation,
+	public List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup organisation,
 			List<Row> alternativeNameRows) {
+		this.unitOfWork = unitOfWork;
 		throwExceptionIfAlternativeNameIsMissing(organisation);
 		throwErrorIfMoreThanOneAlternativeNameInDb(alternativeNameRows);
 		alternativeNameRow = getRowIfOnlyOneOrEmptyMap(alternativeNameRows);
@@ -154,21 +165,23 @@ public class OrganisationAlternativeNameRelatedTable implements RelatedTable {
 
 	private void handleInsert(List<DbStatement> dbStatements, DataGroup organisation,
 			String organisationId) {
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			Map<String, Object> values = generateValues(organisation, organisationId);
-			addOrganisationNameIdNextValue(tableFacade, values);
-			dbStatements.add(
-					new DbStatement("insert", ORGANISATION_NAME, values, Collections.emptyMap()));
-		}
+		Map<String, Object> values = generateValues(organisation, organisationId);
+		addOrganisationNameIdNextValue(values);
+		dbStatements
+				.add(new DbStatement("insert", ORGANISATION_NAME, values, Collections.emptyMap()));
 	}
 
-	private void addOrganisationNameIdNextValue(TableFacade tableFacade,
-			Map<String, Object> values) {
-		long nextValue = tableFacade.nextValueFromSequence("name_sequence");
+	private void addOrganisationNameIdNextValue(Map<String, Object> values) {
+		long nextValue = sequenceAllocator.nextValueFromSequence(unitOfWork, "name_sequence");
 		values.put(ORGANISATION_NAME_ID, nextValue);
 	}
 
 	public SqlDatabaseFactory getSqlDatabaseFactory() {
 		return sqlDatabaseFactory;
 	}
+
+	public SequenceAllocator getSequenceAllocator() {
+		// needed for test
+		return sequenceAllocator;
+	}
 }
@@ -26,10 +26,7 @@ import java.util.Map;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbHelper;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslater;
-import se.uu.ub.cora.sqldatabase.Row;
-import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
-import se.uu.ub.cora.sqldatabase.table.TableQuery;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 
 public class OrganisationDataToDbTranslater implements DataToDbTranslater {
 
@@ -37,14 +34,16 @@ public class OrganisationDataToDbTranslater implements DataToDbTranslater {
 	private Map<String, Object> values = new HashMap<>();
 	private Map<String, Object> conditions = new HashMap<>(1);
 	private DataGroup dataGroup;
-	private SqlDatabaseFactory sqlDatabaseFactory;
+	private OrganisationTypeIndex organisationTypeIndex;
+	private UnitOfWork unitOfWork;
 
-	public OrganisationDataToDbTranslater(SqlDatabaseFactory sqlDatabaseFactory) {
-		this.sqlDatabaseFactory = sqlDatabaseFactory;
+	public OrganisationDataToDbTranslater(OrganisationTypeIndex organisationTypeIndex) {
+		this.organisationTypeIndex = organisationTypeIndex;
 	}
 
 	@Override
-	public void translate(DataGroup dataGroup) {
+	public void translate(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		this.unitOfWork = unitOfWork;
 		this.dataGroup = dataGroup;
 		values = new HashMap<>();
 		conditions = new HashMap<>(1);
@@ -183,18 +182,8 @@ public class OrganisationDataToDbTranslater implements DataToDbTranslater {
 	}
 
 	private Object getTypeCodeForOrganisationType() {
-		TableQuery tableQuery = getSqlDatabaseFactory().factorTableQuery("organisation_type");
-		tableQuery.addCondition("organisation_type_code",
-				dataGroup.getFirstAtomicValueWithNameInData("organisationType"));
-
-		return tryToReadOrganisationType(tableQuery);
-	}
-
-	private Object tryToReadOrganisationType(TableQuery tableQuery) {
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			Row readRow = tableFacade.readOneRowForQuery(tableQuery);
-			return readRow.getValueByColumn("organisation_type_id");
-		}
+		String typeCode = dataGroup.getFirstAtomicValueWithNameInData("organisationType");
+		return organisationTypeIndex.getIdForCode(unitOfWork, typeCode);
 	}
 
 	@Override
@@ -207,7 +196,8 @@ public class OrganisationDataToDbTranslater implements DataToDbTranslater {
 		return values;
 	}
 
-	public SqlDatabaseFactory getSqlDatabaseFactory() {
-		return sqlDatabaseFactory;
+	public OrganisationTypeIndex getOrganisationTypeIndex() {
+		// needed for test
+		return organisationTypeIndex;
 	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import se.uu.ub.cora.diva.mixedstorage.cache.BoundedCache;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+
+/**
+ * OrganisationExistenceChecker answers if an organisation exists in one of the organisation
+ * views, using an exists query that does not read the organisation itself.
+ * <p>
+ * Answers are kept in two bounded caches, one for existing and one for non existing
+ * organisations, each with its own max age. Non existing organisations can be created outside of
+ * this storage, so their max age is expected to be shorter. Ids that are not integers can not
+ * exist and are answered without using the database or the caches.
+ */
+public class OrganisationExistenceChecker {
+
+	private static final Pattern ORGANISATION_ID = Pattern.compile("\\d{1,10}");
+	private static final String EXISTS_COLUMN = "organisation_exists";
+	private SqlDatabaseFactory sqlDatabaseFactory;
+	private BoundedCache<String, Boolean> existing;
+	private BoundedCache<String, Boolean> nonExisting;
+
+	public static OrganisationExistenceChecker usingSqlDatabaseFactoryMaxSizeAndMaxAges(
+			SqlDatabaseFactory sqlDatabaseFactory, int maxSize, Duration existingMaxAge,
+			Duration nonExistingMaxAge) {
+		return new OrganisationExistenceChecker(sqlDatabaseFactory, maxSize, existingMaxAge,
+				nonExistingMaxAge, Clock.systemUTC());
+	}
+
+	public static OrganisationExistenceChecker usingSqlDatabaseFactoryMaxSizeMaxAgesAndClock(
+			SqlDatabaseFactory sqlDatabaseFactory, int maxSize, Duration existingMaxAge,
+			Duration nonExistingMaxAge, Clock clock) {
+		return new OrganisationExistenceChecker(sqlDatabaseFactory, maxSize, existingMaxAge,
+				nonExistingMaxAge, clock);
+	}
+
+	private OrganisationExistenceChecker(SqlDatabaseFactory sqlDatabaseFactory, int maxSize,
+			Duration existingMaxAge, Duration nonExistingMaxAge, Clock clock) {
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		existing = BoundedCache.usingMaxSizeMaxAgeAndClock(maxSize, existingMaxAge, clock);
+		nonExisting = BoundedCache.usingMaxSizeMaxAgeAndClock(maxSize, nonExistingMaxAge, clock);
+	}
+
+	/**
+	 * organisationExistsInView returns true if an organisation with the entered id exists in the
+	 * entered view, and false otherwise.
+	 */
+	public boolean organisationExistsInView(String viewName, String id) {
+		if (!isOrganisationId(id)) {
+			return false;
+		}
+		String cacheKey = viewName + ":" + id;
+		if (existing.get(cacheKey) != null) {
+			return true;
+		}
+		if (nonExisting.get(cacheKey) != null) {
+			return false;
+		}
+		return readExistsFromDbAndCacheAnswer(viewName, id, cacheKey);
+	}
+
+	private boolean isOrganisationId(String id) {
+		return id != null && ORGANISATION_ID.matcher(id).matches()
+				&& Long.parseLong(id) <= Integer.MAX_VALUE;
+	}
+
+	private boolean readExistsFromDbAndCacheAnswer(String viewName, String id, String cacheKey) {
+		long existingGeneration = existing.getGeneration();
+		long nonExistingGeneration = nonExisting.getGeneration();
+		boolean exists = readExistsFromDb(viewName, Integer.parseInt(id));
+		if (exists) {
+			existing.putIfGenerationIs(cacheKey, Boolean.TRUE, existingGeneration);
+		} else {
+			nonExisting.putIfGenerationIs(cacheKey, Boolean.FALSE, nonExistingGeneration);
+		}
+		return exists;
+	}
+
+	private boolean readExistsFromDb(String viewName, int id) {
+		String sql = "select exists(select 1 from " + viewName + " where id = ?) as "
+				+ EXISTS_COLUMN;
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			Row row = databaseFacade.readOneRowOrFailUsingSqlAndValues(sql, List.of(id));
+			return (boolean) row.getValueByColumn(EXISTS_COLUMN);
+		}
+	}
+
+	/**
+	 * invalidateAll removes all cached answers, it should be called when organisations are
+	 * updated, as an update can move an organisation between views.
+	 */
+	public void invalidateAll() {
+		existing.invalidateAll();
+		nonExisting.invalidateAll();
+	}
+
+	public SqlDatabaseFactory getSqlDatabaseFactory() {
+		// needed for test
+		return sqlDatabaseFactory;
+	}
+
+	public BoundedCache<String, Boolean> getExistingCache() {
+		// needed for test
+		return existing;
+	}
+
+	public BoundedCache<String, Boolean> getNonExistingCache() {
+		// needed for test
+		return nonExisting;
+	}
+}
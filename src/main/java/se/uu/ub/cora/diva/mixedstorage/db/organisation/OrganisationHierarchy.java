@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * OrganisationHierarchy is an immutable in memory index of how organisations are related to each
+ * other, through parents (organisation_parent) and predecessors (organisation_predecessor).
+ * <p>
+ * The relations are indexed in both directions, so that children and successors can be found as
+ * fast as parents and predecessors. Changes are made by creating a new OrganisationHierarchy using
+ * {@link #withOrganisation(int, Set, Set)}, an instance is never changed once created and can
+ * therefore be shared between threads.
+ */
+public final class OrganisationHierarchy {
+
+	private final Map<Integer, Set<Integer>> parents;
+	private final Map<Integer, Set<Integer>> children;
+	private final Map<Integer, Set<Integer>> predecessors;
+	private final Map<Integer, Set<Integer>> successors;
+
+	/**
+	 * usingParentsAndPredecessors creates a new OrganisationHierarchy
+	 * 
+	 * @param parents
+	 *            A Map with organisation id as key and the ids of the parents of the organisation
+	 *            as value
+	 * @param predecessors
+	 *            A Map with organisation id as key and the ids of the predecessors of the
+	 *            organisation as value
+	 */
+	public static OrganisationHierarchy usingParentsAndPredecessors(
+			Map<Integer, Set<Integer>> parents, Map<Integer, Set<Integer>> predecessors) {
+		return new OrganisationHierarchy(parents, predecessors);
+	}
+
+	private OrganisationHierarchy(Map<Integer, Set<Integer>> parents,
+			Map<Integer, Set<Integer>> predecessors) {
+		this.parents = copyWithoutEmptyEntries(parents);
+		this.predecessors = copyWithoutEmptyEntries(predecessors);
+		children = createReversed(this.parents);
+		successors = createReversed(this.predecessors);
+	}
+
+	private static Map<Integer, Set<Integer>> copyWithoutEmptyEntries(
+			Map<Integer, Set<Integer>> relations) {
+		Map<Integer, Set<Integer>> copy = new HashMap<>(relations.size());
+		for (Entry<Integer, Set<Integer>> entry : relations.entrySet()) {
+			if (!entry.getValue().isEmpty()) {
+				copy.put(entry.getKey(), Set.copyOf(entry.getValue()));
+			}
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	private static Map<Integer, Set<Integer>> createReversed(
+			Map<Integer, Set<Integer>> relations) {
+		Map<Integer, Set<Integer>> reversed = new HashMap<>();
+		for (Entry<Integer, Set<Integer>> entry : relations.entrySet()) {
+			for (Integer relatedId : entry.getValue()) {
+				reversed.computeIfAbsent(relatedId, key -> new HashSet<>()).add(entry.getKey());
+			}
+		}
+		return copyWithoutEmptyEntries(reversed);
+	}
+
+	public Set<Integer> getParents(int organisationId) {
+		return parents.getOrDefault(organisationId, Collections.emptySet());
+	}
+
+	public Set<Integer> getChildren(int organisationId) {
+		return children.getOrDefault(organisationId, Collections.emptySet());
+	}
+
+	public Set<Integer> getPredecessors(int organisationId) {
+		return predecessors.getOrDefault(organisationId, Collections.emptySet());
+	}
+
+	public Set<Integer> getSuccessors(int organisationId) {
+		return successors.getOrDefault(organisationId, Collections.emptySet());
+	}
+
+	/**
+	 * getAncestors returns the parents of the organisation, their parents and so on. The closest
+	 * ancestors are first in the returned set.
+	 */
+	public Set<Integer> getAncestors(int organisationId) {
+		return collectRelatedInAllSteps(organisationId, parents);
+	}
+
+	/**
+	 * getDescendants returns the children of the organisation, their children and so on. The
+	 * closest descendants are first in the returned set.
+	 */
+	public Set<Integer> getDescendants(int organisationId) {
+		return collectRelatedInAllSteps(organisationId, children);
+	}
+
+	/**
+	 * getLineage returns all organisations that the organisation has evolved from or has evolved
+	 * into, that is all predecessors and successors in all steps.
+	 */
+	public Set<Integer> getLineage(int organisationId) {
+		Set<Integer> lineage = new LinkedHashSet<>();
+		lineage.addAll(collectRelatedInAllSteps(organisationId, predecessors));
+		lineage.addAll(collectRelatedInAllSteps(organisationId, successors));
+		return Collections.unmodifiableSet(lineage);
+	}
+
+	private Set<Integer> collectRelatedInAllSteps(int organisationId,
+			Map<Integer, Set<Integer>> relations) {
+		Set<Integer> collected = new LinkedHashSet<>();
+		Deque<Integer> toVisit = new ArrayDeque<>();
+		toVisit.add(organisationId);
+		while (!toVisit.isEmpty()) {
+			Integer current = toVisit.poll();
+			for (Integer relatedId : relations.getOrDefault(current, Collections.emptySet())) {
+				if (relatedId != organisationId && collected.add(relatedId)) {
+					toVisit.add(relatedId);
+				}
+			}
+		}
+		return Collections.unmodifiableSet(collected);
+	}
+
+	/**
+	 * withOrganisation returns a new OrganisationHierarchy where the parents and predecessors of
+	 * the organisation are replaced with the given ones. This instance is not changed.
+	 */
+	public OrganisationHierarchy withOrganisation(int organisationId, Set<Integer> parentIds,
+			Set<Integer> predecessorIds) {
+		Map<Integer, Set<Integer>> updatedParents = new HashMap<>(parents);
+		updatedParents.put(organisationId, parentIds);
+		Map<Integer, Set<Integer>> updatedPredecessors = new HashMap<>(predecessors);
+		updatedPredecessors.put(organisationId, predecessorIds);
+		return new OrganisationHierarchy(updatedParents, updatedPredecessors);
+	}
+
+	public int getNumberOfOrganisationsWithParents() {
+		return parents.size();
+	}
+
+	public int getNumberOfOrganisationsWithPredecessors() {
+		return predecessors.size();
+	}
+}
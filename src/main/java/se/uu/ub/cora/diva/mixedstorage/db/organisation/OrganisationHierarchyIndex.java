@@ -0,0 +1,217 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.db.DataToDbHelper;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * OrganisationHierarchyIndex holds the current {@link OrganisationHierarchy}.
+ * <p>
+ * The hierarchy is read from the organisation_parent and organisation_predecessor tables when
+ * {@link #refresh()} is called, or on first use if it has not been read before. A refresh reads
+ * a complete new hierarchy and then replaces the current one, so readers always see a complete
+ * hierarchy. Updated organisations are added using {@link #updateOrganisation(DataGroup)}.
+ * <p>
+ * Updates made while a refresh is reading from the database are remembered and applied to the
+ * read hierarchy before it replaces the current one, as the read might have been made before the
+ * update was written to the database. Applying an update twice gives the same result, so it does
+ * not matter if the read already included the update.
+ */
+public class OrganisationHierarchyIndex {
+
+	private static final String ORGANISATION_ID = "organisation_id";
+	private static final String LINKED_RECORD_ID = "linkedRecordId";
+	private static final String ORGANISATION_LINK = "organisationLink";
+	private SqlDatabaseFactory sqlDatabaseFactory;
+	private final Object lock = new Object();
+	private volatile OrganisationHierarchy currentHierarchy;
+	private int numberOfRefreshesInProgress = 0;
+	private final Map<Integer, OrganisationRelations> updatesDuringRefresh = new LinkedHashMap<>();
+
+	public static OrganisationHierarchyIndex usingSqlDatabaseFactory(
+			SqlDatabaseFactory sqlDatabaseFactory) {
+		return new OrganisationHierarchyIndex(sqlDatabaseFactory);
+	}
+
+	private OrganisationHierarchyIndex(SqlDatabaseFactory sqlDatabaseFactory) {
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+	}
+
+	/**
+	 * refresh reads all parent and predecessor relations from the database and replaces the
+	 * current hierarchy with the read one, with updates made during the read applied to it.
+	 */
+	public void refresh() {
+		registerRefreshStarted();
+		OrganisationHierarchy readHierarchy = null;
+		try {
+			readHierarchy = readHierarchyFromDb();
+		} finally {
+			registerRefreshFinished(readHierarchy);
+		}
+	}
+
+	private void registerRefreshStarted() {
+		synchronized (lock) {
+			numberOfRefreshesInProgress++;
+		}
+	}
+
+	private void registerRefreshFinished(OrganisationHierarchy readHierarchy) {
+		synchronized (lock) {
+			if (readHierarchy != null) {
+				currentHierarchy = applyUpdatesDuringRefresh(readHierarchy);
+			}
+			numberOfRefreshesInProgress--;
+			if (numberOfRefreshesInProgress == 0) {
+				updatesDuringRefresh.clear();
+			}
+		}
+	}
+
+	private OrganisationHierarchy applyUpdatesDuringRefresh(OrganisationHierarchy hierarchy) {
+		OrganisationHierarchy updatedHierarchy = hierarchy;
+		for (OrganisationRelations relations : updatesDuringRefresh.values()) {
+			updatedHierarchy = relations.applyTo(updatedHierarchy);
+		}
+		return updatedHierarchy;
+	}
+
+	private OrganisationHierarchy readHierarchyFromDb() {
+		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
+			Map<Integer, Set<Integer>> parents = readRelations(tableFacade, "organisation_parent",
+					"organisation_parent_id");
+			Map<Integer, Set<Integer>> predecessors = readRelations(tableFacade,
+					"organisation_predecessor", "organisation_predecessor_id");
+			return OrganisationHierarchy.usingParentsAndPredecessors(parents, predecessors);
+		}
+	}
+
+	private Map<Integer, Set<Integer>> readRelations(TableFacade tableFacade, String tableName,
+			String relatedIdColumn) {
+		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(tableName);
+		List<Row> rows = tableFacade.readRowsForQuery(tableQuery);
+		Map<Integer, Set<Integer>> relations = new HashMap<>();
+		for (Row row : rows) {
+			int organisationId = getValueAsInt(row, ORGANISATION_ID);
+			int relatedId = getValueAsInt(row, relatedIdColumn);
+			relations.computeIfAbsent(organisationId, key -> new HashSet<>()).add(relatedId);
+		}
+		return relations;
+	}
+
+	private int getValueAsInt(Row row, String columnName) {
+		return ((Number) row.getValueByColumn(columnName)).intValue();
+	}
+
+	/**
+	 * getHierarchy returns the current hierarchy, if no hierarchy has been read yet it is read
+	 * from the database before it is returned.
+	 */
+	public OrganisationHierarchy getHierarchy() {
+		OrganisationHierarchy hierarchy = currentHierarchy;
+		if (hierarchy == null) {
+			refresh();
+			hierarchy = currentHierarchy;
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * updateOrganisation replaces the parents and predecessors for the organisation with the ones
+	 * in the entered dataGroup. If no hierarchy has been read yet, and no refresh is in progress,
+	 * nothing is done as the change is included when the hierarchy is read from the database.
+	 */
+	public void updateOrganisation(DataGroup organisation) {
+		OrganisationRelations relations = extractRelations(organisation);
+		synchronized (lock) {
+			if (currentHierarchy != null) {
+				currentHierarchy = relations.applyTo(currentHierarchy);
+			}
+			if (numberOfRefreshesInProgress > 0) {
+				updatesDuringRefresh.put(relations.organisationId, relations);
+			}
+		}
+	}
+
+	private OrganisationRelations extractRelations(DataGroup organisation) {
+		int organisationId = Integer.parseInt(DataToDbHelper.extractIdFromDataGroup(organisation));
+		Set<Integer> parentIds = extractLinkedIds(organisation, "parentOrganisation");
+		Set<Integer> predecessorIds = extractLinkedIds(organisation, "earlierOrganisation");
+		return new OrganisationRelations(organisationId, parentIds, predecessorIds);
+	}
+
+	private Set<Integer> extractLinkedIds(DataGroup organisation, String nameInData) {
+		List<DataGroup> relatedGroups = organisation.getAllGroupsWithNameInData(nameInData);
+		Set<Integer> linkedIds = new HashSet<>(relatedGroups.size());
+		for (DataGroup relatedGroup : relatedGroups) {
+			DataGroup organisationLink = relatedGroup
+					.getFirstGroupWithNameInData(ORGANISATION_LINK);
+			String linkedId = organisationLink.getFirstAtomicValueWithNameInData(LINKED_RECORD_ID);
+			linkedIds.add(Integer.valueOf(linkedId));
+		}
+		return linkedIds;
+	}
+
+	public Set<Integer> getAncestors(int organisationId) {
+		return getHierarchy().getAncestors(organisationId);
+	}
+
+	public Set<Integer> getDescendants(int organisationId) {
+		return getHierarchy().getDescendants(organisationId);
+	}
+
+	public Set<Integer> getLineage(int organisationId) {
+		return getHierarchy().getLineage(organisationId);
+	}
+
+	public SqlDatabaseFactory getSqlDatabaseFactory() {
+		// needed for test
+		return sqlDatabaseFactory;
+	}
+
+	private static final class OrganisationRelations {
+		private final int organisationId;
+		private final Set<Integer> parentIds;
+		private final Set<Integer> predecessorIds;
+
+		private OrganisationRelations(int organisationId, Set<Integer> parentIds,
+				Set<Integer> predecessorIds) {
+			this.organisationId = organisationId;
+			this.parentIds = parentIds;
+			this.predecessorIds = predecessorIds;
+		}
+
+		private OrganisationHierarchy applyTo(OrganisationHierarchy hierarchy) {
+			return hierarchy.withOrganisation(organisationId, parentIds, predecessorIds);
+		}
+	}
+}
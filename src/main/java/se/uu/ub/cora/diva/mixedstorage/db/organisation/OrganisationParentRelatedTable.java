@@ -29,6 +29,7 @@ import java.util.Set;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 
@@ -44,7 +45,7 @@ public class OrganisationParentRelatedTable extends OrganisationRelatedTable
 	}
 
 	@Override
-	public List<DbStatement> handleDbForDataGroup(DataGroup organisation,
+	public List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup organisation,
 			List<Row> existingParents) {
 
 		setIdAsInt(organisation);
@@ -29,9 +29,11 @@ import java.util.Set;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.SingleValueSequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 public class OrganisationPredecessorRelatedTable extends OrganisationRelatedTable
 		implements RelatedTable {
@@ -47,14 +49,23 @@ public class OrganisationPredecessorRelatedTable extends OrganisationRelatedTabl
 	private static final String ORGANISATION_PREDECESSOR = "organisation_predecessor";
 	private Map<String, DataGroup> predecessorsInDataGroup;
 	private Map<Integer, Row> mapWithPredecessorAsKey;
+	private SequenceAllocator sequenceAllocator;
+	private UnitOfWork unitOfWork;
 
 	public OrganisationPredecessorRelatedTable(SqlDatabaseFactory sqlDatabaseFactory) {
+		this(sqlDatabaseFactory, new SingleValueSequenceAllocator());
+	}
+
+	public OrganisationPredecessorRelatedTable(SqlDatabaseFactory sqlDatabaseFactory,
+			SequenceAllocator sequenceAllocator) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.sequenceAllocator = sequenceAllocator;
 	}
 
 	@Override
-	public List<DbStatement> handleDbForDataGroup(DataGroup organisation,
+	public List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup organisation,
 			List<Row> existingPredecessors) {
+		this.unitOfWork = unitOfWork;
 		setIdAsInt(organisation);
 
 		mapWithPredecessorAsKey = new HashMap<>(existingPredecessors.size());
@@ -186,11 +197,9 @@ public class OrganisationPredecessorRelatedTable extends OrganisationRelatedTabl
 			String comment) {
 		Map<String, Object> descriptionValues = createConditionsForPredecessorDescription(
 				predecessorId);
-		try (TableFacade factorTableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			long nextVal = factorTableFacade
-					.nextValueFromSequence("organisation_predecessor_description_sequence");
-			descriptionValues.put(ORGANISATION_PREDECESSOR_ID, nextVal);
-		}
+		long nextVal = sequenceAllocator.nextValueFromSequence(unitOfWork,
+				"organisation_predecessor_description_sequence");
+		descriptionValues.put(ORGANISATION_PREDECESSOR_ID, nextVal);
 		descriptionValues.put("last_updated", getCurrentTimestamp());
 		descriptionValues.put(DESCRIPTION, comment);
 		return descriptionValues;
@@ -288,4 +297,9 @@ public class OrganisationPredecessorRelatedTable extends OrganisationRelatedTabl
 		return sqlDatabaseFactory;
 	}
 
+	public SequenceAllocator getSequenceAllocator() {
+		// needed for test
+		return sequenceAllocator;
+	}
+
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import se.uu.ub.cora.diva.mixedstorage.db.DbException;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWork;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkImp;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+/**
+ * OrganisationTypeIndex holds the organisation_type table in memory, as a map from
+ * organisation_type_code to organisation_type_id.
+ * <p>
+ * The table is read on first use and read again when it is older than maxAge, when
+ * {@link #refresh()} is called, or when a code is asked for that is not in the index, so that
+ * newly added types are found without waiting for maxAge. Reads made while looking up a code use
+ * the connection of the calling {@link UnitOfWork}.
+ */
+public class OrganisationTypeIndex {
+
+	private SqlDatabaseFactory sqlDatabaseFactory;
+	private Duration maxAge;
+	private Clock clock;
+	private AtomicReference<OrganisationTypes> currentTypes = new AtomicReference<>();
+
+	public static OrganisationTypeIndex usingSqlDatabaseFactoryAndMaxAge(
+			SqlDatabaseFactory sqlDatabaseFactory, Duration maxAge) {
+		return new OrganisationTypeIndex(sqlDatabaseFactory, maxAge, Clock.systemUTC());
+	}
+
+	public static OrganisationTypeIndex usingSqlDatabaseFactoryMaxAgeAndClock(
+			SqlDatabaseFactory sqlDatabaseFactory, Duration maxAge, Clock clock) {
+		return new OrganisationTypeIndex(sqlDatabaseFactory, maxAge, clock);
+	}
+
+	private OrganisationTypeIndex(SqlDatabaseFactory sqlDatabaseFactory, Duration maxAge,
+			Clock clock) {
+		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.maxAge = maxAge;
+		this.clock = clock;
+	}
+
+	/**
+	 * refresh reads all organisation types from the database and replaces the current ones.
+	 */
+	public void refresh() {
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			refreshUsingUnitOfWork(UnitOfWorkImp.usingDatabaseFacade(databaseFacade));
+		}
+	}
+
+	private void refreshUsingUnitOfWork(UnitOfWork unitOfWork) {
+		currentTypes.set(readTypesFromDb(unitOfWork));
+	}
+
+	private OrganisationTypes readTypesFromDb(UnitOfWork unitOfWork) {
+		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery("organisation_type");
+		List<Row> rows = unitOfWork.readRowsForQuery(tableQuery);
+		Map<String, Object> idsByCode = new HashMap<>(rows.size());
+		for (Row row : rows) {
+			idsByCode.put((String) row.getValueByColumn("organisation_type_code"),
+					row.getValueByColumn("organisation_type_id"));
+		}
+		return new OrganisationTypes(idsByCode, clock.instant());
+	}
+
+	/**
+	 * getIdForCode returns the organisation_type_id for the entered organisation_type_code.
+	 *
+	 * @throws DbException
+	 *             if no organisation type exists for the code
+	 */
+	public Object getIdForCode(UnitOfWork unitOfWork, String code) {
+		Object id = getCurrentTypes(unitOfWork).idsByCode.get(code);
+		if (id == null) {
+			refreshUsingUnitOfWork(unitOfWork);
+			id = currentTypes.get().idsByCode.get(code);
+		}
+		throwErrorIfNoIdForCode(code, id);
+		return id;
+	}
+
+	private OrganisationTypes getCurrentTypes(UnitOfWork unitOfWork) {
+		OrganisationTypes types = currentTypes.get();
+		if (types == null || isTooOld(types)) {
+			OrganisationTypes readTypes = readTypesFromDb(unitOfWork);
+			currentTypes.compareAndSet(types, readTypes);
+			types = currentTypes.get();
+		}
+		return types;
+	}
+
+	private boolean isTooOld(OrganisationTypes types) {
+		return types.readAt.plus(maxAge).isBefore(clock.instant());
+	}
+
+	private void throwErrorIfNoIdForCode(String code, Object id) {
+		if (id == null) {
+			throw DbException.withMessage("No organisation type found for code: " + code);
+		}
+	}
+
+	public SqlDatabaseFactory getSqlDatabaseFactory() {
+		// needed for test
+		return sqlDatabaseFactory;
+	}
+
+	public Duration getMaxAge() {
+		// needed for test
+		return maxAge;
+	}
+
+	private static final class OrganisationTypes {
+		private final Map<String, Object> idsByCode;
+		private final Instant readAt;
+
+		private OrganisationTypes(Map<String, Object> idsByCode, Instant readAt) {
+			this.idsByCode = idsByCode;
+			this.readAt = readAt;
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db.user;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,11 +26,14 @@ import java.util.List;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.cache.BoundedCache;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverter;
+import se.uu.ub.cora.diva.mixedstorage.util.DataGroupCopier;
 import se.uu.ub.cora.gatekeeper.user.UserStorage;
 import se.uu.ub.cora.logger.Logger;
 import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.Row;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
@@ -42,16 +46,26 @@ import se.uu.ub.cora.storage.StorageReadResult;
 public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 
 	private static final String PUBLIC_USER = "public.user";
-	private static final String DOMAIN = "domain";
-	private static final String USER_ID = "user_id";
+	private static final String USER_WITH_GROUPS_SQL = "select u.*, g.group_type, "
+			+ "g.domain as group_domain from public.user u left join public.groupsforuser g "
+			+ "on g.db_id = u.db_id where ";
+	private static final String USER_ID_AND_DOMAIN_CONDITION = "u.user_id = ? and u.domain = ?";
+	private static final String DB_ID_CONDITION = "u.db_id = ?";
+	private static final String USER_NOT_FOUND = "Record not found for type: user and id: ";
+	private static final String GROUP_TYPE = "group_type";
+	private static final String GROUP_DOMAIN = "group_domain";
 	private static final String DOMAIN_ADMIN = "domainAdmin";
 	private static final String SYSTEM_ADMIN = "systemAdmin";
 	private static final String DB_ID = "db_id";
+	private static final int MAX_NUMBER_OF_CACHED_USERS = 10000;
+	private static final Duration CACHED_USER_MAX_AGE = Duration.ofMinutes(5);
 	private UserStorage guestUserStorage;
 	private Logger log = LoggerProvider.getLoggerForClass(DivaMixedUserStorage.class);
 	private DivaDbToCoraConverter userConverter;
 	private DataGroupRoleReferenceCreator dataGroupRoleReferenceCreator;
 	private SqlDatabaseFactory sqlDatabaseFactory;
+	private BoundedCache<String, DataGroup> userCache = BoundedCache
+			.usingMaxSizeAndMaxAge(MAX_NUMBER_OF_CACHED_USERS, CACHED_USER_MAX_AGE);
 
 	public static DivaMixedUserStorage usingGuestUserStorageDatabaseFactoryAndUserConverterAndRoleReferenceCreator(
 			UserStorage guestUserStorage, SqlDatabaseFactory sqlDatabaseFactory,
@@ -75,68 +89,97 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 		return guestUserStorage.getUserById(id);
 	}
 
+	/**
+	 * getUserByIdFromLogin returns the user with roles for the entered idFromLogin. Read users are
+	 * cached for a short time, so that repeated logins by the same user do not read from the
+	 * database. Changes made to users in classic DiVA are therefore seen first when the cached
+	 * user is too old, or after the user is invalidated using
+	 * {@link #invalidateUserByIdFromLogin(String)}.
+	 */
 	@Override
 	public DataGroup getUserByIdFromLogin(String idFromLogin) {
-		return readUserByUserId(idFromLogin);
-	}
-
-	private DataGroup readUserByUserId(String idFromLogin) {
-		logAndThrowExceptionIfUnexpectedFormatOf(idFromLogin);
-
-		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(PUBLIC_USER);
-		addConditionsToQuery(idFromLogin, tableQuery);
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			Row userRowFromDb = tableFacade.readOneRowForQuery(tableQuery);
-			DataGroup user = userConverter.fromRow(userRowFromDb);
-			readAndPossiblyAddRoles(tableFacade, userRowFromDb, user);
-			return user;
+		DataGroup cachedUser = userCache.get(idFromLogin);
+		if (cachedUser != null) {
+			return DataGroupCopier.copy(cachedUser);
 		}
+		long cacheGeneration = userCache.getGeneration();
+		DataGroup user = readUserByUserId(idFromLogin);
+		userCache.putIfGenerationIs(idFromLogin, DataGroupCopier.copy(user), cacheGeneration);
+		return user;
 	}
 
-	private void logAndThrowExceptionIfUnexpectedFormatOf(String idFromLogin) {
-		if (wrongFormatForIdFromLogin(idFromLogin)) {
-			String errorMessage = "Unrecognized format of userIdFromLogin: " + idFromLogin;
-			log.logErrorUsingMessage(errorMessage);
-			throw DbException.withMessage(errorMessage);
-		}
+	public void invalidateUserByIdFromLogin(String idFromLogin) {
+		userCache.invalidate(idFromLogin);
 	}
 
-	private boolean wrongFormatForIdFromLogin(String idFromLogin) {
-		return !idFromLogin.matches("^\\w+@(\\w+\\.){1,9}\\w+$");
+	public void invalidateAllUsers() {
+		userCache.invalidateAll();
 	}
 
-	private void addConditionsToQuery(String idFromLogin, TableQuery tableQuery) {
-		addUserId(idFromLogin, tableQuery);
-		addDomain(idFromLogin, tableQuery);
+	private DataGroup readUserByUserId(String idFromLogin) {
+		IdFromLogin parsedIdFromLogin = IdFromLogin.parse(idFromLogin);
+		logAndThrowExceptionIfUnexpectedFormatOf(idFromLogin, parsedIdFromLogin);
+
+		List<Object> values = List.of(parsedIdFromLogin.getUserId(),
+				parsedIdFromLogin.getDomain());
+		List<Row> rowsFromDb = readUserWithGroupsFromDb(USER_ID_AND_DOMAIN_CONDITION, values);
+		throwErrorIfNotExactlyOneUserFoundForIdFromLogin(idFromLogin, rowsFromDb);
+		return convertUserAndAddRoles(rowsFromDb);
+	}
+
+	/**
+	 * readUserWithGroupsFromDb reads the user and the groups of the user in one query. The left
+	 * join gives one row per group, each also holding all user columns, or one row without group
+	 * columns if the user has no groups.
+	 */
+	private List<Row> readUserWithGroupsFromDb(String condition, List<Object> values) {
+		try (DatabaseFacade databaseFacade = sqlDatabaseFactory.factorDatabaseFacade()) {
+			return databaseFacade.readUsingSqlAndValues(USER_WITH_GROUPS_SQL + condition, values);
+		}
 	}
 
-	private void addUserId(String idFromLogin, TableQuery tableQuery) {
-		String userId = getUserIdFromIdFromLogin(idFromLogin);
-		tableQuery.addCondition(USER_ID, userId);
+	/**
+	 * throwErrorIfNotExactlyOneUserFoundForIdFromLogin throws a {@link SqlDatabaseException} if no
+	 * user or more than one user is found, as reading the user as one row did before users and
+	 * groups were read together. All rows must belong to the same user, otherwise groups from
+	 * another user with the same login would be added to the user.
+	 */
+	private void throwErrorIfNotExactlyOneUserFoundForIdFromLogin(String idFromLogin,
+			List<Row> rowsFromDb) {
+		if (rowsFromDb.isEmpty()) {
+			throw SqlDatabaseException
+					.withMessage("No user found for userIdFromLogin: " + idFromLogin);
+		}
+		if (rowsAreForMoreThanOneUser(rowsFromDb)) {
+			throw SqlDatabaseException
+					.withMessage("More than one user found for userIdFromLogin: " + idFromLogin);
+		}
 	}
 
-	private void addDomain(String idFromLogin, TableQuery tableQuery) {
-		String userDomain = getDomainFromLogin(idFromLogin);
-		tableQuery.addCondition(DOMAIN, userDomain);
+	private boolean rowsAreForMoreThanOneUser(List<Row> rowsFromDb) {
+		Object dbId = rowsFromDb.get(0).getValueByColumn(DB_ID);
+		for (Row row : rowsFromDb) {
+			if (!dbId.equals(row.getValueByColumn(DB_ID))) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	private void readAndPossiblyAddRoles(TableFacade tableFacade, Row userRowFromDb,
-			DataGroup user) {
-		List<DataGroup> rolesList = readAndConvertClassicGroupsToCoraRoles(tableFacade,
-				userRowFromDb);
+	private DataGroup convertUserAndAddRoles(List<Row> userWithGroupRows) {
+		DataGroup user = userConverter.fromRow(userWithGroupRows.get(0));
+		List<DataGroup> rolesList = convertClassicGroupsToCoraRoles(userWithGroupRows);
 		possiblyAddRoles(rolesList, user);
+		return user;
 	}
 
-	private List<DataGroup> readAndConvertClassicGroupsToCoraRoles(TableFacade tableFacade,
-			Row userRowFromDb) {
-		List<Row> groupRowsFromDb = readGroupsFromDb(tableFacade, userRowFromDb);
-		return convertClassicGroupsToCoraRoles(groupRowsFromDb);
-	}
-
-	private List<Row> readGroupsFromDb(TableFacade tableFacade, Row userDataFromDb) {
-		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery("public.groupsforuser");
-		tableQuery.addCondition(DB_ID, userDataFromDb.getValueByColumn(DB_ID));
-		return tableFacade.readRowsForQuery(tableQuery);
+	private void logAndThrowExceptionIfUnexpectedFormatOf(String idFromLogin,
+			IdFromLogin parsedIdFromLogin) {
+		if (!parsedIdFromLogin.isValid()) {
+			String errorMessage = "Unrecognized format of userIdFromLogin: " + idFromLogin;
+			log.logErrorUsingMessage(errorMessage);
+			throw DbException.withMessage(errorMessage);
+		}
 	}
 
 	private List<DataGroup> convertClassicGroupsToCoraRoles(List<Row> groupRowsFromDb) {
@@ -163,11 +206,11 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 	}
 
 	private boolean groupTypeIsSystemAdmin(Row group) {
-		return SYSTEM_ADMIN.equals(group.getValueByColumn("group_type"));
+		return SYSTEM_ADMIN.equals(group.getValueByColumn(GROUP_TYPE));
 	}
 
 	private boolean groupTypeIsDomainAdminRole(Row group) {
-		return DOMAIN_ADMIN.equals(group.getValueByColumn("group_type"));
+		return DOMAIN_ADMIN.equals(group.getValueByColumn(GROUP_TYPE));
 	}
 
 	private List<DataGroup> createSystemAdminRole() {
@@ -186,7 +229,7 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 		List<String> domains = new ArrayList<>();
 		for (Row group : groupRowsFromDb) {
 			if (groupTypeIsDomainAdminRole(group)) {
-				domains.add((String) group.getValueByColumn(DOMAIN));
+				domains.add((String) group.getValueByColumn(GROUP_DOMAIN));
 			}
 		}
 		return domains;
@@ -215,33 +258,12 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 		}
 	}
 
-	private String getUserIdFromIdFromLogin(String idFromLogin) {
-		int indexOfAt = idFromLogin.indexOf('@');
-		return idFromLogin.substring(0, indexOfAt);
-	}
-
-	private String getDomainFromLogin(String idFromLogin) {
-		String[] splitAtAt = idFromLogin.split("@");
-		String domainPart = splitAtAt[1];
-
-		String[] loginDomainNameParts = domainPart.split("\\.");
-		int secondLevelDomainPosition = loginDomainNameParts.length - 2;
-		return loginDomainNameParts[secondLevelDomainPosition];
-	}
-
 	@Override
 	public DataGroup read(String type, String id) {
-		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			Row userRowFromDb = createConditionsAndTryToRead(tableFacade, id);
-			return tryToConvertUserAndAddRoles(tableFacade, id, userRowFromDb);
-		}
-	}
-
-	private Row createConditionsAndTryToRead(TableFacade tableFacade, String id) {
 		throwDbExceptionIfIdNotAnIntegerValue(id);
-		TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(PUBLIC_USER);
-		tableQuery.addCondition(DB_ID, Integer.valueOf(id));
-		return tryToReadUser(tableFacade, id, tableQuery);
+		List<Row> rowsFromDb = tryToReadUserWithGroups(id);
+		throwRecordNotFoundIfNoUserFound(id, rowsFromDb);
+		return convertUserAndAddRoles(rowsFromDb);
 	}
 
 	private void throwDbExceptionIfIdNotAnIntegerValue(String id) {
@@ -252,22 +274,17 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 		}
 	}
 
-	private DataGroup tryToConvertUserAndAddRoles(TableFacade tableFacade, String id,
-			Row userRowFromDb) {
+	private List<Row> tryToReadUserWithGroups(String id) {
 		try {
-			DataGroup user = userConverter.fromRow(userRowFromDb);
-			readAndPossiblyAddRoles(tableFacade, userRowFromDb, user);
-			return user;
-		} catch (SqlDatabaseException sqle) {
-			throw new RecordNotFoundException("Error when reading roles for user: " + id, sqle);
+			return readUserWithGroupsFromDb(DB_ID_CONDITION, List.of(Integer.valueOf(id)));
+		} catch (SqlDatabaseException s) {
+			throw new RecordNotFoundException(USER_NOT_FOUND + id, s);
 		}
 	}
 
-	private Row tryToReadUser(TableFacade tableFacade, String id, TableQuery tableQuery) {
-		try {
-			return tableFacade.readOneRowForQuery(tableQuery);
-		} catch (SqlDatabaseException s) {
-			throw new RecordNotFoundException("Record not found for type: user and id: " + id, s);
+	private void throwRecordNotFoundIfNoUserFound(String id, List<Row> rowsFromDb) {
+		if (rowsFromDb.isEmpty()) {
+			throw new RecordNotFoundException(USER_NOT_FOUND + id);
 		}
 	}
 
@@ -350,13 +367,24 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 
 	private boolean checkIfUserExist(String id) {
 		try (TableFacade tableFacade = sqlDatabaseFactory.factorTableFacade()) {
-			createConditionsAndTryToRead(tableFacade, id);
+			throwDbExceptionIfIdNotAnIntegerValue(id);
+			TableQuery tableQuery = sqlDatabaseFactory.factorTableQuery(PUBLIC_USER);
+			tableQuery.addCondition(DB_ID, Integer.valueOf(id));
+			tryToReadUser(tableFacade, id, tableQuery);
 		} catch (RecordNotFoundException exception) {
 			return false;
 		}
 		return true;
 	}
 
+	private Row tryToReadUser(TableFacade tableFacade, String id, TableQuery tableQuery) {
+		try {
+			return tableFacade.readOneRowForQuery(tableQuery);
+		} catch (SqlDatabaseException s) {
+			throw new RecordNotFoundException(USER_NOT_FOUND + id, s);
+		}
+	}
+
 	public UserStorage getUserStorageForGuest() {
 		// needed for test
 		return guestUserStorage;
@@ -388,4 +416,12 @@ public class DivaMixedUserStorage implements UserStorage, RecordStorage {
 	public SqlDatabaseFactory getSqlDatabaseFactory() {
 		return sqlDatabaseFactory;
 	}
+
+	/**
+	 * getUserCache returns the cache used for users read by idFromLogin, the cache can be used to
+	 * read the hit rate and the number of hits, misses, evictions and expirations.
+	 */
+	public BoundedCache<String, DataGroup> getUserCache() {
+		return userCache;
+	}
 }
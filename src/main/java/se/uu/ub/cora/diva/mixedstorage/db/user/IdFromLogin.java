@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.user;
+
+/**
+ * IdFromLogin parses an idFromLogin, such as user@some.domain.org, in one pass without regular
+ * expressions or intermediate arrays. The accepted format is the same as the regular expression
+ * <code>^\w+@(\w+\.){1,9}\w+$</code>, a userId followed by @ and two to ten dot separated labels,
+ * where \w is a letter a-z or A-Z, a digit or an underscore.
+ * <p>
+ * The domain of an idFromLogin is its second level domain, for user@some.domain.org it is
+ * domain.
+ */
+public final class IdFromLogin {
+	private static final int NOT_FOUND = -1;
+	private static final int MAX_NUMBER_OF_DOTS = 9;
+	private static final IdFromLogin INVALID = new IdFromLogin(null, NOT_FOUND, NOT_FOUND,
+			NOT_FOUND);
+
+	private final String idFromLogin;
+	private final int atIndex;
+	private final int domainStart;
+	private final int domainEnd;
+
+	public static IdFromLogin parse(String idFromLogin) {
+		int atIndex = NOT_FOUND;
+		int lastDotIndex = NOT_FOUND;
+		int secondLastDotIndex = NOT_FOUND;
+		int numberOfDots = 0;
+		int labelLength = 0;
+		for (int i = 0; i < idFromLogin.length(); i++) {
+			char character = idFromLogin.charAt(i);
+			if (isWordCharacter(character)) {
+				labelLength++;
+			} else if (character == '@' && atIndex == NOT_FOUND && labelLength > 0) {
+				atIndex = i;
+				labelLength = 0;
+			} else if (character == '.' && atIndex != NOT_FOUND && labelLength > 0) {
+				secondLastDotIndex = lastDotIndex;
+				lastDotIndex = i;
+				numberOfDots++;
+				labelLength = 0;
+			} else {
+				return INVALID;
+			}
+		}
+		if (atIndex == NOT_FOUND || numberOfDots == 0 || numberOfDots > MAX_NUMBER_OF_DOTS
+				|| labelLength == 0) {
+			return INVALID;
+		}
+		int domainStart = secondLastDotIndex == NOT_FOUND ? atIndex + 1 : secondLastDotIndex + 1;
+		return new IdFromLogin(idFromLogin, atIndex, domainStart, lastDotIndex);
+	}
+
+	private static boolean isWordCharacter(char character) {
+		return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z')
+				|| (character >= '0' && character <= '9') || character == '_';
+	}
+
+	private IdFromLogin(String idFromLogin, int atIndex, int domainStart, int domainEnd) {
+		this.idFromLogin = idFromLogin;
+		this.atIndex = atIndex;
+		this.domainStart = domainStart;
+		this.domainEnd = domainEnd;
+	}
+
+	public boolean isValid() {
+		return idFromLogin != null;
+	}
+
+	public String getUserId() {
+		return idFromLogin.substring(0, atIndex);
+	}
+
+	public String getDomain() {
+		return idFromLogin.substring(domainStart, domainEnd);
+	}
+}
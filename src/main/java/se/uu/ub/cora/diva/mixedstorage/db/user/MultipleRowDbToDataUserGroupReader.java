@@ -44,4 +44,10 @@ public class MultipleRowDbToDataUserGroupReader extends DivaMultipleRowDbToDataR
 		conditions.put("db_id", Integer.valueOf(id));
 		return conditions;
 	}
+
+	@Override
+	protected String getIdColumnName() {
+		return "db_id";
+	}
+
 }
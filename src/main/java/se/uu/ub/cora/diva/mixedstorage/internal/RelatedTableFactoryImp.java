@@ -19,8 +19,10 @@
 package se.uu.ub.cora.diva.mixedstorage.internal;
 
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.db.BlockSequenceAllocator;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTableFactory;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocator;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAddressRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAlternativeNameRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationParentRelatedTable;
@@ -29,31 +31,43 @@ import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 
 public class RelatedTableFactoryImp implements RelatedTableFactory {
 
+	private static final int SEQUENCE_BLOCK_SIZE = 20;
 	private SqlDatabaseFactory sqlDatabaseFactory;
+	private SequenceAllocator sequenceAllocator;
 
 	public static RelatedTableFactoryImp usingReaderDeleterAndCreator(
 			SqlDatabaseFactory sqlDatabaseFactory) {
-		return new RelatedTableFactoryImp(sqlDatabaseFactory);
+		SequenceAllocator sequenceAllocator = BlockSequenceAllocator
+				.usingSqlDatabaseFactoryAndBlockSize(sqlDatabaseFactory, SEQUENCE_BLOCK_SIZE);
+		return new RelatedTableFactoryImp(sqlDatabaseFactory, sequenceAllocator);
 	}
 
-	private RelatedTableFactoryImp(SqlDatabaseFactory sqlDatabaseFactory) {
+	public static RelatedTableFactoryImp usingSqlDatabaseFactoryAndSequenceAllocator(
+			SqlDatabaseFactory sqlDatabaseFactory, SequenceAllocator sequenceAllocator) {
+		return new RelatedTableFactoryImp(sqlDatabaseFactory, sequenceAllocator);
+	}
+
+	private RelatedTableFactoryImp(SqlDatabaseFactory sqlDatabaseFactory,
+			SequenceAllocator sequenceAllocator) {
 		this.sqlDatabaseFactory = sqlDatabaseFactory;
+		this.sequenceAllocator = sequenceAllocator;
 	}
 
 	@Override
 	public RelatedTable factor(String relatedTableName) {
 		if ("organisationAlternativeName".equals(relatedTableName)) {
-			return new OrganisationAlternativeNameRelatedTable(sqlDatabaseFactory);
+			return new OrganisationAlternativeNameRelatedTable(sqlDatabaseFactory,
+					sequenceAllocator);
 		}
 		if ("organisationAddress".equals(relatedTableName)) {
-			return new OrganisationAddressRelatedTable(sqlDatabaseFactory);
+			return new OrganisationAddressRelatedTable(sqlDatabaseFactory, sequenceAllocator);
 		}
 
 		if ("organisationParent".equals(relatedTableName)) {
 			return new OrganisationParentRelatedTable(sqlDatabaseFactory);
 		}
 		if ("organisationPredecessor".equals(relatedTableName)) {
-			return new OrganisationPredecessorRelatedTable(sqlDatabaseFactory);
+			return new OrganisationPredecessorRelatedTable(sqlDatabaseFactory, sequenceAllocator);
 		}
 
 		throw NotImplementedException
@@ -64,4 +78,9 @@ public class RelatedTableFactoryImp implements RelatedTableFactory {
 		return sqlDatabaseFactory;
 	}
 
+	public SequenceAllocator getSequenceAllocator() {
+		// needed for test
+		return sequenceAllocator;
+	}
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.storage.RecordNotFoundException;
+import se.uu.ub.cora.storage.RecordStorage;
+import se.uu.ub.cora.storage.StorageReadResult;
+
+/**
+ * InstrumentedRecordStorage wraps a RecordStorage and records the latency of every call, and if
+ * it failed, in {@link StorageMetrics} using the backend name, the called method and the record
+ * type of the call. Calls that throw a {@link RecordNotFoundException} are counted as not found
+ * instead of as failed.
+ */
+public final class InstrumentedRecordStorage implements RecordStorage {
+	private final String backend;
+	private final RecordStorage recordStorage;
+	private final RecordTypeMetrics readMetrics;
+	private final RecordTypeMetrics createMetrics;
+	private final RecordTypeMetrics deleteMetrics;
+	private final RecordTypeMetrics linksExistMetrics;
+	private final RecordTypeMetrics updateMetrics;
+	private final RecordTypeMetrics readListMetrics;
+	private final RecordTypeMetrics readAbstractListMetrics;
+	private final RecordTypeMetrics readLinkListMetrics;
+	private final RecordTypeMetrics generateLinkCollectionMetrics;
+	private final RecordTypeMetrics recordExistsMetrics;
+	private final RecordTypeMetrics countMetrics;
+	private final RecordTypeMetrics countAbstractMetrics;
+
+	public static InstrumentedRecordStorage usingBackendRecordStorageAndStorageMetrics(
+			String backend, RecordStorage recordStorage, StorageMetrics storageMetrics) {
+		return new InstrumentedRecordStorage(backend, recordStorage, storageMetrics);
+	}
+
+	private InstrumentedRecordStorage(String backend, RecordStorage recordStorage,
+			StorageMetrics metrics) {
+		this.backend = backend;
+		this.recordStorage = recordStorage;
+		readMetrics = metrics.getMetricsForBackendAndOperation(backend, "read");
+		createMetrics = metrics.getMetricsForBackendAndOperation(backend, "create");
+		deleteMetrics = metrics.getMetricsForBackendAndOperation(backend, "deleteByTypeAndId");
+		linksExistMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"linksExistForRecord");
+		updateMetrics = metrics.getMetricsForBackendAndOperation(backend, "update");
+		readListMetrics = metrics.getMetricsForBackendAndOperation(backend, "readList");
+		readAbstractListMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"readAbstractList");
+		readLinkListMetrics = metrics.getMetricsForBackendAndOperation(backend, "readLinkList");
+		generateLinkCollectionMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"generateLinkCollectionPointingToRecord");
+		recordExistsMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"recordExistsForAbstractOrImplementingRecordTypeAndRecordId");
+		countMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"getTotalNumberOfRecordsForType");
+		countAbstractMetrics = metrics.getMetricsForBackendAndOperation(backend,
+				"getTotalNumberOfRecordsForAbstractType");
+	}
+
+	private <T> T measure(RecordTypeMetrics metrics, String type, Supplier<T> call) {
+		long start = System.nanoTime();
+		try {
+			T result = call.get();
+			metrics.recordForType(type, System.nanoTime() - start, false);
+			return result;
+		} catch (RecordNotFoundException e) {
+			metrics.recordNotFoundForType(type, System.nanoTime() - start);
+			throw e;
+		} catch (RuntimeException | Error e) {
+			metrics.recordForType(type, System.nanoTime() - start, true);
+			throw e;
+		}
+	}
+
+	private void measure(RecordTypeMetrics metrics, String type, Runnable call) {
+		measure(metrics, type, () -> {
+			call.run();
+			return null;
+		});
+	}
+
+	@Override
+	public DataGroup read(String type, String id) {
+		return measure(readMetrics, type, () -> recordStorage.read(type, id));
+	}
+
+	@Override
+	public void create(String type, String id, DataGroup dataRecord, DataGroup collectedTerms,
+			DataGroup linkList, String dataDivider) {
+		measure(createMetrics, type, () -> recordStorage.create(type, id, dataRecord,
+				collectedTerms, linkList, dataDivider));
+	}
+
+	@Override
+	public void deleteByTypeAndId(String type, String id) {
+		measure(deleteMetrics, type, () -> recordStorage.deleteByTypeAndId(type, id));
+	}
+
+	@Override
+	public boolean linksExistForRecord(String type, String id) {
+		return measure(linksExistMetrics, type,
+				() -> recordStorage.linksExistForRecord(type, id));
+	}
+
+	@Override
+	public void update(String type, String id, DataGroup dataRecord, DataGroup collectedTerms,
+			DataGroup linkList, String dataDivider) {
+		measure(updateMetrics, type, () -> recordStorage.update(type, id, dataRecord,
+				collectedTerms, linkList, dataDivider));
+	}
+
+	@Override
+	public StorageReadResult readList(String type, DataGroup filter) {
+		return measure(readListMetrics, type, () -> recordStorage.readList(type, filter));
+	}
+
+	@Override
+	public StorageReadResult readAbstractList(String type, DataGroup filter) {
+		return measure(readAbstractListMetrics, type,
+				() -> recordStorage.readAbstractList(type, filter));
+	}
+
+	@Override
+	public DataGroup readLinkList(String type, String id) {
+		return measure(readLinkListMetrics, type, () -> recordStorage.readLinkList(type, id));
+	}
+
+	@Override
+	public Collection<DataGroup> generateLinkCollectionPointingToRecord(String type, String id) {
+		return measure(generateLinkCollectionMetrics, type,
+				() -> recordStorage.generateLinkCollectionPointingToRecord(type, id));
+	}
+
+	@Override
+	public boolean recordExistsForAbstractOrImplementingRecordTypeAndRecordId(String type,
+			String id) {
+		return measure(recordExistsMetrics, type, () -> recordStorage
+				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, id));
+	}
+
+	@Override
+	public long getTotalNumberOfRecordsForType(String type, DataGroup filter) {
+		return measure(countMetrics, type,
+				() -> recordStorage.getTotalNumberOfRecordsForType(type, filter));
+	}
+
+	@Override
+	public long getTotalNumberOfRecordsForAbstractType(String abstractType,
+			List<String> implementingTypes, DataGroup filter) {
+		return measure(countAbstractMetrics, abstractType,
+				() -> recordStorage.getTotalNumberOfRecordsForAbstractType(abstractType,
+						implementingTypes, filter));
+	}
+
+	public String getBackend() {
+		// needed for test
+		return backend;
+	}
+
+	public RecordStorage getRecordStorage() {
+		// needed for test
+		return recordStorage;
+	}
+}
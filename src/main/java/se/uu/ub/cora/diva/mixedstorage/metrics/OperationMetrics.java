@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationMetrics holds the number of calls, the number of failed calls, the number of calls that
+ * did not find the record and the latencies for one operation on one backend for one record type.
+ */
+final class OperationMetrics {
+	private static final long NANOS_PER_MICRO = 1000;
+
+	private final LongAdder callCount = new LongAdder();
+	private final LongAdder errorCount = new LongAdder();
+	private final LongAdder notFoundCount = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	void record(long nanos, boolean failed) {
+		callCount.increment();
+		if (failed) {
+			errorCount.increment();
+		}
+		recordLatency(nanos);
+	}
+
+	void recordNotFound(long nanos) {
+		callCount.increment();
+		notFoundCount.increment();
+		recordLatency(nanos);
+	}
+
+	private void recordLatency(long nanos) {
+		totalNanos.add(nanos);
+		latencies.record(nanos);
+	}
+
+	OperationMetricsSnapshot createSnapshot(String backend, String operation,
+			String recordType) {
+		long calls = callCount.sum();
+		long meanMicros = calls == 0 ? 0 : totalNanos.sum() / calls / NANOS_PER_MICRO;
+		return new OperationMetricsSnapshot(backend, operation, recordType, calls,
+				errorCount.sum(), notFoundCount.sum(), meanMicros,
+				toMicros(latencies.getValueAtPercentile(50)),
+				toMicros(latencies.getValueAtPercentile(95)),
+				toMicros(latencies.getValueAtPercentile(99)));
+	}
+
+	private long toMicros(long nanos) {
+		return nanos / NANOS_PER_MICRO;
+	}
+}
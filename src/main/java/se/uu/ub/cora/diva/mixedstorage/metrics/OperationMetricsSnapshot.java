@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+/**
+ * OperationMetricsSnapshot holds the metrics for one operation on one backend for one record
+ * type, as they were when the snapshot was taken. Latencies are in microseconds.
+ */
+public final class OperationMetricsSnapshot {
+	private final String backend;
+	private final String operation;
+	private final String recordType;
+	private final long callCount;
+	private final long errorCount;
+	private final long notFoundCount;
+	private final long meanMicros;
+	private final long p50Micros;
+	private final long p95Micros;
+	private final long p99Micros;
+
+	OperationMetricsSnapshot(String backend, String operation, String recordType,
+			long callCount, long errorCount, long notFoundCount, long meanMicros, long p50Micros,
+			long p95Micros, long p99Micros) {
+		this.backend = backend;
+		this.operation = operation;
+		this.recordType = recordType;
+		this.callCount = callCount;
+		this.errorCount = errorCount;
+		this.notFoundCount = notFoundCount;
+		this.meanMicros = meanMicros;
+		this.p50Micros = p50Micros;
+		this.p95Micros = p95Micros;
+		this.p99Micros = p99Micros;
+	}
+
+	public String getBackend() {
+		return backend;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getRecordType() {
+		return recordType;
+	}
+
+	public long getCallCount() {
+		return callCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * getNotFoundCount returns the number of calls that ended with a RecordNotFoundException. These
+	 * calls are not counted as errors, as a missing record is an expected answer, for example when
+	 * a user is first looked for in the user storage and then in the basic storage.
+	 */
+	public long getNotFoundCount() {
+		return notFoundCount;
+	}
+
+	public long getMeanMicros() {
+		return meanMicros;
+	}
+
+	public long getP50Micros() {
+		return p50Micros;
+	}
+
+	public long getP95Micros() {
+		return p95Micros;
+	}
+
+	public long getP99Micros() {
+		return p99Micros;
+	}
+}
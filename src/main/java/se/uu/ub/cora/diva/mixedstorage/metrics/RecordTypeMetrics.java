@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * RecordTypeMetrics holds the {@link OperationMetrics} for one operation on one backend, per
+ * record type.
+ */
+final class RecordTypeMetrics {
+	private final String backend;
+	private final String operation;
+	private final ConcurrentMap<String, OperationMetrics> metricsForTypes;
+
+	RecordTypeMetrics(String backend, String operation) {
+		this.backend = backend;
+		this.operation = operation;
+		metricsForTypes = new ConcurrentHashMap<>();
+	}
+
+	void recordForType(String type, long nanos, boolean failed) {
+		getMetricsForType(type).record(nanos, failed);
+	}
+
+	void recordNotFoundForType(String type, long nanos) {
+		getMetricsForType(type).recordNotFound(nanos);
+	}
+
+	private OperationMetrics getMetricsForType(String type) {
+		OperationMetrics metrics = metricsForTypes.get(type);
+		if (metrics == null) {
+			metrics = metricsForTypes.computeIfAbsent(type, key -> new OperationMetrics());
+		}
+		return metrics;
+	}
+
+	void addSnapshotsTo(List<OperationMetricsSnapshot> snapshots) {
+		for (Entry<String, OperationMetrics> entry : metricsForTypes.entrySet()) {
+			snapshots.add(entry.getValue().createSnapshot(backend, operation, entry.getKey()));
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * StorageMetrics collects call counts, error counts, not found counts and latencies per backend,
+ * operation and record type for the storages wrapped in {@link InstrumentedRecordStorage}.
+ * <p>
+ * The collected metrics can be pulled using {@link #getSnapshot()} or read through JMX, as
+ * StorageMetrics implements {@link StorageMetricsMXBean}.
+ */
+public final class StorageMetrics implements StorageMetricsMXBean {
+	public static final String OBJECT_NAME = "se.uu.ub.cora.diva.mixedstorage:type=StorageMetrics";
+
+	private final ConcurrentMap<String, RecordTypeMetrics> metrics = new ConcurrentHashMap<>();
+
+	RecordTypeMetrics getMetricsForBackendAndOperation(String backend, String operation) {
+		return metrics.computeIfAbsent(backend + "/" + operation,
+				key -> new RecordTypeMetrics(backend, operation));
+	}
+
+	/**
+	 * getSnapshot returns the current metrics for all backend, operation and record type
+	 * combinations that have been called, sorted by backend, operation and record type.
+	 */
+	public List<OperationMetricsSnapshot> getSnapshot() {
+		List<OperationMetricsSnapshot> snapshots = new ArrayList<>();
+		for (RecordTypeMetrics recordTypeMetrics : metrics.values()) {
+			recordTypeMetrics.addSnapshotsTo(snapshots);
+		}
+		snapshots.sort(Comparator.comparing(OperationMetricsSnapshot::getBackend)
+				.thenComparing(OperationMetricsSnapshot::getOperation)
+				.thenComparing(OperationMetricsSnapshot::getRecordType));
+		return snapshots;
+	}
+
+	@Override
+	public List<OperationMetricsSnapshot> getOperationMetrics() {
+		return getSnapshot();
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.util;
+
+import se.uu.ub.cora.data.DataAtomic;
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataAttribute;
+import se.uu.ub.cora.data.DataChild;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLink;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+
+/**
+ * DataGroupCopier creates deep copies of dataGroups, so that a dataGroup kept by a cache can be
+ * handed out without callers being able to change the cached version.
+ * <p>
+ * Record links are copied as new links with the same linked record type, id, repeatId and
+ * attributes, without any actions, as actions are added by Cora to the copy that is returned.
+ */
+public final class DataGroupCopier {
+
+	private DataGroupCopier() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static DataGroup copy(DataGroup dataGroup) {
+		DataGroup copy = DataGroupProvider.getDataGroupUsingNameInData(dataGroup.getNameInData());
+		copy.setRepeatId(dataGroup.getRepeatId());
+		copyAttributes(dataGroup, copy);
+		for (DataChild child : dataGroup.getChildren()) {
+			copy.addChild(copyChild(child));
+		}
+		return copy;
+	}
+
+	private static void copyAttributes(DataGroup dataGroup, DataGroup copy) {
+		if (dataGroup.hasAttributes()) {
+			for (DataAttribute attribute : dataGroup.getAttributes()) {
+				copy.addAttributeByIdWithValue(attribute.getNameInData(), attribute.getValue());
+			}
+		}
+	}
+
+	private static DataChild copyChild(DataChild child) {
+		if (child instanceof DataRecordLink) {
+			return copyLink((DataRecordLink) child);
+		}
+		if (child instanceof DataGroup) {
+			return copy((DataGroup) child);
+		}
+		return copyAtomic((DataAtomic) child);
+	}
+
+	private static DataChild copyLink(DataRecordLink link) {
+		DataRecordLink copy = DataRecordLinkProvider
+				.getDataRecordLinkAsLinkUsingNameInDataTypeAndId(link.getNameInData(),
+						link.getLinkedRecordType(), link.getLinkedRecordId());
+		copy.setRepeatId(link.getRepeatId());
+		copyAttributes(link, copy);
+		return copy;
+	}
+
+	private static DataChild copyAtomic(DataAtomic atomic) {
+		DataAtomic copy = DataAtomicProvider.getDataAtomicUsingNameInDataAndValueAndRepeatId(
+				atomic.getNameInData(), atomic.getValue(), atomic.getRepeatId());
+		if (atomic.hasAttributes()) {
+			for (DataAttribute attribute : atomic.getAttributes()) {
+				copy.addAttributeByIdWithValue(attribute.getNameInData(), attribute.getValue());
+			}
+		}
+		return copy;
+	}
+}
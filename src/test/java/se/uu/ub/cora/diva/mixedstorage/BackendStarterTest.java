@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+public class BackendStarterTest {
+	private static final String CLASS_NAME = "BackendStarter";
+	private LoggerFactorySpy loggerFactorySpy;
+	private BackendStarter backendStarter;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		loggerFactorySpy = new LoggerFactorySpy();
+		LoggerProvider.setLoggerFactory(loggerFactorySpy);
+		backendStarter = BackendStarter.usingNumberOfBackends(2);
+	}
+
+	@Test
+	public void testStartedBackendsAreReturned() {
+		CompletableFuture<String> first = backendStarter.start("first", () -> "firstBackend");
+		CompletableFuture<String> second = backendStarter.start("second", () -> "secondBackend");
+		backendStarter.waitForAllToStart();
+
+		assertEquals(first.join(), "firstBackend");
+		assertEquals(second.join(), "secondBackend");
+		assertTrue(backendStarter.isShutdown());
+	}
+
+	@Test
+	public void testBackendsAreStartedAtTheSameTime() {
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		CompletableFuture<Boolean> first = backendStarter.start("first",
+				() -> countDownAndWait(bothStarted));
+		CompletableFuture<Boolean> second = backendStarter.start("second",
+				() -> countDownAndWait(bothStarted));
+		backendStarter.waitForAllToStart();
+
+		assertTrue(first.join());
+		assertTrue(second.join());
+	}
+
+	private boolean countDownAndWait(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Test
+	public void testStartupDurationsAreLogged() {
+		backendStarter.start("first", () -> "firstBackend");
+		backendStarter.start("second", () -> "secondBackend");
+		backendStarter.waitForAllToStart();
+
+		List<String> infoMessages = loggerFactorySpy.createdLoggers.get(CLASS_NAME).infoMessages;
+		assertEquals(infoMessages.size(), 3);
+		assertTrue(infoMessages.get(0).matches("Started first in \\d+ ms"));
+		assertTrue(infoMessages.get(1).matches("Started second in \\d+ ms"));
+		assertTrue(infoMessages.get(2).matches("Started all backends in \\d+ ms"));
+	}
+
+	@Test
+	public void testFirstErrorIsThrownAfterAllBackendsAreDone() {
+		RuntimeException firstError = new RuntimeException("first error");
+		CountDownLatch slowBackendDone = new CountDownLatch(1);
+		backendStarter.start("first", () -> {
+			throw firstError;
+		});
+		backendStarter.start("slow", () -> {
+			sleep(50);
+			slowBackendDone.countDown();
+			throw new RuntimeException("second error");
+		});
+		try {
+			backendStarter.waitForAllToStart();
+			fail("An error should have been thrown");
+		} catch (RuntimeException e) {
+			assertSame(e, firstError);
+		}
+		assertEquals(slowBackendDone.getCount(), 0);
+		assertTrue(backendStarter.isShutdown());
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testFailedBackendsAreLogged() {
+		RuntimeException error = new RuntimeException("some error");
+		backendStarter.start("first", () -> "firstBackend");
+		backendStarter.start("second", () -> {
+			throw error;
+		});
+		try {
+			backendStarter.waitForAllToStart();
+		} catch (RuntimeException e) {
+			// expected
+		}
+
+		List<String> infoMessages = loggerFactorySpy.createdLoggers.get(CLASS_NAME).infoMessages;
+		assertEquals(infoMessages.size(), 1);
+		assertTrue(infoMessages.get(0).matches("Started first in \\d+ ms"));
+		assertEquals(loggerFactorySpy.getNoOfErrorLogMessagesUsingClassName(CLASS_NAME), 1);
+		assertTrue(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(CLASS_NAME, 0)
+				.matches("Starting second failed after \\d+ ms"));
+		assertSame(loggerFactorySpy.createdLoggers.get(CLASS_NAME).errorExceptions.get(0), error);
+	}
+
+	@Test
+	public void testErrorThatIsNotARuntimeExceptionIsWrapped() {
+		AssertionError error = new AssertionError("some error");
+		backendStarter.start("first", () -> {
+			throw error;
+		});
+		try {
+			backendStarter.waitForAllToStart();
+			fail("An error should have been thrown");
+		} catch (DataStorageException e) {
+			assertTrue(e.getMessage().matches("Starting first failed after \\d+ ms: some error"));
+			assertSame(e.getCause(), error);
+		}
+	}
+}
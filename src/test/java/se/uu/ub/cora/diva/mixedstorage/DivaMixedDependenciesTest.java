@@ -20,9 +20,12 @@ package se.uu.ub.cora.diva.mixedstorage;
 
 import static org.testng.Assert.assertSame;
 
+import java.time.Duration;
+
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
 import se.uu.ub.cora.storage.RecordStorage;
 
 public class DivaMixedDependenciesTest {
@@ -62,6 +65,28 @@ public class DivaMixedDependenciesTest {
 		assertSame(mixedDependencies.getDatabaseStorage(), databaseStorage);
 	}
 
+	@Test
+	public void testSetGetParallelListReader() {
+		ParallelListReader parallelListReader = ParallelListReader
+				.usingMaxNumberOfThreadsAndTimeout(1, Duration.ofSeconds(1));
+		mixedDependencies.setParallelListReader(parallelListReader);
+		assertSame(mixedDependencies.getParallelListReader(), parallelListReader);
+	}
+
+	@Test
+	public void testSetGetStorageRoutes() {
+		StorageRoutes storageRoutes = StorageRoutes.usingDefaultRoutes();
+		mixedDependencies.setStorageRoutes(storageRoutes);
+		assertSame(mixedDependencies.getStorageRoutes(), storageRoutes);
+	}
+
+	@Test
+	public void testSetGetStorageMetrics() {
+		StorageMetrics storageMetrics = new StorageMetrics();
+		mixedDependencies.setStorageMetrics(storageMetrics);
+		assertSame(mixedDependencies.getStorageMetrics(), storageMetrics);
+	}
+
 	// @Test
 	// public void testSetGetClassicFedoraUpdaterFactory() {
 	// ClassicFedoraUpdaterFactory fedoraUpdaterFactory = new ClassicFedoraUpdaterFactorySpy();
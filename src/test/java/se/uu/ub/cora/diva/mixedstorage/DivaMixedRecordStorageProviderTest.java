@@ -20,18 +20,26 @@ package se.uu.ub.cora.diva.mixedstorage;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -41,6 +49,7 @@ import se.uu.ub.cora.basicstorage.RecordStorageInstance;
 import se.uu.ub.cora.basicstorage.RecordStorageOnDisk;
 import se.uu.ub.cora.data.DataGroupFactory;
 import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.diva.mixedstorage.db.ConnectionCountingSqlDatabaseFactory;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDataToDbTranslaterFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbRecordStorage;
@@ -49,6 +58,8 @@ import se.uu.ub.cora.diva.mixedstorage.db.DivaDbUpdaterFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.db.user.DivaMixedUserStorageProvider;
 import se.uu.ub.cora.diva.mixedstorage.internal.RelatedTableFactoryImp;
 import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetricsMXBean;
 import se.uu.ub.cora.logger.LoggerProvider;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseFactoryImp;
 import se.uu.ub.cora.sqlstorage.DatabaseRecordStorage;
@@ -163,6 +174,42 @@ public class DivaMixedRecordStorageProviderTest {
 				initInfo.get("storageOnDiskBasePath"));
 	}
 
+	@Test
+	public void testDivaMixedRecordStorageContainsParallelListReader() {
+		DivaMixedRecordStorage recordStorage = startRecordStorage();
+
+		ParallelListReader parallelListReader = recordStorage.getParallelListReader();
+		assertEquals(parallelListReader.getMaxNumberOfThreads(), 16);
+		assertEquals(parallelListReader.getTimeout(), Duration.ofSeconds(60));
+	}
+
+	@Test
+	public void testDivaMixedRecordStorageContainsStorageMetricsRegisteredInJmx()
+			throws Exception {
+		DivaMixedRecordStorage recordStorage = startRecordStorage();
+
+		StorageMetrics storageMetrics = recordStorage.getStorageMetrics();
+		ObjectName objectName = new ObjectName(StorageMetrics.OBJECT_NAME);
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		assertTrue(mBeanServer.isRegistered(objectName));
+		assertTrue(mBeanServer.isInstanceOf(objectName, StorageMetricsMXBean.class.getName()));
+		Object[] operationMetrics = (Object[]) mBeanServer.getAttribute(objectName,
+				"OperationMetrics");
+		assertEquals(operationMetrics.length, storageMetrics.getSnapshot().size());
+	}
+
+	@Test
+	public void testDivaMixedRecordStorageContainsStorageRoutesFromInitInfo() {
+		initInfo.put("storageRoute.someType.read", "database");
+		DivaMixedRecordStorage recordStorage = startRecordStorage();
+
+		StorageRoutes storageRoutes = recordStorage.getStorageRoutes();
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("someType", StorageOperation.READ),
+				StorageBackend.DATABASE);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("person", StorageOperation.READ),
+				StorageBackend.DATABASE);
+	}
+
 	@Test
 	public void testDivaMixedRecordStorageContainsCorrectDbStorage() {
 		DivaMixedRecordStorage recordStorage = startRecordStorage();
@@ -195,10 +242,14 @@ public class DivaMixedRecordStorageProviderTest {
 				.getTranslaterFactory();
 		assertTrue(translaterFactory instanceof DivaDataToDbTranslaterFactoryImp);
 
+		ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory = dbStorage
+				.getUpdateSqlDatabaseFactory();
+		assertSame(updateSqlDatabaseFactory.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertSame(translaterFactory.getSqlDatabaseFactory(), updateSqlDatabaseFactory);
+
 		RelatedTableFactoryImp relatedTableFactory = (RelatedTableFactoryImp) recordStorageForOneTypeFactory
 				.getRelatedTableFactory();
-		assertTrue(relatedTableFactory.getSqlDatabaseFactory() instanceof SqlDatabaseFactoryImp);
-		assertSame(relatedTableFactory.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertSame(relatedTableFactory.getSqlDatabaseFactory(), updateSqlDatabaseFactory);
 	}
 
 	private SqlDatabaseFactoryImp assertCorrectSqlDatabaseFactory(DivaDbRecordStorage dbStorage) {
@@ -284,6 +335,34 @@ public class DivaMixedRecordStorageProviderTest {
 				"DivaMixedRecordStorageProvider started DivaMixedRecordStorage"));
 	}
 
+	@Test
+	public void testLoggingStartupDurationOfBackends() {
+		divaMixedRecordStorageProvider.startUsingInitInfo(initInfo);
+		List<String> infoMessages = loggerFactorySpy.createdLoggers
+				.get("BackendStarter").infoMessages;
+		assertEquals(infoMessages.size(), 5);
+		assertTrue(infoMessages.get(0).matches("Started basic storage in \\d+ ms"));
+		assertTrue(infoMessages.get(1).matches("Started classic db storage in \\d+ ms"));
+		assertTrue(infoMessages.get(2).matches("Started user storage in \\d+ ms"));
+		assertTrue(infoMessages.get(3).matches("Started database storage in \\d+ ms"));
+		assertTrue(infoMessages.get(4).matches("Started all backends in \\d+ ms"));
+	}
+
+	@Test
+	public void testErrorFromBackendIsThrownAndNoRecordStorageIsSet() {
+		RuntimeException error = new RuntimeException("some error");
+		userStorageProvider.errorToThrowOnStart = error;
+		try {
+			divaMixedRecordStorageProvider.startUsingInitInfo(initInfo);
+			fail("An error should have been thrown");
+		} catch (RuntimeException e) {
+			assertSame(e, error);
+		}
+		assertNull(RecordStorageInstance.getInstance());
+		assertTrue(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo("BackendStarter", 0)
+				.matches("Starting user storage failed after \\d+ ms"));
+	}
+
 	@Test
 	public void testLoggingRecordStorageStartedByOtherProvider() {
 		RecordStorageSpy recordStorageSpy = new RecordStorageSpy();
@@ -24,14 +24,19 @@ import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.metrics.OperationMetricsSnapshot;
+import se.uu.ub.cora.diva.mixedstorage.metrics.StorageMetrics;
 import se.uu.ub.cora.storage.RecordStorage;
 import se.uu.ub.cora.storage.StorageReadResult;
 
@@ -43,6 +48,9 @@ public class DivaMixedRecordStorageTest {
 	private RecordStorageSpy userStorage;
 	private RecordStorageSpy databaseRecordStorage;
 	private DivaMixedDependencies mixedDependencies;
+	private ParallelListReader parallelListReader;
+	private StorageRoutes storageRoutes;
+	private StorageMetrics storageMetrics;
 
 	@BeforeMethod
 	public void beforeMethod() {
@@ -67,6 +75,15 @@ public class DivaMixedRecordStorageTest {
 		databaseRecordStorage = new RecordStorageSpy();
 		mixedDependencies.setDatabaseStorage(databaseRecordStorage);
 
+		parallelListReader = ParallelListReader.usingMaxNumberOfThreadsAndTimeout(2,
+				Duration.ofSeconds(10));
+		mixedDependencies.setParallelListReader(parallelListReader);
+
+		storageRoutes = StorageRoutes.usingDefaultRoutes();
+		mixedDependencies.setStorageRoutes(storageRoutes);
+
+		storageMetrics = new StorageMetrics();
+		mixedDependencies.setStorageMetrics(storageMetrics);
 	}
 
 	@Test
@@ -75,6 +92,76 @@ public class DivaMixedRecordStorageTest {
 		assertSame(divaMixedRecordStorage.getBasicStorage(), basicStorage);
 		assertSame(divaMixedRecordStorage.getClassicDbStorage(), divaDbToCoraStorage);
 		assertSame(divaMixedRecordStorage.getDatabaseStorage(), databaseRecordStorage);
+		assertSame(divaMixedRecordStorage.getParallelListReader(), parallelListReader);
+		assertSame(divaMixedRecordStorage.getStorageRoutes(), storageRoutes);
+		assertSame(divaMixedRecordStorage.getStorageMetrics(), storageMetrics);
+	}
+
+	@Test
+	public void testCallsToStoragesAreMeasuredPerBackendOperationAndType() throws Exception {
+		divaMixedRecordStorage.read("person", "someId");
+		divaMixedRecordStorage.read("someType", "someId");
+		divaMixedRecordStorage.read("someType", "someOtherId");
+
+		List<OperationMetricsSnapshot> snapshot = storageMetrics.getSnapshot();
+		assertEquals(snapshot.size(), 2);
+		assertSnapshot(snapshot.get(0), "basic", "read", "someType", 2);
+		assertSnapshot(snapshot.get(1), "database", "read", "person", 1);
+	}
+
+	private void assertSnapshot(OperationMetricsSnapshot snapshot, String backend,
+			String operation, String recordType, long callCount) {
+		assertEquals(snapshot.getBackend(), backend);
+		assertEquals(snapshot.getOperation(), operation);
+		assertEquals(snapshot.getRecordType(), recordType);
+		assertEquals(snapshot.getCallCount(), callCount);
+		assertEquals(snapshot.getErrorCount(), 0);
+	}
+
+	@Test
+	public void testUserNotFoundIsMeasuredAsNotFoundBeforeFallbackToBasic() throws Exception {
+		userStorage.existsInStorage = false;
+
+		divaMixedRecordStorage.read("user", "someId");
+
+		List<OperationMetricsSnapshot> snapshot = storageMetrics.getSnapshot();
+		assertEquals(snapshot.size(), 2);
+		assertSnapshot(snapshot.get(0), "basic", "read", "user", 1);
+		assertSnapshot(snapshot.get(1), "user", "read", "user", 1);
+		assertEquals(snapshot.get(1).getNotFoundCount(), 1);
+	}
+
+	@Test
+	public void testReadUsesRouteFromInitInfo() throws Exception {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.read", "database");
+		createMixedStorageUsingStorageRoutes(StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo));
+
+		DataGroup readGroup = divaMixedRecordStorage.read("someType", "someId");
+
+		assertNoInteractionWithStorage(basicStorage);
+		assertSame(readGroup, databaseRecordStorage.data.answer);
+		assertEquals(databaseRecordStorage.data.type, "someType");
+		assertEquals(databaseRecordStorage.data.id, "someId");
+	}
+
+	private void createMixedStorageUsingStorageRoutes(StorageRoutes routes) {
+		mixedDependencies.setStorageRoutes(routes);
+		divaMixedRecordStorage = DivaMixedRecordStorage
+				.usingDivaMixedDependencies(mixedDependencies);
+	}
+
+	@Test
+	public void testReadListUsesMergedRouteFromInitInfo() throws Exception {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.readList", "classicDbAndBasic");
+		createMixedStorageUsingStorageRoutes(StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo));
+
+		divaMixedRecordStorage.readList("someType", new DataGroupSpy("filter"));
+
+		assertEquals(divaDbToCoraStorage.data.calledMethod, "readList");
+		assertEquals(basicStorage.data.calledMethod, "readList");
+		assertNoInteractionWithStorage(userStorage);
 	}
 
 	@Test
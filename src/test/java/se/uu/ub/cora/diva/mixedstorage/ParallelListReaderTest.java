@@ -0,0 +1,243 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.storage.StorageReadResult;
+
+public class ParallelListReaderTest {
+
+	private ParallelListReader reader;
+
+	@BeforeMethod
+	public void setUp() {
+		reader = ParallelListReader.usingMaxNumberOfThreadsAndTimeout(2,
+				Duration.ofMillis(500));
+	}
+
+	@Test
+	public void testInit() {
+		assertEquals(reader.getMaxNumberOfThreads(), 2);
+		assertEquals(reader.getTimeout(), Duration.ofMillis(500));
+	}
+
+	@Test
+	public void testReadBothAndMergeAddsSecondResultToFirst() {
+		StorageReadResult firstResult = createResultWithNameInDataAndTotal("first", 5);
+		StorageReadResult secondResult = createResultWithNameInDataAndTotal("second", 7);
+
+		StorageReadResult result = reader.readBothAndMerge(() -> firstResult,
+				() -> secondResult);
+
+		assertSame(result, firstResult);
+		assertEquals(result.listOfDataGroups.size(), 2);
+		assertEquals(result.listOfDataGroups.get(0).getNameInData(), "first");
+		assertEquals(result.listOfDataGroups.get(1).getNameInData(), "second");
+		assertEquals(result.totalNumberOfMatches, 12);
+	}
+
+	private StorageReadResult createResultWithNameInDataAndTotal(String nameInData,
+			long totalNumberOfMatches) {
+		StorageReadResult result = new StorageReadResult();
+		List<DataGroup> list = new ArrayList<>();
+		list.add(new DataGroupSpy(nameInData));
+		result.listOfDataGroups = list;
+		result.totalNumberOfMatches = totalNumberOfMatches;
+		return result;
+	}
+
+	@Test
+	public void testBothReadsAreRunAtTheSameTime() {
+		CountDownLatch bothReadsStarted = new CountDownLatch(2);
+
+		StorageReadResult result = reader.readBothAndMerge(
+				() -> waitForOtherReadAndReturnResult(bothReadsStarted, "first"),
+				() -> waitForOtherReadAndReturnResult(bothReadsStarted, "second"));
+
+		assertEquals(result.listOfDataGroups.size(), 2);
+	}
+
+	private StorageReadResult waitForOtherReadAndReturnResult(CountDownLatch bothReadsStarted,
+			String nameInData) {
+		bothReadsStarted.countDown();
+		try {
+			assertTrue(bothReadsStarted.await(1, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		return createResultWithNameInDataAndTotal(nameInData, 1);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "error from first read")
+	public void testErrorFromFirstReadIsThrown() {
+		reader.readBothAndMerge(throwError("error from first read"),
+				() -> createResultWithNameInDataAndTotal("second", 1));
+	}
+
+	private Supplier<StorageReadResult> throwError(String message) {
+		return () -> {
+			throw DataStorageException.withMessage(message);
+		};
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "error from second read")
+	public void testErrorFromSecondReadIsThrown() {
+		reader.readBothAndMerge(() -> createResultWithNameInDataAndTotal("first", 1),
+				throwError("error from second read"));
+	}
+
+	@Test
+	public void testErrorThatIsNotARuntimeExceptionIsWrapped() {
+		Error error = new Error("some error");
+		try {
+			reader.readBothAndMerge(() -> createResultWithNameInDataAndTotal("first", 1), () -> {
+				throw error;
+			});
+			fail("DataStorageException should have been thrown");
+		} catch (DataStorageException e) {
+			assertEquals(e.getMessage(), "some error");
+			assertSame(e.getCause(), error);
+		}
+	}
+
+	@Test
+	public void testReadNotFinishedWithinTimeout() {
+		CountDownLatch neverReleased = new CountDownLatch(1);
+		try {
+			reader.readBothAndMerge(() -> createResultWithNameInDataAndTotal("first", 1),
+					() -> waitForLatchAndReturnResult(neverReleased));
+			fail("DataStorageException should have been thrown");
+		} catch (DataStorageException e) {
+			assertEquals(e.getMessage(), "Reading list did not finish within 500 ms");
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+	}
+
+	@Test
+	public void testReadNotFinishedWithinTimeoutIsInterrupted() throws Exception {
+		CountDownLatch neverReleased = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		try {
+			reader.readBothAndMerge(() -> createResultWithNameInDataAndTotal("first", 1),
+					() -> waitForLatchAndRecordInterrupt(neverReleased, interrupted));
+			fail("DataStorageException should have been thrown");
+		} catch (DataStorageException e) {
+			assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+		}
+	}
+
+	private StorageReadResult waitForLatchAndRecordInterrupt(CountDownLatch latch,
+			CountDownLatch interrupted) {
+		try {
+			latch.await(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			interrupted.countDown();
+		}
+		return createResultWithNameInDataAndTotal("slow", 1);
+	}
+
+	private StorageReadResult waitForLatchAndReturnResult(CountDownLatch latch) {
+		try {
+			latch.await(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return createResultWithNameInDataAndTotal("slow", 1);
+	}
+
+	@Test
+	public void testReadsAreRunByCallingThreadWhenQueueIsFull() {
+		ParallelListReader oneThreadReader = ParallelListReader
+				.usingMaxNumberOfThreadsAndTimeout(1, Duration.ofSeconds(5));
+		CountDownLatch release = new CountDownLatch(1);
+		List<Thread> blockingThreads = startThreadsBlockingOneThreadReader(oneThreadReader,
+				release);
+		Thread callingThread = Thread.currentThread();
+		List<Thread> readingThreads = new ArrayList<>();
+
+		try {
+			oneThreadReader.readBothAndMerge(
+					() -> recordThreadAndReturnResult(readingThreads, "first"),
+					() -> recordThreadAndReturnResult(readingThreads, "second"));
+		} finally {
+			release.countDown();
+		}
+
+		assertEquals(readingThreads.size(), 2);
+		assertSame(readingThreads.get(0), callingThread);
+		assertSame(readingThreads.get(1), callingThread);
+		joinThreads(blockingThreads);
+	}
+
+	private List<Thread> startThreadsBlockingOneThreadReader(ParallelListReader oneThreadReader,
+			CountDownLatch release) {
+		List<Thread> blockingThreads = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			Thread thread = new Thread(() -> oneThreadReader.readBothAndMerge(
+					() -> waitForLatchAndReturnResult(release),
+					() -> waitForLatchAndReturnResult(release)));
+			thread.start();
+			blockingThreads.add(thread);
+		}
+		waitUntilQueueIsFull(oneThreadReader);
+		return blockingThreads;
+	}
+
+	private void waitUntilQueueIsFull(ParallelListReader oneThreadReader) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (oneThreadReader.getNumberOfQueuedReads() < 10 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private synchronized StorageReadResult recordThreadAndReturnResult(List<Thread> threads,
+			String nameInData) {
+		threads.add(Thread.currentThread());
+		return createResultWithNameInDataAndTotal(nameInData, 1);
+	}
+
+	private void joinThreads(List<Thread> threads) {
+		for (Thread thread : threads) {
+			try {
+				thread.join(2000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
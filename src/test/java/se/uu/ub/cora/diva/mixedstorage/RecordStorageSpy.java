@@ -40,6 +40,7 @@ public class RecordStorageSpy implements RecordStorage, SearchStorage {
 	public StorageReadResult storageReadResult;
 	public boolean linkExistsInStorage = false;
 	public boolean existsInStorage = true;
+	public RuntimeException errorToThrowOnRead = null;
 	public List<String> implementingTypes;
 	public Map<String, Object> answerToReturn = new HashMap<>();
 
@@ -57,6 +58,9 @@ public class RecordStorageSpy implements RecordStorage, SearchStorage {
 		data.id = id;
 		data.calledMethod = "read";
 
+		if (errorToThrowOnRead != null) {
+			throw errorToThrowOnRead;
+		}
 		if (!existsInStorage) {
 			throw new RecordNotFoundException("error from spy");
 		}
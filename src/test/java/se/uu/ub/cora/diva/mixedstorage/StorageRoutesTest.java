@@ -0,0 +1,197 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.BASIC;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.BASIC_AND_USER;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.CLASSIC_DB;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.CLASSIC_DB_AND_BASIC;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.DATABASE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.USER;
+import static se.uu.ub.cora.diva.mixedstorage.StorageBackend.USER_WITH_BASIC_FALLBACK;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.COUNT_ABSTRACT;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.CREATE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.DELETE;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_ABSTRACT_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.READ_LIST;
+import static se.uu.ub.cora.diva.mixedstorage.StorageOperation.UPDATE;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.basicstorage.DataStorageException;
+
+public class StorageRoutesTest {
+
+	private StorageRoutes storageRoutes = StorageRoutes.usingDefaultRoutes();
+
+	@Test
+	public void testUnknownTypeIsRoutedToBasic() {
+		for (StorageOperation operation : StorageOperation.values()) {
+			assertEquals(storageRoutes.getBackendForTypeAndOperation("someType", operation), BASIC);
+		}
+	}
+
+	@Test
+	public void testPersonRoutes() {
+		assertRoutesForType("person", DATABASE, BASIC, BASIC, DATABASE, DATABASE, BASIC, DATABASE,
+				BASIC);
+	}
+
+	private void assertRoutesForType(String type, StorageBackend read, StorageBackend create,
+			StorageBackend delete, StorageBackend update, StorageBackend readList,
+			StorageBackend readAbstractList, StorageBackend count, StorageBackend countAbstract) {
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, READ), read);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, CREATE), create);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, DELETE), delete);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, UPDATE), update);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, READ_LIST), readList);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, READ_ABSTRACT_LIST),
+				readAbstractList);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, COUNT), count);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation(type, COUNT_ABSTRACT),
+				countAbstract);
+	}
+
+	@Test
+	public void testPersonDomainPartRoutes() {
+		assertRoutesForType("personDomainPart", DATABASE, DATABASE, DATABASE, DATABASE, DATABASE,
+				BASIC, DATABASE, BASIC);
+	}
+
+	@Test
+	public void testOrganisationRoutes() {
+		assertRoutesForType("organisation", CLASSIC_DB, BASIC, BASIC, CLASSIC_DB, CLASSIC_DB,
+				CLASSIC_DB, CLASSIC_DB, CLASSIC_DB);
+	}
+
+	@Test
+	public void testImplementingOrganisationTypeRoutes() {
+		for (String type : new String[] { "rootOrganisation", "topOrganisation",
+				"subOrganisation" }) {
+			assertRoutesForType(type, CLASSIC_DB, BASIC, BASIC, CLASSIC_DB, CLASSIC_DB, BASIC,
+					CLASSIC_DB, CLASSIC_DB);
+		}
+	}
+
+	@Test
+	public void testUserRoutes() {
+		assertRoutesForType("user", USER_WITH_BASIC_FALLBACK, BASIC, BASIC, BASIC, BASIC,
+				CLASSIC_DB_AND_BASIC, BASIC, BASIC);
+	}
+
+	@Test
+	public void testCoraUserRoutes() {
+		assertRoutesForType("coraUser", USER_WITH_BASIC_FALLBACK, BASIC, BASIC, BASIC,
+				BASIC_AND_USER, BASIC, BASIC, BASIC);
+	}
+
+	@Test
+	public void testRoutesFromInitInfoAreAdded() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.read", "database");
+		initInfo.put("storageRoute.someType.readList", "basicAndUser");
+		initInfo.put("storageOnDiskBasePath", "/someBasePath");
+		storageRoutes = StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("someType", READ), DATABASE);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("someType", READ_LIST),
+				BASIC_AND_USER);
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("someType", UPDATE), BASIC);
+	}
+
+	@Test
+	public void testRouteFromInitInfoReplacesDefaultRouteForOperationOnly() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.person.update", "basic");
+		storageRoutes = StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+
+		assertRoutesForType("person", DATABASE, BASIC, BASIC, BASIC, DATABASE, BASIC, DATABASE,
+				BASIC);
+	}
+
+	@Test
+	public void testRouteFromInitInfoCanUseTypeContainingDot() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.some.type.count", "user");
+		storageRoutes = StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+
+		assertEquals(storageRoutes.getBackendForTypeAndOperation("some.type", COUNT), USER);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Storage route key must contain type and operation: storageRoute.read")
+	public void testRouteFromInitInfoWithoutType() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.read", "database");
+		StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Unknown storage operation: someOperation")
+	public void testRouteFromInitInfoWithUnknownOperation() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.someOperation", "database");
+		StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Unknown storage backend: someBackend")
+	public void testRouteFromInitInfoWithUnknownBackend() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.read", "someBackend");
+		StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+	}
+
+	@Test(expectedExceptions = DataStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Storage backend basicAndUser can not be used for operation: read")
+	public void testRouteFromInitInfoWithBackendNotUsableForOperation() {
+		Map<String, String> initInfo = new HashMap<>();
+		initInfo.put("storageRoute.someType.read", "basicAndUser");
+		StorageRoutes.usingDefaultRoutesAndInitInfo(initInfo);
+	}
+
+	@Test
+	public void testBackendsCanBeUsedForOperations() {
+		for (StorageOperation operation : StorageOperation.values()) {
+			assertTrue(BASIC.canBeUsedFor(operation));
+			assertEquals(USER_WITH_BASIC_FALLBACK.canBeUsedFor(operation), operation == READ);
+			boolean isListRead = operation == READ_LIST || operation == READ_ABSTRACT_LIST;
+			assertEquals(BASIC_AND_USER.canBeUsedFor(operation), isListRead);
+			assertEquals(CLASSIC_DB_AND_BASIC.canBeUsedFor(operation), isListRead);
+		}
+	}
+
+	@Test
+	public void testMergedBackends() {
+		assertFalse(DATABASE.isMerged());
+		assertFalse(USER_WITH_BASIC_FALLBACK.isMerged());
+		assertEquals(BASIC_AND_USER.firstBackend, BASIC);
+		assertEquals(BASIC_AND_USER.secondBackend, USER);
+		assertEquals(CLASSIC_DB_AND_BASIC.firstBackend, CLASSIC_DB);
+		assertEquals(CLASSIC_DB_AND_BASIC.secondBackend, BASIC);
+	}
+}
@@ -28,6 +28,7 @@ public class UserStorageProviderSpy implements UserStorageProvider {
 
 	public UserStorageSpy userStorageSpy;
 	public Map<String, String> initInfo;
+	public RuntimeException errorToThrowOnStart;
 
 	@Override
 	public int getOrderToSelectImplementionsBy() {
@@ -44,6 +45,9 @@ public class UserStorageProviderSpy implements UserStorageProvider {
 	@Override
 	public void startUsingInitInfo(Map<String, String> initInfo) {
 		this.initInfo = initInfo;
+		if (errorToThrowOnStart != null) {
+			throw errorToThrowOnStart;
+		}
 	}
 
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.time.Duration;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.ClockSpy;
+
+public class BoundedCacheTest {
+
+	private BoundedCache<String, String> cache;
+
+	@BeforeMethod
+	public void setUp() {
+		cache = BoundedCache.usingMaxSize(2);
+	}
+
+	@Test
+	public void testInit() {
+		assertEquals(cache.getMaxSize(), 2);
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getHitCount(), 0);
+		assertEquals(cache.getMissCount(), 0);
+		assertEquals(cache.getEvictionCount(), 0);
+		assertEquals(cache.getGeneration(), 0);
+		assertEquals(cache.getExpirationCount(), 0);
+		assertNull(cache.getMaxAge());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "MaxSize must be larger than 0, was: 0")
+	public void testMaxSizeMustBePositive() {
+		BoundedCache.usingMaxSize(0);
+	}
+
+	@Test
+	public void testGetMissingKeyCountsMiss() {
+		assertNull(cache.get("someKey"));
+		assertEquals(cache.getMissCount(), 1);
+		assertEquals(cache.getHitCount(), 0);
+	}
+
+	@Test
+	public void testGetExistingKeyCountsHit() {
+		cache.put("someKey", "someValue");
+		assertEquals(cache.get("someKey"), "someValue");
+		assertEquals(cache.getHitCount(), 1);
+		assertEquals(cache.getMissCount(), 0);
+	}
+
+	@Test
+	public void testPutOverMaxSizeEvictsLeastRecentlyUsed() {
+		cache.put("first", "firstValue");
+		cache.put("second", "secondValue");
+		cache.get("first");
+		cache.put("third", "thirdValue");
+
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getEvictionCount(), 1);
+		assertEquals(cache.get("first"), "firstValue");
+		assertNull(cache.get("second"));
+		assertEquals(cache.get("third"), "thirdValue");
+	}
+
+	@Test
+	public void testInvalidate() {
+		cache.put("first", "firstValue");
+		cache.put("second", "secondValue");
+		cache.invalidate("first");
+
+		assertNull(cache.get("first"));
+		assertEquals(cache.get("second"), "secondValue");
+		assertEquals(cache.getGeneration(), 1);
+	}
+
+	@Test
+	public void testInvalidateAll() {
+		cache.put("first", "firstValue");
+		cache.put("second", "secondValue");
+		cache.invalidateAll();
+
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getGeneration(), 1);
+	}
+
+	@Test
+	public void testPutIfGenerationIsSameGeneration() {
+		long generation = cache.getGeneration();
+		cache.putIfGenerationIs("first", "firstValue", generation);
+		assertEquals(cache.get("first"), "firstValue");
+	}
+
+	@Test
+	public void testPutIfGenerationIsNotAddedIfInvalidatedInBetween() {
+		long generation = cache.getGeneration();
+		cache.invalidateAll();
+		cache.putIfGenerationIs("first", "firstValue", generation);
+		assertNull(cache.get("first"));
+	}
+
+	@Test
+	public void testHitRate() {
+		assertEquals(cache.getHitRate(), 0.0);
+		cache.put("first", "firstValue");
+		cache.get("first");
+		cache.get("first");
+		cache.get("first");
+		cache.get("second");
+
+		assertEquals(cache.getHitRate(), 0.75);
+	}
+
+	@Test
+	public void testMaxAge() {
+		cache = BoundedCache.usingMaxSizeAndMaxAge(2, Duration.ofMinutes(5));
+
+		assertEquals(cache.getMaxAge(), Duration.ofMinutes(5));
+		cache.put("first", "firstValue");
+		assertEquals(cache.get("first"), "firstValue");
+	}
+
+	@Test
+	public void testEntriesOlderThanMaxAgeAreExpired() {
+		ClockSpy clock = new ClockSpy();
+		cache = BoundedCache.usingMaxSizeMaxAgeAndClock(2, Duration.ofMinutes(5), clock);
+		cache.put("first", "firstValue");
+		clock.advance(Duration.ofMinutes(5));
+
+		assertEquals(cache.get("first"), "firstValue");
+
+		clock.advance(Duration.ofSeconds(1));
+
+		assertNull(cache.get("first"));
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getExpirationCount(), 1);
+		assertEquals(cache.getHitCount(), 1);
+		assertEquals(cache.getMissCount(), 1);
+	}
+
+	@Test
+	public void testPutAgainRenewsAge() {
+		ClockSpy clock = new ClockSpy();
+		cache = BoundedCache.usingMaxSizeMaxAgeAndClock(2, Duration.ofMinutes(5), clock);
+		cache.put("first", "firstValue");
+		clock.advance(Duration.ofMinutes(4));
+		cache.put("first", "newValue");
+		clock.advance(Duration.ofMinutes(4));
+
+		assertEquals(cache.get("first"), "newValue");
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+
+public class BatchingStatementExecutorTest {
+
+	private StatementExecutor statementExecutor;
+	private DatabaseFacadeSpy databaseFacade;
+
+	@BeforeMethod
+	public void setUp() {
+		statementExecutor = new BatchingStatementExecutorImp();
+		databaseFacade = new DatabaseFacadeSpy();
+		databaseFacade.updateCountToReturn = 1;
+	}
+
+	@Test
+	public void testIsPreparedStatementExecutor() {
+		assertTrue(statementExecutor instanceof PreparedStatementExecutorImp);
+	}
+
+	@Test
+	public void testSingleInsertIsExecutedAsIs() {
+		List<DbStatement> dbStatements = List.of(createInsert("someName", 1));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 1);
+		assertEquals(databaseFacade.sqls.get(0),
+				"INSERT INTO organisation_name(name, organisation_id) VALUES(?, ?)");
+		assertEquals(databaseFacade.valuesList.get(0), List.of("someName", 1));
+		assertEquals(updateCounts, List.of(1));
+	}
+
+	private DbStatement createInsert(String name, int organisationId) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("name", name);
+		values.put("organisation_id", organisationId);
+		return new DbStatement("insert", "organisation_name", values, Collections.emptyMap());
+	}
+
+	@Test
+	public void testConsecutiveInsertsAreExecutedAsOneMultiRowInsert() {
+		databaseFacade.updateCountToReturn = 3;
+		List<DbStatement> dbStatements = List.of(createInsert("someName", 1),
+				createInsert("otherName", 2), createInsert("thirdName", 3));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 1);
+		assertEquals(databaseFacade.sqls.get(0), "INSERT INTO organisation_name(name, "
+				+ "organisation_id) VALUES(?, ?), (?, ?), (?, ?)");
+		assertEquals(databaseFacade.valuesList.get(0),
+				List.of("someName", 1, "otherName", 2, "thirdName", 3));
+		assertEquals(updateCounts, List.of(1, 1, 1));
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "Multi row insert inserted 2 rows, expected 3 rows")
+	public void testMultiRowInsertThatDoesNotInsertAllRowsThrowsError() {
+		databaseFacade.updateCountToReturn = 2;
+		List<DbStatement> dbStatements = List.of(createInsert("someName", 1),
+				createInsert("otherName", 2), createInsert("thirdName", 3));
+
+		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+	}
+
+	@Test
+	public void testConsecutiveDeletesAreExecutedAsOneDelete() {
+		List<DbStatement> dbStatements = List.of(createDelete(1, 10), createDelete(2, 20));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 1);
+		assertEquals(databaseFacade.sqls.get(0), "DELETE FROM organisation_parent WHERE "
+				+ "(organisation_id = ? AND organisation_parent_id = ?) "
+				+ "OR (organisation_id = ? AND organisation_parent_id = ?)");
+		assertEquals(databaseFacade.valuesList.get(0), List.of(1, 10, 2, 20));
+		assertEquals(updateCounts, List.of(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO));
+	}
+
+	@Test
+	public void testDeletesAreExecutedOneByOneWhenPerStatementCountsAreNeeded() {
+		statementExecutor = new BatchingStatementExecutorImp(new SqlTemplateCache(), true);
+		databaseFacade.updateCountsToReturn = new ArrayList<>(List.of(1, 0));
+		List<DbStatement> dbStatements = List.of(createDelete(1, 10), createDelete(2, 20));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 2);
+		assertEquals(databaseFacade.sqls.get(1), "DELETE FROM organisation_parent WHERE "
+				+ "organisation_id = ? AND organisation_parent_id = ?");
+		assertEquals(databaseFacade.valuesList.get(1), List.of(2, 20));
+		assertEquals(updateCounts, List.of(1, 0));
+	}
+
+	@Test
+	public void testInsertsAreGroupedWhenPerStatementCountsAreNeeded() {
+		statementExecutor = new BatchingStatementExecutorImp(new SqlTemplateCache(), true);
+		databaseFacade.updateCountToReturn = 2;
+		List<DbStatement> dbStatements = List.of(createInsert("someName", 1),
+				createInsert("otherName", 2));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 1);
+		assertEquals(updateCounts, List.of(1, 1));
+	}
+
+	private DbStatement createDelete(int organisationId, int parentId) {
+		Map<String, Object> conditions = new LinkedHashMap<>();
+		conditions.put("organisation_id", organisationId);
+		conditions.put("organisation_parent_id", parentId);
+		return new DbStatement("delete", "organisation_parent", Collections.emptyMap(),
+				conditions);
+	}
+
+	@Test
+	public void testSingleDeleteReturnsExactUpdateCount() {
+		databaseFacade.updateCountToReturn = 0;
+		List<DbStatement> dbStatements = List.of(createDelete(1, 10));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.get(0), "DELETE FROM organisation_parent WHERE "
+				+ "organisation_id = ? AND organisation_parent_id = ?");
+		assertEquals(updateCounts, List.of(0));
+	}
+
+	@Test
+	public void testUpdatesAreNotGrouped() {
+		List<DbStatement> dbStatements = List.of(createUpdate("someName", 1),
+				createUpdate("otherName", 2));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 2);
+		assertEquals(databaseFacade.sqls.get(0),
+				"UPDATE organisation SET name = ? WHERE organisation_id = ?");
+		assertEquals(databaseFacade.sqls.get(1),
+				"UPDATE organisation SET name = ? WHERE organisation_id = ?");
+		assertEquals(databaseFacade.valuesList.get(0), List.of("someName", 1));
+		assertEquals(databaseFacade.valuesList.get(1), List.of("otherName", 2));
+		assertEquals(updateCounts, List.of(1, 1));
+	}
+
+	private DbStatement createUpdate(String name, int organisationId) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("name", name);
+		Map<String, Object> conditions = new LinkedHashMap<>();
+		conditions.put("organisation_id", organisationId);
+		return new DbStatement("update", "organisation", values, conditions);
+	}
+
+	@Test
+	public void testOrderOfStatementsIsKept() {
+		List<DbStatement> dbStatements = List.of(createDelete(1, 10), createDelete(1, 20),
+				createInsert("someName", 1), createInsert("otherName", 1),
+				createUpdate("someName", 1), createDelete(1, 30));
+		databaseFacade.updateCountsToReturn = new ArrayList<>(List.of(2, 2, 1, 1));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 4);
+		assertTrue(databaseFacade.sqls.get(0).startsWith("DELETE FROM organisation_parent"));
+		assertTrue(databaseFacade.sqls.get(1).startsWith("INSERT INTO organisation_name"));
+		assertTrue(databaseFacade.sqls.get(2).startsWith("UPDATE organisation"));
+		assertTrue(databaseFacade.sqls.get(3).startsWith("DELETE FROM organisation_parent"));
+		assertEquals(updateCounts.size(), 6);
+		assertEquals(updateCounts.get(5), Integer.valueOf(1));
+	}
+
+	@Test
+	public void testStatementsWithDifferentSqlAreNotGrouped() {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("name", "someName");
+		DbStatement otherInsert = new DbStatement("insert", "organisation_name", values,
+				Collections.emptyMap());
+		List<DbStatement> dbStatements = List.of(createInsert("someName", 1), otherInsert);
+
+		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 2);
+		assertEquals(databaseFacade.sqls.get(1), "INSERT INTO organisation_name(name) VALUES(?)");
+	}
+
+	@Test
+	public void testGroupIsSplitWhenTooManyParameters() {
+		List<DbStatement> dbStatements = new ArrayList<>();
+		for (int i = 0; i < 16384; i++) {
+			dbStatements.add(createInsert("name" + i, i));
+		}
+		databaseFacade.updateCountsToReturn = new ArrayList<>(List.of(16383, 1));
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(databaseFacade.sqls.size(), 2);
+		assertEquals(databaseFacade.valuesList.get(0).size(), 32766);
+		assertEquals(databaseFacade.valuesList.get(1).size(), 2);
+		assertEquals(updateCounts.size(), 16384);
+	}
+}
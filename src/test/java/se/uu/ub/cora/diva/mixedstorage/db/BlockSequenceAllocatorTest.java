@@ -0,0 +1,195 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+public class BlockSequenceAllocatorTest {
+
+	private static final String ADDRESS_SEQUENCE = "address_sequence";
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private UnitOfWorkSpy unitOfWork;
+	private List<Runnable> refillTasks;
+	private BlockSequenceAllocator allocator;
+
+	@BeforeMethod
+	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		addRowsWithValues(1L, 2L, 3L);
+		unitOfWork = new UnitOfWorkSpy();
+		unitOfWork.databaseFacade.rowsToReturn = sqlDatabaseFactory.rowsToReturnFromDatabaseFacade;
+		refillTasks = new ArrayList<>();
+		allocator = BlockSequenceAllocator.usingSqlDatabaseFactoryBlockSizeAndExecutor(
+				sqlDatabaseFactory, 3, refillTasks::add);
+	}
+
+	private void addRowsWithValues(Long... values) {
+		for (Long value : values) {
+			RowSpy row = new RowSpy();
+			row.addColumnWithValue("nextval", value);
+			sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.add(row);
+		}
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(allocator.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(allocator.getBlockSize(), 3);
+	}
+
+	@Test
+	public void testDefaultRefillExecutor() {
+		BlockSequenceAllocator defaultAllocator = BlockSequenceAllocator
+				.usingSqlDatabaseFactoryAndBlockSize(sqlDatabaseFactory, 20);
+
+		assertNotNull(defaultAllocator.getRefillExecutor());
+		assertEquals(defaultAllocator.getBlockSize(), 20);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "BlockSize must be larger than 0, was: 0")
+	public void testBlockSizeMustBePositive() {
+		BlockSequenceAllocator.usingSqlDatabaseFactoryAndBlockSize(sqlDatabaseFactory, 0);
+	}
+
+	@Test
+	public void testFirstValueReadsBlockUsingUnitOfWork() {
+		long value = allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+
+		assertEquals(value, 1L);
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacades.isEmpty());
+		DatabaseFacadeSpy databaseFacade = unitOfWork.databaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0), "select nextval(cast(? as regclass)) as "
+				+ "nextval from generate_series(1, ?)");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(ADDRESS_SEQUENCE, 3));
+		assertFalse(databaseFacade.closeWasCalled);
+		assertTrue(refillTasks.isEmpty());
+	}
+
+	@Test
+	public void testFollowingValuesAreTakenFromMemory() {
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 1L);
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 2L);
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 3L);
+
+		assertEquals(unitOfWork.databaseFacade.readSqls.size(), 1);
+	}
+
+	@Test
+	public void testRefillIsStartedOnceWhenHalfBlockIsLeft() {
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		assertTrue(refillTasks.isEmpty());
+
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		assertEquals(refillTasks.size(), 1);
+
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		assertEquals(refillTasks.size(), 1);
+		assertEquals(unitOfWork.databaseFacade.readSqls.size(), 1);
+	}
+
+	@Test
+	public void testRefillAddsBlockToMemory() {
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.clear();
+		addRowsWithValues(4L, 5L, 6L);
+
+		refillTasks.get(0).run();
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacade.closeWasCalled);
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 3L);
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 4L);
+		assertEquals(allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE), 5L);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		assertEquals(refillTasks.size(), 2);
+	}
+
+	@Test
+	public void testEmptyMemoryReadsBlockWhileRefillIsInProgress() {
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+
+		long value = allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+
+		assertEquals(value, 1L);
+		assertEquals(unitOfWork.databaseFacade.readSqls.size(), 2);
+		assertEquals(refillTasks.size(), 1);
+	}
+
+	@Test
+	public void testSequencesAreKeptApart() {
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		allocator.nextValueFromSequence(unitOfWork, "name_sequence");
+
+		assertEquals(unitOfWork.databaseFacade.readSqls.size(), 2);
+		assertEquals(unitOfWork.databaseFacade.readValuesList.get(1),
+				List.of("name_sequence", 3));
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "No values read from sequence: address_sequence")
+	public void testNoValuesReadFromSequence() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.clear();
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+	}
+
+	@Test
+	public void testRejectedRefillIsStartedAgainLater() {
+		List<Runnable> acceptedTasks = new ArrayList<>();
+		Executor rejectingOnceExecutor = task -> {
+			if (acceptedTasks.isEmpty() && refillTasks.isEmpty()) {
+				refillTasks.add(task);
+				throw new RejectedExecutionException();
+			}
+			acceptedTasks.add(task);
+		};
+		allocator = BlockSequenceAllocator.usingSqlDatabaseFactoryBlockSizeAndExecutor(
+				sqlDatabaseFactory, 3, rejectingOnceExecutor);
+
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+		assertTrue(acceptedTasks.isEmpty());
+		allocator.nextValueFromSequence(unitOfWork, ADDRESS_SEQUENCE);
+
+		assertEquals(acceptedTasks.size(), 1);
+		assertFalse(refillTasks.isEmpty());
+	}
+}
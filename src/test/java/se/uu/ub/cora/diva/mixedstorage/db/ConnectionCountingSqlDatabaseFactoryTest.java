@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+public class ConnectionCountingSqlDatabaseFactoryTest {
+
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private ConnectionCountingSqlDatabaseFactory countingFactory;
+
+	@BeforeMethod
+	public void setUp() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		countingFactory = ConnectionCountingSqlDatabaseFactory
+				.usingSqlDatabaseFactory(sqlDatabaseFactory);
+	}
+
+	@Test
+	public void testInit() throws Exception {
+		assertSame(countingFactory.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(countingFactory.getNumberOfConnections(), 0);
+	}
+
+	@Test
+	public void testFactorDatabaseFacadeIsCounted() throws Exception {
+		DatabaseFacade databaseFacade = countingFactory.factorDatabaseFacade();
+
+		assertSame(databaseFacade, sqlDatabaseFactory.factoredDatabaseFacade);
+		assertEquals(countingFactory.getNumberOfConnections(), 1);
+	}
+
+	@Test
+	public void testFactorTableFacadeIsCounted() throws Exception {
+		TableFacade tableFacade = countingFactory.factorTableFacade();
+
+		assertSame(tableFacade, sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(countingFactory.getNumberOfConnections(), 1);
+	}
+
+	@Test
+	public void testFactorTableQueryIsNotCounted() throws Exception {
+		TableQuery tableQuery = countingFactory.factorTableQuery("organisation");
+
+		assertSame(tableQuery, sqlDatabaseFactory.factoredTableQuery);
+		assertEquals(sqlDatabaseFactory.tableName, "organisation");
+		assertEquals(countingFactory.getNumberOfConnections(), 0);
+	}
+
+	@Test
+	public void testAllConnectionsAreCounted() throws Exception {
+		countingFactory.factorDatabaseFacade();
+		countingFactory.factorTableFacade();
+		countingFactory.factorDatabaseFacade();
+
+		assertEquals(countingFactory.getNumberOfConnections(), 3);
+	}
+}
@@ -18,15 +18,19 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.time.Duration;
+
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAlternativeNameDataToDbTranslater;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationDataToDbTranslater;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationTypeIndex;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
 
 public class DataToDbTranslaterFactoryTest {
@@ -56,7 +60,19 @@ public class DataToDbTranslaterFactoryTest {
 		OrganisationDataToDbTranslater translater = (OrganisationDataToDbTranslater) factory
 				.factorForTableName("organisation");
 		assertTrue(translater instanceof OrganisationDataToDbTranslater);
-		assertSame(translater.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertSame(translater.getOrganisationTypeIndex(), factory.getOrganisationTypeIndex());
+	}
+
+	@Test
+	public void testOrganisationTranslatersShareTypeIndex() {
+		OrganisationDataToDbTranslater translater = (OrganisationDataToDbTranslater) factory
+				.factorForTableName("organisation");
+		OrganisationDataToDbTranslater translater2 = (OrganisationDataToDbTranslater) factory
+				.factorForTableName("organisation");
+		assertSame(translater.getOrganisationTypeIndex(), translater2.getOrganisationTypeIndex());
+		OrganisationTypeIndex typeIndex = factory.getOrganisationTypeIndex();
+		assertSame(typeIndex.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(typeIndex.getMaxAge(), Duration.ofHours(1));
 	}
 
 	@Test
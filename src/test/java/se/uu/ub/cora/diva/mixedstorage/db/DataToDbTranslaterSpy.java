@@ -26,11 +26,14 @@ import se.uu.ub.cora.data.DataGroup;
 public class DataToDbTranslaterSpy implements DataToDbTranslater {
 
 	public DataGroup dataGroup;
+	public UnitOfWork unitOfWork;
 	public Map<String, Object> conditions;
 	public Map<String, Object> values;
+	public Map<String, Object> valuesToReturn;
 
 	@Override
-	public void translate(DataGroup dataGroup) {
+	public void translate(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		this.unitOfWork = unitOfWork;
 		this.dataGroup = dataGroup;
 		DataGroup recordInfo = dataGroup.getFirstGroupWithNameInData("recordInfo");
 		String organistaionId = recordInfo.getFirstAtomicValueWithNameInData("id");
@@ -39,7 +42,11 @@ public class DataToDbTranslaterSpy implements DataToDbTranslater {
 		conditions.put("organisation_id", Integer.parseInt(organistaionId));
 		conditions.put("someConditionKeyFromSpy", "someConditionValueFromSpy");
 		values = new HashMap<>();
-		values.put("someValuesKeyFromSpy", "someValuesValueFromSpy");
+		if (valuesToReturn != null) {
+			values.putAll(valuesToReturn);
+		} else {
+			values.put("someValuesKeyFromSpy", "someValuesValueFromSpy");
+		}
 
 	}
 
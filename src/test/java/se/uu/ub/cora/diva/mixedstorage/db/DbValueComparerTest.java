@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.sqldatabase.DatabaseValues;
+
+public class DbValueComparerTest {
+
+	@Test
+	public void testPrivateConstructor() throws Exception {
+		Constructor<DbValueComparer> constructor = DbValueComparer.class.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+	}
+
+	@Test(expectedExceptions = InvocationTargetException.class)
+	public void testPrivateConstructorInvoke() throws Exception {
+		Constructor<DbValueComparer> constructor = DbValueComparer.class.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	@Test
+	public void testEmptyValues() {
+		assertTrue(DbValueComparer.valuesAreEqual(null, null));
+		assertTrue(DbValueComparer.valuesAreEqual(null, DatabaseValues.NULL));
+		assertTrue(DbValueComparer.valuesAreEqual(null, ""));
+		assertTrue(DbValueComparer.valuesAreEqual(" ", DatabaseValues.NULL));
+		assertFalse(DbValueComparer.valuesAreEqual(null, "someValue"));
+		assertFalse(DbValueComparer.valuesAreEqual("someValue", DatabaseValues.NULL));
+	}
+
+	@Test
+	public void testStrings() {
+		assertTrue(DbValueComparer.valuesAreEqual("someValue", "someValue"));
+		assertFalse(DbValueComparer.valuesAreEqual("someValue", "someOtherValue"));
+	}
+
+	@Test
+	public void testNumbers() {
+		assertTrue(DbValueComparer.valuesAreEqual(52, 52L));
+		assertTrue(DbValueComparer.valuesAreEqual(52, new BigDecimal("52.0")));
+		assertFalse(DbValueComparer.valuesAreEqual(52, 53));
+	}
+
+	@Test
+	public void testBooleans() {
+		assertTrue(DbValueComparer.valuesAreEqual(true, true));
+		assertFalse(DbValueComparer.valuesAreEqual(true, false));
+	}
+
+	@Test
+	public void testDates() {
+		assertTrue(DbValueComparer.valuesAreEqual(Date.valueOf("2021-03-04"),
+				Date.valueOf("2021-03-04")));
+		assertTrue(DbValueComparer.valuesAreEqual(Date.valueOf("2021-03-04"),
+				LocalDate.of(2021, 3, 4)));
+		assertFalse(DbValueComparer.valuesAreEqual(Date.valueOf("2021-03-04"),
+				LocalDate.of(2021, 3, 5)));
+	}
+}
@@ -29,6 +29,7 @@ public class DivaDbFactorySpy implements DivaDbFactory {
 		usedTypes.add(type);
 		factoredMultiple = new MultipleRowDbToDataReaderSpy();
 		factoredMultiple.returnEmptyResult = returnEmptyResult;
+		factoredMultiple.typeToReturn = type;
 		listOfFactoredMultiples.add(factoredMultiple);
 		return factoredMultiple;
 	}
@@ -21,19 +21,37 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.data.DataAtomicProvider;
 import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.cache.BoundedCache;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.ClockSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DataRecordLinkFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationExistenceChecker;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationHierarchyIndex;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableFacadeSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableQuerySpy;
@@ -48,29 +66,42 @@ public class DivaDbRecordStorageTest {
 	private DivaDbFactorySpy divaDbFactorySpy;
 	private DivaDbUpdaterFactorySpy divaDbUpdaterFactorySpy;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private ConnectionCountingSqlDatabaseFactory updateSqlDatabaseFactory;
+	private ClockSpy clock;
 
 	@BeforeMethod
 	public void BeforeMethod() {
 		converterFactorySpy = new DivaDbToCoraConverterFactorySpy();
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
-		sqlDatabaseFactory.createAndAddRowToReturn("id", 123);
+		sqlDatabaseFactory.createAndAddRowToReturn("id", 123)
+				.addColumnWithValue("total_number_of_matches", 3L);
 		sqlDatabaseFactory.createAndAddRowToReturn("id", 456);
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = sqlDatabaseFactory.rowsToReturn;
 
 		divaDbFactorySpy = new DivaDbFactorySpy();
 		divaDbUpdaterFactorySpy = new DivaDbUpdaterFactorySpy();
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+		DataRecordLinkProvider.setDataRecordLinkFactory(new DataRecordLinkFactorySpy());
+		updateSqlDatabaseFactory = ConnectionCountingSqlDatabaseFactory
+				.usingSqlDatabaseFactory(sqlDatabaseFactory);
+		clock = new ClockSpy();
 		divaRecordStorage = DivaDbRecordStorage
-				.usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory(sqlDatabaseFactory,
-						divaDbFactorySpy, divaDbUpdaterFactorySpy, converterFactorySpy);
+				.usingRecordReaderFactoryDivaFactoryUpdaterFactoryAndClock(sqlDatabaseFactory,
+						updateSqlDatabaseFactory, divaDbFactorySpy, divaDbUpdaterFactorySpy,
+						converterFactorySpy, clock);
 	}
 
 	@Test
 	public void testInit() throws Exception {
 		divaRecordStorage = DivaDbRecordStorage
 				.usingRecordReaderFactoryDivaFactoryAndDivaDbUpdaterFactory(sqlDatabaseFactory,
-						divaDbFactorySpy, divaDbUpdaterFactorySpy, converterFactorySpy);
+						updateSqlDatabaseFactory, divaDbFactorySpy, divaDbUpdaterFactorySpy,
+						converterFactorySpy);
 
 		assertNotNull(divaRecordStorage);
 		assertSame(divaRecordStorage.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertSame(divaRecordStorage.getUpdateSqlDatabaseFactory(), updateSqlDatabaseFactory);
 	}
 
 	@Test
@@ -117,6 +148,116 @@ public class DivaDbRecordStorageTest {
 		assertEquals(factored.id, "53");
 	}
 
+	@Test
+	public void testReadOrganisationSecondReadIsAnsweredFromCache() throws Exception {
+		DataGroup firstRead = divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		DataGroup secondRead = divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 1);
+		assertNotSame(secondRead, firstRead);
+		assertEquals(secondRead.getNameInData(), firstRead.getNameInData());
+
+		BoundedCache<String, DataGroup> cache = divaRecordStorage.getOrganisationCache();
+		assertEquals(cache.getMissCount(), 1);
+		assertEquals(cache.getHitCount(), 1);
+	}
+
+	@Test
+	public void testOrganisationCacheHasMaxAge() throws Exception {
+		assertEquals(divaRecordStorage.getOrganisationCache().getMaxAge(), Duration.ofMinutes(5));
+	}
+
+	@Test
+	public void testReadOrganisationIsAnsweredFromCacheWithinMaxAge() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		clock.advance(Duration.ofMinutes(5));
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 1);
+	}
+
+	@Test
+	public void testReadOrganisationIsReadFromDbAfterMaxAge() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		clock.advance(Duration.ofMinutes(5).plusMillis(1));
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 2);
+		BoundedCache<String, DataGroup> cache = divaRecordStorage.getOrganisationCache();
+		assertEquals(cache.getExpirationCount(), 1);
+		assertEquals(cache.getMissCount(), 2);
+	}
+
+	@Test
+	public void testReadOrganisationFromCacheReturnsNewCopyEachTime() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		DataGroup secondRead = divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		secondRead.addChild(new DataAtomicSpy("addedByCaller", "someValue"));
+		DataGroup thirdRead = divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+
+		assertNotSame(thirdRead, secondRead);
+		assertFalse(thirdRead.containsChildWithNameInData("addedByCaller"));
+	}
+
+	@Test
+	public void testReadOrganisationCacheIsPerTypeAndId() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		divaRecordStorage.read("topOrganisation", "someId");
+		divaRecordStorage.read(ORGANISATION_TYPE, "someOtherId");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 3);
+		assertEquals(divaRecordStorage.getOrganisationCache().size(), 3);
+	}
+
+	@Test
+	public void testReadUserIsNotCached() throws Exception {
+		divaRecordStorage.read("user", "53");
+		divaRecordStorage.read("user", "53");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 2);
+		assertEquals(divaRecordStorage.getOrganisationCache().size(), 0);
+	}
+
+	@Test
+	public void testOrganisationHierarchyIndex() throws Exception {
+		OrganisationHierarchyIndex index = divaRecordStorage.getOrganisationHierarchyIndex();
+		assertSame(index.getSqlDatabaseFactory(), sqlDatabaseFactory);
+	}
+
+	@Test
+	public void testUpdateOrganisationUpdatesOrganisationHierarchyIndex() throws Exception {
+		sqlDatabaseFactory.rowsToReturn = new ArrayList<>();
+		OrganisationHierarchyIndex index = divaRecordStorage.getOrganisationHierarchyIndex();
+		index.refresh();
+
+		DataGroupSpy organisation = new DataGroupSpy("organisation");
+		DataGroupSpy recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", "56"));
+		organisation.addChild(recordInfo);
+		DataGroupSpy parent = new DataGroupSpy("parentOrganisation");
+		DataGroupSpy organisationLink = new DataGroupSpy("organisationLink");
+		organisationLink.addChild(new DataAtomicSpy("linkedRecordId", "7"));
+		parent.addChild(organisationLink);
+		organisation.addChild(parent);
+
+		divaRecordStorage.update("subOrganisation", "56", organisation, null, null, "");
+
+		assertEquals(index.getHierarchy().getParents(56), Set.of(7));
+	}
+
+	@Test
+	public void testUpdateInvalidatesOrganisationCache() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "56");
+		divaRecordStorage.read("subOrganisation", "57");
+
+		divaRecordStorage.update(ORGANISATION_TYPE, "56", new DataGroupSpy("organisation"), null,
+				null, "");
+		divaRecordStorage.read(ORGANISATION_TYPE, "56");
+
+		assertEquals(divaDbFactorySpy.factoredList.size(), 3);
+		assertEquals(divaRecordStorage.getOrganisationCache().size(), 1);
+	}
+
 	@Test
 	public void testUserFromDivaDbToCoraIsReturnedFromRead() throws Exception {
 		DataGroup readOrganisation = divaRecordStorage.read("user", "53");
@@ -175,22 +316,54 @@ public class DivaDbRecordStorageTest {
 		DivaDbUpdaterSpy recordStorageForOneTypeSpy = (DivaDbUpdaterSpy) divaDbUpdaterFactorySpy.divaDbUpdaterList
 				.get(0);
 		assertEquals(recordStorageForOneTypeSpy.dataGroup, organisation);
-		assertSame(recordStorageForOneTypeSpy.tableFacade, sqlDatabaseFactory.factoredTableFacade);
-		assertSame(recordStorageForOneTypeSpy.databaseFacade,
-				sqlDatabaseFactory.factoredDatabaseFacade);
+		UnitOfWork unitOfWork = recordStorageForOneTypeSpy.unitOfWork;
+		assertTrue(unitOfWork instanceof UnitOfWorkImp);
+		assertSame(unitOfWork.getDatabaseFacade(), sqlDatabaseFactory.factoredDatabaseFacade);
 	}
 
 	@Test
-	public void testUpdateClosesTableFacade() throws Exception {
+	public void testUpdateClosesDatabaseFacade() throws Exception {
 		DataGroup organisation = new DataGroupSpy("someType");
 		organisation.addChild(new DataAtomicSpy("organisationName", "someChangedName"));
 
 		divaRecordStorage.update("someType", "56", organisation, null, null, "");
 
-		assertTrue(sqlDatabaseFactory.factoredTableFacade.closeWasCalled);
 		assertTrue(sqlDatabaseFactory.factoredDatabaseFacade.closeWasCalled);
 	}
 
+	@Test
+	public void testUpdateUsesOneConnection() throws Exception {
+		assertEquals(divaRecordStorage.getNumberOfUpdates(), 0);
+		assertEquals(divaRecordStorage.getNumberOfConnectionsUsedByUpdates(), 0);
+
+		divaRecordStorage.update("someType", "56", new DataGroupSpy("someType"), null, null, "");
+		divaRecordStorage.update("someType", "57", new DataGroupSpy("someType"), null, null, "");
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(divaRecordStorage.getNumberOfUpdates(), 2);
+		assertEquals(divaRecordStorage.getNumberOfConnectionsUsedByUpdates(), 2);
+	}
+
+	@Test
+	public void testConnectionsOpenedByUpdaterAreCounted() throws Exception {
+		divaDbUpdaterFactorySpy.extraConnectionFactory = updateSqlDatabaseFactory;
+
+		divaRecordStorage.update("someType", "56", new DataGroupSpy("someType"), null, null, "");
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+		assertEquals(divaRecordStorage.getNumberOfUpdates(), 1);
+		assertEquals(divaRecordStorage.getNumberOfConnectionsUsedByUpdates(), 2);
+	}
+
+	@Test
+	public void testReadsAreNotCountedAsConnectionsUsedByUpdates() throws Exception {
+		divaRecordStorage.read(ORGANISATION_TYPE, "someId");
+		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
+
+		assertEquals(divaRecordStorage.getNumberOfConnectionsUsedByUpdates(), 0);
+	}
+
 	@Test(expectedExceptions = NotImplementedException.class, expectedExceptionsMessageRegExp = ""
 			+ "readList is not implemented for type: null")
 	public void readListThrowsNotImplementedException() throws Exception {
@@ -200,39 +373,43 @@ public class DivaDbRecordStorageTest {
 	@Test
 	public void testReadOrganisationListFactorDbReader() throws Exception {
 		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertNotNull(tableFacade);
-		assertTrue(tableFacade.closeWasCalled);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertTrue(databaseFacade.closeWasCalled);
+		assertTrue(sqlDatabaseFactory.factoredTableQueries.isEmpty());
 	}
 
 	@Test
 	public void testReadOrganisationListTableRequestedFromReader() throws Exception {
 		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "organisationview");
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertSame(tableFacade.tableQueries.get(0), tableQuery);
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", "", List.of());
+	}
+
+	private void assertListReadFromViewUsingSqlEndingAndValues(String viewName, String sqlEnding,
+			List<Object> values) {
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select *, count(*) over() as total_number_of_matches from " + viewName
+						+ " order by id" + sqlEnding);
+		assertEquals(databaseFacade.readValuesList.get(0), values);
 	}
 
 	@Test
 	public void testReadRootOrganisationListTableRequestedFromReader() throws Exception {
 		divaRecordStorage.readList("rootOrganisation", new DataGroupSpy("filter"));
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "rootorganisationview");
+		assertListReadFromViewUsingSqlEndingAndValues("rootorganisationview", "", List.of());
 	}
 
 	@Test
 	public void testReadTopOrganisationListTableRequestedFromReader() throws Exception {
 		divaRecordStorage.readList("topOrganisation", new DataGroupSpy("filter"));
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "toporganisationview");
+		assertListReadFromViewUsingSqlEndingAndValues("toporganisationview", "", List.of());
 	}
 
 	@Test
 	public void testReadSubOrganisationListTableRequestedFromReader() throws Exception {
 		divaRecordStorage.readList("subOrganisation", new DataGroupSpy("filter"));
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "suborganisationview");
+		assertListReadFromViewUsingSqlEndingAndValues("suborganisationview", "", List.of());
 	}
 
 	@Test
@@ -242,12 +419,32 @@ public class DivaDbRecordStorageTest {
 		filter.addChild(new DataAtomicSpy("toNo", "19"));
 
 		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "organisationview");
 
-		assertEquals(tableQuery.ascOrdersBy.get(0), "id");
-		assertEquals(tableQuery.fromNumbers.get(0), Long.valueOf(10));
-		assertEquals(tableQuery.toNumbers.get(0), Long.valueOf(19));
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", " offset ? limit ?",
+				List.of(9L, 10L));
+	}
+
+	@Test
+	public void testReadOrganisationListWithFilterWithFromOneAndTo() throws Exception {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("fromNo", "1"));
+		filter.addChild(new DataAtomicSpy("toNo", "4"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", " limit ?",
+				List.of(4L));
+	}
+
+	@Test
+	public void testReadOrganisationListWithFilterWithOnlyFrom() throws Exception {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("fromNo", "5"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", " offset ?",
+				List.of(4L));
 	}
 
 	@Test
@@ -256,12 +453,253 @@ public class DivaDbRecordStorageTest {
 
 		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
 
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		assertEquals(tableQuery.tableName, "organisationview");
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", "", List.of());
+	}
 
-		assertEquals(tableQuery.ascOrdersBy.get(0), "id");
-		assertEquals(tableQuery.fromNumbers.size(), 0);
-		assertEquals(tableQuery.toNumbers.size(), 0);
+	@Test
+	public void testReadOrganisationListSetsTotalNumberOfMatchesFromWindowCount() {
+		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+
+		assertEquals(readList.totalNumberOfMatches, 3);
+	}
+
+	@Test
+	public void testTotalNumberOfRecordsAfterReadListIsTakenFromCountCache() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		divaRecordStorage.readList("topOrganisation", new DataGroupSpy("filter"));
+
+		long totalNumberOfRecords = divaRecordStorage
+				.getTotalNumberOfRecordsForType("topOrganisation", new DataGroupSpy("filter"));
+
+		assertEquals(totalNumberOfRecords, 3);
+		assertTrue(sqlDatabaseFactory.factoredTableQueries.isEmpty());
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(divaRecordStorage.getCountCache().getHitCount(), 1);
+	}
+
+	@Test
+	public void testTotalNumberOfRecordsFromReadListIsOnlyCachedForTheReadView() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		divaRecordStorage.readList("topOrganisation", new DataGroupSpy("filter"));
+
+		long totalNumberOfRecords = divaRecordStorage
+				.getTotalNumberOfRecordsForType("subOrganisation", new DataGroupSpy("filter"));
+
+		assertEquals(totalNumberOfRecords, 17);
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.get(0).tableName,
+				"suborganisationview");
+	}
+
+	@Test
+	public void testTotalNumberOfRecordsFromReadListIsNotUsedAfterUpdate() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
+		divaRecordStorage.update(ORGANISATION_TYPE, "56", new DataGroupSpy("organisation"), null,
+				null, "");
+
+		long totalNumberOfRecords = divaRecordStorage
+				.getTotalNumberOfRecordsForType(ORGANISATION_TYPE, new DataGroupSpy("filter"));
+
+		assertEquals(totalNumberOfRecords, 17);
+	}
+
+	@Test
+	public void testReadOrganisationListNoRowsWithoutOffsetHasZeroMatches() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = new ArrayList<>();
+		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+
+		assertEquals(readList.totalNumberOfMatches, 0);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(divaRecordStorage.getCountCache().get("organisationview"),
+				Long.valueOf(0));
+	}
+
+	@Test
+	public void testReadOrganisationListNoRowsAfterOffsetTotalIsReadFromDb() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = new ArrayList<>();
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("fromNo", "100"));
+
+		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		assertEquals(readList.totalNumberOfMatches, 17);
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.get(0).tableName,
+				"organisationview");
+		assertTrue(sqlDatabaseFactory.factoredTableFacade.closeWasCalled);
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.get(0).fromNumbers.size(), 0);
+	}
+
+	@Test
+	public void testReadOrganisationListNoRowsAfterOffsetTotalIsCached() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = new ArrayList<>();
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("fromNo", "100"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.size(), 1);
+		assertEquals(divaRecordStorage.getCountCache().getHitCount(), 1);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdUsesKeysetPaging() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "456"));
+		filter.addChild(new DataAtomicSpy("fromNo", "11"));
+		filter.addChild(new DataAtomicSpy("toNo", "20"));
+
+		divaRecordStorage.readList("topOrganisation", filter);
+
+		assertTrue(sqlDatabaseFactory.factoredTableQueries.isEmpty());
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from toporganisationview where id > ? order by id limit ?");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(456L, 10L));
+		assertTrue(databaseFacade.closeWasCalled);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdAndNoToNoReadsAllAfterId() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "0"));
+		KeysetStorageReadResult readResult = (KeysetStorageReadResult) divaRecordStorage
+				.readList(ORGANISATION_TYPE, filter);
+
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from organisationview where id > ? order by id");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(0L));
+		assertEquals(readResult.listOfDataGroups.size(), 2);
+		assertNull(readResult.continuationToken);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdToNoWithoutFromNoStartsAtOne() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "0"));
+		filter.addChild(new DataAtomicSpy("toNo", "5"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(0L, 5L));
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdFullPageReturnsContinuationToken() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "100"));
+		filter.addChild(new DataAtomicSpy("toNo", "2"));
+		KeysetStorageReadResult readResult = (KeysetStorageReadResult) divaRecordStorage
+				.readList(ORGANISATION_TYPE, filter);
+
+		assertEquals(readResult.continuationToken, "456");
+		List<DataGroup> organisations = readResult.listOfDataGroups;
+		assertSame(organisations.get(0),
+				converterFactorySpy.factoredConverters.get(0).convertedDataGroups.get(0));
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(1), "456");
+		assertSame(divaDbFactorySpy.listOfFactoredMultiples.get(0).databaseFacade,
+				sqlDatabaseFactory.factoredDatabaseFacade);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdNotFullPageHasNoContinuationToken() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "100"));
+		filter.addChild(new DataAtomicSpy("toNo", "3"));
+		KeysetStorageReadResult readResult = (KeysetStorageReadResult) divaRecordStorage
+				.readList(ORGANISATION_TYPE, filter);
+
+		assertEquals(readResult.listOfDataGroups.size(), 2);
+		assertNull(readResult.continuationToken);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdNoRowsNoParentsOrPredecessorsAreRead() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = new ArrayList<>();
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "100"));
+		filter.addChild(new DataAtomicSpy("toNo", "3"));
+
+		KeysetStorageReadResult readResult = (KeysetStorageReadResult) divaRecordStorage
+				.readList(ORGANISATION_TYPE, filter);
+
+		assertTrue(readResult.listOfDataGroups.isEmpty());
+		assertNull(readResult.continuationToken);
+		assertTrue(divaDbFactorySpy.listOfFactoredMultiples.isEmpty());
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "Can not convert afterId to integer, value: notAnInteger")
+	public void testReadOrganisationListWithAfterIdNotAnInteger() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "notAnInteger"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdNotAnIntegerDoesNotReadFromDb() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "notAnInteger"));
+		try {
+			divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+			fail("DbException should have been thrown");
+		} catch (DbException e) {
+			assertTrue(e.getCause() instanceof NumberFormatException);
+		}
+
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacades.isEmpty());
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "toNo can not be smaller than fromNo, fromNo: 10 toNo: 9")
+	public void testReadOrganisationListWithAfterIdToNoSmallerThanFromNo() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "100"));
+		filter.addChild(new DataAtomicSpy("fromNo", "10"));
+		filter.addChild(new DataAtomicSpy("toNo", "9"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "toNo can not be smaller than fromNo, fromNo: 10 toNo: 9")
+	public void testReadOrganisationListToNoSmallerThanFromNo() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("fromNo", "10"));
+		filter.addChild(new DataAtomicSpy("toNo", "9"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+	}
+
+	@Test
+	public void testReadOrganisationListWithAfterIdToNoEqualToFromNoReadsOne() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "100"));
+		filter.addChild(new DataAtomicSpy("fromNo", "10"));
+		filter.addChild(new DataAtomicSpy("toNo", "10"));
+
+		divaRecordStorage.readList(ORGANISATION_TYPE, filter);
+
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(100L, 1L));
+	}
+
+	@Test
+	public void testReadAbstractOrganisationListWithAfterIdUsesKeysetPaging() {
+		DataGroupSpy filter = new DataGroupSpy("filter");
+		filter.addChild(new DataAtomicSpy("afterId", "7"));
+
+		divaRecordStorage.readAbstractList(ORGANISATION_TYPE, filter);
+
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from organisationview where id > ? order by id");
 	}
 
 	@Test
@@ -276,14 +714,10 @@ public class DivaDbRecordStorageTest {
 
 		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
 
-		assertEquals(divaDbFactorySpy.listOfFactoredMultiples.size(), 6);
-		assertEquals(divaDbFactorySpy.usedTypes.size(), 6);
+		assertEquals(divaDbFactorySpy.listOfFactoredMultiples.size(), 2);
+		assertEquals(divaDbFactorySpy.usedTypes.size(), 2);
 		assertEquals(divaDbFactorySpy.usedTypes.get(0), "divaOrganisationParent");
-		assertEquals(divaDbFactorySpy.usedTypes.get(2), "divaOrganisationParent");
-		assertEquals(divaDbFactorySpy.usedTypes.get(4), "divaOrganisationParent");
 		assertEquals(divaDbFactorySpy.usedTypes.get(1), "divaOrganisationPredecessor");
-		assertEquals(divaDbFactorySpy.usedTypes.get(3), "divaOrganisationPredecessor");
-		assertEquals(divaDbFactorySpy.usedTypes.get(5), "divaOrganisationPredecessor");
 	}
 
 	@Test
@@ -291,29 +725,27 @@ public class DivaDbRecordStorageTest {
 		sqlDatabaseFactory.createAndAddRowToReturn("id", 543);
 		divaRecordStorage.readList(ORGANISATION_TYPE, new DataGroupSpy("filter"));
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-
-		List<Row> readRows = tableFacade.rowsToReturn;
+		List<String> expectedIds = List.of("123", "456", "543");
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
 
 		List<MultipleRowDbToDataReaderSpy> multipleReaders = divaDbFactorySpy.listOfFactoredMultiples;
-		assertEquals(multipleReaders.get(0).usedId,
-				String.valueOf(readRows.get(0).getValueByColumn("id")));
-		assertSame(multipleReaders.get(0).tableFacade, sqlDatabaseFactory.factoredTableFacade);
-
-		assertEquals(multipleReaders.get(1).usedId,
-				String.valueOf(readRows.get(0).getValueByColumn("id")));
-		assertSame(multipleReaders.get(1).tableFacade, sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(multipleReaders.get(0).usedIds, expectedIds);
+		assertSame(multipleReaders.get(0).databaseFacade, databaseFacade);
 
-		assertEquals(multipleReaders.get(2).usedId,
-				String.valueOf(readRows.get(1).getValueByColumn("id")));
-		assertEquals(multipleReaders.get(3).usedId,
-				String.valueOf(readRows.get(1).getValueByColumn("id")));
+		assertEquals(multipleReaders.get(1).usedIds, expectedIds);
+		assertSame(multipleReaders.get(1).databaseFacade, databaseFacade);
+		assertTrue(databaseFacade.closeWasCalled);
+	}
 
-		assertEquals(multipleReaders.get(4).usedId,
-				String.valueOf(readRows.get(2).getValueByColumn("id")));
-		assertEquals(multipleReaders.get(5).usedId,
-				String.valueOf(readRows.get(2).getValueByColumn("id")));
+	@Test
+	public void testReadOrganisationListNoRowsReadNoParentsOrPredecessorsAreRead() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade = new ArrayList<>();
+		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
 
+		assertTrue(readList.listOfDataGroups.isEmpty());
+		assertTrue(divaDbFactorySpy.listOfFactoredMultiples.isEmpty());
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
 	}
 
 	@Test
@@ -322,55 +754,107 @@ public class DivaDbRecordStorageTest {
 		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE,
 				new DataGroupSpy("filter"));
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
+		List<Row> rows = sqlDatabaseFactory.rowsToReturn;
 
 		List<DataGroup> organisations = readList.listOfDataGroups;
 
-		assertReadRecordIsSentToConverterUsingIndex(tableFacade, 0);
+		assertReadRecordIsSentToConverterUsingIndex(rows, 0);
 		assertConvertedRowIsAddedToResultUsingIndex(readList, 0);
-		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(0), 0, 1);
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(0), "123");
 
-		assertReadRecordIsSentToConverterUsingIndex(tableFacade, 1);
+		assertReadRecordIsSentToConverterUsingIndex(rows, 1);
 		assertConvertedRowIsAddedToResultUsingIndex(readList, 1);
-		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(1), 2, 3);
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(1), "456");
 
-		assertReadRecordIsSentToConverterUsingIndex(tableFacade, 2);
+		assertReadRecordIsSentToConverterUsingIndex(rows, 2);
 		assertConvertedRowIsAddedToResultUsingIndex(readList, 2);
-		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(2), 4, 5);
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(organisations.get(2), "543");
+		assertEquals(converterFactorySpy.factoredConverters.size(), 1);
 
 	}
 
 	private void assertCorrectParentsAndPredecessorsWereAddedToOrganisation(DataGroup organisation,
-			int parentReaderIndex, int predecessorReaderIndex) {
+			String id) {
 		List<DataGroup> parentsInOrganisation = organisation
 				.getAllGroupsWithNameInData("divaOrganisationParentChildFromSpy");
 		MultipleRowDbToDataReaderSpy parentMultipleReader = divaDbFactorySpy.listOfFactoredMultiples
-				.get(parentReaderIndex);
-		List<DataGroup> returnedList = parentMultipleReader.returnedList;
+				.get(0);
+		List<DataGroup> returnedList = parentMultipleReader.returnedMap.get(id);
 		assertSame(parentsInOrganisation.get(0), returnedList.get(0));
 		assertSame(parentsInOrganisation.get(1), returnedList.get(1));
 
 		List<DataGroup> predececssorsInOrganisation = organisation
 				.getAllGroupsWithNameInData("divaOrganisationPredecessorChildFromSpy");
 		MultipleRowDbToDataReaderSpy predecessorMultipleReader = divaDbFactorySpy.listOfFactoredMultiples
-				.get(predecessorReaderIndex);
-		List<DataGroup> returnedListPredecessors = predecessorMultipleReader.returnedList;
+				.get(1);
+		List<DataGroup> returnedListPredecessors = predecessorMultipleReader.returnedMap.get(id);
 		assertSame(predececssorsInOrganisation.get(0), returnedListPredecessors.get(0));
 		assertSame(predececssorsInOrganisation.get(1), returnedListPredecessors.get(1));
 	}
 
-	private void assertReadRecordIsSentToConverterUsingIndex(TableFacadeSpy tableFacade,
-			int index) {
-		Row readRow = tableFacade.rowsToReturn.get(index);
-		DivaDbToCoraConverterSpy factoredConverter = converterFactorySpy.factoredConverters
-				.get(index);
-		assertSame(readRow, factoredConverter.rowToConvert);
+	@Test
+	public void testReadOrganisationListNoParentsOrPredecessorsFound() {
+		divaDbFactorySpy.returnEmptyResult = true;
+		StorageReadResult readList = divaRecordStorage.readList(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+
+		DataGroup organisation = readList.listOfDataGroups.get(0);
+		assertTrue(organisation.getAllGroupsWithNameInData("divaOrganisationParentChildFromSpy")
+				.isEmpty());
+		assertTrue(organisation
+				.getAllGroupsWithNameInData("divaOrganisationPredecessorChildFromSpy").isEmpty());
+	}
+
+	@Test(expectedExceptions = NotImplementedException.class, expectedExceptionsMessageRegExp = ""
+			+ "readOrganisationListAsIterator is not implemented for type: user")
+	public void testReadOrganisationListAsIteratorNotImplementedForOtherTypes() {
+		divaRecordStorage.readOrganisationListAsIterator("user");
+	}
+
+	@Test
+	public void testReadOrganisationListAsIteratorUsesViewForType() {
+		OrganisationListIterator iterator = (OrganisationListIterator) divaRecordStorage
+				.readOrganisationListAsIterator("subOrganisation");
+
+		assertEquals(iterator.getViewName(), "suborganisationview");
+		assertEquals(iterator.getChunkSize(), 500);
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacades.isEmpty());
+	}
+
+	@Test
+	public void testReadOrganisationListAsIteratorConvertsAndAddsParentsAndPredecessors() {
+		List<Row> rows = new ArrayList<>(sqlDatabaseFactory.rowsToReturn);
+		sqlDatabaseFactory.rowChunksToReturnFromDatabaseFacades.add(rows);
+
+		Iterator<DataGroup> iterator = divaRecordStorage
+				.readOrganisationListAsIterator(ORGANISATION_TYPE);
+		DataGroup firstOrganisation = iterator.next();
+		DataGroup secondOrganisation = iterator.next();
+
+		assertFalse(iterator.hasNext());
+		DivaDbToCoraConverterSpy converter = converterFactorySpy.factoredConverters.get(0);
+		assertSame(converter.rowsToConvert.get(0), rows.get(0));
+		assertSame(firstOrganisation, converter.convertedDataGroups.get(0));
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(firstOrganisation, "123");
+		assertCorrectParentsAndPredecessorsWereAddedToOrganisation(secondOrganisation, "456");
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacades.get(0);
+		assertSame(divaDbFactorySpy.listOfFactoredMultiples.get(0).databaseFacade,
+				databaseFacade);
+		assertEquals(divaDbFactorySpy.listOfFactoredMultiples.get(0).usedIds,
+				List.of("123", "456"));
+	}
+
+	private void assertReadRecordIsSentToConverterUsingIndex(List<Row> rows, int index) {
+		Row readRow = rows.get(index);
+		DivaDbToCoraConverterSpy factoredConverter = converterFactorySpy.factoredConverters.get(0);
+		assertSame(readRow, factoredConverter.rowsToConvert.get(index));
 	}
 
 	private void assertConvertedRowIsAddedToResultUsingIndex(StorageReadResult readList,
 			int index) {
-		DivaDbToCoraConverterSpy converterSpy = converterFactorySpy.factoredConverters.get(index);
-		assertSame(converterSpy.convertedDbDataGroup, readList.listOfDataGroups.get(index));
+		DivaDbToCoraConverterSpy converterSpy = converterFactorySpy.factoredConverters.get(0);
+		assertSame(converterSpy.convertedDataGroups.get(index),
+				readList.listOfDataGroups.get(index));
 	}
 
 	@Test(expectedExceptions = NotImplementedException.class, expectedExceptionsMessageRegExp = ""
@@ -394,33 +878,34 @@ public class DivaDbRecordStorageTest {
 				new DataGroupSpy("filter"));
 
 		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
+		List<Row> rows = tableFacade.rowsToReturn;
 
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 0);
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 1);
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 2);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 0);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 1);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 2);
+		assertEquals(converterFactorySpy.factoredConverters.size(), 1);
 
 		assertTrue(tableFacade.closeWasCalled);
 
 	}
 
-	private void assertDataSentFromDbToConverterToResultUsingIndex(TableFacadeSpy tableFacade,
+	private void assertDataSentFromDbToConverterToResultUsingIndex(List<Row> returnedList,
 			StorageReadResult result, int index) {
-		List<Row> returnedList = tableFacade.rowsToReturn;
-		DivaDbToCoraConverterSpy converter = converterFactorySpy.factoredConverters.get(index);
+		DivaDbToCoraConverterSpy converter = converterFactorySpy.factoredConverters.get(0);
 
 		Row rowFromDb = returnedList.get(index);
-		Row rowSentToConverter = converter.rowToConvert;
+		Row rowSentToConverter = converter.rowsToConvert.get(index);
 		assertEquals(rowFromDb, rowSentToConverter);
 
 		DataGroup dataGroupInReturnedResult = result.listOfDataGroups.get(index);
-		DataGroup dataGroupReturnedFromConverter = converter.convertedDbDataGroup;
+		DataGroup dataGroupReturnedFromConverter = converter.convertedDataGroups.get(index);
 		assertSame(dataGroupInReturnedResult, dataGroupReturnedFromConverter);
 	}
 
 	@Test
 	public void testReadAbstractListForOrganisationFactorDbReader() throws Exception {
 		divaRecordStorage.readAbstractList("organisation", new DataGroupSpy("filter"));
-		assertEquals(sqlDatabaseFactory.tableNames.get(0), "organisationview");
+		assertListReadFromViewUsingSqlEndingAndValues("organisationview", "", List.of());
 	}
 
 	@Test
@@ -429,11 +914,11 @@ public class DivaDbRecordStorageTest {
 		StorageReadResult result = divaRecordStorage.readAbstractList("organisation",
 				new DataGroupSpy("filter"));
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
+		List<Row> rows = sqlDatabaseFactory.rowsToReturn;
 
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 0);
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 1);
-		assertDataSentFromDbToConverterToResultUsingIndex(tableFacade, result, 2);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 0);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 1);
+		assertDataSentFromDbToConverterToResultUsingIndex(rows, result, 2);
 
 	}
 
@@ -459,99 +944,70 @@ public class DivaDbRecordStorageTest {
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForOrganisationWhenExists() {
-		assertCorrectRecordExistsWhenExistsForOrganisationType("organisation", "organisationview");
+		assertCorrectRecordExistsForOrganisationType("organisation", "organisationview", true);
 	}
 
-	private void assertCorrectRecordExistsWhenExistsForOrganisationType(String type,
-			String tableName) {
+	private void assertCorrectRecordExistsForOrganisationType(String type, String viewName,
+			boolean existsInDb) {
+		setExistsToReturnFromDb(existsInDb);
+
 		boolean organisationExists = divaRecordStorage
 				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId(type, "26");
 
-		assertEquals(sqlDatabaseFactory.tableNames.get(0), tableName);
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableQuery.conditions.get("id"), 26);
-		assertSame(tableQuery, tableFacade.tableQueries.get(0));
-		assertTrue(organisationExists);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0), "select exists(select 1 from " + viewName
+				+ " where id = ?) as organisation_exists");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(26));
+		assertTrue(databaseFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertEquals(organisationExists, existsInDb);
+	}
 
-		assertTrue(tableFacade.closeWasCalled);
+	private void setExistsToReturnFromDb(boolean existsInDb) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_exists", existsInDb);
+		sqlDatabaseFactory.rowToReturnFromDatabaseFacade = row;
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForRootOrganisationWhenExists() {
-		assertCorrectRecordExistsWhenExistsForOrganisationType("rootOrganisation",
-				"rootorganisationview");
+		assertCorrectRecordExistsForOrganisationType("rootOrganisation", "rootorganisationview",
+				true);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForTopOrganisationWhenExists() {
-		assertCorrectRecordExistsWhenExistsForOrganisationType("topOrganisation",
-				"toporganisationview");
+		assertCorrectRecordExistsForOrganisationType("topOrganisation", "toporganisationview",
+				true);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForSubOrganisationWhenExists() {
-		assertCorrectRecordExistsWhenExistsForOrganisationType("subOrganisation",
-				"suborganisationview");
+		assertCorrectRecordExistsForOrganisationType("subOrganisation", "suborganisationview",
+				true);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForOrganisationWhenNotExist() {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("organisationview");
-
-		boolean organisationExists = divaRecordStorage
-				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("organisation", "600");
-
-		assertCorrectRecordExistsWhenNotExistsForOrganisationType("organisation",
-				"organisationview");
-		assertFalse(organisationExists);
-	}
-
-	private void assertCorrectRecordExistsWhenNotExistsForOrganisationType(String type,
-			String tableName) {
-		assertEquals(sqlDatabaseFactory.tableNames.get(0), tableName);
-		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableQuery.conditions.get("id"), 600);
-		assertSame(tableQuery, tableFacade.tableQueries.get(0));
+		assertCorrectRecordExistsForOrganisationType("organisation", "organisationview", false);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForRootOrganisationWhenNotExist() {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("rootorganisationview");
-
-		boolean organisationExists = divaRecordStorage
-				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("rootOrganisation",
-						"600");
-
-		assertCorrectRecordExistsWhenNotExistsForOrganisationType("rootOrganisation",
-				"rootorganisationview");
-		assertFalse(organisationExists);
+		assertCorrectRecordExistsForOrganisationType("rootOrganisation", "rootorganisationview",
+				false);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForTopOrganisationWhenNotExist() {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("toporganisationview");
-
-		boolean organisationExists = divaRecordStorage
-				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("topOrganisation",
-						"600");
-
-		assertCorrectRecordExistsWhenNotExistsForOrganisationType("topOrganisation",
-				"toporganisationview");
-		assertFalse(organisationExists);
+		assertCorrectRecordExistsForOrganisationType("topOrganisation", "toporganisationview",
+				false);
 	}
 
 	@Test
 	public void recordExistsForAbstractOrImplementingRecordTypeAndRecordIdForSubOrganisationWhenNotExist() {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("suborganisationview");
-
-		boolean organisationExists = divaRecordStorage
-				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("subOrganisation",
-						"600");
-		assertCorrectRecordExistsWhenNotExistsForOrganisationType("subOrganisation",
-				"suborganisationview");
-		assertFalse(organisationExists);
+		assertCorrectRecordExistsForOrganisationType("subOrganisation", "suborganisationview",
+				false);
 	}
 
 	@Test
@@ -561,6 +1017,45 @@ public class DivaDbRecordStorageTest {
 				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("organisation",
 						"notAnInt");
 		assertFalse(organisationExists);
+		assertNull(sqlDatabaseFactory.factoredDatabaseFacade);
+	}
+
+	@Test
+	public void testRecordExistsSecondCheckIsAnsweredFromCache() throws Exception {
+		setExistsToReturnFromDb(true);
+
+		divaRecordStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("organisation",
+				"26");
+		boolean organisationExists = divaRecordStorage
+				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("organisation", "26");
+
+		assertTrue(organisationExists);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+	}
+
+	@Test
+	public void testExistenceChecker() throws Exception {
+		OrganisationExistenceChecker checker = divaRecordStorage
+				.getOrganisationExistenceChecker();
+		assertSame(checker.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(checker.getExistingCache().getMaxSize(), 10000);
+		assertEquals(checker.getNonExistingCache().getMaxSize(), 10000);
+		assertEquals(checker.getExistingCache().getMaxAge(), Duration.ofMinutes(10));
+		assertEquals(checker.getNonExistingCache().getMaxAge(), Duration.ofSeconds(30));
+	}
+
+	@Test
+	public void testUpdateOrganisationInvalidatesExistenceChecker() throws Exception {
+		setExistsToReturnFromDb(true);
+		divaRecordStorage.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("organisation",
+				"26");
+
+		divaRecordStorage.update(ORGANISATION_TYPE, "26", new DataGroupSpy("organisation"), null,
+				null, "");
+
+		OrganisationExistenceChecker checker = divaRecordStorage
+				.getOrganisationExistenceChecker();
+		assertEquals(checker.getExistingCache().size(), 0);
 	}
 
 	@Test
@@ -613,8 +1108,7 @@ public class DivaDbRecordStorageTest {
 		assertEquals(sqlDatabaseFactory.tableNames.get(0), "toporganisationview");
 		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
 
-		assertEquals(tableQuery.ascOrdersBy.get(0), "id");
-		assertEquals(tableQuery.fromNumbers.get(0), Long.valueOf(4));
+		assertEquals(tableQuery.fromNumbers.size(), 0);
 		assertEquals(tableQuery.toNumbers.size(), 0);
 
 		assertEquals(totalNumberOfRecordsForType,
@@ -632,7 +1126,7 @@ public class DivaDbRecordStorageTest {
 		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
 
 		assertEquals(tableQuery.fromNumbers.size(), 0);
-		assertEquals(tableQuery.toNumbers.get(0), Long.valueOf(4));
+		assertEquals(tableQuery.toNumbers.size(), 0);
 	}
 
 	@Test
@@ -648,8 +1142,32 @@ public class DivaDbRecordStorageTest {
 		assertEquals(sqlDatabaseFactory.tableNames.get(0), "toporganisationview");
 		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
 
-		assertEquals(tableQuery.fromNumbers.get(0), Long.valueOf(4));
-		assertEquals(tableQuery.toNumbers.get(0), Long.valueOf(9));
+		assertEquals(tableQuery.fromNumbers.size(), 0);
+		assertEquals(tableQuery.toNumbers.size(), 0);
+	}
+
+	@Test
+	public void testGetTotalNumberOfRecordsIsTheSameForDifferentPages() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		DataGroupSpy firstPage = new DataGroupSpy("filter");
+		firstPage.addChild(new DataAtomicSpy("fromNo", "1"));
+		firstPage.addChild(new DataAtomicSpy("toNo", "10"));
+		DataGroupSpy otherPage = new DataGroupSpy("filter");
+		otherPage.addChild(new DataAtomicSpy("fromNo", "11"));
+		otherPage.addChild(new DataAtomicSpy("toNo", "20"));
+
+		long firstTotal = divaRecordStorage.getTotalNumberOfRecordsForType("topOrganisation",
+				firstPage);
+		sqlDatabaseFactory.numberOfRowsToReturn = 18;
+		long otherTotal = divaRecordStorage.getTotalNumberOfRecordsForType("topOrganisation",
+				otherPage);
+
+		assertEquals(firstTotal, 17);
+		assertEquals(otherTotal, 17);
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.size(), 1);
+		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQueries.get(0);
+		assertEquals(tableQuery.fromNumbers.size(), 0);
+		assertEquals(tableQuery.toNumbers.size(), 0);
 	}
 
 	@Test
@@ -672,6 +1190,69 @@ public class DivaDbRecordStorageTest {
 				sqlDatabaseFactory.factoredTableFacade.numToReturn);
 	}
 
+	@Test
+	public void testCountCacheInit() {
+		BoundedCache<String, Long> countCache = divaRecordStorage.getCountCache();
+		assertEquals(countCache.getMaxSize(), 16);
+		assertEquals(countCache.getMaxAge(), Duration.ofMinutes(1));
+	}
+
+	@Test
+	public void testGetTotalNumberOfRecordsIsCachedPerView() {
+		sqlDatabaseFactory.numberOfRowsToReturn = 17;
+		divaRecordStorage.getTotalNumberOfRecordsForType("topOrganisation",
+				new DataGroupSpy("filter"));
+		sqlDatabaseFactory.numberOfRowsToReturn = 18;
+
+		long cachedCount = divaRecordStorage.getTotalNumberOfRecordsForType("topOrganisation",
+				new DataGroupSpy("filter"));
+		long otherViewCount = divaRecordStorage.getTotalNumberOfRecordsForType("subOrganisation",
+				new DataGroupSpy("filter"));
+
+		assertEquals(cachedCount, 17);
+		assertEquals(otherViewCount, 18);
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.size(), 2);
+		assertEquals(divaRecordStorage.getCountCache().getHitCount(), 1);
+	}
+
+	@Test
+	public void testGetTotalNumberOfRecordsForAbstractTypeUsesCountCache() {
+		divaRecordStorage.getTotalNumberOfRecordsForType(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+
+		divaRecordStorage.getTotalNumberOfRecordsForAbstractType(ORGANISATION_TYPE,
+				List.of("subOrganisation"), new DataGroupSpy("filter"));
+
+		assertEquals(sqlDatabaseFactory.factoredTableQueries.size(), 1);
+	}
+
+	@Test
+	public void testUpdateInvalidatesCountCache() {
+		divaRecordStorage.getTotalNumberOfRecordsForType(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+
+		divaRecordStorage.update(ORGANISATION_TYPE, "56", new DataGroupSpy("organisation"), null,
+				null, "");
+
+		assertEquals(divaRecordStorage.getCountCache().size(), 0);
+	}
+
+	@Test
+	public void testFailedUpdateDoesNotInvalidateCountCache() {
+		divaRecordStorage.getTotalNumberOfRecordsForType(ORGANISATION_TYPE,
+				new DataGroupSpy("filter"));
+		divaDbUpdaterFactorySpy.throwErrorOnUpdate = true;
+
+		try {
+			divaRecordStorage.update(ORGANISATION_TYPE, "56", new DataGroupSpy("organisation"),
+					null, null, "");
+		} catch (DbException e) {
+			// expected
+		}
+
+		assertEquals(divaRecordStorage.getCountCache().size(), 1);
+	}
+
 	@Test(expectedExceptions = NotImplementedException.class)
 	public void testGetTotalNumberOfAbstractRecordsForTypeNotImplemented() {
 		divaRecordStorage.getTotalNumberOfRecordsForAbstractType("typeNotImplemented",
@@ -18,6 +18,7 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db;
 
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.BeforeMethod;
@@ -89,4 +90,23 @@ public class DivaDbToCoraConverterFactoryTest {
 		DivaDbToCoraConverter converter = divaDbToCoraConverterFactoryImp.factor("user");
 		assertTrue(converter instanceof DivaDbToCoraUserConverter);
 	}
+
+	@Test
+	public void testFactorReturnsSameConverterForSameType() throws Exception {
+		assertSameConverterForTypes("divaOrganisationParent", "divaOrganisationParent");
+		assertSameConverterForTypes("divaOrganisationPredecessor", "divaOrganisationPredecessor");
+		assertSameConverterForTypes("user", "user");
+	}
+
+	private void assertSameConverterForTypes(String type, String otherType) {
+		assertSame(divaDbToCoraConverterFactoryImp.factor(type),
+				divaDbToCoraConverterFactoryImp.factor(otherType));
+	}
+
+	@Test
+	public void testAllOrganisationTypesShareOneConverter() throws Exception {
+		assertSameConverterForTypes("organisation", "rootOrganisation");
+		assertSameConverterForTypes("organisation", "topOrganisation");
+		assertSameConverterForTypes("organisation", "subOrganisation");
+	}
 }
@@ -20,6 +20,7 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
@@ -122,23 +123,27 @@ public class DivaDbToCoraUserConverterTest {
 	private void assertCorrectType(DataGroup recordInfo) {
 		DataGroupSpy typeGroup = (DataGroupSpy) recordInfo.getFirstGroupWithNameInData("type");
 		assertSame(typeGroup, dataGroupFactorySpy.factoredDataGroups.get(2));
-		assertEquals(typeGroup.recordType, "recordType");
-		assertEquals(typeGroup.recordId, "coraUser");
+		assertCorrectLink(typeGroup, "recordType", "coraUser");
+	}
+
+	private void assertCorrectLink(DataGroup link, String linkedRecordType,
+			String linkedRecordId) {
+		assertEquals(link.getFirstAtomicValueWithNameInData("linkedRecordType"),
+				linkedRecordType);
+		assertEquals(link.getFirstAtomicValueWithNameInData("linkedRecordId"), linkedRecordId);
 	}
 
 	private void assertCorrectDataDivider(DataGroup recordInfo) {
 		DataGroupSpy dataDividerGroup = (DataGroupSpy) recordInfo
 				.getFirstGroupWithNameInData("dataDivider");
 		assertSame(dataDividerGroup, dataGroupFactorySpy.factoredDataGroups.get(3));
-		assertEquals(dataDividerGroup.recordType, "system");
-		assertEquals(dataDividerGroup.recordId, "diva");
+		assertCorrectLink(dataDividerGroup, "system", "diva");
 	}
 
 	private void assertCorrectCreatedInfo(DataGroup recordInfo) {
 		DataGroupSpy createdBy = (DataGroupSpy) recordInfo.getFirstGroupWithNameInData("createdBy");
 		assertSame(createdBy, dataGroupFactorySpy.factoredDataGroups.get(4));
-		assertEquals(createdBy.recordType, "coraUser");
-		assertEquals(createdBy.recordId, "coraUser:4412982402853626");
+		assertCorrectLink(createdBy, "coraUser", "coraUser:4412982402853626");
 
 		assertEquals(recordInfo.getFirstAtomicValueWithNameInData("tsCreated"),
 				"2017-01-01T00:00:00.000000Z");
@@ -155,8 +160,7 @@ public class DivaDbToCoraUserConverterTest {
 		DataGroupSpy updatedBy = (DataGroupSpy) updatedGroup
 				.getFirstGroupWithNameInData("updatedBy");
 		assertSame(updatedBy, dataGroupFactorySpy.factoredDataGroups.get(6));
-		assertEquals(updatedBy.recordType, "coraUser");
-		assertEquals(updatedBy.recordId, "coraUser:4412982402853626");
+		assertCorrectLink(updatedBy, "coraUser", "coraUser:4412982402853626");
 	}
 
 	private DataAtomicSpy getFactoredDataAtomicByNumber(int noFactored) {
@@ -188,14 +192,44 @@ public class DivaDbToCoraUserConverterTest {
 		DataGroup user = converter.fromRow(rowFromDb);
 		assertEquals(user.getNameInData(), "user");
 
-		DataAtomicSpy factoredDataAtomicForName = getFactoredDataAtomicByNumber(4);
+		int numberOfFactoredAtomics = dataAtomicFactorySpy.factoredDataAtomics.size();
+		DataAtomicSpy factoredDataAtomicForName = getFactoredDataAtomicByNumber(
+				numberOfFactoredAtomics - 2);
 		assertEquals(factoredDataAtomicForName.nameInData, "userFirstname");
-		DataAtomicSpy factoredDataAtomicForLastName = getFactoredDataAtomicByNumber(5);
+		DataAtomicSpy factoredDataAtomicForLastName = getFactoredDataAtomicByNumber(
+				numberOfFactoredAtomics - 1);
 		assertEquals(factoredDataAtomicForLastName.nameInData, "userLastname");
 
 		assertSame(user.getFirstDataAtomicWithNameInData("userFirstname"),
-				getFactoredDataAtomicByNumber(4));
+				factoredDataAtomicForName);
 		assertEquals(user.getFirstDataAtomicWithNameInData("userLastname"),
-				getFactoredDataAtomicByNumber(5));
+				factoredDataAtomicForLastName);
+	}
+
+	@Test
+	public void testNoAtomicsAreSharedBetweenConvertedUsers() {
+		DataGroup user = converter.fromRow(rowFromDb);
+		int numberOfFactoredAtomics = dataAtomicFactorySpy.factoredDataAtomics.size();
+		DataGroup otherUser = converter.fromRow(rowFromDb);
+
+		assertNotSame(user.getFirstDataAtomicWithNameInData("activeStatus"),
+				otherUser.getFirstDataAtomicWithNameInData("activeStatus"));
+		DataGroup recordInfo = user.getFirstGroupWithNameInData("recordInfo");
+		DataGroup otherRecordInfo = otherUser.getFirstGroupWithNameInData("recordInfo");
+		assertNotSame(recordInfo.getFirstDataAtomicWithNameInData("tsCreated"),
+				otherRecordInfo.getFirstDataAtomicWithNameInData("tsCreated"));
+		assertNotSame(
+				recordInfo.getFirstGroupWithNameInData("type")
+						.getFirstDataAtomicWithNameInData("linkedRecordId"),
+				otherRecordInfo.getFirstGroupWithNameInData("type")
+						.getFirstDataAtomicWithNameInData("linkedRecordId"));
+		assertNotSame(recordInfo.getFirstGroupWithNameInData("type"),
+				otherRecordInfo.getFirstGroupWithNameInData("type"));
+		assertNotSame(recordInfo.getFirstGroupWithNameInData("updated"),
+				otherRecordInfo.getFirstGroupWithNameInData("updated"));
+
+		int factoredForOtherUser = dataAtomicFactorySpy.factoredDataAtomics.size()
+				- numberOfFactoredAtomics;
+		assertEquals(factoredForOtherUser, 12);
 	}
 }
@@ -21,17 +21,23 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 import java.util.ArrayList;
 import java.util.List;
 
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
+
 public class DivaDbUpdaterFactorySpy implements DivaDbUpdaterFactory {
 
 	public List<String> types = new ArrayList<>();
 	public List<DivaDbUpdater> divaDbUpdaterList = new ArrayList<>();
 	public boolean factorWasCalled = false;
+	public boolean throwErrorOnUpdate = false;
+	public SqlDatabaseFactory extraConnectionFactory;
 
 	@Override
 	public DivaDbUpdater factor(String type) {
 		factorWasCalled = true;
 		types.add(type);
 		var divaDbUpdaterSpy = new DivaDbUpdaterSpy();
+		divaDbUpdaterSpy.throwErrorOnUpdate = throwErrorOnUpdate;
+		divaDbUpdaterSpy.extraConnectionFactory = extraConnectionFactory;
 		divaDbUpdaterList.add(divaDbUpdaterSpy);
 		return divaDbUpdaterSpy;
 	}
@@ -56,7 +56,16 @@ public class DivaDbUpdaterFactoryTest {
 		assertSame(factoredUpdater.getRelatedTableFactory(), relatedTableFactory);
 		assertSame(factoredUpdater.getSqlDatabaseFactory(), sqlDatabaseFactory);
 		assertTrue(factoredUpdater
-				.getPreparedStatementCreator() instanceof PreparedStatementExecutorImp);
+				.getPreparedStatementCreator() instanceof BatchingStatementExecutorImp);
+	}
+
+	@Test
+	public void testFactoredStatementExecutorsShareSqlTemplateCache() {
+		var factoredUpdater = (DivaDbOrganisationUpdater) factory.factor("organisation");
+		var statementExecutor = (BatchingStatementExecutorImp) factoredUpdater
+				.getPreparedStatementCreator();
+		assertSame(statementExecutor.getSqlTemplateCache(),
+				((DivaDbUpdaterFactoryImp) factory).getSqlTemplateCache());
 	}
 
 	private void assertCorrectFactoredUpdatedForOrganisationType(String type) {
@@ -65,7 +74,7 @@ public class DivaDbUpdaterFactoryTest {
 				translaterFactory.factoredTranslater);
 		assertSame(divaDbOrganisationUpdater.getRelatedTableFactory(), relatedTableFactory);
 		assertTrue(divaDbOrganisationUpdater
-				.getPreparedStatementCreator() instanceof PreparedStatementExecutorImp);
+				.getPreparedStatementCreator() instanceof BatchingStatementExecutorImp);
 	}
 
 	@Test
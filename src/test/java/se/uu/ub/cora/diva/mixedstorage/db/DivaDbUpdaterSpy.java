@@ -20,20 +20,31 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.sqldatabase.DatabaseFacade;
-import se.uu.ub.cora.sqldatabase.table.TableFacade;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseFactory;
 
 public class DivaDbUpdaterSpy implements DivaDbUpdater {
 
 	public DataGroup dataGroup;
-	public TableFacade tableFacade;
-	public DatabaseFacade databaseFacade;
+	public UnitOfWork unitOfWork;
+	public boolean throwErrorOnUpdate = false;
+	public SqlDatabaseFactory extraConnectionFactory;
 
 	@Override
-	public void update(TableFacade tableFacade, DatabaseFacade databaseFacade,
-			DataGroup dataGroup) {
-		this.tableFacade = tableFacade;
-		this.databaseFacade = databaseFacade;
+	public void update(UnitOfWork unitOfWork, DataGroup dataGroup) {
+		this.unitOfWork = unitOfWork;
 		this.dataGroup = dataGroup;
+		possiblyOpenExtraConnection();
+		if (throwErrorOnUpdate) {
+			throw DbException.withMessage("Error from DivaDbUpdaterSpy");
+		}
+	}
+
+	private void possiblyOpenExtraConnection() {
+		if (extraConnectionFactory != null) {
+			try (DatabaseFacade databaseFacade = extraConnectionFactory.factorDatabaseFacade()) {
+				// like a sequence refill or a type index read made during the update
+			}
+		}
 	}
 
 }
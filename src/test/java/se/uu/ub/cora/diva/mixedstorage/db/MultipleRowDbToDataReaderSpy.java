@@ -20,12 +20,14 @@ package se.uu.ub.cora.diva.mixedstorage.db;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.MultipleRowDbToDataReader;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
 import se.uu.ub.cora.sqldatabase.table.TableFacade;
 
 public class MultipleRowDbToDataReaderSpy implements MultipleRowDbToDataReader {
@@ -35,6 +37,10 @@ public class MultipleRowDbToDataReaderSpy implements MultipleRowDbToDataReader {
 	public List<DataGroup> returnedList = new ArrayList<>();
 	public boolean returnEmptyResult = false;
 	public TableFacade tableFacade;
+	public DatabaseFacade databaseFacade;
+	public List<String> usedIds;
+	public Map<String, List<DataGroup>> returnedMap = new HashMap<>();
+	public String typeToReturn = "";
 
 	@Override
 	public List<DataGroup> read(TableFacade tableFacade, String type, String id) {
@@ -57,4 +63,21 @@ public class MultipleRowDbToDataReaderSpy implements MultipleRowDbToDataReader {
 
 	}
 
+	@Override
+	public Map<String, List<DataGroup>> readForIds(DatabaseFacade databaseFacade,
+			List<String> ids) {
+		this.databaseFacade = databaseFacade;
+		usedIds = ids;
+		if (returnEmptyResult) {
+			return Collections.emptyMap();
+		}
+		for (String id : ids) {
+			List<DataGroup> childrenForId = new ArrayList<>();
+			childrenForId.add(new DataGroupSpy(typeToReturn + "ChildFromSpy"));
+			childrenForId.add(new DataGroupSpy(typeToReturn + "ChildFromSpy"));
+			returnedMap.put(id, childrenForId);
+		}
+		return returnedMap;
+	}
+
 }
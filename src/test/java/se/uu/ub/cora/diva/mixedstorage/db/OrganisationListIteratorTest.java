@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+
+public class OrganisationListIteratorTest {
+	private static final String FIRST_CHUNK_SQL = "select * from organisationview"
+			+ " order by id limit ?";
+	private static final String NEXT_CHUNK_SQL = "select * from organisationview"
+			+ " where id > ? order by id limit ?";
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private List<List<Row>> convertedChunks;
+	private List<DatabaseFacade> convertingFacades;
+	private OrganisationListIterator iterator;
+
+	@BeforeMethod
+	public void setUp() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		convertedChunks = new ArrayList<>();
+		convertingFacades = new ArrayList<>();
+		iterator = OrganisationListIterator.usingSqlDatabaseFactoryViewNameChunkSizeAndConverter(
+				sqlDatabaseFactory, "organisationview", 2, this::convertRows);
+	}
+
+	private List<DataGroup> convertRows(DatabaseFacade databaseFacade, List<Row> rows) {
+		convertingFacades.add(databaseFacade);
+		convertedChunks.add(rows);
+		List<DataGroup> organisations = new ArrayList<>();
+		for (Row row : rows) {
+			organisations.add(new DataGroupSpy("organisation" + row.getValueByColumn("id")));
+		}
+		return organisations;
+	}
+
+	private List<Row> createChunkWithIds(int... ids) {
+		List<Row> rows = new ArrayList<>();
+		for (int id : ids) {
+			RowSpy row = new RowSpy();
+			row.addColumnWithValue("id", id);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	@Test
+	public void testInit() {
+		assertEquals(iterator.getViewName(), "organisationview");
+		assertEquals(iterator.getChunkSize(), 2);
+	}
+
+	@Test
+	public void testNothingIsReadBeforeIteratorIsUsed() {
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacades.isEmpty());
+	}
+
+	@Test
+	public void testNoOrganisations() {
+		assertFalse(iterator.hasNext());
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacades.get(0);
+		assertEquals(databaseFacade.readSqls.get(0), FIRST_CHUNK_SQL);
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(2));
+		assertTrue(databaseFacade.closeWasCalled);
+		assertTrue(convertedChunks.isEmpty());
+	}
+
+	@Test(expectedExceptions = NoSuchElementException.class, expectedExceptionsMessageRegExp = ""
+			+ "No more organisations in organisationview")
+	public void testNextWhenNoMoreOrganisations() {
+		iterator.next();
+	}
+
+	@Test
+	public void testChunksAreReadWhenNeededUsingLastReadId() {
+		sqlDatabaseFactory.rowChunksToReturnFromDatabaseFacades.add(createChunkWithIds(3, 7));
+		sqlDatabaseFactory.rowChunksToReturnFromDatabaseFacades.add(createChunkWithIds(12));
+
+		assertEquals(iterator.next().getNameInData(), "organisation3");
+		assertEquals(iterator.next().getNameInData(), "organisation7");
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+
+		assertEquals(iterator.next().getNameInData(), "organisation12");
+		assertFalse(iterator.hasNext());
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+		DatabaseFacadeSpy secondFacade = sqlDatabaseFactory.factoredDatabaseFacades.get(1);
+		assertEquals(secondFacade.readSqls.get(0), NEXT_CHUNK_SQL);
+		assertEquals(secondFacade.readValuesList.get(0), List.of(7, 2));
+		assertChunksWereConvertedUsingTheFacadeTheyWereReadWith();
+	}
+
+	private void assertChunksWereConvertedUsingTheFacadeTheyWereReadWith() {
+		for (int i = 0; i < convertedChunks.size(); i++) {
+			DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacades.get(i);
+			assertSame(convertingFacades.get(i), databaseFacade);
+			assertSame(convertedChunks.get(i), databaseFacade.rowsToReturn);
+			assertTrue(databaseFacade.closeWasCalled);
+		}
+	}
+
+	@Test
+	public void testFullLastChunkReadsOneEmptyChunk() {
+		sqlDatabaseFactory.rowChunksToReturnFromDatabaseFacades.add(createChunkWithIds(3, 7));
+
+		iterator.next();
+		iterator.next();
+		assertFalse(iterator.hasNext());
+		assertFalse(iterator.hasNext());
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+		assertEquals(convertedChunks.size(), 1);
+	}
+}
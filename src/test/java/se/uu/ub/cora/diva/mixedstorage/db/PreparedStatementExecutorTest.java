@@ -19,9 +19,12 @@
 package se.uu.ub.cora.diva.mixedstorage.db;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -99,14 +102,14 @@ public class PreparedStatementExecutorTest {
 		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
 
 		assertEquals(databaseFacade.sqls.get(0),
-				"UPDATE organisation SET address = ?, name = ? WHERE otherId = ? AND id = ?");
+				"UPDATE organisation SET address = ?, name = ? WHERE id = ? AND otherId = ?");
 
 		List<Object> values = databaseFacade.valuesList.get(0);
 		assertEquals(values.size(), 4);
 		assertEquals(values.get(0), "some address");
 		assertEquals(values.get(1), "someName");
-		assertEquals(values.get(2), 3500);
-		assertEquals(values.get(3), 35);
+		assertEquals(values.get(2), 35);
+		assertEquals(values.get(3), 3500);
 	}
 
 	/*****************************************
@@ -135,13 +138,13 @@ public class PreparedStatementExecutorTest {
 		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
 
 		assertEquals(databaseFacade.sqls.get(0),
-				"DELETE FROM organisation WHERE anotherId = ? AND lastId = ? AND id = ?");
+				"DELETE FROM organisation WHERE anotherId = ? AND id = ? AND lastId = ?");
 
 		List<Object> values = databaseFacade.valuesList.get(0);
 		assertEquals(values.size(), 3);
 		assertEquals(values.get(0), 72);
-		assertEquals(values.get(1), "47");
-		assertEquals(values.get(2), 35);
+		assertEquals(values.get(1), 35);
+		assertEquals(values.get(2), "47");
 
 	}
 
@@ -173,15 +176,15 @@ public class PreparedStatementExecutorTest {
 		List<DbStatement> dbStatements = List.of(insertDbStatement);
 		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
 
-		assertEquals(databaseFacade.sqls.get(0),
-				"INSERT INTO organisation(alternative_name, address, org_id, name) VALUES(?, ?, ?, ?)");
+		assertEquals(databaseFacade.sqls.get(0), "INSERT INTO organisation(address, "
+				+ "alternative_name, name, org_id) VALUES(?, ?, ?, ?)");
 
 		List<Object> values = databaseFacade.valuesList.get(0);
 		assertEquals(values.size(), 4);
-		assertEquals(values.get(0), "some other name");
-		assertEquals(values.get(1), "some address");
-		assertEquals(values.get(2), 12345);
-		assertEquals(values.get(3), "someName");
+		assertEquals(values.get(0), "some address");
+		assertEquals(values.get(1), "some other name");
+		assertEquals(values.get(2), "someName");
+		assertEquals(values.get(3), 12345);
 	}
 
 	@Test
@@ -207,4 +210,55 @@ public class PreparedStatementExecutorTest {
 		assertEquals(valueList.get(2).get(0), 35);
 	}
 
+	@Test
+	public void testUpdateCountsAreReturnedForEachStatement() {
+		databaseFacade.updateCountToReturn = 2;
+		conditions.put("id", 35);
+		List<DbStatement> dbStatements = List.of(insertDbStatement, updateDbStatement,
+				deleteDbStatement);
+
+		List<Integer> updateCounts = statementExecutor
+				.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertEquals(updateCounts, List.of(2, 2, 2));
+	}
+
+	@Test
+	public void testSameShapeWithDifferentOrderOfNamesGivesIdenticalSql() {
+		Map<String, Object> firstValues = new LinkedHashMap<>();
+		firstValues.put("name", "someName");
+		firstValues.put("address", "some address");
+		Map<String, Object> secondValues = new LinkedHashMap<>();
+		secondValues.put("address", "other address");
+		secondValues.put("name", "otherName");
+		List<DbStatement> dbStatements = List.of(
+				new DbStatement("insert", "organisation", firstValues, Collections.emptyMap()),
+				new DbStatement("insert", "organisation", secondValues, Collections.emptyMap()));
+
+		statementExecutor.executeDbStatmentUsingDatabaseFacade(dbStatements, databaseFacade);
+
+		assertSame(databaseFacade.sqls.get(0), databaseFacade.sqls.get(1));
+		assertEquals(databaseFacade.valuesList.get(0), List.of("some address", "someName"));
+		assertEquals(databaseFacade.valuesList.get(1), List.of("other address", "otherName"));
+	}
+
+	@Test
+	public void testDefaultConstructorCreatesSqlTemplateCache() {
+		PreparedStatementExecutorImp executor = (PreparedStatementExecutorImp) statementExecutor;
+		assertNotNull(executor.getSqlTemplateCache());
+	}
+
+	@Test
+	public void testSqlTemplateCacheIsUsed() {
+		SqlTemplateCache sqlTemplateCache = new SqlTemplateCache();
+		PreparedStatementExecutorImp executor = new PreparedStatementExecutorImp(
+				sqlTemplateCache);
+		conditions.put("id", 35);
+
+		executor.executeDbStatmentUsingDatabaseFacade(
+				List.of(insertDbStatement, updateDbStatement, insertDbStatement), databaseFacade);
+
+		assertSame(executor.getSqlTemplateCache(), sqlTemplateCache);
+		assertEquals(sqlTemplateCache.size(), 2);
+	}
 }
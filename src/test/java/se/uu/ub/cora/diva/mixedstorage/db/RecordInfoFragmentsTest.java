@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLink;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DataRecordLinkFactorySpy;
+
+public class RecordInfoFragmentsTest {
+	private static final String CORA_USER_ID = "coraUser:4412982402853626";
+	private static final String PREDEFINED_TIMESTAMP = "2017-01-01T00:00:00.000000Z";
+
+	private DataGroupFactorySpy dataGroupFactorySpy;
+	private DataAtomicFactorySpy dataAtomicFactorySpy;
+	private DataRecordLinkFactorySpy dataRecordLinkFactorySpy;
+	private RecordInfoFragments fragments;
+
+	@BeforeMethod
+	public void beforeMethod() {
+		dataGroupFactorySpy = new DataGroupFactorySpy();
+		DataGroupProvider.setDataGroupFactory(dataGroupFactorySpy);
+		dataAtomicFactorySpy = new DataAtomicFactorySpy();
+		DataAtomicProvider.setDataAtomicFactory(dataAtomicFactorySpy);
+		dataRecordLinkFactorySpy = new DataRecordLinkFactorySpy();
+		DataRecordLinkProvider.setDataRecordLinkFactory(dataRecordLinkFactorySpy);
+		fragments = RecordInfoFragments.usingRecordTypes("someType", "someOtherType");
+	}
+
+	@Test
+	public void testAtomicsAreCreatedForEachRecordInfo() {
+		assertEquals(dataAtomicFactorySpy.factoredDataAtomics.size(), 0);
+
+		fragments.addFragmentsUsingGroupLinks(new DataGroupSpy("recordInfo"), "someType");
+		assertEquals(dataAtomicFactorySpy.factoredDataAtomics.size(), 10);
+
+		fragments.addFragmentsUsingRecordLinks(new DataGroupSpy("recordInfo"), "someOtherType");
+		assertEquals(dataAtomicFactorySpy.factoredDataAtomics.size(), 20);
+	}
+
+	@Test
+	public void testAddFragmentsUsingGroupLinks() {
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		fragments.addFragmentsUsingGroupLinks(recordInfo, "someType");
+
+		assertEquals(recordInfo.getChildren().size(), 5);
+		assertCorrectLink(recordInfo.getFirstGroupWithNameInData("type"), "recordType",
+				"someType");
+		assertCorrectLink(recordInfo.getFirstGroupWithNameInData("dataDivider"), "system",
+				"diva");
+		assertCorrectLink(recordInfo.getFirstGroupWithNameInData("createdBy"), "coraUser",
+				CORA_USER_ID);
+		assertEquals(recordInfo.getFirstAtomicValueWithNameInData("tsCreated"),
+				PREDEFINED_TIMESTAMP);
+		assertCorrectUpdated(recordInfo);
+
+		assertEquals(dataRecordLinkFactorySpy.usedNameInDatas.size(), 0);
+		assertEquals(dataGroupFactorySpy.usedNameInDatas.size(), 5);
+	}
+
+	private void assertCorrectLink(DataGroup link, String linkedRecordType,
+			String linkedRecordId) {
+		assertEquals(link.getFirstAtomicValueWithNameInData("linkedRecordType"),
+				linkedRecordType);
+		assertEquals(link.getFirstAtomicValueWithNameInData("linkedRecordId"), linkedRecordId);
+	}
+
+	private void assertCorrectUpdated(DataGroup recordInfo) {
+		DataGroup updated = recordInfo.getFirstGroupWithNameInData("updated");
+		assertEquals(updated.getRepeatId(), "0");
+		assertEquals(updated.getFirstAtomicValueWithNameInData("tsUpdated"),
+				PREDEFINED_TIMESTAMP);
+		assertCorrectLink(updated.getFirstGroupWithNameInData("updatedBy"), "coraUser",
+				CORA_USER_ID);
+	}
+
+	@Test
+	public void testAddFragmentsUsingRecordLinks() {
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		fragments.addFragmentsUsingRecordLinks(recordInfo, "someOtherType");
+
+		DataRecordLink type = (DataRecordLink) recordInfo.getFirstGroupWithNameInData("type");
+		assertEquals(type.getLinkedRecordType(), "recordType");
+		assertEquals(type.getLinkedRecordId(), "someOtherType");
+		DataRecordLink createdBy = (DataRecordLink) recordInfo
+				.getFirstGroupWithNameInData("createdBy");
+		assertEquals(createdBy.getLinkedRecordId(), CORA_USER_ID);
+		assertTrue(recordInfo.getFirstGroupWithNameInData("updated")
+				.getFirstGroupWithNameInData("updatedBy") instanceof DataRecordLink);
+
+		assertEquals(dataRecordLinkFactorySpy.usedNameInDatas.size(), 4);
+		assertEquals(dataGroupFactorySpy.usedNameInDatas.size(), 1);
+	}
+
+	@Test
+	public void testNoAtomicsOrLinksAreShared() {
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		DataGroup otherRecordInfo = new DataGroupSpy("recordInfo");
+		fragments.addFragmentsUsingGroupLinks(recordInfo, "someType");
+		fragments.addFragmentsUsingGroupLinks(otherRecordInfo, "someType");
+
+		assertNotSame(recordInfo.getFirstDataAtomicWithNameInData("tsCreated"),
+				otherRecordInfo.getFirstDataAtomicWithNameInData("tsCreated"));
+		DataGroup dataDivider = recordInfo.getFirstGroupWithNameInData("dataDivider");
+		DataGroup otherDataDivider = otherRecordInfo.getFirstGroupWithNameInData("dataDivider");
+		assertNotSame(dataDivider, otherDataDivider);
+		assertNotSame(recordInfo.getFirstGroupWithNameInData("updated")
+				.getFirstDataAtomicWithNameInData("tsUpdated"),
+				otherRecordInfo.getFirstGroupWithNameInData("updated")
+						.getFirstDataAtomicWithNameInData("tsUpdated"));
+		assertNotSame(dataDivider.getFirstDataAtomicWithNameInData("linkedRecordId"),
+				otherDataDivider.getFirstDataAtomicWithNameInData("linkedRecordId"));
+	}
+
+	@Test
+	public void testUnknownRecordTypeIsLinked() {
+		DataGroup recordInfo = new DataGroupSpy("recordInfo");
+		fragments.addFragmentsUsingGroupLinks(recordInfo, "unknownType");
+
+		assertCorrectLink(recordInfo.getFirstGroupWithNameInData("type"), "recordType",
+				"unknownType");
+		assertEquals(dataAtomicFactorySpy.factoredDataAtomics.size(), 10);
+	}
+}
@@ -30,12 +30,19 @@ public class RelatedTableSpy implements RelatedTable {
 	public List<Row> dbRows;
 	private List<DbStatement> dbStatements;
 	public DataGroup dataGroup;
+	public UnitOfWork unitOfWork;
+	public boolean returnNoDbStatements = false;
 
 	@Override
-	public List<DbStatement> handleDbForDataGroup(DataGroup dataGroup, List<Row> dbRows) {
+	public List<DbStatement> handleDbForDataGroup(UnitOfWork unitOfWork, DataGroup dataGroup,
+			List<Row> dbRows) {
+		this.unitOfWork = unitOfWork;
 		this.dataGroup = dataGroup;
 		this.dbRows = dbRows;
 		dbStatements = new ArrayList<>();
+		if (returnNoDbStatements) {
+			return dbStatements;
+		}
 		DbStatement dbStatement = new DbStatement("operationFromSpy", "spyTableName",
 				Collections.emptyMap(), Collections.emptyMap());
 		dbStatements.add(dbStatement);
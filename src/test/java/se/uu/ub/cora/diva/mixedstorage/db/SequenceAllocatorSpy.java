@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SequenceAllocatorSpy implements SequenceAllocator {
+
+	public List<String> sequenceNames = new ArrayList<>();
+	public List<UnitOfWork> unitOfWorks = new ArrayList<>();
+	public List<Long> returnedValues = new ArrayList<>();
+	private long nextValue = 100;
+
+	@Override
+	public long nextValueFromSequence(UnitOfWork unitOfWork, String sequenceName) {
+		unitOfWorks.add(unitOfWork);
+		sequenceNames.add(sequenceName);
+		long value = nextValue++;
+		returnedValues.add(value);
+		return value;
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SqlTemplateCacheTest {
+
+	private SqlTemplateCache sqlTemplateCache;
+
+	@BeforeMethod
+	public void setUp() {
+		sqlTemplateCache = new SqlTemplateCache();
+	}
+
+	@Test
+	public void testEmptyFromStart() {
+		assertEquals(sqlTemplateCache.size(), 0);
+	}
+
+	@Test
+	public void testTemplateIsCreatedAndCached() {
+		DbStatement dbStatement = createInsert("name", "address");
+
+		SqlTemplate sqlTemplate = sqlTemplateCache.getSqlTemplateForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getSql(), "INSERT INTO organisation(address, name) VALUES(?, ?)");
+		assertEquals(sqlTemplateCache.size(), 1);
+	}
+
+	private DbStatement createInsert(String... columnNames) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (String columnName : columnNames) {
+			values.put(columnName, "value");
+		}
+		return new DbStatement("insert", "organisation", values, Collections.emptyMap());
+	}
+
+	@Test
+	public void testSameShapeInOtherOrderReturnsSameTemplate() {
+		SqlTemplate first = sqlTemplateCache
+				.getSqlTemplateForDbStatement(createInsert("name", "address"));
+		SqlTemplate second = sqlTemplateCache
+				.getSqlTemplateForDbStatement(createInsert("address", "name"));
+
+		assertSame(second, first);
+		assertEquals(sqlTemplateCache.size(), 1);
+	}
+
+	@Test
+	public void testOtherColumnsReturnsOtherTemplate() {
+		SqlTemplate first = sqlTemplateCache
+				.getSqlTemplateForDbStatement(createInsert("name", "address"));
+		SqlTemplate second = sqlTemplateCache.getSqlTemplateForDbStatement(createInsert("name"));
+
+		assertNotSame(second, first);
+		assertEquals(sqlTemplateCache.size(), 2);
+	}
+
+	@Test
+	public void testOtherOperationReturnsOtherTemplate() {
+		Map<String, Object> conditions = Map.of("name", "value");
+		sqlTemplateCache.getSqlTemplateForDbStatement(
+				new DbStatement("delete", "organisation", Collections.emptyMap(), conditions));
+		sqlTemplateCache.getSqlTemplateForDbStatement(
+				new DbStatement("delete", "organisation_name", Collections.emptyMap(), conditions));
+		sqlTemplateCache.getSqlTemplateForDbStatement(
+				new DbStatement("update", "organisation", conditions, conditions));
+
+		assertEquals(sqlTemplateCache.size(), 3);
+	}
+
+	@Test
+	public void testChangingStatementMapsAfterwardsDoesNotChangeCachedShape() {
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", "value");
+		DbStatement dbStatement = new DbStatement("insert", "organisation", values,
+				Collections.emptyMap());
+		SqlTemplate first = sqlTemplateCache.getSqlTemplateForDbStatement(dbStatement);
+
+		values.put("address", "value");
+		SqlTemplate second = sqlTemplateCache.getSqlTemplateForDbStatement(createInsert("name"));
+
+		assertSame(second, first);
+	}
+}
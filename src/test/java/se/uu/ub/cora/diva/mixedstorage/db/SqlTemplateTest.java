@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SqlTemplateTest {
+
+	private Map<String, Object> values;
+	private Map<String, Object> conditions;
+
+	@BeforeMethod
+	public void setUp() {
+		values = new LinkedHashMap<>();
+		values.put("name", "someName");
+		values.put("address", "some address");
+		conditions = new LinkedHashMap<>();
+		conditions.put("organisation_id", 35);
+		conditions.put("db_id", 7);
+	}
+
+	@Test
+	public void testNamesAreSorted() {
+		DbStatement dbStatement = new DbStatement("update", "organisation", values, conditions);
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getColumnNames(), List.of("address", "name"));
+		assertEquals(sqlTemplate.getConditionNames(), List.of("db_id", "organisation_id"));
+	}
+
+	@Test
+	public void testUpdate() {
+		DbStatement dbStatement = new DbStatement("update", "organisation", values, conditions);
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getSql(), "UPDATE organisation SET address = ?, name = ? "
+				+ "WHERE db_id = ? AND organisation_id = ?");
+		assertEquals(sqlTemplate.getParameterValues(dbStatement),
+				List.of("some address", "someName", 7, 35));
+	}
+
+	@Test
+	public void testUpdateWithoutConditions() {
+		DbStatement dbStatement = new DbStatement("update", "organisation", values,
+				Collections.emptyMap());
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getSql(), "UPDATE organisation SET address = ?, name = ?");
+		assertEquals(sqlTemplate.getParameterValues(dbStatement),
+				List.of("some address", "someName"));
+	}
+
+	@Test
+	public void testDelete() {
+		DbStatement dbStatement = new DbStatement("delete", "organisation",
+				Collections.emptyMap(), conditions);
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getSql(),
+				"DELETE FROM organisation WHERE db_id = ? AND organisation_id = ?");
+		assertEquals(sqlTemplate.getParameterValues(dbStatement), List.of(7, 35));
+	}
+
+	@Test
+	public void testInsert() {
+		DbStatement dbStatement = new DbStatement("insert", "organisation", values,
+				Collections.emptyMap());
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(dbStatement);
+
+		assertEquals(sqlTemplate.getSql(), "INSERT INTO organisation(address, name) VALUES(?, ?)");
+		assertEquals(sqlTemplate.getParameterValues(dbStatement),
+				List.of("some address", "someName"));
+	}
+
+	@Test
+	public void testParameterValuesFromOtherStatementWithSameShape() {
+		SqlTemplate sqlTemplate = SqlTemplate.createForDbStatement(
+				new DbStatement("insert", "organisation", values, Collections.emptyMap()));
+		Map<String, Object> otherValues = new LinkedHashMap<>();
+		otherValues.put("address", "other address");
+		otherValues.put("name", "otherName");
+
+		List<Object> parameterValues = sqlTemplate.getParameterValues(
+				new DbStatement("insert", "organisation", otherValues, Collections.emptyMap()));
+
+		assertEquals(parameterValues, List.of("other address", "otherName"));
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableQuerySpy;
+import se.uu.ub.cora.sqldatabase.Row;
+
+public class UnitOfWorkImpTest {
+
+	private DatabaseFacadeSpy databaseFacade;
+	private UnitOfWorkImp unitOfWork;
+
+	@BeforeMethod
+	public void setUp() {
+		databaseFacade = new DatabaseFacadeSpy();
+		unitOfWork = UnitOfWorkImp.usingDatabaseFacade(databaseFacade);
+	}
+
+	@Test
+	public void testGetDatabaseFacade() {
+		assertSame(unitOfWork.getDatabaseFacade(), databaseFacade);
+	}
+
+	@Test
+	public void testReadRowsForQueryUsesDatabaseFacade() {
+		TableQuerySpy tableQuery = new TableQuerySpy("organisation_type");
+		tableQuery.addCondition("organisation_type_code", "unit");
+
+		List<Row> rows = unitOfWork.readRowsForQuery(tableQuery);
+
+		assertEquals(databaseFacade.readSqls.get(0), "select * from organisation_type");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of("unit"));
+		assertSame(rows, databaseFacade.rowsToReturn);
+	}
+
+	@Test
+	public void testNextValueFromSequenceUsesDatabaseFacade() {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("nextval", 17L);
+		databaseFacade.rowToReturn = row;
+
+		long nextValue = unitOfWork.nextValueFromSequence("address_sequence");
+
+		assertEquals(nextValue, 17L);
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select nextval(cast(? as regclass)) as nextval");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of("address_sequence"));
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableQuerySpy;
+import se.uu.ub.cora.sqldatabase.DatabaseFacade;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+public class UnitOfWorkSpy implements UnitOfWork {
+
+	public DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+	public List<TableQuery> tableQueries = new ArrayList<>();
+	public List<Row> rowsToReturn = new ArrayList<>();
+	public List<String> sequenceNames = new ArrayList<>();
+	public long nextVal = 4;
+
+	@Override
+	public List<Row> readRowsForQuery(TableQuery tableQuery) {
+		tableQueries.add(tableQuery);
+		possiblyThrowException(tableQuery);
+		return rowsToReturn;
+	}
+
+	private void possiblyThrowException(TableQuery tableQuery) {
+		TableQuerySpy tableQuerySpy = (TableQuerySpy) tableQuery;
+		if (tableQuerySpy.throwException) {
+			throw SqlDatabaseException
+					.withMessage("Error from spy for table " + tableQuerySpy.tableName);
+		}
+	}
+
+	@Override
+	public long nextValueFromSequence(String sequenceName) {
+		sequenceNames.add(sequenceName);
+		return nextVal;
+	}
+
+	@Override
+	public DatabaseFacade getDatabaseFacade() {
+		return databaseFacade;
+	}
+
+	public RowSpy createAndAddRowToReturn(String columnName, Object columnValue) {
+		RowSpy rowToReturn = new RowSpy();
+		rowToReturn.addColumnWithValue(columnName, columnValue);
+		rowsToReturn.add(rowToReturn);
+		return rowToReturn;
+	}
+}
@@ -31,6 +31,7 @@ import se.uu.ub.cora.data.DataChild;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.data.DataRecordLink;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
+import se.uu.ub.cora.diva.mixedstorage.DataAttributeSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 
 public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
@@ -41,6 +42,8 @@ public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
 	public String nameInData;
 	public String recordType;
 	public String recordId;
+	public String repeatId;
+	public List<DataAttribute> addedAttributes = new ArrayList<>();
 
 	public DataRecordLinkSpy(String nameInData) {
 		this.nameInData = nameInData;
@@ -67,8 +70,7 @@ public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
 
 	@Override
 	public String getRepeatId() {
-		// TODO Auto-generated method stub
-		return null;
+		return repeatId;
 	}
 
 	@Override
@@ -116,14 +118,12 @@ public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
 
 	@Override
 	public void setRepeatId(String repeatId) {
-		// TODO Auto-generated method stub
-
+		this.repeatId = repeatId;
 	}
 
 	@Override
 	public void addAttributeByIdWithValue(String id, String value) {
-		// TODO Auto-generated method stub
-
+		addedAttributes.add(new DataAttributeSpy(id, value));
 	}
 
 	@Override
@@ -166,8 +166,7 @@ public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
 
 	@Override
 	public Collection<DataAttribute> getAttributes() {
-		// TODO Auto-generated method stub
-		return null;
+		return addedAttributes;
 	}
 
 	@Override
@@ -232,8 +231,7 @@ public class DataRecordLinkSpy implements DataGroup, DataRecordLink {
 
 	@Override
 	public boolean hasAttributes() {
-		// TODO Auto-generated method stub
-		return false;
+		return !addedAttributes.isEmpty();
 	}
 
 	@Override
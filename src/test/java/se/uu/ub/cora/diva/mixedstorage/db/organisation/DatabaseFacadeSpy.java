@@ -34,17 +34,29 @@ public class DatabaseFacadeSpy implements DatabaseFacade {
 	public boolean throwErrorInDatabaseFacade = false;
 	public boolean rollbackWasCalled = false;
 	public boolean closeWasCalled = false;
+	public List<String> readSqls = new ArrayList<>();
+	public List<List<Object>> readValuesList = new ArrayList<>();
+	public List<Row> rowsToReturn = new ArrayList<>();
+	public int updateCountToReturn = 0;
+	public List<Integer> updateCountsToReturn = new ArrayList<>();
+	public Row rowToReturn;
+	public boolean throwErrorOnRead = false;
 
 	@Override
 	public List<Row> readUsingSqlAndValues(String sql, List<Object> values) {
-		// TODO Auto-generated method stub
-		return null;
+		readSqls.add(sql);
+		readValuesList.add(values);
+		if (throwErrorOnRead) {
+			throw SqlDatabaseException.withMessage("Error reading from databaseFacadeSpy");
+		}
+		return rowsToReturn;
 	}
 
 	@Override
 	public Row readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values) {
-		// TODO Auto-generated method stub
-		return null;
+		readSqls.add(sql);
+		readValuesList.add(values);
+		return rowToReturn;
 	}
 
 	@Override
@@ -55,7 +67,10 @@ public class DatabaseFacadeSpy implements DatabaseFacade {
 		if (throwErrorInDatabaseFacade) {
 			throw SqlDatabaseException.withMessage("Error from databaseFacadeSpy");
 		}
-		return 0;
+		if (!updateCountsToReturn.isEmpty()) {
+			return updateCountsToReturn.remove(0);
+		}
+		return updateCountToReturn;
 	}
 
 	@Override
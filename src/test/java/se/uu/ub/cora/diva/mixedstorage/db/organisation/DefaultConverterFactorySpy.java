@@ -21,9 +21,11 @@ package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 public class DefaultConverterFactorySpy implements DefaultConverterFactory {
 
 	public DefaultConverter factoredConverter;
+	public int numberOfFactorCalls = 0;
 
 	@Override
 	public DefaultConverter factor() {
+		numberOfFactorCalls++;
 		factoredConverter = new DefaultConverterSpy();
 		return factoredConverter;
 	}
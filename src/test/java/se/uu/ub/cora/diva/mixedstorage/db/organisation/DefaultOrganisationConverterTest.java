@@ -20,6 +20,7 @@ package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -114,8 +115,7 @@ public class DefaultOrganisationConverterTest {
 		assertEquals(factoredDataAtomicForId.nameInData, "id");
 		assertEquals(factoredDataAtomicForId.value, "57");
 
-		DataAtomicSpy selectable = getFactoredDataAtomicByNumber(4);
-		assertEquals(selectable.nameInData, "selectable");
+		DataAtomicSpy selectable = getFactoredSelectable(organisation);
 		assertEquals(selectable.value, "no");
 
 	}
@@ -144,6 +144,14 @@ public class DefaultOrganisationConverterTest {
 		return dataAtomicFactorySpy.factoredDataAtomics.get(noFactored);
 	}
 
+	private DataAtomicSpy getFactoredSelectable(DataGroup organisation) {
+		DataGroup recordInfo = organisation.getFirstGroupWithNameInData("recordInfo");
+		DataAtomicSpy selectable = (DataAtomicSpy) recordInfo
+				.getFirstDataAtomicWithNameInData("selectable");
+		assertTrue(dataAtomicFactorySpy.factoredDataAtomics.contains(selectable));
+		return selectable;
+	}
+
 	@Test
 	public void testMinimalValuesReturnsDataGroupWithCorrectRecordInfoWithSelectableTrue() {
 		rowFromDb.addColumnWithValue("not_eligible", false);
@@ -151,8 +159,7 @@ public class DefaultOrganisationConverterTest {
 		assertEquals(organisation.getNameInData(), "organisation");
 		assertCorrectRecordInfoWithIdAndRecordType(organisation, "57", "rootOrganisation");
 
-		DataAtomicSpy selectable = getFactoredDataAtomicByNumber(4);
-		assertEquals(selectable.nameInData, "selectable");
+		DataAtomicSpy selectable = getFactoredSelectable(organisation);
 		assertEquals(selectable.value, "yes");
 
 	}
@@ -193,19 +200,22 @@ public class DefaultOrganisationConverterTest {
 		DataGroup organisation = converter.fromMap(rowFromDb);
 		assertEquals(organisation.getNameInData(), "organisation");
 
-		assertCorrectValuesForNameWasFactored();
-
 		DataGroup nameGroup = organisation.getFirstGroupWithNameInData("organisationName");
+		assertCorrectValuesForNameWasFactored(nameGroup);
+
 		assertEquals(nameGroup.getFirstAtomicValueWithNameInData("name"), "Java-fakulteten");
 		assertEquals(nameGroup.getFirstAtomicValueWithNameInData("language"), "sv");
 	}
 
-	private void assertCorrectValuesForNameWasFactored() {
-		DataAtomicSpy factoredDataAtomicForName = getFactoredDataAtomicByNumber(5);
-		assertEquals(factoredDataAtomicForName.nameInData, "name");
+	private void assertCorrectValuesForNameWasFactored(DataGroup nameGroup) {
+		DataAtomicSpy factoredDataAtomicForName = (DataAtomicSpy) nameGroup
+				.getFirstDataAtomicWithNameInData("name");
+		assertTrue(dataAtomicFactorySpy.factoredDataAtomics.contains(factoredDataAtomicForName));
 		assertEquals(factoredDataAtomicForName.value, "Java-fakulteten");
-		DataAtomicSpy factoredDataAtomicForLanguage = getFactoredDataAtomicByNumber(6);
-		assertEquals(factoredDataAtomicForLanguage.nameInData, "language");
+		DataAtomicSpy factoredDataAtomicForLanguage = (DataAtomicSpy) nameGroup
+				.getFirstDataAtomicWithNameInData("language");
+		assertTrue(
+				dataAtomicFactorySpy.factoredDataAtomics.contains(factoredDataAtomicForLanguage));
 		assertEquals(factoredDataAtomicForLanguage.value, "sv");
 	}
 
@@ -240,6 +250,51 @@ public class DefaultOrganisationConverterTest {
 
 	}
 
+	@Test
+	public void testNoAtomicsAreSharedBetweenConvertedOrganisations() {
+		rowFromDb.addColumnWithValue("alternative_name", "Java Faculty");
+		DataGroup organisation = converter.fromMap(rowFromDb);
+		int numberOfFactoredAtomics = dataAtomicFactorySpy.factoredDataAtomics.size();
+		DataGroup otherOrganisation = converter.fromMap(rowFromDb);
+
+		DataGroup recordInfo = organisation.getFirstGroupWithNameInData("recordInfo");
+		DataGroup otherRecordInfo = otherOrganisation.getFirstGroupWithNameInData("recordInfo");
+		assertNotSameAtomic(recordInfo, otherRecordInfo, "tsCreated");
+		assertNotSameAtomic(recordInfo, otherRecordInfo, "selectable");
+		assertNotSameAtomic(recordInfo.getFirstGroupWithNameInData("updated"),
+				otherRecordInfo.getFirstGroupWithNameInData("updated"), "tsUpdated");
+		assertNotSameAtomic(organisation.getFirstGroupWithNameInData("organisationAlternativeName"),
+				otherOrganisation.getFirstGroupWithNameInData("organisationAlternativeName"),
+				"language");
+		assertNotSameAtomic(recordInfo, otherRecordInfo, "id");
+
+		int factoredForOtherOrganisation = dataAtomicFactorySpy.factoredDataAtomics.size()
+				- numberOfFactoredAtomics;
+		assertEquals(factoredForOtherOrganisation, 17);
+	}
+
+	private void assertNotSameAtomic(DataGroup dataGroup, DataGroup otherDataGroup,
+			String nameInData) {
+		assertNotSame(dataGroup.getFirstDataAtomicWithNameInData(nameInData),
+				otherDataGroup.getFirstDataAtomicWithNameInData(nameInData));
+	}
+
+	@Test
+	public void testLinksAreCreatedForEachConvertedOrganisation() {
+		DataGroup organisation = converter.fromMap(rowFromDb);
+		DataGroup otherOrganisation = converter.fromMap(rowFromDb);
+
+		DataGroup recordInfo = organisation.getFirstGroupWithNameInData("recordInfo");
+		DataGroup otherRecordInfo = otherOrganisation.getFirstGroupWithNameInData("recordInfo");
+		assertNotSame(recordInfo.getFirstChildWithNameInData("type"),
+				otherRecordInfo.getFirstChildWithNameInData("type"));
+		assertNotSame(recordInfo.getFirstChildWithNameInData("dataDivider"),
+				otherRecordInfo.getFirstChildWithNameInData("dataDivider"));
+		assertNotSame(recordInfo.getFirstGroupWithNameInData("updated"),
+				otherRecordInfo.getFirstGroupWithNameInData("updated"));
+		assertEquals(dataRecordLinkFactorySpy.usedNameInDatas.size(), 8);
+	}
+
 	@Test
 	public void testOrganisationClosedDateMissing() {
 		DataGroup organisation = converter.fromMap(rowFromDb);
@@ -19,10 +19,14 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
@@ -32,7 +36,10 @@ import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslaterSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.RelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.RelatedTableSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 import se.uu.ub.cora.diva.mixedstorage.internal.RelatedTableFactorySpy;
 import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
 
@@ -44,7 +51,7 @@ public class DivaDbOrganisationUpdaterTest {
 	private DataGroup dataGroup;
 	private PreparedStatementExecutorSpy preparedStatementCreator;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
-	private TableFacadeSpy tableFacade;
+	private UnitOfWorkSpy unitOfWork;
 	private DatabaseFacadeSpy databaseFacade;
 
 	@BeforeMethod
@@ -54,8 +61,8 @@ public class DivaDbOrganisationUpdaterTest {
 		relatedTableFactory = new RelatedTableFactorySpy();
 		preparedStatementCreator = new PreparedStatementExecutorSpy();
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
-		tableFacade = new TableFacadeSpy();
-		databaseFacade = new DatabaseFacadeSpy();
+		unitOfWork = new UnitOfWorkSpy();
+		databaseFacade = unitOfWork.databaseFacade;
 		organisationUpdater = new DivaDbOrganisationUpdater(dataTranslater, sqlDatabaseFactory,
 				relatedTableFactory, preparedStatementCreator);
 	}
@@ -74,14 +81,14 @@ public class DivaDbOrganisationUpdaterTest {
 
 	@Test
 	public void testTranslaterConditionsUsedWhenReadingOrganisation() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 		assertEquals(dataTranslater.dataGroup, dataGroup);
 
 		assertEquals(sqlDatabaseFactory.tableNames.get(0), "organisationview");
 
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(0);
+		TableQuerySpy tableQuery = (TableQuerySpy) unitOfWork.tableQueries.get(0);
 		assertNotNull(tableQuery);
-		assertSame(tableFacade.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
+		assertSame(unitOfWork.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
 
 		Map<String, Object> conditions = dataTranslater.getConditions();
 		assertEquals(tableQuery.conditions.get("id"), conditions.get("organisation_id"));
@@ -90,12 +97,12 @@ public class DivaDbOrganisationUpdaterTest {
 
 	@Test
 	public void testAlternativeName() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 
 		assertEquals(sqlDatabaseFactory.tableNames.get(0), "organisationview");
 
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(0);
-		assertSame(tableFacade.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
+		TableQuerySpy tableQuery = (TableQuerySpy) unitOfWork.tableQueries.get(0);
+		assertSame(unitOfWork.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
 
 		Map<String, Object> conditions = dataTranslater.getConditions();
 		assertEquals(tableQuery.conditions.get("id"), conditions.get("organisation_id"));
@@ -105,31 +112,31 @@ public class DivaDbOrganisationUpdaterTest {
 				.get(0);
 
 		assertSame(firstRelatedTable.dataGroup, dataGroup);
-		assertEquals(firstRelatedTable.dbRows, tableFacade.rowsToReturn);
+		assertEquals(firstRelatedTable.dbRows, unitOfWork.rowsToReturn);
 
 	}
 
 	@Test
 	public void testAddress() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 
-		assertSame(tableFacade.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
+		assertSame(unitOfWork.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
 
 		assertEquals(relatedTableFactory.relatedTableNames.get(1), "organisationAddress");
 		RelatedTableSpy addressTable = (RelatedTableSpy) relatedTableFactory.factoredRelatedTables
 				.get(1);
 
 		assertSame(addressTable.dataGroup, dataGroup);
-		assertEquals(addressTable.dbRows, tableFacade.rowsToReturn);
+		assertEquals(addressTable.dbRows, unitOfWork.rowsToReturn);
 	}
 
 	@Test
 	public void testParent() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 
 		assertEquals(sqlDatabaseFactory.tableNames.get(1), "organisation_parent");
 
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(1);
+		TableQuerySpy tableQuery = (TableQuerySpy) unitOfWork.tableQueries.get(1);
 		assertSame(tableQuery, sqlDatabaseFactory.factoredTableQueries.get(1));
 		assertEquals(tableQuery.conditions.get("organisation_id"), 4567);
 
@@ -137,16 +144,16 @@ public class DivaDbOrganisationUpdaterTest {
 				.get(2);
 
 		assertSame(secondRelatedTable.dataGroup, dataGroup);
-		assertEquals(secondRelatedTable.dbRows, tableFacade.rowsToReturn);
+		assertEquals(secondRelatedTable.dbRows, unitOfWork.rowsToReturn);
 
 	}
 
 	@Test
 	public void testPredecessor() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 		assertEquals(sqlDatabaseFactory.tableNames.get(2), "divaorganisationpredecessor");
 
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(2);
+		TableQuerySpy tableQuery = (TableQuerySpy) unitOfWork.tableQueries.get(2);
 		assertSame(tableQuery, sqlDatabaseFactory.factoredTableQueries.get(2));
 		assertEquals(tableQuery.conditions.get("organisation_id"), 4567);
 
@@ -155,12 +162,12 @@ public class DivaDbOrganisationUpdaterTest {
 				.get(3);
 
 		assertSame(thirdRelatedTable.dataGroup, dataGroup);
-		assertEquals(thirdRelatedTable.dbRows, tableFacade.rowsToReturn);
+		assertEquals(thirdRelatedTable.dbRows, unitOfWork.rowsToReturn);
 	}
 
 	@Test
 	public void testSQLConnectionConfiguration() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 		assertTrue(databaseFacade.startTransactionWasCalled);
 		assertTrue(databaseFacade.endTransactionWasCalled);
 	}
@@ -169,7 +176,7 @@ public class DivaDbOrganisationUpdaterTest {
 	public void testConnectionClosedOnSQLException() throws Exception {
 		preparedStatementCreator.throwExceptionOnGenerateStatement = true;
 		try {
-			organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+			organisationUpdater.update(unitOfWork, dataGroup);
 		} catch (Exception sqlException) {
 		}
 		assertTrue(databaseFacade.endTransactionWasCalled);
@@ -179,7 +186,7 @@ public class DivaDbOrganisationUpdaterTest {
 	public void testRollbackOnSQLException() throws Exception {
 		preparedStatementCreator.throwExceptionOnGenerateStatement = true;
 		try {
-			organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+			organisationUpdater.update(unitOfWork, dataGroup);
 		} catch (Exception sqlException) {
 		}
 		assertTrue(databaseFacade.rollbackWasCalled);
@@ -187,7 +194,7 @@ public class DivaDbOrganisationUpdaterTest {
 
 	@Test
 	public void testPreparedStatements() {
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
 		assertTrue(preparedStatementCreator.createWasCalled);
 		assertSame(preparedStatementCreator.databaseFacade, databaseFacade);
 		int orgStatementAndStatmentsFromSpy = 5;
@@ -199,6 +206,141 @@ public class DivaDbOrganisationUpdaterTest {
 			+ "Error executing prepared statement: Error executing statement: error from spy")
 	public void testPreparedStatementThrowsException() {
 		preparedStatementCreator.throwExceptionOnGenerateStatement = true;
-		organisationUpdater.update(tableFacade, databaseFacade, dataGroup);
+		organisationUpdater.update(unitOfWork, dataGroup);
+	}
+
+	@Test
+	public void testUnchangedOrganisationGivesNoUpdateOfOrganisation() {
+		setUpTranslatedValuesAndMatchingRowInView();
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		assertEquals(preparedStatementCreator.dbStatements.size(), 4);
+		for (DbStatement dbStatement : preparedStatementCreator.dbStatements) {
+			assertEquals(dbStatement.getTableName(), "spyTableName");
+		}
+	}
+
+	private void setUpTranslatedValuesAndMatchingRowInView() {
+		Map<String, Object> values = new HashMap<>();
+		values.put("organisation_name", "someName");
+		values.put("organisation_name_locale", "sv");
+		values.put("closed_date", Date.valueOf("2021-03-04"));
+		values.put("orgnumber", null);
+		values.put("show_in_portal", true);
+		values.put("top_level", true);
+		values.put("not_eligible", false);
+		values.put("organisation_type_id", 52);
+		values.put("last_updated", new Timestamp(1000L));
+		dataTranslater.valuesToReturn = values;
+		dataGroup.addChild(new DataAtomicSpy("organisationType", "unit"));
+
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("id", 4567);
+		row.addColumnWithValue("defaultname", "someName");
+		row.addColumnWithValue("organisation_name_locale", "sv");
+		row.addColumnWithValue("closed_date", "2021-03-04");
+		row.addColumnWithValue("orgnumber", null);
+		row.addColumnWithValue("top_level", true);
+		row.addColumnWithValue("not_eligible", false);
+		row.addColumnWithValue("type_code", "unit");
+		unitOfWork.rowsToReturn.add(row);
+	}
+
+	@Test
+	public void testOnlyChangedColumnsAndLastUpdatedAreUpdated() {
+		setUpTranslatedValuesAndMatchingRowInView();
+		dataTranslater.valuesToReturn.put("organisation_name", "someOtherName");
+		dataTranslater.valuesToReturn.put("orgnumber", "555555-5555");
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		assertEquals(preparedStatementCreator.dbStatements.size(), 5);
+		DbStatement organisationStatement = preparedStatementCreator.dbStatements.get(0);
+		assertEquals(organisationStatement.getOperation(), "update");
+		assertEquals(organisationStatement.getTableName(), "organisation");
+		Map<String, Object> values = organisationStatement.getValues();
+		assertEquals(values.size(), 3);
+		assertEquals(values.get("organisation_name"), "someOtherName");
+		assertEquals(values.get("orgnumber"), "555555-5555");
+		assertEquals(values.get("last_updated"), new Timestamp(1000L));
+		assertSame(organisationStatement.getConditions(), dataTranslater.getConditions());
+	}
+
+	@Test
+	public void testChangedOrganisationTypeIsUpdated() {
+		setUpTranslatedValuesAndMatchingRowInView();
+		RowSpy row = (RowSpy) unitOfWork.rowsToReturn.get(0);
+		row.addColumnWithValue("type_code", "faculty");
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		Map<String, Object> values = preparedStatementCreator.dbStatements.get(0).getValues();
+		assertEquals(values.size(), 2);
+		assertEquals(values.get("organisation_type_id"), 52);
+	}
+
+	@Test
+	public void testUnchangedRootOrganisationType() {
+		setUpTranslatedValuesAndMatchingRowInView();
+		DataGroupSpy type = new DataGroupSpy("type");
+		type.addChild(new DataAtomicSpy("linkedRecordId", "rootOrganisation"));
+		dataGroup.getFirstGroupWithNameInData("recordInfo").addChild(type);
+		RowSpy row = (RowSpy) unitOfWork.rowsToReturn.get(0);
+		row.addColumnWithValue("type_code", "root");
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		assertEquals(preparedStatementCreator.dbStatements.size(), 4);
+	}
+
+	@Test
+	public void testColumnMissingInViewIsUpdated() {
+		setUpTranslatedValuesAndMatchingRowInView();
+		dataTranslater.valuesToReturn.put("organisation_homepage", "http://www.uu.se");
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		Map<String, Object> values = preparedStatementCreator.dbStatements.get(0).getValues();
+		assertEquals(values.get("organisation_homepage"), "http://www.uu.se");
+	}
+
+	@Test
+	public void testNothingChangedNoStatementsAreExecuted() {
+		setUpTranslatedValuesAndMatchingRowInView();
+		relatedTableFactory.returnNoDbStatements = true;
+
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		assertFalse(preparedStatementCreator.createWasCalled);
+		assertTrue(databaseFacade.startTransactionWasCalled);
+		assertTrue(databaseFacade.endTransactionWasCalled);
+		assertFalse(databaseFacade.rollbackWasCalled);
+	}
+
+	@Test
+	public void testUnitOfWorkIsUsedByTranslaterAndRelatedTables() {
+		organisationUpdater.update(unitOfWork, dataGroup);
+
+		assertSame(dataTranslater.unitOfWork, unitOfWork);
+		assertEquals(relatedTableFactory.factoredRelatedTables.size(), 4);
+		for (RelatedTable relatedTable : relatedTableFactory.factoredRelatedTables) {
+			assertSame(((RelatedTableSpy) relatedTable).unitOfWork, unitOfWork);
+		}
+		assertEquals(unitOfWork.tableQueries.size(), 3);
+	}
+
+	@Test
+	public void testRollbackWhenReadFails() {
+		sqlDatabaseFactory.tablesToThrowExceptionFor.add("organisation_parent");
+		try {
+			organisationUpdater.update(unitOfWork, dataGroup);
+		} catch (SqlDatabaseException e) {
+			assertEquals(e.getMessage(), "Error from spy for table organisation_parent");
+		}
+		assertTrue(databaseFacade.startTransactionWasCalled);
+		assertTrue(databaseFacade.rollbackWasCalled);
+		assertTrue(databaseFacade.endTransactionWasCalled);
+		assertFalse(preparedStatementCreator.createWasCalled);
 	}
 }
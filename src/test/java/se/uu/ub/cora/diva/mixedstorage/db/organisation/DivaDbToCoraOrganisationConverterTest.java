@@ -100,6 +100,23 @@ public class DivaDbToCoraOrganisationConverterTest {
 
 	}
 
+	@Test
+	public void testDefaultConverterIsFactoredOnceForAllRows() {
+		RowSpy otherRowFromDb = new RowSpy();
+		otherRowFromDb.addColumnWithValue("id", 58);
+		otherRowFromDb.addColumnWithValue("type_code", "unit");
+		otherRowFromDb.addColumnWithValue("top_level", false);
+
+		converter.fromRow(rowFromDb);
+		DataGroup otherOrganisation = converter.fromRow(otherRowFromDb);
+
+		assertEquals(converterFactory.numberOfFactorCalls, 1);
+		DefaultConverterSpy factoredConverter = (DefaultConverterSpy) converterFactory
+				.factoredConverter;
+		assertSame(factoredConverter.rowFromDb, otherRowFromDb);
+		assertSame(otherOrganisation, factoredConverter.returnedDataGroup);
+	}
+
 	@Test
 	public void testRootDoesNotIncludeMoreThanDefault() {
 		rowFromDb.addColumnWithValue("type_code", "root");
@@ -19,12 +19,16 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -32,6 +36,7 @@ import org.testng.annotations.Test;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterSpy;
+import se.uu.ub.cora.sqldatabase.Row;
 
 public class MultipleRowDbToDataParentReaderTest {
 
@@ -91,7 +96,7 @@ public class MultipleRowDbToDataParentReaderTest {
 
 		List<DataGroup> readParents = parentReader.read(tableFacade, TABLE_NAME, "567");
 		assertTrue(readParents.isEmpty());
-		assertTrue(converterFactory.factoredConverters.isEmpty());
+		assertTrue(converterFactory.factoredConverters.get(0).rowsToConvert.isEmpty());
 	}
 
 	@Test
@@ -110,11 +115,9 @@ public class MultipleRowDbToDataParentReaderTest {
 		parentReader.read(tableFacade, TABLE_NAME, "567");
 
 		List<DivaDbToCoraConverterSpy> factoredConverters = converterFactory.factoredConverters;
-		DivaDbToCoraConverterSpy divaDbToCoraConverter = factoredConverters.get(0);
-		assertNotNull(divaDbToCoraConverter.rowToConvert);
-		assertEquals(factoredConverters.get(0).rowToConvert, tableFacade.rowsToReturn.get(0));
-		assertEquals(factoredConverters.get(1).rowToConvert, tableFacade.rowsToReturn.get(1));
-		assertEquals(factoredConverters.get(2).rowToConvert, tableFacade.rowsToReturn.get(2));
+		assertEquals(factoredConverters.size(), 1);
+		List<Row> rowsToConvert = factoredConverters.get(0).rowsToConvert;
+		assertEquals(rowsToConvert, tableFacade.rowsToReturn);
 	}
 
 	@Test
@@ -128,4 +131,83 @@ public class MultipleRowDbToDataParentReaderTest {
 		assertEquals(readParents.get(1).getRepeatId(), "1");
 		assertEquals(readParents.get(2).getRepeatId(), "2");
 	}
+
+	@Test
+	public void testReadForIdsReadsAllIdsInOneQuery() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		parentReader.readForIds(databaseFacade, List.of("567", "123", "765"));
+
+		assertEquals(databaseFacade.readSqls.size(), 1);
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from divaOrganisationParent where organisation_id in (?, ?, ?)");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(567, 123, 765));
+	}
+
+	@Test
+	public void testReadForIdsGroupsConvertedRowsById() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		RowSpy firstRowFor567 = createAndAddRowToReturn(databaseFacade, 567);
+		RowSpy rowFor123 = createAndAddRowToReturn(databaseFacade, 123);
+		RowSpy secondRowFor567 = createAndAddRowToReturn(databaseFacade, 567);
+
+		Map<String, List<DataGroup>> readParents = parentReader.readForIds(databaseFacade,
+				List.of("567", "123", "765"));
+
+		assertEquals(readParents.size(), 2);
+		assertFalse(readParents.containsKey("765"));
+		List<DataGroup> parentsFor567 = readParents.get("567");
+		assertEquals(parentsFor567.size(), 2);
+		assertEquals(parentsFor567.get(0).getRepeatId(), "0");
+		assertEquals(parentsFor567.get(1).getRepeatId(), "1");
+		assertEquals(readParents.get("123").get(0).getRepeatId(), "0");
+
+		List<DivaDbToCoraConverterSpy> factoredConverters = converterFactory.factoredConverters;
+		assertEquals(factoredConverters.size(), 1);
+		assertEquals(converterFactory.factoredTypes.get(0), TABLE_NAME);
+		assertRowWasConvertedToDataGroup(firstRowFor567, parentsFor567.get(0));
+		assertRowWasConvertedToDataGroup(secondRowFor567, parentsFor567.get(1));
+		assertRowWasConvertedToDataGroup(rowFor123, readParents.get("123").get(0));
+	}
+
+	private RowSpy createAndAddRowToReturn(DatabaseFacadeSpy databaseFacade, int organisationId) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_id", organisationId);
+		databaseFacade.rowsToReturn.add(row);
+		return row;
+	}
+
+	private void assertRowWasConvertedToDataGroup(RowSpy row, DataGroup dataGroup) {
+		DivaDbToCoraConverterSpy converter = converterFactory.factoredConverters.get(0);
+		int index = converter.rowsToConvert.indexOf(row);
+		if (index == -1) {
+			fail("row was not converted");
+		}
+		assertSame(converter.convertedDataGroups.get(index), dataGroup);
+	}
+
+	@Test
+	public void testReadForIdsSplitsLargeNumberOfIdsIntoSeveralQueries() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 2001; i++) {
+			ids.add(String.valueOf(i));
+		}
+		parentReader.readForIds(databaseFacade, ids);
+
+		assertEquals(databaseFacade.readSqls.size(), 3);
+		assertEquals(databaseFacade.readValuesList.get(0).size(), 1000);
+		assertEquals(databaseFacade.readValuesList.get(1).size(), 1000);
+		assertEquals(databaseFacade.readValuesList.get(2).size(), 1);
+		assertEquals(databaseFacade.readValuesList.get(2).get(0), 2000);
+	}
+
+	@Test
+	public void testReadForIdsNoIds() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		Map<String, List<DataGroup>> readParents = parentReader.readForIds(databaseFacade,
+				Collections.emptyList());
+
+		assertTrue(readParents.isEmpty());
+		assertTrue(databaseFacade.readSqls.isEmpty());
+	}
 }
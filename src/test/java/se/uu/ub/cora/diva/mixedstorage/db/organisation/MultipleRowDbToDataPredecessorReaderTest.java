@@ -25,6 +25,7 @@ import static org.testng.Assert.assertTrue;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -32,6 +33,7 @@ import org.testng.annotations.Test;
 import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterSpy;
+import se.uu.ub.cora.sqldatabase.Row;
 
 public class MultipleRowDbToDataPredecessorReaderTest {
 
@@ -92,7 +94,7 @@ public class MultipleRowDbToDataPredecessorReaderTest {
 
 		List<DataGroup> readPredecessors = predecessorReader.read(tableFacade, TABLE_NAME, "567");
 		assertTrue(readPredecessors.isEmpty());
-		assertTrue(converterFactory.factoredConverters.isEmpty());
+		assertTrue(converterFactory.factoredConverters.get(0).rowsToConvert.isEmpty());
 	}
 
 	@Test
@@ -112,11 +114,9 @@ public class MultipleRowDbToDataPredecessorReaderTest {
 		predecessorReader.read(tableFacade, TABLE_NAME, "567");
 
 		List<DivaDbToCoraConverterSpy> factoredConverters = converterFactory.factoredConverters;
-		DivaDbToCoraConverterSpy divaDbToCoraConverter = factoredConverters.get(0);
-		assertNotNull(divaDbToCoraConverter.rowToConvert);
-		assertEquals(factoredConverters.get(0).rowToConvert, tableFacade.rowsToReturn.get(0));
-		assertEquals(factoredConverters.get(1).rowToConvert, tableFacade.rowsToReturn.get(1));
-		assertEquals(factoredConverters.get(2).rowToConvert, tableFacade.rowsToReturn.get(2));
+		assertEquals(factoredConverters.size(), 1);
+		List<Row> rowsToConvert = factoredConverters.get(0).rowsToConvert;
+		assertEquals(rowsToConvert, tableFacade.rowsToReturn);
 	}
 
 	@Test
@@ -130,4 +130,38 @@ public class MultipleRowDbToDataPredecessorReaderTest {
 		assertEquals(readPredecessors.get(1).getRepeatId(), "1");
 		assertEquals(readPredecessors.get(2).getRepeatId(), "2");
 	}
+
+	@Test
+	public void testReadForIdsReadsAllIdsInOneQuery() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		predecessorReader.readForIds(databaseFacade, List.of("567", "123"));
+
+		assertEquals(databaseFacade.readSqls.size(), 1);
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from divaOrganisationPredecessor where organisation_id in (?, ?)");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(567, 123));
+	}
+
+	@Test
+	public void testReadForIdsGroupsConvertedRowsById() throws Exception {
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		createAndAddRowToReturn(databaseFacade, 567);
+		createAndAddRowToReturn(databaseFacade, 567);
+
+		Map<String, List<DataGroup>> readPredecessors = predecessorReader
+				.readForIds(databaseFacade, List.of("567", "123"));
+
+		assertEquals(readPredecessors.size(), 1);
+		List<DataGroup> predecessorsFor567 = readPredecessors.get("567");
+		assertEquals(predecessorsFor567.size(), 2);
+		assertEquals(predecessorsFor567.get(0).getRepeatId(), "0");
+		assertEquals(predecessorsFor567.get(1).getRepeatId(), "1");
+		assertEquals(converterFactory.factoredTypes.get(0), TABLE_NAME);
+	}
+
+	private void createAndAddRowToReturn(DatabaseFacadeSpy databaseFacade, int organisationId) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_id", organisationId);
+		databaseFacade.rowsToReturn.add(row);
+	}
 }
@@ -19,6 +19,7 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -33,6 +34,8 @@ import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocatorSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 import se.uu.ub.cora.sqldatabase.DatabaseValues;
 import se.uu.ub.cora.sqldatabase.Row;
 
@@ -41,12 +44,12 @@ public class OrganisationAddressRelatedTableTest {
 	private OrganisationAddressRelatedTable address;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
 	private List<Row> rowsFromDb;
-	private TableFacadeSpy tableFacade;
+	private UnitOfWorkSpy unitOfWork;
 
 	@BeforeMethod
 	public void setUp() {
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
-		tableFacade = new TableFacadeSpy();
+		unitOfWork = new UnitOfWorkSpy();
 		initOrganisationRows();
 
 		address = new OrganisationAddressRelatedTable(sqlDatabaseFactory);
@@ -71,7 +74,8 @@ public class OrganisationAddressRelatedTableTest {
 	public void testNoAddressInDataGroupNoAddressInDatabase() {
 		DataGroup organisation = createDataGroupWithId("678");
 		setUpOrganisationRowWithoutAddress();
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertTrue(dbStatements.isEmpty());
 	}
 
@@ -100,7 +104,8 @@ public class OrganisationAddressRelatedTableTest {
 	}
 
 	private void assertCorrectUpdateAndDeleteOfAddress(int organisationId, DataGroup organisation) {
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 2);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectUpdateOrganisationAddressSetToNull(organisationId, dbStatement);
@@ -148,7 +153,8 @@ public class OrganisationAddressRelatedTableTest {
 		addressGroup.addChild(new DataAtomicSpy("city", "City of rock and roll"));
 		organisation.addChild(addressGroup);
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -193,7 +199,8 @@ public class OrganisationAddressRelatedTableTest {
 		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
 		addressGroup.addChild(new DataAtomicSpy("street", "Hill street"));
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -207,7 +214,8 @@ public class OrganisationAddressRelatedTableTest {
 
 		addressGroup.addChild(new DataAtomicSpy("box", "box21"));
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -219,7 +227,8 @@ public class OrganisationAddressRelatedTableTest {
 		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
 		addressGroup.addChild(new DataAtomicSpy("postcode", "90210"));
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -231,7 +240,8 @@ public class OrganisationAddressRelatedTableTest {
 		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
 		addressGroup.addChild(new DataAtomicSpy("country", "SE"));
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -248,7 +258,8 @@ public class OrganisationAddressRelatedTableTest {
 		addressGroup.addChild(new DataAtomicSpy("box", "box21"));
 		addressGroup.addChild(new DataAtomicSpy("street", "Hill street"));
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertCorrectDataForAddressUpdate(organisation, dbStatement, 4);
@@ -262,18 +273,18 @@ public class OrganisationAddressRelatedTableTest {
 		addressGroup.addChild(new DataAtomicSpy("box", "box21"));
 		setUpOrganisationRowWithoutAddress();
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 2);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.sequenceName, "address_sequence");
+		assertEquals(unitOfWork.sequenceNames, List.of("address_sequence"));
 
 		assertCorrectDataForAddressInsert(organisation, dbStatements.get(0), 4,
-				tableFacade.nextVal);
+				unitOfWork.nextVal);
 
 		DbStatement orgUpdateStatement = dbStatements.get(1);
 		assertCorrectOperationTableAndConditionForUpdateOrg(organisationId, orgUpdateStatement);
-		assertTrue(tableFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 	}
 
 	@Test
@@ -287,18 +298,18 @@ public class OrganisationAddressRelatedTableTest {
 		row.addColumnWithValue("address_id", DatabaseValues.NULL);
 		rowsFromDb.add(row);
 
-		List<DbStatement> dbStatements = address.handleDbForDataGroup(organisation, rowsFromDb);
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
 		assertEquals(dbStatements.size(), 2);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.sequenceName, "address_sequence");
+		assertEquals(unitOfWork.sequenceNames, List.of("address_sequence"));
 
 		assertCorrectDataForAddressInsert(organisation, dbStatements.get(0), 4,
-				tableFacade.nextVal);
+				unitOfWork.nextVal);
 
 		DbStatement orgUpdateStatement = dbStatements.get(1);
 		assertCorrectOperationTableAndConditionForUpdateOrg(organisationId, orgUpdateStatement);
-		assertTrue(tableFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 	}
 
 	private DataGroup createAddressGroupAndAddToOrganisation(DataGroup organisation) {
@@ -315,4 +326,66 @@ public class OrganisationAddressRelatedTableTest {
 		assertEquals(values.get("address_id"), nextVal);
 		assertCorrectCommonValuesForUpdateAndInsert(organisation, dbStatement);
 	}
+
+	@Test
+	public void testUnchangedAddressInDataGroupAndAddressInDatabase() {
+		DataGroup organisation = createDataGroupWithId("678");
+		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
+		addressGroup.addChild(new DataAtomicSpy("city", "City of rock and roll"));
+		addressGroup.addChild(new DataAtomicSpy("country", "SE"));
+		addressGroup.addChild(new DataAtomicSpy("postcode", "90210"));
+		setUpOrganisationRowWithCompleteAddress();
+
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
+
+		assertTrue(dbStatements.isEmpty());
+	}
+
+	private void setUpOrganisationRowWithCompleteAddress() {
+		RowSpy row = (RowSpy) rowsFromDb.get(0);
+		row.addColumnWithValue("city", "City of rock and roll");
+		row.addColumnWithValue("street", null);
+		row.addColumnWithValue("postbox", "");
+		row.addColumnWithValue("postnumber", "90210");
+		row.addColumnWithValue("country_code", "se");
+	}
+
+	@Test
+	public void testChangedAddressInDataGroupAndAddressInDatabase() {
+		DataGroup organisation = createDataGroupWithId("678");
+		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
+		addressGroup.addChild(new DataAtomicSpy("city", "City of rock and roll"));
+		addressGroup.addChild(new DataAtomicSpy("country", "SE"));
+		addressGroup.addChild(new DataAtomicSpy("postcode", "90210"));
+		addressGroup.addChild(new DataAtomicSpy("street", "Hill street"));
+		setUpOrganisationRowWithCompleteAddress();
+
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
+
+		assertEquals(dbStatements.size(), 1);
+		assertCorrectDataForAddressUpdate(organisation, dbStatements.get(0), 4);
+	}
+
+	@Test
+	public void testAddressInsertUsesSequenceAllocator() {
+		SequenceAllocatorSpy sequenceAllocator = new SequenceAllocatorSpy();
+		address = new OrganisationAddressRelatedTable(sqlDatabaseFactory, sequenceAllocator);
+		DataGroup organisation = createDataGroupWithId("678");
+		DataGroup addressGroup = createAddressGroupAndAddToOrganisation(organisation);
+		addressGroup.addChild(new DataAtomicSpy("box", "box21"));
+		setUpOrganisationRowWithoutAddress();
+
+		List<DbStatement> dbStatements = address.handleDbForDataGroup(unitOfWork, organisation,
+				rowsFromDb);
+
+		assertSame(address.getSequenceAllocator(), sequenceAllocator);
+		assertEquals(sequenceAllocator.sequenceNames, List.of("address_sequence"));
+		assertSame(sequenceAllocator.unitOfWorks.get(0), unitOfWork);
+		long addressId = sequenceAllocator.returnedValues.get(0);
+		assertEquals(dbStatements.get(0).getValues().get("address_id"), addressId);
+		assertEquals(dbStatements.get(1).getValues().get("address_id"), addressId);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+	}
 }
@@ -28,6 +28,7 @@ import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslater;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 
 public class OrganisationAlternativeNameDataToDbTranslaterTest {
 
@@ -37,7 +38,7 @@ public class OrganisationAlternativeNameDataToDbTranslaterTest {
 		addAlternativeName(organisation, "someAlternativeName");
 
 		OrganisationAlternativeNameDataToDbTranslater translater = new OrganisationAlternativeNameDataToDbTranslater();
-		translater.translate(organisation);
+		translater.translate(new UnitOfWorkSpy(), organisation);
 		assertEquals(translater.getValues().get("organisation_name"), "someAlternativeName");
 		assertEquals(translater.getValues().get("locale"), "en");
 		assertEquals(translater.getValues().get("organisation_id"), 45);
@@ -64,7 +65,7 @@ public class OrganisationAlternativeNameDataToDbTranslaterTest {
 		DataGroup organisation = createDataGroupWithId("notAnInt");
 
 		DataToDbTranslater translater = new OrganisationAlternativeNameDataToDbTranslater();
-		translater.translate(organisation);
+		translater.translate(new UnitOfWorkSpy(), organisation);
 
 	}
 
@@ -74,7 +75,7 @@ public class OrganisationAlternativeNameDataToDbTranslaterTest {
 		DataGroup organisation = createDataGroupWithId("45");
 		addAlternativeName(organisation, "someAlternativeName");
 
-		translater.translate(organisation);
+		translater.translate(new UnitOfWorkSpy(), organisation);
 		assertEquals(translater.getValues().get("organisation_name"), "someAlternativeName");
 		assertEquals(translater.getValues().get("locale"), "en");
 		assertEquals(translater.getValues().get("organisation_id"), 45);
@@ -82,7 +83,7 @@ public class OrganisationAlternativeNameDataToDbTranslaterTest {
 
 		DataGroup organisation2 = createDataGroupWithId("450");
 		addAlternativeName(organisation2, "someAlternativeName");
-		translater.translate(organisation2);
+		translater.translate(new UnitOfWorkSpy(), organisation2);
 		assertEquals(translater.getValues().size(), 3);
 
 		assertEquals(translater.getValues().get("organisation_id"), 450);
@@ -19,6 +19,7 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -37,6 +38,8 @@ import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocatorSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 import se.uu.ub.cora.sqldatabase.Row;
 
 public class OrganisationAlternativeNameRelatedTableTest {
@@ -44,10 +47,12 @@ public class OrganisationAlternativeNameRelatedTableTest {
 	private OrganisationAlternativeNameRelatedTable alternativeName;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
 	private List<Row> rowsFromDb;
+	private UnitOfWorkSpy unitOfWork;
 
 	@BeforeMethod
 	public void setUp() {
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		unitOfWork = new UnitOfWorkSpy();
 		initAlternativeNameRows();
 		alternativeName = new OrganisationAlternativeNameRelatedTable(sqlDatabaseFactory);
 	}
@@ -72,7 +77,7 @@ public class OrganisationAlternativeNameRelatedTableTest {
 			+ "Organisation must have alternative name")
 	public void testNoNameInDataGroupThrowsException() {
 		DataGroup organisation = createDataGroupWithId("678");
-		alternativeName.handleDbForDataGroup(organisation, rowsFromDb);
+		alternativeName.handleDbForDataGroup(unitOfWork, organisation, rowsFromDb);
 	}
 
 	private DataGroup createDataGroupWithId(String id) {
@@ -90,7 +95,7 @@ public class OrganisationAlternativeNameRelatedTableTest {
 		DataGroupSpy alternativeNameGroup = new DataGroupSpy("organisationAlternativeName");
 		organisation.addChild(alternativeNameGroup);
 
-		alternativeName.handleDbForDataGroup(organisation, rowsFromDb);
+		alternativeName.handleDbForDataGroup(unitOfWork, organisation, rowsFromDb);
 	}
 
 	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
@@ -101,7 +106,7 @@ public class OrganisationAlternativeNameRelatedTableTest {
 		RowSpy secondRow = new RowSpy();
 		secondRow.addColumnWithValue("organisation_name_id", 234234);
 		rowsFromDb.add(secondRow);
-		alternativeName.handleDbForDataGroup(organisation, rowsFromDb);
+		alternativeName.handleDbForDataGroup(unitOfWork, organisation, rowsFromDb);
 	}
 
 	@Test
@@ -109,8 +114,8 @@ public class OrganisationAlternativeNameRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addAlternativeName(organisation, "some english name");
 
-		List<DbStatement> dbStatments = alternativeName.handleDbForDataGroup(organisation,
-				rowsFromDb);
+		List<DbStatement> dbStatments = alternativeName.handleDbForDataGroup(unitOfWork,
+				organisation, rowsFromDb);
 		assertEquals(dbStatments.size(), 0);
 	}
 
@@ -120,8 +125,8 @@ public class OrganisationAlternativeNameRelatedTableTest {
 		String newAlternativeName = "some other english name";
 		addAlternativeName(organisation, newAlternativeName);
 
-		List<DbStatement> dbStatements = alternativeName.handleDbForDataGroup(organisation,
-				rowsFromDb);
+		List<DbStatement> dbStatements = alternativeName.handleDbForDataGroup(unitOfWork,
+				organisation, rowsFromDb);
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
 		assertEquals(dbStatement.getOperation(), "update");
@@ -166,11 +171,10 @@ public class OrganisationAlternativeNameRelatedTableTest {
 		alternativeNameGroup.addChild(new DataAtomicSpy("language", "en"));
 		organisation.addChild(alternativeNameGroup);
 
-		List<DbStatement> dbStatements = alternativeName.handleDbForDataGroup(organisation,
-				Collections.emptyList());
+		List<DbStatement> dbStatements = alternativeName.handleDbForDataGroup(unitOfWork,
+				organisation, Collections.emptyList());
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.sequenceName, "name_sequence");
+		assertEquals(unitOfWork.sequenceNames, List.of("name_sequence"));
 
 		assertEquals(dbStatements.size(), 1);
 		DbStatement dbStatement = dbStatements.get(0);
@@ -179,7 +183,7 @@ public class OrganisationAlternativeNameRelatedTableTest {
 
 		Map<String, Object> values = dbStatement.getValues();
 
-		assertEquals(values.get("organisation_name_id"), tableFacade.nextVal);
+		assertEquals(values.get("organisation_name_id"), unitOfWork.nextVal);
 
 		assertEquals(values.get("locale"), "en");
 		assertEquals(values.get("organisation_id"), 678);
@@ -191,6 +195,28 @@ public class OrganisationAlternativeNameRelatedTableTest {
 
 		assertTrue(dbStatement.getConditions().isEmpty());
 
-		assertTrue(tableFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+	}
+
+	@Test
+	public void testNoNameInDbButNameInDataGroupUsesSequenceAllocator() {
+		SequenceAllocatorSpy sequenceAllocator = new SequenceAllocatorSpy();
+		alternativeName = new OrganisationAlternativeNameRelatedTable(sqlDatabaseFactory,
+				sequenceAllocator);
+		DataGroup organisation = createDataGroupWithId("678");
+		DataGroupSpy alternativeNameGroup = new DataGroupSpy("organisationAlternativeName");
+		alternativeNameGroup.addChild(new DataAtomicSpy("name", "some english name"));
+		alternativeNameGroup.addChild(new DataAtomicSpy("language", "en"));
+		organisation.addChild(alternativeNameGroup);
+
+		List<DbStatement> dbStatements = alternativeName.handleDbForDataGroup(unitOfWork,
+				organisation, Collections.emptyList());
+
+		assertSame(alternativeName.getSequenceAllocator(), sequenceAllocator);
+		assertEquals(sequenceAllocator.sequenceNames, List.of("name_sequence"));
+		assertSame(sequenceAllocator.unitOfWorks.get(0), unitOfWork);
+		assertEquals(dbStatements.get(0).getValues().get("organisation_name_id"),
+				sequenceAllocator.returnedValues.get(0));
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 	}
 }
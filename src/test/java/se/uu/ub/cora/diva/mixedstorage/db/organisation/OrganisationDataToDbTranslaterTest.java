@@ -20,12 +20,14 @@ package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -35,22 +37,37 @@ import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DataToDbTranslater;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 
 public class OrganisationDataToDbTranslaterTest {
 
 	private DataToDbTranslater translater;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private OrganisationTypeIndex organisationTypeIndex;
+	private UnitOfWorkSpy unitOfWork;
 
 	@BeforeMethod
 	public void setUp() {
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
-		translater = new OrganisationDataToDbTranslater(sqlDatabaseFactory);
+		unitOfWork = new UnitOfWorkSpy();
+		RowSpy organisationTypeRow = unitOfWork.createAndAddRowToReturn("organisation_type_id",
+				52);
+		organisationTypeRow.addColumnWithValue("organisation_type_code", "unit");
+		organisationTypeIndex = OrganisationTypeIndex
+				.usingSqlDatabaseFactoryAndMaxAge(sqlDatabaseFactory, Duration.ofHours(1));
+		translater = new OrganisationDataToDbTranslater(organisationTypeIndex);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(((OrganisationDataToDbTranslater) translater).getOrganisationTypeIndex(),
+				organisationTypeIndex);
 	}
 
 	@Test
 	public void testConditions() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("56", "subOrganisation", "unit");
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 56);
 	}
 
@@ -83,7 +100,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testLastUpdated() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 
@@ -98,7 +115,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationNameInValues() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("organisation_name_locale"), "sv");
@@ -112,7 +129,7 @@ public class OrganisationDataToDbTranslaterTest {
 		dataGroup.addChild(new DataAtomicSpy("organisationNumber", "78979-45654"));
 		dataGroup.addChild(new DataAtomicSpy("URL", "www.someaddress.se"));
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 
@@ -128,7 +145,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testUpdateEmptyDataAtomicsAreSetToNullInQuery() throws Exception {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 
@@ -142,7 +159,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testValuesAndConditionsAreOverwrittenWhenNewTranslateIsCalled() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().size(), 1);
 		assertEquals(translater.getValues().size(), 12);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
@@ -155,7 +172,7 @@ public class OrganisationDataToDbTranslaterTest {
 		nameGroup.removeFirstChildWithNameInData("name");
 		nameGroup.addChild(new DataAtomicSpy("name", "someOtherChangedName"));
 
-		translater.translate(dataGroup2);
+		translater.translate(unitOfWork, dataGroup2);
 		assertEquals(translater.getConditions().size(), 1);
 		assertEquals(translater.getValues().size(), 12);
 
@@ -170,7 +187,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testUpdateOrganisationIdNotAnInt() throws Exception {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("notAnInt", "subOrganisation",
 				"unit");
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 
 	}
 
@@ -180,7 +197,7 @@ public class OrganisationDataToDbTranslaterTest {
 		DataGroup recordInfo = dataGroup.getFirstGroupWithNameInData("recordInfo");
 		recordInfo.addChild(new DataAtomicSpy("selectable", "no"));
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("not_eligible"), true);
@@ -192,7 +209,7 @@ public class OrganisationDataToDbTranslaterTest {
 		DataGroup recordInfo = dataGroup.getFirstGroupWithNameInData("recordInfo");
 		recordInfo.addChild(new DataAtomicSpy("selectable", "yes"));
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("not_eligible"), false);
@@ -202,7 +219,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationShowInPortalTrueWhenTopOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "topOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("show_in_portal"), true);
@@ -219,7 +236,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationShowInPortalFalseWhenSubOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("show_in_portal"), false);
@@ -229,7 +246,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationShowInPortalFalseWhenRootOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "rootOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("show_in_portal"), false);
@@ -240,7 +257,7 @@ public class OrganisationDataToDbTranslaterTest {
 		DataGroup dataGroup = createDataGroupAddChildWithNameInDataAndValue("doctoralDegreeGrantor",
 				"yes");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("show_in_defence"), true);
@@ -251,7 +268,7 @@ public class OrganisationDataToDbTranslaterTest {
 		DataGroup dataGroup = createDataGroupAddChildWithNameInDataAndValue("doctoralDegreeGrantor",
 				"no");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("show_in_defence"), false);
@@ -261,7 +278,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationTopLevelTrueForTopOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "topOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("top_level"), true);
@@ -271,7 +288,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationTopLevelFalseForSubOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("top_level"), false);
@@ -281,7 +298,7 @@ public class OrganisationDataToDbTranslaterTest {
 	public void testOrganisationTopLevelFalseForRootOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "rootOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertEquals(translater.getValues().get("organisation_name"), "someChangedName");
 		assertEquals(translater.getValues().get("top_level"), false);
@@ -289,12 +306,9 @@ public class OrganisationDataToDbTranslaterTest {
 
 	@Test
 	public void testOrganisationTypeWhenSubOrganisation() {
-		sqlDatabaseFactory.createAndAddRowToReturn("organisation_type_id", 52);
-		translater = new OrganisationDataToDbTranslater(sqlDatabaseFactory);
-
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getConditions().get("organisation_id"), 45);
 		assertOrgTypeIsReadFromDbAndUsed();
 	}
@@ -302,21 +316,32 @@ public class OrganisationDataToDbTranslaterTest {
 	private void assertOrgTypeIsReadFromDbAndUsed() {
 		assertEquals(sqlDatabaseFactory.tableName, "organisation_type");
 		TableQuerySpy tableQuery = sqlDatabaseFactory.factoredTableQuery;
-		assertEquals(tableQuery.conditions.get("organisation_type_code"), "unit");
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertSame(tableFacade.tableQueries.get(0), tableQuery);
+		assertSame(unitOfWork.tableQueries.get(0), tableQuery);
 
 		assertEquals(translater.getValues().get("organisation_type_id"), 52);
 
-		assertTrue(tableFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertNull(sqlDatabaseFactory.factoredDatabaseFacade);
 
 	}
 
+	@Test
+	public void testOrganisationTypeIsOnlyReadOnce() {
+		translater.translate(unitOfWork,
+				createDataGroupWithIdTypeAndOrgType("45", "subOrganisation", "unit"));
+		translater.translate(unitOfWork,
+				createDataGroupWithIdTypeAndOrgType("46", "subOrganisation", "unit"));
+
+		assertEquals(sqlDatabaseFactory.tableNames.size(), 1);
+		assertEquals(unitOfWork.tableQueries.size(), 1);
+		assertEquals(translater.getValues().get("organisation_type_id"), 52);
+	}
+
 	@Test
 	public void testOrganisationTypeWhenRootOrganisation() {
 		DataGroup dataGroup = createDataGroupWithIdTypeAndOrgType("45", "rootOrganisation", "unit");
 
-		translater.translate(dataGroup);
+		translater.translate(unitOfWork, dataGroup);
 		assertEquals(translater.getValues().get("organisation_type_id"), 49);
 	}
 
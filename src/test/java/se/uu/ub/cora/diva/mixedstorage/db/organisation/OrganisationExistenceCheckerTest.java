@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class OrganisationExistenceCheckerTest {
+
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private ClockSpy clock;
+	private OrganisationExistenceChecker checker;
+
+	@BeforeMethod
+	public void setUp() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		setExistsToReturnFromDb(true);
+		clock = new ClockSpy();
+		checker = OrganisationExistenceChecker.usingSqlDatabaseFactoryMaxSizeMaxAgesAndClock(
+				sqlDatabaseFactory, 2, Duration.ofMinutes(10), Duration.ofSeconds(30), clock);
+	}
+
+	private void setExistsToReturnFromDb(boolean exists) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_exists", exists);
+		sqlDatabaseFactory.rowToReturnFromDatabaseFacade = row;
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(checker.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(checker.getExistingCache().getMaxSize(), 2);
+		assertEquals(checker.getNonExistingCache().getMaxSize(), 2);
+		assertEquals(checker.getExistingCache().getMaxAge(), Duration.ofMinutes(10));
+		assertEquals(checker.getNonExistingCache().getMaxAge(), Duration.ofSeconds(30));
+	}
+
+	@Test
+	public void testDefaultClock() {
+		checker = OrganisationExistenceChecker.usingSqlDatabaseFactoryMaxSizeAndMaxAges(
+				sqlDatabaseFactory, 2, Duration.ofMinutes(10), Duration.ofSeconds(30));
+
+		assertTrue(checker.organisationExistsInView("organisationview", "26"));
+		assertTrue(checker.organisationExistsInView("organisationview", "26"));
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+	}
+
+	@Test
+	public void testExistsIsReadUsingExistsQuery() {
+		boolean exists = checker.organisationExistsInView("suborganisationview", "26");
+
+		assertTrue(exists);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.get(0), "select exists(select 1 from "
+				+ "suborganisationview where id = ?) as organisation_exists");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(26));
+		assertTrue(databaseFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+	}
+
+	@Test
+	public void testNotExists() {
+		setExistsToReturnFromDb(false);
+
+		assertFalse(checker.organisationExistsInView("organisationview", "600"));
+	}
+
+	@Test
+	public void testIdsThatAreNotIntegersDoNotExist() {
+		assertFalse(checker.organisationExistsInView("organisationview", "notAnInt"));
+		assertFalse(checker.organisationExistsInView("organisationview", "-1"));
+		assertFalse(checker.organisationExistsInView("organisationview", ""));
+		assertFalse(checker.organisationExistsInView("organisationview", null));
+		assertFalse(checker.organisationExistsInView("organisationview", "2147483648"));
+
+		assertTrue(sqlDatabaseFactory.factoredDatabaseFacades.isEmpty());
+	}
+
+	@Test
+	public void testLargestIntegerIsRead() {
+		assertTrue(checker.organisationExistsInView("organisationview", "2147483647"));
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacade.readValuesList.get(0),
+				List.of(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testExistingIsAnsweredFromCacheUntilMaxAge() {
+		checker.organisationExistsInView("organisationview", "26");
+		setExistsToReturnFromDb(false);
+		clock.advance(Duration.ofMinutes(10));
+
+		assertTrue(checker.organisationExistsInView("organisationview", "26"));
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+
+		clock.advance(Duration.ofSeconds(1));
+
+		assertFalse(checker.organisationExistsInView("organisationview", "26"));
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+		assertEquals(checker.getExistingCache().getExpirationCount(), 1);
+	}
+
+	@Test
+	public void testNonExistingIsAnsweredFromCacheUntilMaxAge() {
+		setExistsToReturnFromDb(false);
+		checker.organisationExistsInView("organisationview", "600");
+		setExistsToReturnFromDb(true);
+		clock.advance(Duration.ofSeconds(30));
+
+		assertFalse(checker.organisationExistsInView("organisationview", "600"));
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+
+		clock.advance(Duration.ofSeconds(1));
+
+		assertTrue(checker.organisationExistsInView("organisationview", "600"));
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+	}
+
+	@Test
+	public void testViewsAreCachedSeparately() {
+		checker.organisationExistsInView("organisationview", "26");
+		checker.organisationExistsInView("suborganisationview", "26");
+
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 2);
+	}
+
+	@Test
+	public void testCachesAreBounded() {
+		checker.organisationExistsInView("organisationview", "1");
+		checker.organisationExistsInView("organisationview", "2");
+		checker.organisationExistsInView("organisationview", "3");
+
+		assertEquals(checker.getExistingCache().size(), 2);
+		assertEquals(checker.getExistingCache().getEvictionCount(), 1);
+	}
+
+	@Test
+	public void testInvalidateAll() {
+		checker.organisationExistsInView("organisationview", "26");
+		setExistsToReturnFromDb(false);
+		checker.organisationExistsInView("organisationview", "600");
+
+		checker.invalidateAll();
+
+		assertEquals(checker.getExistingCache().size(), 0);
+		assertEquals(checker.getNonExistingCache().size(), 0);
+		checker.organisationExistsInView("organisationview", "26");
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 3);
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
+import se.uu.ub.cora.sqldatabase.table.TableQuery;
+
+public class OrganisationHierarchyIndexTest {
+
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private OrganisationHierarchyIndex index;
+	private DataGroupSpy organisationToUpdateDuringRead;
+
+	@BeforeMethod
+	public void setUp() {
+		organisationToUpdateDuringRead = null;
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		createAndAddRelationRow(3, 2, 12);
+		createAndAddRelationRow(2, 1, 11);
+		index = OrganisationHierarchyIndex.usingSqlDatabaseFactory(sqlDatabaseFactory);
+	}
+
+	private void createAndAddRelationRow(int organisationId, int parentId, int predecessorId) {
+		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("organisation_id",
+				organisationId);
+		row.addColumnWithValue("organisation_parent_id", parentId);
+		row.addColumnWithValue("organisation_predecessor_id", predecessorId);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(index.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertTrue(sqlDatabaseFactory.tableNames.isEmpty());
+	}
+
+	@Test
+	public void testRefreshReadsParentsAndPredecessorsFromDb() {
+		index.refresh();
+
+		assertEquals(sqlDatabaseFactory.tableNames.get(0), "organisation_parent");
+		assertEquals(sqlDatabaseFactory.tableNames.get(1), "organisation_predecessor");
+		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
+		assertSame(tableFacade.tableQueries.get(0), sqlDatabaseFactory.factoredTableQueries.get(0));
+		assertSame(tableFacade.tableQueries.get(1), sqlDatabaseFactory.factoredTableQueries.get(1));
+		assertTrue(tableFacade.closeWasCalled);
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		assertEquals(hierarchy.getParents(3), Set.of(2));
+		assertEquals(hierarchy.getPredecessors(3), Set.of(12));
+	}
+
+	@Test
+	public void testGetHierarchyReadsFromDbOnFirstUseOnly() {
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		assertSame(index.getHierarchy(), hierarchy);
+		assertEquals(sqlDatabaseFactory.tableNames.size(), 2);
+	}
+
+	@Test
+	public void testRefreshReplacesHierarchy() {
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		index.refresh();
+		assertNotSame(index.getHierarchy(), hierarchy);
+		assertEquals(sqlDatabaseFactory.tableNames.size(), 4);
+	}
+
+	@Test
+	public void testQueries() {
+		assertEquals(index.getAncestors(3), Set.of(2, 1));
+		assertEquals(index.getDescendants(1), Set.of(2, 3));
+		assertEquals(index.getLineage(2), Set.of(11));
+	}
+
+	@Test
+	public void testUpdateOrganisationBeforeHierarchyIsReadDoesNothing() {
+		index.updateOrganisation(createOrganisation("3"));
+		assertTrue(sqlDatabaseFactory.tableNames.isEmpty());
+	}
+
+	@Test
+	public void testUpdateOrganisationReplacesRelationsForOrganisation() {
+		index.refresh();
+		DataGroupSpy organisation = createOrganisation("3");
+		organisation.addChild(createRelatedGroup("parentOrganisation", "1"));
+		organisation.addChild(createRelatedGroup("earlierOrganisation", "13"));
+		organisation.addChild(createRelatedGroup("earlierOrganisation", "14"));
+
+		index.updateOrganisation(organisation);
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		assertEquals(hierarchy.getParents(3), Set.of(1));
+		assertEquals(hierarchy.getChildren(1), Set.of(2, 3));
+		assertTrue(hierarchy.getChildren(2).isEmpty());
+		assertEquals(hierarchy.getPredecessors(3), Set.of(13, 14));
+		assertEquals(sqlDatabaseFactory.tableNames.size(), 2);
+	}
+
+	@Test
+	public void testUpdateOrganisationWithoutRelations() {
+		index.refresh();
+		index.updateOrganisation(createOrganisation("3"));
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		assertTrue(hierarchy.getParents(3).isEmpty());
+		assertTrue(hierarchy.getPredecessors(3).isEmpty());
+	}
+
+	@Test
+	public void testUpdateOrganisationDuringRefreshIsAppliedToReadHierarchy() {
+		createIndexThatUpdatesOrganisationDuringRead();
+		index.getHierarchy();
+		organisationToUpdateDuringRead = createOrganisation("3");
+		organisationToUpdateDuringRead.addChild(createRelatedGroup("parentOrganisation", "1"));
+
+		index.refresh();
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		assertEquals(hierarchy.getParents(3), Set.of(1));
+		assertEquals(hierarchy.getChildren(1), Set.of(2, 3));
+	}
+
+	private void createIndexThatUpdatesOrganisationDuringRead() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy() {
+			@Override
+			public TableQuery factorTableQuery(String tableName) {
+				if (organisationToUpdateDuringRead != null
+						&& "organisation_predecessor".equals(tableName)) {
+					index.updateOrganisation(organisationToUpdateDuringRead);
+				}
+				return super.factorTableQuery(tableName);
+			}
+		};
+		createAndAddRelationRow(3, 2, 12);
+		createAndAddRelationRow(2, 1, 11);
+		index = OrganisationHierarchyIndex.usingSqlDatabaseFactory(sqlDatabaseFactory);
+	}
+
+	@Test
+	public void testUpdateOrganisationDuringFirstReadIsApplied() {
+		createIndexThatUpdatesOrganisationDuringRead();
+		organisationToUpdateDuringRead = createOrganisation("3");
+		organisationToUpdateDuringRead.addChild(createRelatedGroup("parentOrganisation", "1"));
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+
+		assertEquals(hierarchy.getParents(3), Set.of(1));
+	}
+
+	@Test
+	public void testUpdateOrganisationAfterRefreshIsNotRememberedForNextRefresh() {
+		index.refresh();
+		DataGroupSpy organisation = createOrganisation("3");
+		organisation.addChild(createRelatedGroup("parentOrganisation", "1"));
+		index.updateOrganisation(organisation);
+
+		index.refresh();
+
+		assertEquals(index.getHierarchy().getParents(3), Set.of(2));
+	}
+
+	@Test
+	public void testRefreshFailsKeepsCurrentHierarchy() {
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+		sqlDatabaseFactory.tablesToThrowExceptionFor.add("organisation_parent");
+		try {
+			index.refresh();
+			fail("An error should have been thrown");
+		} catch (RuntimeException e) {
+			assertSame(index.getHierarchy(), hierarchy);
+		}
+	}
+
+	@Test
+	public void testRelationIdsReadAsLong() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("organisation_id", 3L);
+		row.addColumnWithValue("organisation_parent_id", 2L);
+		row.addColumnWithValue("organisation_predecessor_id", 12L);
+		index = OrganisationHierarchyIndex.usingSqlDatabaseFactory(sqlDatabaseFactory);
+
+		OrganisationHierarchy hierarchy = index.getHierarchy();
+
+		assertEquals(hierarchy.getParents(3), Set.of(2));
+		assertEquals(hierarchy.getPredecessors(3), Set.of(12));
+	}
+
+	private DataGroupSpy createOrganisation(String id) {
+		DataGroupSpy organisation = new DataGroupSpy("organisation");
+		DataGroupSpy recordInfo = new DataGroupSpy("recordInfo");
+		recordInfo.addChild(new DataAtomicSpy("id", id));
+		organisation.addChild(recordInfo);
+		return organisation;
+	}
+
+	private DataGroupSpy createRelatedGroup(String nameInData, String linkedId) {
+		DataGroupSpy relatedGroup = new DataGroupSpy(nameInData);
+		DataGroupSpy organisationLink = new DataGroupSpy("organisationLink");
+		organisationLink.addChild(new DataAtomicSpy("linkedRecordId", linkedId));
+		relatedGroup.addChild(organisationLink);
+		return relatedGroup;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class OrganisationHierarchyTest {
+
+	private Map<Integer, Set<Integer>> parents;
+	private Map<Integer, Set<Integer>> predecessors;
+	private OrganisationHierarchy hierarchy;
+
+	@BeforeMethod
+	public void setUp() {
+		parents = new HashMap<>();
+		parents.put(2, Set.of(1));
+		parents.put(3, Set.of(2));
+		parents.put(4, Set.of(2));
+		parents.put(5, Set.of(3, 4));
+		predecessors = new HashMap<>();
+		predecessors.put(11, Set.of(10));
+		predecessors.put(12, Set.of(11));
+		predecessors.put(13, Set.of());
+		hierarchy = OrganisationHierarchy.usingParentsAndPredecessors(parents, predecessors);
+	}
+
+	@Test
+	public void testDirectRelations() {
+		assertEquals(hierarchy.getParents(5), Set.of(3, 4));
+		assertEquals(hierarchy.getChildren(2), Set.of(3, 4));
+		assertEquals(hierarchy.getPredecessors(12), Set.of(11));
+		assertEquals(hierarchy.getSuccessors(10), Set.of(11));
+	}
+
+	@Test
+	public void testUnknownOrganisationHasNoRelations() {
+		assertTrue(hierarchy.getParents(999).isEmpty());
+		assertTrue(hierarchy.getChildren(999).isEmpty());
+		assertTrue(hierarchy.getPredecessors(999).isEmpty());
+		assertTrue(hierarchy.getSuccessors(999).isEmpty());
+		assertTrue(hierarchy.getAncestors(999).isEmpty());
+		assertTrue(hierarchy.getDescendants(999).isEmpty());
+		assertTrue(hierarchy.getLineage(999).isEmpty());
+	}
+
+	@Test
+	public void testEmptyRelationsAreNotIndexed() {
+		assertEquals(hierarchy.getNumberOfOrganisationsWithParents(), 4);
+		assertEquals(hierarchy.getNumberOfOrganisationsWithPredecessors(), 2);
+	}
+
+	@Test
+	public void testAncestorsClosestFirst() {
+		List<Integer> ancestors = new ArrayList<>(hierarchy.getAncestors(5));
+		assertEquals(ancestors.size(), 4);
+		assertEquals(Set.copyOf(ancestors.subList(0, 2)), Set.of(3, 4));
+		assertEquals(ancestors.get(2), Integer.valueOf(2));
+		assertEquals(ancestors.get(3), Integer.valueOf(1));
+	}
+
+	@Test
+	public void testDescendants() {
+		assertEquals(hierarchy.getDescendants(1), Set.of(2, 3, 4, 5));
+		assertEquals(hierarchy.getDescendants(3), Set.of(5));
+		assertTrue(hierarchy.getDescendants(5).isEmpty());
+	}
+
+	@Test
+	public void testLineage() {
+		assertEquals(hierarchy.getLineage(11), Set.of(10, 12));
+		assertEquals(hierarchy.getLineage(10), Set.of(11, 12));
+		assertEquals(hierarchy.getLineage(12), Set.of(10, 11));
+	}
+
+	@Test
+	public void testCyclicRelationsDoNotLoopForever() {
+		parents.put(1, Set.of(5));
+		hierarchy = OrganisationHierarchy.usingParentsAndPredecessors(parents, predecessors);
+
+		assertEquals(hierarchy.getAncestors(5), Set.of(1, 2, 3, 4));
+	}
+
+	@Test
+	public void testChangingSentInMapsDoesNotChangeHierarchy() {
+		parents.put(6, Set.of(5));
+		assertTrue(hierarchy.getParents(6).isEmpty());
+		assertTrue(hierarchy.getChildren(5).isEmpty());
+	}
+
+	@Test
+	public void testWithOrganisationReturnsNewHierarchy() {
+		OrganisationHierarchy updated = hierarchy.withOrganisation(5, Set.of(1), Set.of(12));
+
+		assertNotSame(updated, hierarchy);
+		assertEquals(updated.getParents(5), Set.of(1));
+		assertEquals(updated.getChildren(1), Set.of(2, 5));
+		assertTrue(updated.getChildren(3).isEmpty());
+		assertEquals(updated.getSuccessors(12), Set.of(5));
+
+		assertEquals(hierarchy.getParents(5), Set.of(3, 4));
+		assertTrue(hierarchy.getSuccessors(12).isEmpty());
+	}
+
+	@Test
+	public void testWithOrganisationRemovingAllRelations() {
+		OrganisationHierarchy updated = hierarchy.withOrganisation(3, Set.of(), Set.of());
+
+		assertTrue(updated.getParents(3).isEmpty());
+		assertEquals(updated.getChildren(2), Set.of(4));
+		assertEquals(updated.getNumberOfOrganisationsWithParents(), 3);
+	}
+}
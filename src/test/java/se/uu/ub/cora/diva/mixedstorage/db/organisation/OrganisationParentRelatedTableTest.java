@@ -34,6 +34,7 @@ import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 import se.uu.ub.cora.sqldatabase.Row;
 
 public class OrganisationParentRelatedTableTest {
@@ -41,10 +42,12 @@ public class OrganisationParentRelatedTableTest {
 	private OrganisationParentRelatedTable parent;
 	private List<Row> parentRows;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private UnitOfWorkSpy unitOfWork;
 
 	@BeforeMethod
 	public void setUp() {
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		unitOfWork = new UnitOfWorkSpy();
 		parent = new OrganisationParentRelatedTable(sqlDatabaseFactory);
 		initParentRows();
 	}
@@ -73,7 +76,7 @@ public class OrganisationParentRelatedTableTest {
 	@Test
 	public void testNoParentInDbNoParentInDataGroup() {
 		DataGroup organisation = createDataGroupWithId("678");
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
 				Collections.emptyList());
 		assertTrue(dbStatements.isEmpty());
 	}
@@ -81,7 +84,8 @@ public class OrganisationParentRelatedTableTest {
 	@Test
 	public void testOneParentInDbButNoParentInDataGroup() {
 		DataGroup organisation = createDataGroupWithId("678");
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation, parentRows);
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
+				parentRows);
 		assertEquals(dbStatements.size(), 1);
 		assertCorrectDelete(dbStatements.get(0), 234);
 
@@ -92,7 +96,8 @@ public class OrganisationParentRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addParent(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation, parentRows);
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
+				parentRows);
 		assertTrue(dbStatements.isEmpty());
 
 	}
@@ -112,7 +117,8 @@ public class OrganisationParentRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addParent(organisation, "22234", "0");
 
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation, parentRows);
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
+				parentRows);
 
 		assertEquals(dbStatements.size(), 2);
 
@@ -126,7 +132,7 @@ public class OrganisationParentRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addParent(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
 				Collections.emptyList());
 		assertCorrectInsert(dbStatements.get(0), 234);
 	}
@@ -145,7 +151,8 @@ public class OrganisationParentRelatedTableTest {
 		addParenRow(multipleParents, 678, 2444);
 		addParenRow(multipleParents, 678, 2222);
 
-		List<DbStatement> dbStatements = parent.handleDbForDataGroup(organisation, multipleParents);
+		List<DbStatement> dbStatements = parent.handleDbForDataGroup(unitOfWork, organisation,
+				multipleParents);
 		assertEquals(dbStatements.size(), 4);
 
 		assertCorrectInsert(dbStatements.get(0), 23);
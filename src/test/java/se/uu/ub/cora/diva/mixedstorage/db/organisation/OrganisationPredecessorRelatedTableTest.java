@@ -19,7 +19,7 @@
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
 import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -37,6 +37,8 @@ import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.DbStatement;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocatorSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
 import se.uu.ub.cora.sqldatabase.Row;
 
 public class OrganisationPredecessorRelatedTableTest {
@@ -44,12 +46,12 @@ public class OrganisationPredecessorRelatedTableTest {
 	private OrganisationPredecessorRelatedTable predecessor;
 	private List<Row> predecessorRows;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
-	private TableFacadeSpy tableFacade;
+	private UnitOfWorkSpy unitOfWork;
 
 	@BeforeMethod
 	public void setUp() {
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
-		tableFacade = new TableFacadeSpy();
+		unitOfWork = new UnitOfWorkSpy();
 		initPredecessorRows();
 		predecessor = new OrganisationPredecessorRelatedTable(sqlDatabaseFactory);
 	}
@@ -78,17 +80,17 @@ public class OrganisationPredecessorRelatedTableTest {
 	@Test
 	public void testNoPredecessorInDbNoPredecessorInDataGroup() {
 		DataGroup organisation = createDataGroupWithId("678");
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				Collections.emptyList());
 		assertTrue(dbStatements.isEmpty());
-		assertEquals(tableFacade.tableQueries.size(), 0);
+		assertEquals(unitOfWork.tableQueries.size(), 0);
 	}
 
 	@Test
 	public void testOnePredecessorInDbButNoPredecessorInDataGroup() {
 		DataGroup organisation = createDataGroupWithId("678");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 		assertEquals(dbStatements.size(), 2);
 		assertCorrectDeleteForPredecessorDescription(dbStatements.get(0), 678, 234);
@@ -121,7 +123,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addPredecessor(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 		assertTrue(dbStatements.isEmpty());
 	}
@@ -160,7 +162,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addPredecessor(organisation, "22234", "0");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 		assertEquals(dbStatements.size(), 3);
 
@@ -184,7 +186,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addPredecessor(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				Collections.emptyList());
 		assertEquals(dbStatements.size(), 1);
 		assertCorrectPredecessorInsert(dbStatements.get(0), 678, 234);
@@ -202,7 +204,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		addPredecessorRow(multiplePredecessorRows, 678, 2444);
 		addPredecessorRow(multiplePredecessorRows, 678, 2222);
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				multiplePredecessorRows);
 		assertEquals(dbStatements.size(), 6);
 		assertCorrectPredecessorInsert(dbStatements.get(0), 678, 23);
@@ -243,30 +245,28 @@ public class OrganisationPredecessorRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addPredecessorWithDescription(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				Collections.emptyList());
 
-		assertNotNull(sqlDatabaseFactory.factoredTableFacade);
-		TableFacadeSpy factoredTableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(factoredTableFacade.sequenceName,
-				"organisation_predecessor_description_sequence");
+		assertEquals(unitOfWork.sequenceNames,
+				List.of("organisation_predecessor_description_sequence"));
 
 		assertEquals(dbStatements.size(), 2);
 		assertCorrectPredecessorInsert(dbStatements.get(0), 678, 234);
 		assertCorrectPredecessorDescriptionInsert(dbStatements.get(1), 678, 234, "some description",
-				factoredTableFacade);
+				unitOfWork);
 
-		assertTrue(factoredTableFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 
 	}
 
 	private void assertCorrectPredecessorDescriptionInsert(DbStatement createStatement,
-			int organisationId, int predecessorId, String description, TableFacadeSpy tableFacade) {
+			int organisationId, int predecessorId, String description, UnitOfWorkSpy unitOfWork) {
 		assertEquals(createStatement.getOperation(), "insert");
 		assertEquals(createStatement.getTableName(), "organisation_predecessor_description");
 
 		Map<String, Object> values = createStatement.getValues();
-		assertEquals(values.get("organisation_predecessor_id"), tableFacade.nextVal);
+		assertEquals(values.get("organisation_predecessor_id"), unitOfWork.nextVal);
 		assertEquals(values.get("organisation_id"), organisationId);
 		assertEquals(values.get("predecessor_id"), predecessorId);
 		assertEquals(values.get("description"), description);
@@ -292,7 +292,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		addPredecessorRowWithDesciption(predecessorWithDescriptionRows, 678, 234, 33,
 				"some description for descriptionId 33");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorWithDescriptionRows);
 		assertEquals(dbStatements.size(), 2);
 		assertCorrectDeleteForPredecessorDescription(dbStatements.get(0), 678, 234);
@@ -317,7 +317,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		predecessorRow.addColumnWithValue("predecessordescriptionid", 7777);
 		predecessorRow.addColumnWithValue("description", "some description");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 		assertTrue(dbStatements.isEmpty());
 	}
@@ -331,17 +331,16 @@ public class OrganisationPredecessorRelatedTableTest {
 		predecessorRow.addColumnWithValue("predecessordescriptionid", 7778);
 		predecessorRow.addColumnWithValue("description", "some OTHER description");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-
-		assertEquals(tableFacade.sequenceName, "organisation_predecessor_description_sequence");
+		assertEquals(unitOfWork.sequenceNames,
+				List.of("organisation_predecessor_description_sequence"));
 
 		assertEquals(dbStatements.size(), 2);
 		assertCorrectDeleteForPredecessorDescription(dbStatements.get(0), 678, 234);
 		assertCorrectPredecessorDescriptionInsert(dbStatements.get(1), 678, 234, "some description",
-				tableFacade);
+				unitOfWork);
 
 	}
 
@@ -354,7 +353,7 @@ public class OrganisationPredecessorRelatedTableTest {
 		predecessorRow.addColumnWithValue("predecessordescriptionid", 7778);
 		predecessorRow.addColumnWithValue("description", "some OTHER description");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 		assertEquals(dbStatements.size(), 1);
 		assertCorrectDeleteForPredecessorDescription(dbStatements.get(0), 678, 234);
@@ -365,15 +364,15 @@ public class OrganisationPredecessorRelatedTableTest {
 		DataGroup organisation = createDataGroupWithId("678");
 		addPredecessorWithDescription(organisation, "234", "0");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.sequenceName, "organisation_predecessor_description_sequence");
+		assertEquals(unitOfWork.sequenceNames,
+				List.of("organisation_predecessor_description_sequence"));
 
 		assertEquals(dbStatements.size(), 1);
 		assertCorrectPredecessorDescriptionInsert(dbStatements.get(0), 678, 234, "some description",
-				tableFacade);
+				unitOfWork);
 	}
 
 	@Test
@@ -386,17 +385,36 @@ public class OrganisationPredecessorRelatedTableTest {
 		predecessorRow.addColumnWithValue("predecessordescriptionid", 7778);
 		predecessorRow.addColumnWithValue("description", "some description");
 
-		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(organisation,
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
 				predecessorRows);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.sequenceName, "organisation_predecessor_description_sequence");
+		assertEquals(unitOfWork.sequenceNames,
+				List.of("organisation_predecessor_description_sequence"));
 
 		assertEquals(dbStatements.size(), 2);
 		assertCorrectPredecessorInsert(dbStatements.get(0), 678, 22234);
 		assertCorrectPredecessorDescriptionInsert(dbStatements.get(1), 678, 22234,
-				"some description", tableFacade);
+				"some description", unitOfWork);
 
 	}
 
+	@Test
+	public void testPredecessorDescriptionUsesSequenceAllocator() {
+		SequenceAllocatorSpy sequenceAllocator = new SequenceAllocatorSpy();
+		predecessor = new OrganisationPredecessorRelatedTable(sqlDatabaseFactory,
+				sequenceAllocator);
+		DataGroup organisation = createDataGroupWithId("678");
+		addPredecessorWithDescription(organisation, "234", "0");
+
+		List<DbStatement> dbStatements = predecessor.handleDbForDataGroup(unitOfWork, organisation,
+				Collections.emptyList());
+
+		assertSame(predecessor.getSequenceAllocator(), sequenceAllocator);
+		assertEquals(sequenceAllocator.sequenceNames,
+				List.of("organisation_predecessor_description_sequence"));
+		assertSame(sequenceAllocator.unitOfWorks.get(0), unitOfWork);
+		assertEquals(dbStatements.get(1).getValues().get("organisation_predecessor_id"),
+				sequenceAllocator.returnedValues.get(0));
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+	}
 }
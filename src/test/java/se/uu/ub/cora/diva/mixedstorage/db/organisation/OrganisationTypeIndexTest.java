@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.organisation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.diva.mixedstorage.db.DbException;
+import se.uu.ub.cora.diva.mixedstorage.db.UnitOfWorkSpy;
+import se.uu.ub.cora.sqldatabase.Row;
+
+public class OrganisationTypeIndexTest {
+
+	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private UnitOfWorkSpy unitOfWork;
+	private ClockSpy clock;
+	private OrganisationTypeIndex index;
+
+	@BeforeMethod
+	public void setUp() {
+		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		unitOfWork = new UnitOfWorkSpy();
+		addOrganisationType(unitOfWork.rowsToReturn, "unit", 52);
+		addOrganisationType(unitOfWork.rowsToReturn, "faculty", 50);
+		clock = new ClockSpy();
+		index = OrganisationTypeIndex.usingSqlDatabaseFactoryMaxAgeAndClock(sqlDatabaseFactory,
+				Duration.ofHours(1), clock);
+	}
+
+	private void addOrganisationType(List<Row> rows, String code, int id) {
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("organisation_type_code", code);
+		row.addColumnWithValue("organisation_type_id", id);
+		rows.add(row);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(index.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertEquals(index.getMaxAge(), Duration.ofHours(1));
+		assertTrue(sqlDatabaseFactory.tableNames.isEmpty());
+	}
+
+	@Test
+	public void testDefaultClock() {
+		index = OrganisationTypeIndex.usingSqlDatabaseFactoryAndMaxAge(sqlDatabaseFactory,
+				Duration.ofMinutes(5));
+
+		assertEquals(index.getIdForCode(unitOfWork, "unit"), 52);
+		assertEquals(index.getMaxAge(), Duration.ofMinutes(5));
+	}
+
+	@Test
+	public void testTypesAreReadOnFirstUseUsingUnitOfWork() {
+		assertEquals(index.getIdForCode(unitOfWork, "unit"), 52);
+
+		assertEquals(sqlDatabaseFactory.tableNames.size(), 1);
+		assertEquals(sqlDatabaseFactory.tableNames.get(0), "organisation_type");
+		assertSame(unitOfWork.tableQueries.get(0), sqlDatabaseFactory.factoredTableQuery);
+		assertTrue(sqlDatabaseFactory.factoredTableQuery.conditions.isEmpty());
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
+		assertNull(sqlDatabaseFactory.factoredDatabaseFacade);
+	}
+
+	@Test
+	public void testTypesAreReadOnlyOnce() {
+		assertEquals(index.getIdForCode(unitOfWork, "unit"), 52);
+		assertEquals(index.getIdForCode(unitOfWork, "faculty"), 50);
+		assertEquals(index.getIdForCode(unitOfWork, "unit"), 52);
+
+		assertEquals(unitOfWork.tableQueries.size(), 1);
+	}
+
+	@Test
+	public void testTypesAreReadAgainWhenOlderThanMaxAge() {
+		index.getIdForCode(unitOfWork, "unit");
+		clock.advance(Duration.ofMinutes(60));
+		index.getIdForCode(unitOfWork, "unit");
+		assertEquals(unitOfWork.tableQueries.size(), 1);
+
+		clock.advance(Duration.ofSeconds(1));
+		index.getIdForCode(unitOfWork, "unit");
+
+		assertEquals(unitOfWork.tableQueries.size(), 2);
+	}
+
+	@Test
+	public void testRefreshUsesConnectionOfItsOwn() {
+		addOrganisationType(sqlDatabaseFactory.rowsToReturnFromDatabaseFacade, "department", 51);
+
+		index.refresh();
+
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.size(), 1);
+		assertTrue(databaseFacade.closeWasCalled);
+		assertEquals(index.getIdForCode(unitOfWork, "department"), 51);
+		assertTrue(unitOfWork.tableQueries.isEmpty());
+	}
+
+	@Test
+	public void testUnknownCodeReadsTypesAgain() {
+		index.getIdForCode(unitOfWork, "unit");
+		addOrganisationType(unitOfWork.rowsToReturn, "department", 51);
+
+		assertEquals(index.getIdForCode(unitOfWork, "department"), 51);
+
+		assertEquals(unitOfWork.tableQueries.size(), 2);
+	}
+
+	@Test(expectedExceptions = DbException.class, expectedExceptionsMessageRegExp = ""
+			+ "No organisation type found for code: nonExistingCode")
+	public void testUnknownCodeNotInDb() {
+		index.getIdForCode(unitOfWork, "nonExistingCode");
+	}
+}
@@ -39,9 +39,10 @@ public class PreparedStatementExecutorSpy implements StatementExecutor {
 	// public List<Connection> connections = new ArrayList<>();
 	public boolean throwExceptionOnGenerateStatement = false;
 	public DatabaseFacade databaseFacade;
+	public List<Integer> updateCounts;
 
 	@Override
-	public void executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
+	public List<Integer> executeDbStatmentUsingDatabaseFacade(List<DbStatement> dbStatements,
 			DatabaseFacade databaseFacade) {
 		this.dbStatements = dbStatements;
 		this.databaseFacade = databaseFacade;
@@ -58,5 +59,10 @@ public class PreparedStatementExecutorSpy implements StatementExecutor {
 			preparedStatements.add(preparedStatementSpy);
 		}
 		// }
+		updateCounts = new ArrayList<>();
+		for (int i = 0; i < dbStatements.size(); i++) {
+			updateCounts.add(1);
+		}
+		return updateCounts;
 	}
 }
@@ -18,9 +18,7 @@
  */
 package se.uu.ub.cora.diva.mixedstorage.db.organisation;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -29,7 +27,6 @@ import se.uu.ub.cora.sqldatabase.Row;
 
 public class RowSpy implements Row {
 	public Map<String, Object> columnValues = new HashMap<>();
-	public List<String> reuqestedColumnNames = new ArrayList<>();
 
 	public void addColumnWithValue(String columnName, Object object) {
 		if (object == null) {
@@ -41,14 +38,12 @@ public class RowSpy implements Row {
 
 	@Override
 	public Object getValueByColumn(String columnName) {
-		reuqestedColumnNames.add(columnName);
 		return columnValues.get(columnName);
 	}
 
 	@Override
 	public Set<String> columnSet() {
-		// TODO Auto-generated method stub
-		return null;
+		return columnValues.keySet();
 	}
 
 	@Override
@@ -35,19 +35,39 @@ public class SqlDatabaseFactorySpy implements SqlDatabaseFactory {
 	public String tableName;
 	public TableFacadeSpy factoredTableFacade;
 	public int numToReturn = 3;
+	public long numberOfRowsToReturn = 3;
 	public RowSpy rowToReturn = null;
 	public DatabaseFacadeSpy factoredDatabaseFacade;
 	public List<Row> rowsToReturn = new ArrayList<>();
 	public List<String> tablesToThrowExceptionFor = new ArrayList<>();
 	public boolean throwErrorInDatabaseFacade = false;
+	public boolean throwErrorOnReadInDatabaseFacade = false;
+	public List<Row> rowsToReturnFromDatabaseFacade = new ArrayList<>();
+	public List<DatabaseFacadeSpy> factoredDatabaseFacades = new ArrayList<>();
+	public Row rowToReturnFromDatabaseFacade;
+	public List<List<Row>> rowChunksToReturnFromDatabaseFacades = new ArrayList<>();
 
 	@Override
 	public DatabaseFacade factorDatabaseFacade() {
 		factoredDatabaseFacade = new DatabaseFacadeSpy();
 		factoredDatabaseFacade.throwErrorInDatabaseFacade = throwErrorInDatabaseFacade;
+		factoredDatabaseFacade.throwErrorOnRead = throwErrorOnReadInDatabaseFacade;
+		factoredDatabaseFacade.rowsToReturn = rowsToReturnFromDatabaseFacade;
+		possiblySetNextRowChunkToReturn();
+		factoredDatabaseFacade.rowToReturn = rowToReturnFromDatabaseFacade;
+		factoredDatabaseFacades.add(factoredDatabaseFacade);
 		return factoredDatabaseFacade;
 	}
 
+	private void possiblySetNextRowChunkToReturn() {
+		if (!rowChunksToReturnFromDatabaseFacades.isEmpty()) {
+			int chunkIndex = factoredDatabaseFacades.size();
+			factoredDatabaseFacade.rowsToReturn = chunkIndex < rowChunksToReturnFromDatabaseFacades
+					.size() ? rowChunksToReturnFromDatabaseFacades.get(chunkIndex)
+							: new ArrayList<>();
+		}
+	}
+
 	@Override
 	public TableFacade factorTableFacade() {
 		factoredTableFacade = new TableFacadeSpy();
@@ -58,6 +78,7 @@ public class SqlDatabaseFactorySpy implements SqlDatabaseFactory {
 			factoredTableFacade.rowToReturn = rowToReturn;
 		}
 		factoredTableFacade.numToReturn = numToReturn;
+		factoredTableFacade.numberOfRowsToReturn = numberOfRowsToReturn;
 		return factoredTableFacade;
 	}
 
@@ -38,6 +38,7 @@ public class TableFacadeSpy implements TableFacade {
 	public long nextVal;
 	public String sequenceName;
 	public long numOfReadRows;
+	public long numberOfRowsToReturn = 3;
 	public boolean closeWasCalled = false;
 
 	@Override
@@ -84,7 +85,7 @@ public class TableFacadeSpy implements TableFacade {
 	public long readNumberOfRows(TableQuery tableQuery) {
 		tableQueries.add(tableQuery);
 
-		numOfReadRows = 3;
+		numOfReadRows = numberOfRowsToReturn;
 		return numOfReadRows;
 	}
 
@@ -80,8 +80,7 @@ public class TableQuerySpy implements TableQuery {
 
 	@Override
 	public String assembleReadSql() {
-		// TODO Auto-generated method stub
-		return null;
+		return "select * from " + tableName;
 	}
 
 	@Override
@@ -98,8 +97,7 @@ public class TableQuerySpy implements TableQuery {
 
 	@Override
 	public List<Object> getQueryValues() {
-		// TODO Auto-generated method stub
-		return null;
+		return new ArrayList<>(conditions.values());
 	}
 
 	@Override
@@ -21,10 +21,13 @@ package se.uu.ub.cora.diva.mixedstorage.db.user;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -32,17 +35,27 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import se.uu.ub.cora.data.DataChild;
+import se.uu.ub.cora.data.DataAtomicProvider;
 import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.cache.BoundedCache;
 import se.uu.ub.cora.diva.mixedstorage.db.DbException;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DataRecordLinkFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableFacadeSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableQuerySpy;
 import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
 import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.Row;
+import se.uu.ub.cora.sqldatabase.SqlDatabaseException;
 import se.uu.ub.cora.storage.RecordNotFoundException;
 import se.uu.ub.cora.storage.RecordStorage;
 import se.uu.ub.cora.storage.StorageReadResult;
@@ -50,6 +63,9 @@ import se.uu.ub.cora.testutils.mcr.MethodCallRecorder;
 
 public class DivaMixedUserStorageTest {
 
+	private static final String USER_WITH_GROUPS_SQL = "select u.*, g.group_type, "
+			+ "g.domain as group_domain from public.user u left join public.groupsforuser g "
+			+ "on g.db_id = u.db_id where ";
 	private UserStorageSpy guestUserStorage;
 	private DivaMixedUserStorage userStorage;
 	private LoggerFactorySpy loggerFactorySpy;
@@ -59,14 +75,21 @@ public class DivaMixedUserStorageTest {
 	private String userId;
 	private RecordStorage recordStorage;
 	private SqlDatabaseFactorySpy sqlDatabaseFactory;
+	private RowSpy userRowWithoutGroups;
 
 	@BeforeMethod
 	public void setUp() {
 		loggerFactorySpy = new LoggerFactorySpy();
 		LoggerProvider.setLoggerFactory(loggerFactorySpy);
+		DataGroupProvider.setDataGroupFactory(new DataGroupFactorySpy());
+		DataAtomicProvider.setDataAtomicFactory(new DataAtomicFactorySpy());
+		DataRecordLinkProvider.setDataRecordLinkFactory(new DataRecordLinkFactorySpy());
 		guestUserStorage = new UserStorageSpy();
 		userConverter = new DivaDbToCoraConverterSpy();
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
+		userRowWithoutGroups = new RowSpy();
+		userRowWithoutGroups.addColumnWithValue("db_id", 14);
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.add(userRowWithoutGroups);
 
 		dataGroupRoleReferenceCreator = new DataGroupRoleReferenceCreatorSpy();
 		reInitUserStorage();
@@ -91,36 +114,30 @@ public class DivaMixedUserStorageTest {
 	}
 
 	@Test
-	public void testGetUserByIdFromLoginTestTableNameAndConditions() {
+	public void testGetUserByIdFromLoginReadsUserAndGroupsInOneQuery() {
 		userStorage.getUserByIdFromLogin(userId);
 
-		assertEquals(sqlDatabaseFactory.tableNames.get(0), "public.user");
-		assertEquals(sqlDatabaseFactory.tableNames.get(1), "public.groupsforuser");
-
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(tableFacade.tableQueries.size(), 2);
-
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(0);
-		assertSame(tableQuery, sqlDatabaseFactory.factoredTableQueries.get(0));
-		assertEquals(tableQuery.conditions.get("user_id"), "userId");
-		assertEquals(tableQuery.conditions.get("domain"), "uu");
-
-		assertTrue(tableFacade.closeWasCalled);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.size(), 1);
+		assertEquals(databaseFacade.readSqls.get(0), USER_WITH_GROUPS_SQL
+				+ "u.user_id = ? and u.domain = ?");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of("userId", "uu"));
+		assertTrue(databaseFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 	}
 
 	@Test
-	public void testReadTestTableNameAndConditions() {
+	public void testReadReadsUserAndGroupsInOneQuery() {
 		userStorage.read("", "14");
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		assertEquals(sqlDatabaseFactory.tableNames.get(0), "public.user");
-
-		TableQuerySpy tableQuery = (TableQuerySpy) tableFacade.tableQueries.get(0);
-		assertSame(tableQuery, sqlDatabaseFactory.factoredTableQueries.get(0));
-		assertEquals(tableQuery.conditions.get("db_id"), 14);
-		assertEquals(tableQuery.conditions.size(), 1);
-
-		assertTrue(tableFacade.closeWasCalled);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		DatabaseFacadeSpy databaseFacade = sqlDatabaseFactory.factoredDatabaseFacade;
+		assertEquals(databaseFacade.readSqls.size(), 1);
+		assertEquals(databaseFacade.readSqls.get(0), USER_WITH_GROUPS_SQL + "u.db_id = ?");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(14));
+		assertTrue(databaseFacade.closeWasCalled);
+		assertNull(sqlDatabaseFactory.factoredTableFacade);
 	}
 
 	@Test(expectedExceptions = RecordNotFoundException.class, expectedExceptionsMessageRegExp = ""
@@ -137,11 +154,91 @@ public class DivaMixedUserStorageTest {
 	}
 
 	private void assertAnswerFromRecordReaderUsedInConverter(DataGroup user) {
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-
-		assertEquals(userConverter.rowToConvert, tableFacade.returnedRows.get(0));
+		assertSame(userConverter.rowToConvert, userRowWithoutGroups);
+		assertEquals(userConverter.rowsToConvert.size(), 1);
 		assertSame(user, userConverter.convertedDbDataGroup);
-		assertTrue(tableFacade.closeWasCalled);
+	}
+
+	@Test
+	public void testUserCache() {
+		BoundedCache<String, DataGroup> userCache = userStorage.getUserCache();
+
+		assertEquals(userCache.getMaxSize(), 10000);
+		assertEquals(userCache.getMaxAge(), Duration.ofMinutes(5));
+	}
+
+	@Test
+	public void testGetUserByIdFromLoginSecondReadIsAnsweredFromCache() {
+		DataGroup firstRead = userStorage.getUserByIdFromLogin(userId);
+		DataGroup secondRead = userStorage.getUserByIdFromLogin(userId);
+
+		assertEquals(userConverter.rowsToConvert.size(), 1);
+		assertEquals(sqlDatabaseFactory.factoredDatabaseFacades.size(), 1);
+		assertNotSame(firstRead, secondRead);
+		assertEquals(secondRead.getNameInData(), firstRead.getNameInData());
+		BoundedCache<String, DataGroup> userCache = userStorage.getUserCache();
+		assertEquals(userCache.getHitCount(), 1);
+		assertEquals(userCache.getMissCount(), 1);
+		assertEquals(userCache.getHitRate(), 0.5);
+	}
+
+	@Test
+	public void testGetUserByIdFromLoginCachedUserCanNotBeChangedByCaller() {
+		DataGroup firstRead = userStorage.getUserByIdFromLogin(userId);
+		firstRead.addChild(new DataGroupSpy("addedByCaller"));
+		DataGroup secondRead = userStorage.getUserByIdFromLogin(userId);
+		secondRead.addChild(new DataGroupSpy("addedByCaller"));
+
+		DataGroup thirdRead = userStorage.getUserByIdFromLogin(userId);
+
+		assertFalse(thirdRead.containsChildWithNameInData("addedByCaller"));
+	}
+
+	@Test
+	public void testGetUserByIdFromLoginCachesRoles() {
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+
+		userStorage.getUserByIdFromLogin(userId);
+		DataGroup secondRead = userStorage.getUserByIdFromLogin(userId);
+
+		assertEquals(userConverter.rowsToConvert.size(), 1);
+		assertTrue(secondRead.containsChildWithNameInData("userRole"));
+	}
+
+	@Test
+	public void testInvalidateUserByIdFromLogin() {
+		userStorage.getUserByIdFromLogin(userId);
+		userStorage.getUserByIdFromLogin("otherUser@user.uu.se");
+
+		userStorage.invalidateUserByIdFromLogin(userId);
+		userStorage.getUserByIdFromLogin(userId);
+		userStorage.getUserByIdFromLogin("otherUser@user.uu.se");
+
+		assertEquals(userConverter.rowsToConvert.size(), 3);
+	}
+
+	@Test
+	public void testInvalidateAllUsers() {
+		userStorage.getUserByIdFromLogin(userId);
+		userStorage.getUserByIdFromLogin("otherUser@user.uu.se");
+
+		userStorage.invalidateAllUsers();
+		userStorage.getUserByIdFromLogin(userId);
+		userStorage.getUserByIdFromLogin("otherUser@user.uu.se");
+
+		assertEquals(userConverter.rowsToConvert.size(), 4);
+	}
+
+	@Test
+	public void testUnexpectedFormatOfUserIdFromLoginIsNotCached() {
+		try {
+			userStorage.getUserByIdFromLogin("userId@somedomainorg");
+		} catch (DbException e) {
+			// expected
+		}
+
+		assertEquals(userStorage.getUserCache().size(), 0);
 	}
 
 	@Test
@@ -183,46 +280,59 @@ public class DivaMixedUserStorageTest {
 	}
 
 	@Test
-	public void testReadGroupUsersView() throws Exception {
-		sqlDatabaseFactory.createAndAddRowToReturn("db_id", "917");
-		reInitUserStorage();
+	public void testUserIsConvertedFromFirstRowWhenUserHasSeveralGroups() throws Exception {
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("domainAdmin");
+		row2.addColumnWithValue("group_domain", "kth");
 
 		userStorage.getUserByIdFromLogin(userId);
 
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-		RowSpy userRowFromFacade = (RowSpy) tableFacade.returnedRows.get(0);
-
-		TableQuerySpy queryForRoles = (TableQuerySpy) tableFacade.tableQueries.get(1);
-		assertEquals(userRowFromFacade.getValueByColumn("db_id"),
-				queryForRoles.conditions.get("db_id"));
-
-		assertTrue(tableFacade.closeWasCalled);
+		assertEquals(userConverter.rowsToConvert.size(), 1);
+		assertSame(userConverter.rowToConvert, row);
 	}
 
-	@Test
-	public void testReadRecordGroupUsersView() throws Exception {
-		sqlDatabaseFactory.createAndAddRowToReturn("db_id", "917");
-		reInitUserStorage();
+	@Test(expectedExceptions = SqlDatabaseException.class, expectedExceptionsMessageRegExp = ""
+			+ "No user found for userIdFromLogin: userId@user.uu.se")
+	public void testGetUserByIdFromLoginUserNotFound() {
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.clear();
 
-		userStorage.read("", "14");
-
-		TableFacadeSpy tableFacade = sqlDatabaseFactory.factoredTableFacade;
-
-		TableQuerySpy userQuery = (TableQuerySpy) tableFacade.tableQueries.get(0);
-		assertEquals(userQuery.conditions.get("db_id"), 14);
+		userStorage.getUserByIdFromLogin(userId);
+	}
 
-		RowSpy returnedUserRow = (RowSpy) tableFacade.returnedRows.get(0);
-		assertEquals(returnedUserRow.reuqestedColumnNames.get(0), "db_id");
+	@Test(expectedExceptions = SqlDatabaseException.class, expectedExceptionsMessageRegExp = ""
+			+ "More than one user found for userIdFromLogin: userId@user.uu.se")
+	public void testGetUserByIdFromLoginMoreThanOneUserFound() {
+		createAndAddUserRowWithGroupType("domainAdmin");
+		RowSpy rowForOtherUser = createAndAddUserRowWithGroupType("systemAdmin");
+		rowForOtherUser.addColumnWithValue("db_id", 15);
 
-		assertEquals(sqlDatabaseFactory.tableNames.get(1), "public.groupsforuser");
+		userStorage.getUserByIdFromLogin(userId);
+	}
 
-		TableQuerySpy userGroupQuery = (TableQuerySpy) tableFacade.tableQueries.get(1);
-		assertSame(userGroupQuery, sqlDatabaseFactory.factoredTableQueries.get(1));
+	@Test
+	public void testMoreThanOneUserFoundIsNotCached() {
+		createAndAddUserRowWithGroupType("domainAdmin");
+		RowSpy rowForOtherUser = createAndAddUserRowWithGroupType("systemAdmin");
+		rowForOtherUser.addColumnWithValue("db_id", 15);
+		try {
+			userStorage.getUserByIdFromLogin(userId);
+		} catch (SqlDatabaseException e) {
+			// expected
+		}
 
-		assertEquals(userGroupQuery.conditions.get("db_id"),
-				returnedUserRow.getValueByColumn("db_id"));
+		assertEquals(userConverter.rowsToConvert.size(), 0);
+		assertEquals(userStorage.getUserCache().size(), 0);
+	}
 
-		assertTrue(tableFacade.closeWasCalled);
+	private RowSpy createAndAddUserRowWithGroupType(String groupType) {
+		List<Row> rows = sqlDatabaseFactory.rowsToReturnFromDatabaseFacade;
+		rows.remove(userRowWithoutGroups);
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("db_id", 14);
+		row.addColumnWithValue("group_type", groupType);
+		rows.add(row);
+		return row;
 	}
 
 	private void reInitUserStorage() {
@@ -255,8 +365,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorNOTCalledForUnimplementedReturnedGroupsForUser()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "someGroupNotToAdd");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("someGroupNotToAdd");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		userStorage.getUserByIdFromLogin(userId);
@@ -274,8 +384,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorNOTCalledForUnimplementedReturnedGroupsForUserReadingRecord()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "someGroupNotToAdd");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("someGroupNotToAdd");
+		row.addColumnWithValue("group_domain", "uu");
 
 		reInitUserStorage();
 
@@ -286,11 +396,11 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testdataGroupRoleReferenceCreatorOnlyCalledForDomainAdminGroup() throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "someGroupNotToAdd");
-		row.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("someGroupNotToAdd");
+		row.addColumnWithValue("group_domain", "kth");
 
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row2.addColumnWithValue("domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("domainAdmin");
+		row2.addColumnWithValue("group_domain", "uu");
 
 		reInitUserStorage();
 
@@ -316,8 +426,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingDomainAdminUU()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
 
 		reInitUserStorage();
 
@@ -329,8 +439,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingDomainAdminUUReadingRecord()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		userStorage.read("", "14");
@@ -341,10 +451,10 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSeveralDomainAdmin()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row2.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("domainAdmin");
+		row2.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -369,10 +479,10 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSeveralDomainAdminReadingRecord()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row2.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("domainAdmin");
+		row2.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -384,8 +494,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingDomainAdminKTH()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -407,8 +517,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testdataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingDomainAdminKTHReadingRecord()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -420,8 +530,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testDataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSystemAdmin()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row.addColumnWithValue("domain", "diva");
+		RowSpy row = createAndAddUserRowWithGroupType("systemAdmin");
+		row.addColumnWithValue("group_domain", "diva");
 
 		reInitUserStorage();
 
@@ -439,8 +549,8 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testDataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSystemAdminReadingRecord()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row.addColumnWithValue("domain", "diva");
+		RowSpy row = createAndAddUserRowWithGroupType("systemAdmin");
+		row.addColumnWithValue("group_domain", "diva");
 
 		reInitUserStorage();
 
@@ -452,12 +562,12 @@ public class DivaMixedUserStorageTest {
 	@Test
 	public void testDataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSeveralSystemAdmin()
 			throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "kth");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row2.addColumnWithValue("domain", "diva");
-		RowSpy row3 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row3.addColumnWithValue("domain", "other");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "kth");
+		RowSpy row2 = createAndAddUserRowWithGroupType("systemAdmin");
+		row2.addColumnWithValue("group_domain", "diva");
+		RowSpy row3 = createAndAddUserRowWithGroupType("systemAdmin");
+		row3.addColumnWithValue("group_domain", "other");
 
 		reInitUserStorage();
 
@@ -474,12 +584,12 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testDataGroupRoleReferenceCreatorCalledForReturnedGroupsForUserContainingSeveralSystemAdminReadingRecord() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "kth");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row2.addColumnWithValue("domain", "diva");
-		RowSpy row3 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row3.addColumnWithValue("domain", "other");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "kth");
+		RowSpy row2 = createAndAddUserRowWithGroupType("systemAdmin");
+		row2.addColumnWithValue("group_domain", "diva");
+		RowSpy row3 = createAndAddUserRowWithGroupType("systemAdmin");
+		row3.addColumnWithValue("group_domain", "other");
 
 		reInitUserStorage();
 
@@ -490,8 +600,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testCreateUserRoleChildHasNotBeenCalledIfRolesNotExist() throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "someGroupNotToAdd");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("someGroupNotToAdd");
+		row.addColumnWithValue("group_domain", "uu");
 
 		reInitUserStorage();
 
@@ -507,8 +617,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testCreateUserRoleChildHasNotBeenCalledIfRolesNotExistReadingRecord() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "someGroupNotToAdd");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("someGroupNotToAdd");
+		row.addColumnWithValue("group_domain", "uu");
 
 		reInitUserStorage();
 
@@ -519,14 +629,14 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testCreateUserIsCalledWithSeveralDataGroupsAndSystemAdminExists() throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row.addColumnWithValue("domain", "uu");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row2.addColumnWithValue("domain", "uu");
-		RowSpy row3 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row3.addColumnWithValue("domain", "uu");
-		RowSpy row4 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row4.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("systemAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("systemAdmin");
+		row2.addColumnWithValue("group_domain", "uu");
+		RowSpy row3 = createAndAddUserRowWithGroupType("domainAdmin");
+		row3.addColumnWithValue("group_domain", "uu");
+		RowSpy row4 = createAndAddUserRowWithGroupType("domainAdmin");
+		row4.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -551,14 +661,14 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testCreateUserIsCalledWithSeveralDataGroupsAndSystemAdminExistsReadingRecord() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row.addColumnWithValue("domain", "uu");
-		RowSpy row2 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "systemAdmin");
-		row2.addColumnWithValue("domain", "uu");
-		RowSpy row3 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row3.addColumnWithValue("domain", "uu");
-		RowSpy row4 = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row4.addColumnWithValue("domain", "kth");
+		RowSpy row = createAndAddUserRowWithGroupType("systemAdmin");
+		row.addColumnWithValue("group_domain", "uu");
+		RowSpy row2 = createAndAddUserRowWithGroupType("systemAdmin");
+		row2.addColumnWithValue("group_domain", "uu");
+		RowSpy row3 = createAndAddUserRowWithGroupType("domainAdmin");
+		row3.addColumnWithValue("group_domain", "uu");
+		RowSpy row4 = createAndAddUserRowWithGroupType("domainAdmin");
+		row4.addColumnWithValue("group_domain", "kth");
 
 		reInitUserStorage();
 
@@ -569,8 +679,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testRolesAreNotAddedAsChildForUnimplementedReturnedGroupsForUser() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "unimplementedGroup");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("unimplementedGroup");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		DataGroup returnedUser = userStorage.getUserByIdFromLogin(userId);
@@ -586,8 +696,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testRolesAreNotAddedAsChildForUnimplementedReturnedGroupsForUserReadingRecord() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "unimplementedGroup");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("unimplementedGroup");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		DataGroup returnedUser = userStorage.read("", "14");
@@ -597,8 +707,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testRolesAreAddedAsChildForDomainAdmin() throws Exception {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		DataGroup userGroup = userStorage.getUserByIdFromLogin(userId);
@@ -622,8 +732,8 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testRolesAreAddedAsChildForDomainAdminReadingRecord() {
-		RowSpy row = sqlDatabaseFactory.createAndAddRowToReturn("group_type", "domainAdmin");
-		row.addColumnWithValue("domain", "uu");
+		RowSpy row = createAndAddUserRowWithGroupType("domainAdmin");
+		row.addColumnWithValue("group_domain", "uu");
 		reInitUserStorage();
 
 		DataGroup userGroup = userStorage.read("", "14");
@@ -633,12 +743,14 @@ public class DivaMixedUserStorageTest {
 
 	@Test
 	public void testReadingThroughRecordStorageMustUserNotFoundThrowException() throws Exception {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("public.user");
+		sqlDatabaseFactory.throwErrorOnReadInDatabaseFacade = true;
 		try {
 			userStorage.read("", "14");
+			fail("It should throw an exception");
 		} catch (Exception e) {
+			assertTrue(e instanceof RecordNotFoundException);
 			assertEquals(e.getMessage(), "Record not found for type: user and id: 14");
-			assertEquals(e.getCause().getMessage(), "Error from spy for table public.user");
+			assertEquals(e.getCause().getMessage(), "Error reading from databaseFacadeSpy");
 		}
 	}
 
@@ -685,15 +797,7 @@ public class DivaMixedUserStorageTest {
 			+ "Record not found for type: user and id: 15")
 	public void testReadingThroughRecordStorageMustUserNotFoundThrowExceptionOtherId()
 			throws Exception {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("public.user");
-
-		recordStorage.read("", "15");
-	}
-
-	@Test(expectedExceptions = RecordNotFoundException.class, expectedExceptionsMessageRegExp = ""
-			+ "Error when reading roles for user: 15")
-	public void testReadingThroughRecordStorageThrowExceptionWhenReadingRole() throws Exception {
-		sqlDatabaseFactory.tablesToThrowExceptionFor.add("public.groupsforuser");
+		sqlDatabaseFactory.rowsToReturnFromDatabaseFacade.clear();
 
 		recordStorage.read("", "15");
 	}
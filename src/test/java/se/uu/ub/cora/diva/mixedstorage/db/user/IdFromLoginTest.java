@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.db.user;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class IdFromLoginTest {
+
+	@Test
+	public void testParseUserIdAndDomain() {
+		IdFromLogin idFromLogin = IdFromLogin.parse("userId@user.uu.se");
+
+		assertTrue(idFromLogin.isValid());
+		assertEquals(idFromLogin.getUserId(), "userId");
+		assertEquals(idFromLogin.getDomain(), "uu");
+	}
+
+	@Test
+	public void testParseOnlySecondLevelDomain() {
+		IdFromLogin idFromLogin = IdFromLogin.parse("user_1@uu.se");
+
+		assertTrue(idFromLogin.isValid());
+		assertEquals(idFromLogin.getUserId(), "user_1");
+		assertEquals(idFromLogin.getDomain(), "uu");
+	}
+
+	@Test
+	public void testParseTenLabelsInDomain() {
+		IdFromLogin idFromLogin = IdFromLogin
+				.parse("userId@one.two.three.four.five.six.seven.eight.nine.ten");
+
+		assertTrue(idFromLogin.isValid());
+		assertEquals(idFromLogin.getDomain(), "nine");
+	}
+
+	@DataProvider(name = "invalidIdsFromLogin")
+	public Object[][] invalidIdsFromLogin() {
+		return new Object[][] { { "" }, { "userId" }, { "userId@" }, { "@uu.se" },
+				{ "userId@uuse" }, { "userId@uu." }, { "userId@.uu.se" }, { "userId@uu..se" },
+				{ "user@Id@uu.se" }, { "user.Id@uu.se" }, { "user-Id@uu.se" },
+				{ "userId@uu.se\n" }, { "userId@uu.s\u00e9" },
+				{ "userId@one.two.three.four.five.six.seven.eight.nine.ten.eleven" } };
+	}
+
+	@Test(dataProvider = "invalidIdsFromLogin")
+	public void testInvalidFormatSameAsRegularExpression(String idFromLogin) {
+		assertFalse(IdFromLogin.parse(idFromLogin).isValid());
+		assertFalse(idFromLogin.matches("^\\w+@(\\w+\\.){1,9}\\w+$"));
+	}
+}
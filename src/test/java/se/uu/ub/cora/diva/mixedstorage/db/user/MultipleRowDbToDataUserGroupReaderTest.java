@@ -21,11 +21,17 @@ package se.uu.ub.cora.diva.mixedstorage.db.user;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertSame;
 
+import java.util.List;
+import java.util.Map;
+
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.data.DataGroup;
 import se.uu.ub.cora.diva.mixedstorage.db.DivaDbToCoraConverterFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DatabaseFacadeSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.DivaMultipleRowDbToDataReaderImp;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.RowSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableFacadeSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.TableQuerySpy;
@@ -64,4 +70,23 @@ public class MultipleRowDbToDataUserGroupReaderTest {
 		assertEquals(tableQuery.conditions.get("db_id"), 67);
 	}
 
+	@Test
+	public void testReadForIds() {
+		DivaMultipleRowDbToDataReaderImp userGroupReader = new MultipleRowDbToDataUserGroupReader(
+				sqlDatabaseFactory, converterFactory);
+		DatabaseFacadeSpy databaseFacade = new DatabaseFacadeSpy();
+		RowSpy row = new RowSpy();
+		row.addColumnWithValue("db_id", 67);
+		databaseFacade.rowsToReturn.add(row);
+
+		Map<String, List<DataGroup>> readGroups = userGroupReader.readForIds(databaseFacade,
+				List.of("67", "68"));
+
+		assertEquals(databaseFacade.readSqls.get(0),
+				"select * from groupsforuser where db_id in (?, ?)");
+		assertEquals(databaseFacade.readValuesList.get(0), List.of(67, 68));
+		assertEquals(readGroups.size(), 1);
+		assertEquals(readGroups.get("67").size(), 1);
+	}
+
 }
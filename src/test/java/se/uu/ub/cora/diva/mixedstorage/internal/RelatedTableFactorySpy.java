@@ -29,11 +29,13 @@ public class RelatedTableFactorySpy implements RelatedTableFactory {
 
 	public List<RelatedTable> factoredRelatedTables = new ArrayList<>();
 	public List<String> relatedTableNames = new ArrayList<>();
+	public boolean returnNoDbStatements = false;
 
 	@Override
 	public RelatedTable factor(String relatedTableName) {
 		relatedTableNames.add(relatedTableName);
-		RelatedTable factoredRelatedTable = new RelatedTableSpy();
+		RelatedTableSpy factoredRelatedTable = new RelatedTableSpy();
+		factoredRelatedTable.returnNoDbStatements = returnNoDbStatements;
 		factoredRelatedTables.add(factoredRelatedTable);
 		return factoredRelatedTable;
 	}
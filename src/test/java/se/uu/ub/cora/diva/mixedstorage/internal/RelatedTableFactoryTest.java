@@ -19,16 +19,21 @@
 package se.uu.ub.cora.diva.mixedstorage.internal;
 
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import se.uu.ub.cora.diva.mixedstorage.NotImplementedException;
+import se.uu.ub.cora.diva.mixedstorage.db.BlockSequenceAllocator;
+import se.uu.ub.cora.diva.mixedstorage.db.SequenceAllocatorSpy;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAddressRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationAlternativeNameRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationParentRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.OrganisationPredecessorRelatedTable;
 import se.uu.ub.cora.diva.mixedstorage.db.organisation.SqlDatabaseFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.log.LoggerFactorySpy;
+import se.uu.ub.cora.logger.LoggerProvider;
 
 public class RelatedTableFactoryTest {
 
@@ -37,6 +42,7 @@ public class RelatedTableFactoryTest {
 
 	@BeforeMethod
 	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
 		sqlDatabaseFactory = new SqlDatabaseFactorySpy();
 		factory = RelatedTableFactoryImp.usingReaderDeleterAndCreator(sqlDatabaseFactory);
 	}
@@ -46,6 +52,32 @@ public class RelatedTableFactoryTest {
 		assertSame(factory.getSqlDatabaseFactory(), sqlDatabaseFactory);
 	}
 
+	@Test
+	public void testDefaultSequenceAllocator() {
+		BlockSequenceAllocator sequenceAllocator = (BlockSequenceAllocator) factory
+				.getSequenceAllocator();
+		assertSame(sequenceAllocator.getSqlDatabaseFactory(), sqlDatabaseFactory);
+		assertTrue(sequenceAllocator.getBlockSize() > 1);
+	}
+
+	@Test
+	public void testSequenceAllocatorIsSharedByRelatedTables() {
+		SequenceAllocatorSpy sequenceAllocator = new SequenceAllocatorSpy();
+		factory = RelatedTableFactoryImp
+				.usingSqlDatabaseFactoryAndSequenceAllocator(sqlDatabaseFactory, sequenceAllocator);
+
+		var alternativeName = (OrganisationAlternativeNameRelatedTable) factory
+				.factor("organisationAlternativeName");
+		var address = (OrganisationAddressRelatedTable) factory.factor("organisationAddress");
+		var predecessor = (OrganisationPredecessorRelatedTable) factory
+				.factor("organisationPredecessor");
+
+		assertSame(factory.getSequenceAllocator(), sequenceAllocator);
+		assertSame(alternativeName.getSequenceAllocator(), sequenceAllocator);
+		assertSame(address.getSequenceAllocator(), sequenceAllocator);
+		assertSame(predecessor.getSequenceAllocator(), sequenceAllocator);
+	}
+
 	@Test
 	public void testFactorOrganisationAlternativeName() {
 		OrganisationAlternativeNameRelatedTable factoredTable = (OrganisationAlternativeNameRelatedTable) factory
@@ -19,16 +19,16 @@
 
 package se.uu.ub.cora.diva.mixedstorage.log;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import se.uu.ub.cora.logger.Logger;
 import se.uu.ub.cora.logger.LoggerFactory;
 
 public class LoggerFactorySpy implements LoggerFactory {
 
-	public Map<String, LoggerSpy> createdLoggers = new HashMap<>();
+	public Map<String, LoggerSpy> createdLoggers = new ConcurrentHashMap<>();
 
 	@Override
 	public Logger factorForClass(Class<? extends Object> javaClass) {
@@ -20,6 +20,7 @@
 package se.uu.ub.cora.diva.mixedstorage.log;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -27,10 +28,10 @@ import se.uu.ub.cora.logger.Logger;
 
 public class LoggerSpy implements Logger {
 
-	public List<String> fatalMessages = new ArrayList<>();
-	public List<String> errorMessages = new ArrayList<>();
-	public List<String> infoMessages = new ArrayList<>();
-	public List<Exception> errorExceptions = new ArrayList<>();
+	public List<String> fatalMessages = Collections.synchronizedList(new ArrayList<>());
+	public List<String> errorMessages = Collections.synchronizedList(new ArrayList<>());
+	public List<String> infoMessages = Collections.synchronizedList(new ArrayList<>());
+	public List<Exception> errorExceptions = Collections.synchronizedList(new ArrayList<>());
 
 	@Override
 	public void logFatalUsingMessage(String message) {
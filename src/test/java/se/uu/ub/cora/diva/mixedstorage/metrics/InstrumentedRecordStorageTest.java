@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
+import se.uu.ub.cora.diva.mixedstorage.RecordStorageSpy;
+import se.uu.ub.cora.storage.RecordNotFoundException;
+import se.uu.ub.cora.storage.RecordStorage;
+import se.uu.ub.cora.storage.StorageReadResult;
+
+public class InstrumentedRecordStorageTest {
+
+	private RecordStorageSpy recordStorageSpy;
+	private StorageMetrics storageMetrics;
+	private InstrumentedRecordStorage instrumentedStorage;
+	private DataGroup filter = new DataGroupSpy("filter");
+
+	@BeforeMethod
+	public void setUp() {
+		recordStorageSpy = new RecordStorageSpy();
+		storageMetrics = new StorageMetrics();
+		instrumentedStorage = InstrumentedRecordStorage
+				.usingBackendRecordStorageAndStorageMetrics("basic", recordStorageSpy,
+						storageMetrics);
+	}
+
+	@Test
+	public void testInit() {
+		assertTrue(instrumentedStorage instanceof RecordStorage);
+		assertEquals(instrumentedStorage.getBackend(), "basic");
+		assertSame(instrumentedStorage.getRecordStorage(), recordStorageSpy);
+	}
+
+	@Test
+	public void testRead() {
+		DataGroup read = instrumentedStorage.read("someType", "someId");
+
+		assertSame(read, recordStorageSpy.data.answer);
+		assertEquals(recordStorageSpy.data.id, "someId");
+		assertCallMeasured("read", "someType", 0);
+	}
+
+	private void assertCallMeasured(String operation, String type, long errorCount) {
+		assertCallMeasured(operation, type, errorCount, 0);
+	}
+
+	private void assertCallMeasured(String operation, String type, long errorCount,
+			long notFoundCount) {
+		assertEquals(recordStorageSpy.data.calledMethod, operation);
+		assertEquals(recordStorageSpy.data.type, type);
+		List<OperationMetricsSnapshot> snapshot = storageMetrics.getSnapshot();
+		assertEquals(snapshot.size(), 1);
+		OperationMetricsSnapshot operationSnapshot = snapshot.get(0);
+		assertEquals(operationSnapshot.getBackend(), "basic");
+		assertEquals(operationSnapshot.getOperation(), operation);
+		assertEquals(operationSnapshot.getRecordType(), type);
+		assertEquals(operationSnapshot.getCallCount(), 1);
+		assertEquals(operationSnapshot.getErrorCount(), errorCount);
+		assertEquals(operationSnapshot.getNotFoundCount(), notFoundCount);
+	}
+
+	@Test
+	public void testReadNotFoundIsMeasuredAsNotFoundAndRethrown() {
+		recordStorageSpy.existsInStorage = false;
+		try {
+			instrumentedStorage.read("someType", "someId");
+			fail("An exception should have been thrown");
+		} catch (RecordNotFoundException e) {
+			assertEquals(e.getMessage(), "error from spy");
+		}
+		assertCallMeasured("read", "someType", 0, 1);
+	}
+
+	@Test
+	public void testReadFailedIsMeasuredAsErrorAndRethrown() {
+		RuntimeException error = new RuntimeException("some error");
+		recordStorageSpy.errorToThrowOnRead = error;
+		try {
+			instrumentedStorage.read("someType", "someId");
+			fail("An exception should have been thrown");
+		} catch (RuntimeException e) {
+			assertSame(e, error);
+		}
+		assertCallMeasured("read", "someType", 1, 0);
+	}
+
+	@Test
+	public void testCreate() {
+		DataGroup dataRecord = new DataGroupSpy("someRecord");
+		instrumentedStorage.create("someType", "someId", dataRecord, null, null, "someDivider");
+
+		assertSame(recordStorageSpy.data.record, dataRecord);
+		assertEquals(recordStorageSpy.data.dataDivider, "someDivider");
+		assertCallMeasured("create", "someType", 0);
+	}
+
+	@Test
+	public void testDeleteByTypeAndId() {
+		instrumentedStorage.deleteByTypeAndId("someType", "someId");
+
+		assertEquals(recordStorageSpy.data.id, "someId");
+		assertCallMeasured("deleteByTypeAndId", "someType", 0);
+	}
+
+	@Test
+	public void testLinksExistForRecord() {
+		boolean linksExist = instrumentedStorage.linksExistForRecord("someType", "someId");
+
+		assertEquals(linksExist, recordStorageSpy.data.answer);
+		assertCallMeasured("linksExistForRecord", "someType", 0);
+	}
+
+	@Test
+	public void testUpdate() {
+		DataGroup dataRecord = new DataGroupSpy("someRecord");
+		instrumentedStorage.update("someType", "someId", dataRecord, null, null, "someDivider");
+
+		assertSame(recordStorageSpy.data.record, dataRecord);
+		assertEquals(recordStorageSpy.data.dataDivider, "someDivider");
+		assertCallMeasured("update", "someType", 0);
+	}
+
+	@Test
+	public void testReadList() {
+		StorageReadResult result = instrumentedStorage.readList("someType", filter);
+
+		assertSame(result, recordStorageSpy.storageReadResult);
+		assertSame(recordStorageSpy.data.filter, filter);
+		assertCallMeasured("readList", "someType", 0);
+	}
+
+	@Test
+	public void testReadAbstractList() {
+		StorageReadResult result = instrumentedStorage.readAbstractList("someType", filter);
+
+		assertSame(result.listOfDataGroups, recordStorageSpy.data.answer);
+		assertSame(recordStorageSpy.data.filter, filter);
+		assertCallMeasured("readAbstractList", "someType", 0);
+	}
+
+	@Test
+	public void testReadLinkList() {
+		DataGroup linkList = instrumentedStorage.readLinkList("someType", "someId");
+
+		assertSame(linkList, recordStorageSpy.data.answer);
+		assertCallMeasured("readLinkList", "someType", 0);
+	}
+
+	@Test
+	public void testGenerateLinkCollectionPointingToRecord() {
+		Collection<DataGroup> links = instrumentedStorage
+				.generateLinkCollectionPointingToRecord("someType", "someId");
+
+		assertSame(links, recordStorageSpy.data.answer);
+		assertCallMeasured("generateLinkCollectionPointingToRecord", "someType", 0);
+	}
+
+	@Test
+	public void testRecordExistsForAbstractOrImplementingRecordTypeAndRecordId() {
+		recordStorageSpy.linkExistsInStorage = true;
+		boolean exists = instrumentedStorage
+				.recordExistsForAbstractOrImplementingRecordTypeAndRecordId("someType", "someId");
+
+		assertTrue(exists);
+		assertCallMeasured("recordExistsForAbstractOrImplementingRecordTypeAndRecordId",
+				"someType", 0);
+	}
+
+	@Test
+	public void testGetTotalNumberOfRecordsForType() {
+		long count = instrumentedStorage.getTotalNumberOfRecordsForType("someType", filter);
+
+		assertEquals(count, 234L);
+		assertCallMeasured("getTotalNumberOfRecordsForType", "someType", 0);
+	}
+
+	@Test
+	public void testGetTotalNumberOfRecordsForAbstractType() {
+		List<String> implementingTypes = Collections.singletonList("someImplementingType");
+		long count = instrumentedStorage.getTotalNumberOfRecordsForAbstractType("someType",
+				implementingTypes, filter);
+
+		assertEquals(count, 567L);
+		assertSame(recordStorageSpy.implementingTypes, implementingTypes);
+		assertCallMeasured("getTotalNumberOfRecordsForAbstractType", "someType", 0);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram;
+
+	@BeforeMethod
+	public void setUp() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testEmptyHistogram() {
+		assertEquals(histogram.getCount(), 0);
+		assertEquals(histogram.getValueAtPercentile(50), 0);
+		assertEquals(histogram.getValueAtPercentile(99), 0);
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		for (long value = 0; value < 8; value++) {
+			assertEquals(LatencyHistogram.getBucketUpperBound(LatencyHistogram
+					.getBucketIndex(value)), value);
+		}
+	}
+
+	@Test
+	public void testUpperBoundIsAtMostQuarterLargerThanValue() {
+		for (long value = 1; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 + 1) {
+			long upperBound = LatencyHistogram
+					.getBucketUpperBound(LatencyHistogram.getBucketIndex(value));
+			assertTrue(upperBound >= value);
+			assertTrue(upperBound <= value + value / 4, "value: " + value);
+		}
+	}
+
+	@Test
+	public void testBucketIndexesAreIncreasing() {
+		int previousIndex = -1;
+		for (long value = 0; value < 100000; value++) {
+			int index = LatencyHistogram.getBucketIndex(value);
+			assertTrue(index >= previousIndex);
+			previousIndex = index;
+		}
+	}
+
+	@Test
+	public void testLargestValue() {
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(histogram.getValueAtPercentile(100), Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testNegativeValueIsRecordedAsZero() {
+		histogram.record(-5);
+		assertEquals(histogram.getCount(), 1);
+		assertEquals(histogram.getValueAtPercentile(50), 0);
+	}
+
+	@Test
+	public void testPercentiles() {
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000L);
+		}
+		assertEquals(histogram.getCount(), 100);
+		assertValueAtPercentileIsCloseTo(50, 50000);
+		assertValueAtPercentileIsCloseTo(95, 95000);
+		assertValueAtPercentileIsCloseTo(99, 99000);
+	}
+
+	private void assertValueAtPercentileIsCloseTo(double percentile, long expected) {
+		long value = histogram.getValueAtPercentile(percentile);
+		assertTrue(value >= expected && value <= expected + expected / 4,
+				"percentile " + percentile + " was: " + value);
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StorageMetricsTest {
+
+	private StorageMetrics storageMetrics;
+
+	@BeforeMethod
+	public void setUp() {
+		storageMetrics = new StorageMetrics();
+	}
+
+	@Test
+	public void testImplementsMXBean() {
+		assertTrue(storageMetrics instanceof StorageMetricsMXBean);
+	}
+
+	@Test
+	public void testNoCallsGivesEmptySnapshot() {
+		storageMetrics.getMetricsForBackendAndOperation("basic", "read");
+		assertTrue(storageMetrics.getSnapshot().isEmpty());
+	}
+
+	@Test
+	public void testSameMetricsForSameBackendAndOperation() {
+		RecordTypeMetrics metrics = storageMetrics.getMetricsForBackendAndOperation("basic",
+				"read");
+		assertSame(storageMetrics.getMetricsForBackendAndOperation("basic", "read"), metrics);
+	}
+
+	@Test
+	public void testSnapshot() {
+		RecordTypeMetrics metrics = storageMetrics.getMetricsForBackendAndOperation("basic",
+				"read");
+		metrics.recordForType("someType", 2_000_000, false);
+		metrics.recordForType("someType", 4_000_000, false);
+		metrics.recordForType("someType", 6_000_000, true);
+		metrics.recordNotFoundForType("someType", 4_000_000);
+
+		List<OperationMetricsSnapshot> snapshot = storageMetrics.getSnapshot();
+
+		assertEquals(snapshot.size(), 1);
+		OperationMetricsSnapshot typeSnapshot = snapshot.get(0);
+		assertEquals(typeSnapshot.getBackend(), "basic");
+		assertEquals(typeSnapshot.getOperation(), "read");
+		assertEquals(typeSnapshot.getRecordType(), "someType");
+		assertEquals(typeSnapshot.getCallCount(), 4);
+		assertEquals(typeSnapshot.getErrorCount(), 1);
+		assertEquals(typeSnapshot.getNotFoundCount(), 1);
+		assertEquals(typeSnapshot.getMeanMicros(), 4000);
+		assertIsCloseTo(typeSnapshot.getP50Micros(), 4000);
+		assertIsCloseTo(typeSnapshot.getP95Micros(), 6000);
+		assertIsCloseTo(typeSnapshot.getP99Micros(), 6000);
+	}
+
+	private void assertIsCloseTo(long value, long expected) {
+		assertTrue(value >= expected && value <= expected + expected / 4, "was: " + value);
+	}
+
+	@Test
+	public void testSnapshotIsSortedByBackendOperationAndType() {
+		storageMetrics.getMetricsForBackendAndOperation("user", "read").recordForType("user", 1,
+				false);
+		storageMetrics.getMetricsForBackendAndOperation("basic", "update").recordForType("place",
+				1, false);
+		storageMetrics.getMetricsForBackendAndOperation("basic", "read").recordForType("place", 1,
+				false);
+		storageMetrics.getMetricsForBackendAndOperation("basic", "read").recordForType("image", 1,
+				false);
+
+		List<OperationMetricsSnapshot> snapshot = storageMetrics.getOperationMetrics();
+
+		assertEquals(snapshot.size(), 4);
+		assertBackendOperationAndType(snapshot.get(0), "basic", "read", "image");
+		assertBackendOperationAndType(snapshot.get(1), "basic", "read", "place");
+		assertBackendOperationAndType(snapshot.get(2), "basic", "update", "place");
+		assertBackendOperationAndType(snapshot.get(3), "user", "read", "user");
+	}
+
+	private void assertBackendOperationAndType(OperationMetricsSnapshot snapshot,
+			String backend, String operation, String recordType) {
+		assertEquals(snapshot.getBackend(), backend);
+		assertEquals(snapshot.getOperation(), operation);
+		assertEquals(snapshot.getRecordType(), recordType);
+	}
+}
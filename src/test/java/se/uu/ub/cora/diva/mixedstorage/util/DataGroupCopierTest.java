@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.diva.mixedstorage.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.data.DataAtomicProvider;
+import se.uu.ub.cora.data.DataAttribute;
+import se.uu.ub.cora.data.DataGroup;
+import se.uu.ub.cora.data.DataGroupProvider;
+import se.uu.ub.cora.data.DataRecordLinkProvider;
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.DataAtomicSpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.DataGroupSpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DataRecordLinkFactorySpy;
+import se.uu.ub.cora.diva.mixedstorage.db.organisation.DataRecordLinkSpy;
+
+public class DataGroupCopierTest {
+
+	private DataGroupFactorySpy dataGroupFactory;
+	private DataAtomicFactorySpy dataAtomicFactory;
+	private DataRecordLinkFactorySpy dataRecordLinkFactory;
+
+	@BeforeMethod
+	public void setUp() {
+		dataGroupFactory = new DataGroupFactorySpy();
+		DataGroupProvider.setDataGroupFactory(dataGroupFactory);
+		dataAtomicFactory = new DataAtomicFactorySpy();
+		DataAtomicProvider.setDataAtomicFactory(dataAtomicFactory);
+		dataRecordLinkFactory = new DataRecordLinkFactorySpy();
+		DataRecordLinkProvider.setDataRecordLinkFactory(dataRecordLinkFactory);
+	}
+
+	@Test
+	public void testPrivateConstructor() throws Exception {
+		Constructor<DataGroupCopier> constructor = DataGroupCopier.class.getDeclaredConstructor();
+		assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+	}
+
+	@Test(expectedExceptions = InvocationTargetException.class)
+	public void testPrivateConstructorInvoke() throws Exception {
+		Constructor<DataGroupCopier> constructor = DataGroupCopier.class.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		constructor.newInstance();
+	}
+
+	@Test
+	public void testCopyEmptyGroup() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation");
+		dataGroup.setRepeatId("2");
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		assertNotSame(copy, dataGroup);
+		assertEquals(copy.getNameInData(), "organisation");
+		assertEquals(copy.getRepeatId(), "2");
+		assertTrue(copy.getChildren().isEmpty());
+	}
+
+	@Test
+	public void testCopyAttributes() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation") {
+			@Override
+			public boolean hasAttributes() {
+				return true;
+			}
+		};
+		dataGroup.addAttributeByIdWithValue("type", "unit");
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		DataAttribute copiedAttribute = copy.getAttributes().iterator().next();
+		assertEquals(copiedAttribute.getNameInData(), "type");
+		assertEquals(copiedAttribute.getValue(), "unit");
+	}
+
+	@Test
+	public void testCopyAtomicChild() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation");
+		DataAtomicSpy atomic = new DataAtomicSpy("organisationCode", "someCode");
+		atomic.setRepeatId("1");
+		dataGroup.addChild(atomic);
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		assertEquals(copy.getChildren().size(), 1);
+		assertNotSame(copy.getChildren().get(0), atomic);
+		assertEquals(dataAtomicFactory.usedNameInDatas.get(0), "organisationCode");
+		assertEquals(dataAtomicFactory.usedValues.get(0), "someCode");
+		assertEquals(dataAtomicFactory.usedRepeatIds.get(0), "1");
+	}
+
+	@Test
+	public void testCopyGroupChildIsDeepCopied() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation");
+		DataGroupSpy childGroup = new DataGroupSpy("name");
+		childGroup.addChild(new DataAtomicSpy("organisationName", "someName"));
+		dataGroup.addChild(childGroup);
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		DataGroup copiedChild = copy.getFirstGroupWithNameInData("name");
+		assertNotSame(copiedChild, childGroup);
+		assertEquals(copiedChild.getChildren().size(), 1);
+		assertEquals(dataGroupFactory.usedNameInDatas.get(1), "name");
+		assertEquals(dataAtomicFactory.usedNameInDatas.get(0), "organisationName");
+	}
+
+	@Test
+	public void testCopyLinkChild() {
+		DataGroupSpy dataGroup = new DataGroupSpy("parentOrganisation");
+		DataRecordLinkSpy link = new DataRecordLinkSpy("organisationLink");
+		link.atomicValues.put("linkedRecordType", "topOrganisation");
+		link.atomicValues.put("linkedRecordId", "51");
+		dataGroup.addChild(link);
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		DataRecordLinkSpy copiedLink = (DataRecordLinkSpy) copy.getChildren().get(0);
+		assertNotSame(copiedLink, link);
+		assertEquals(dataRecordLinkFactory.usedNameInDatas.get(0), "organisationLink");
+		assertEquals(copiedLink.recordType, "topOrganisation");
+		assertEquals(copiedLink.recordId, "51");
+	}
+
+	@Test
+	public void testCopyRepeatedLinkWithAttributes() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation");
+		DataRecordLinkSpy link = new DataRecordLinkSpy("earlierOrganisation", "subOrganisation",
+				"52");
+		link.setRepeatId("3");
+		link.addAttributeByIdWithValue("type", "someType");
+		dataGroup.addChild(link);
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		DataRecordLinkSpy copiedLink = (DataRecordLinkSpy) copy.getChildren().get(0);
+		assertNotSame(copiedLink, link);
+		assertEquals(copiedLink.getRepeatId(), "3");
+		DataAttribute copiedAttribute = copiedLink.getAttributes().iterator().next();
+		assertEquals(copiedAttribute.getNameInData(), "type");
+		assertEquals(copiedAttribute.getValue(), "someType");
+		assertEquals(copiedLink.getLinkedRecordId(), "52");
+	}
+
+	@Test
+	public void testCopyLinkWithoutAttributes() {
+		DataGroupSpy dataGroup = new DataGroupSpy("organisation");
+		dataGroup.addChild(new DataRecordLinkSpy("organisationLink", "topOrganisation", "51"));
+
+		DataGroup copy = DataGroupCopier.copy(dataGroup);
+
+		DataRecordLinkSpy copiedLink = (DataRecordLinkSpy) copy.getChildren().get(0);
+		assertNull(copiedLink.getRepeatId());
+		assertTrue(copiedLink.getAttributes().isEmpty());
+	}
+}